@@ -10,9 +10,11 @@ package com.alliander.osgp.adapter.protocol.iec61850.application.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableMBeanExport;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.annotation.PropertySources;
+import org.springframework.jmx.support.RegistrationPolicy;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import com.alliander.osgp.adapter.protocol.iec61850.device.FirmwareLocation;
@@ -25,13 +27,13 @@ import com.alliander.osgp.shared.application.config.AbstractConfig;
 @Configuration
 @ComponentScan(basePackages = { "com.alliander.osgp.adapter.protocol.iec61850", "com.alliander.osgp.core.db.api" })
 @EnableTransactionManagement()
+@EnableMBeanExport(registration = RegistrationPolicy.IGNORE_EXISTING)
 @Import({ MessagingConfig.class, Iec61850OsgpCoreDbApiPersistenceConfig.class, Iec61850Config.class })
 @PropertySources({ @PropertySource("classpath:osgp-adapter-protocol-iec61850.properties"),
         @PropertySource(value = "file:${osgp/Global/config}", ignoreResourceNotFound = true),
         @PropertySource(value = "file:${osgp/AdapterProtocolIec61850/config}", ignoreResourceNotFound = true), })
 public class ApplicationContext extends AbstractConfig {
 
-    private static final String PROPERTY_NAME_MAX_RETRY_COUNT = "retrycount.max";
     private static final String PROPERTY_NAME_SELFTEST_TIMEOUT = "selftest.timeout";
 
     private static final String PROPERTY_NAME_CONNECTION_RESPONSE_TIMEOUT = "connection.response.timeout";
@@ -43,14 +45,6 @@ public class ApplicationContext extends AbstractConfig {
 
     private static final String PROPERTY_NAME_USE_COMBINED_LOAD = "use.combined.load";
 
-    /**
-     * The number of times the communication with the device is retried
-     */
-    @Bean
-    public int maxRetryCount() {
-        return Integer.parseInt(this.environment.getProperty(PROPERTY_NAME_MAX_RETRY_COUNT));
-    }
-
     /**
      * The amount of time, in milliseconds, the library will wait for a
      * response.
@@ -32,8 +32,12 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Device;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.codec.PayloadCodecs;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ChannelHandlerServer;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.RegisterDeviceRequestDecoder;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.RetryPolicies;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.RetryPolicy;
 import com.alliander.osgp.shared.application.config.AbstractConfig;
 
 @Configuration
@@ -66,6 +70,56 @@ public class Iec61850Config extends AbstractConfig {
 
     private static final String PROPERTY_NAME_IEC61850_IS_BUFFERED_REPORTING_ENABLED = "iec61850.is.buffered.reporting.enabled";
 
+    private static final String PROPERTY_NAME_IEC61850_SERVER_MODEL_SNAPSHOT_CACHE_MAX_SIZE = "iec61850.server.model.snapshot.cache.max.size";
+
+    private static final String PROPERTY_NAME_IEC61850_READ_BATCH_MAX_SIZE = "iec61850.read.batch.max.size";
+
+    private static final String PROPERTY_NAME_IEC61850_CONNECTION_POOL_MAX_SIZE = "iec61850.connection.pool.max.size";
+    private static final String PROPERTY_NAME_IEC61850_CONNECTION_POOL_IDLE_TIMEOUT = "iec61850.connection.pool.idle.timeout";
+    private static final String PROPERTY_NAME_IEC61850_CONNECTION_POOL_MAX_AGE = "iec61850.connection.pool.max.age";
+    private static final String PROPERTY_NAME_IEC61850_CONNECTION_POOL_EVICTION_INTERVAL = "iec61850.connection.pool.eviction.interval";
+    private static final String PROPERTY_NAME_IEC61850_CONNECTION_HEALTH_CHECK_INTERVAL = "iec61850.connection.health.check.interval";
+    private static final String PROPERTY_NAME_IEC61850_CONNECTION_HEALTH_MAX_AGE = "iec61850.connection.health.max.age";
+    private static final String PROPERTY_NAME_IEC61850_CONNECTION_HEALTH_CHECK_POOL_SIZE = "iec61850.connection.health.check.pool.size";
+    private static final String PROPERTY_NAME_IEC61850_CONNECTION_HEALTH_CHECK_TIMEOUT = "iec61850.connection.health.check.timeout";
+    private static final String PROPERTY_NAME_IEC61850_CIRCUIT_BREAKER_FAILURE_THRESHOLD = "iec61850.circuit.breaker.failure.threshold";
+    private static final String PROPERTY_NAME_IEC61850_CIRCUIT_BREAKER_COOLDOWN = "iec61850.circuit.breaker.cooldown";
+    private static final String PROPERTY_NAME_IEC61850_DEVICE_CACHE_TIME_TO_LIVE = "iec61850.device.cache.time.to.live";
+    private static final String PROPERTY_NAME_IEC61850_DEVICE_REQUEST_EXECUTOR_POOL_SIZE = "iec61850.device.request.executor.pool.size";
+    private static final String PROPERTY_NAME_IEC61850_DEVICE_REQUEST_EXECUTOR_MAX_PENDING = "iec61850.device.request.executor.max.pending";
+    private static final String PROPERTY_NAME_IEC61850_DEVICE_REQUEST_REDELIVERY_DELAY = "iec61850.device.request.redelivery.delay";
+    private static final String PROPERTY_NAME_IEC61850_DEVICE_REQUEST_PRIORITY_WEIGHTS = "iec61850.device.request.priority.weights";
+    private static final String PROPERTY_NAME_IEC61850_REPORT_DISPATCHER_POOL_SIZE = "iec61850.report.dispatcher.pool.size";
+    private static final String PROPERTY_NAME_IEC61850_REPORT_DISPATCHER_CAPACITY = "iec61850.report.dispatcher.capacity";
+    private static final String PROPERTY_NAME_IEC61850_REPORT_DISPATCHER_OVERFLOW_POLICY = "iec61850.report.dispatcher.overflow.policy";
+    private static final String PROPERTY_NAME_IEC61850_REPORT_ENTRY_FLUSH_INTERVAL = "iec61850.report.entry.flush.interval";
+    private static final String PROPERTY_NAME_IEC61850_REPORT_ENTRY_FLUSH_BATCH_SIZE = "iec61850.report.entry.flush.batch.size";
+    private static final String PROPERTY_NAME_IEC61850_REPORT_BATCH_WINDOW = "iec61850.report.batch.window";
+    private static final String PROPERTY_NAME_IEC61850_REPORT_BATCH_MAX_SIZE = "iec61850.report.batch.max.size";
+    private static final String PROPERTY_NAME_IEC61850_EVENT_NOTIFICATION_FLUSH_INTERVAL = "iec61850.event.notification.flush.interval";
+    private static final String PROPERTY_NAME_IEC61850_EVENT_NOTIFICATION_FLUSH_MAX_SIZE = "iec61850.event.notification.flush.max.size";
+    private static final String PROPERTY_NAME_IEC61850_REPORT_LOG_SAMPLE_RATE = "iec61850.report.log.sample.rate";
+    private static final String PROPERTY_NAME_IEC61850_REPORT_GAP_RESYNC_INTERVAL = "iec61850.report.gap.resync.interval";
+    private static final String PROPERTY_NAME_JMS_IEC61850_RESPONSES_PAYLOAD_CODEC = "jms.iec61850.responses.payload.codec";
+    private static final String PROPERTY_NAME_JMS_OSGP_REQUESTS_PAYLOAD_CODEC = "jms.osgp.requests.payload.codec";
+    private static final String PROPERTY_NAME_JMS_IEC61850_LOG_ITEM_REQUESTS_PAYLOAD_CODEC = "jms.iec61850.log.item.requests.payload.codec";
+    private static final String PROPERTY_NAME_IEC61850_LOG_ITEM_QUEUE_CAPACITY = "iec61850.log.item.queue.capacity";
+    private static final String PROPERTY_NAME_IEC61850_LOG_ITEM_BATCH_SIZE = "iec61850.log.item.batch.size";
+    private static final String PROPERTY_NAME_IEC61850_LOG_ITEM_OVERFLOW_POLICY = "iec61850.log.item.overflow.policy";
+    private static final String PROPERTY_NAME_JMS_LISTENER_AUTOTUNING_INTERVAL = "jms.listener.autotuning.interval";
+    private static final String PROPERTY_NAME_IEC61850_DEVICE_REQUEST_EXECUTOR_AUTOTUNING_POOL_SIZE_MAX = "iec61850.device.request.executor.autotuning.pool.size.max";
+    private static final String PROPERTY_NAME_IEC61850_DEVICE_REQUEST_EXECUTOR_AUTOTUNING_MAX_PENDING_MAX = "iec61850.device.request.executor.autotuning.max.pending.max";
+
+    private static final String PROPERTY_NAME_MAX_RETRY_COUNT = "retrycount.max";
+    private static final String PROPERTY_PREFIX_IEC61850_RETRY = "iec61850.retry.";
+    private static final String PROPERTY_SUFFIX_MAX_RETRIES = "max.retries";
+    private static final String PROPERTY_SUFFIX_INITIAL_BACKOFF = "initial.backoff";
+    private static final String PROPERTY_SUFFIX_BACKOFF_MULTIPLIER = "backoff.multiplier";
+    private static final String PROPERTY_SUFFIX_MAX_BACKOFF = "max.backoff";
+    private static final String PROPERTY_SUFFIX_JITTER_PERCENTAGE = "jitter.percentage";
+    private static final String PROPERTY_SUFFIX_MAX_ELAPSED_TIME = "max.elapsed.time";
+    private static final String PROPERTY_SUFFIX_RECONNECT_ON_BROKEN = "reconnect.on.broken";
+
     private static final String PROPERTY_NAME_OSLP_DEFAULT_LATITUDE = "iec61850.default.latitude";
     private static final String PROPERTY_NAME_OSLP_DEFAULT_LONGITUDE = "iec61850.default.longitude";
 
@@ -273,4 +327,458 @@ public class Iec61850Config extends AbstractConfig {
     public Float defaultLongitude() {
         return Float.parseFloat(this.environment.getRequiredProperty(PROPERTY_NAME_OSLP_DEFAULT_LONGITUDE));
     }
+
+    /**
+     * The maximum number of cached connections on this node. If this property
+     * is not set, the default value of 1000 connections is used.
+     */
+    @Bean
+    public int connectionPoolMaxSize() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_CONNECTION_POOL_MAX_SIZE, 1000);
+    }
+
+    /**
+     * The time (in milliseconds) a cached connection may be unused before it
+     * is closed. If this property is not set, the default value of 300000
+     * milliseconds is used.
+     */
+    @Bean
+    public int connectionPoolIdleTimeout() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_CONNECTION_POOL_IDLE_TIMEOUT, 300000);
+    }
+
+    /**
+     * The time (in milliseconds) after which a cached connection is closed and
+     * replaced by a new one. If this property is not set, the default value of
+     * 3600000 milliseconds is used.
+     */
+    @Bean
+    public int connectionPoolMaxAge() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_CONNECTION_POOL_MAX_AGE, 3600000);
+    }
+
+    /**
+     * The interval (in milliseconds) at which idle and aged connections are
+     * evicted from the pool. If this property is not set, the default value of
+     * 60000 milliseconds is used.
+     */
+    @Bean
+    public int connectionPoolEvictionInterval() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_CONNECTION_POOL_EVICTION_INTERVAL, 60000);
+    }
+
+    /**
+     * The maximum number of server models retrieved from devices that are
+     * kept for reuse. If this property is not set, the default value of 1000
+     * server models is used.
+     */
+    @Bean
+    public int serverModelSnapshotCacheMaxSize() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_SERVER_MODEL_SNAPSHOT_CACHE_MAX_SIZE, 1000);
+    }
+
+    /**
+     * The maximum number of nodes read from a device using one data set. More
+     * nodes are read using multiple data sets. If this property is not set,
+     * the default value of 50 nodes is used.
+     */
+    @Bean
+    public int readBatchMaxSize() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_READ_BATCH_MAX_SIZE, 50);
+    }
+
+    /**
+     * The interval (in milliseconds) at which cached connections are checked
+     * in the background. If this property is not set, the default value of
+     * 30000 milliseconds is used.
+     */
+    @Bean
+    public int connectionHealthCheckInterval() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_CONNECTION_HEALTH_CHECK_INTERVAL, 30000);
+    }
+
+    /**
+     * The time (in milliseconds) a cached connection that has been checked is
+     * trusted without checking it again. If this property is not set, the
+     * default value of 60000 milliseconds is used.
+     */
+    @Bean
+    public int connectionHealthMaxAge() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_CONNECTION_HEALTH_MAX_AGE, 60000);
+    }
+
+    /**
+     * The number of threads checking cached connections in the background. If
+     * this property is not set, the default value of 10 threads is used.
+     */
+    @Bean
+    public int connectionHealthCheckPoolSize() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_CONNECTION_HEALTH_CHECK_POOL_SIZE, 10);
+    }
+
+    /**
+     * The response timeout (in milliseconds) used when checking a cached
+     * connection in the background. If this property is not set, the default
+     * value of 5000 milliseconds is used.
+     */
+    @Bean
+    public int connectionHealthCheckTimeout() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_CONNECTION_HEALTH_CHECK_TIMEOUT, 5000);
+    }
+
+    /**
+     * The number of consecutive failures to connect to a device after which
+     * attempts to connect to the device fail immediately. A value of 0
+     * disables this. If this property is not set, the default value of 3
+     * failures is used.
+     */
+    @Bean
+    public int circuitBreakerFailureThreshold() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_CIRCUIT_BREAKER_FAILURE_THRESHOLD, 3);
+    }
+
+    /**
+     * The time (in milliseconds) attempts to connect to a device fail
+     * immediately, before connecting to the device is tried again. If this
+     * property is not set, the default value of 60000 milliseconds is used.
+     */
+    @Bean
+    public int circuitBreakerCooldown() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_CIRCUIT_BREAKER_COOLDOWN, 60000);
+    }
+
+    /**
+     * The time (in milliseconds) the configuration of a device, and the light
+     * measurement devices, are cached before they are read from the database
+     * again. A value of 0 disables caching. If this property is not set, the
+     * default value of 60000 milliseconds is used.
+     */
+    @Bean
+    public int iec61850DeviceCacheTimeToLive() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_DEVICE_CACHE_TIME_TO_LIVE, 60000);
+    }
+
+    /**
+     * The number of threads executing device requests. If this property is not
+     * set, the default value of 50 threads is used.
+     */
+    @Bean
+    public int deviceRequestExecutorPoolSize() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_DEVICE_REQUEST_EXECUTOR_POOL_SIZE, 50);
+    }
+
+    /**
+     * The maximum number of device requests that are accepted from the queue
+     * and not yet finished. If this property is not set, the default value of
+     * 1000 requests is used.
+     */
+    @Bean
+    public int deviceRequestExecutorMaxPending() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_DEVICE_REQUEST_EXECUTOR_MAX_PENDING, 1000);
+    }
+
+    /**
+     * The time (in milliseconds) after which a failed device request is
+     * executed again. If this property is not set, the default value of 10000
+     * milliseconds is used.
+     */
+    @Bean
+    public int deviceRequestRedeliveryDelay() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_DEVICE_REQUEST_REDELIVERY_DELAY, 10000);
+    }
+
+    /**
+     * The comma separated weights of the high, normal and low priority device
+     * requests, in proportion to which they get the threads executing device
+     * requests when requests of several priorities are waiting. If this
+     * property is not set, the default value of "8,4,1" is used.
+     */
+    @Bean
+    public String deviceRequestPriorityWeights() {
+        return this.environment.getProperty(PROPERTY_NAME_IEC61850_DEVICE_REQUEST_PRIORITY_WEIGHTS, "8,4,1");
+    }
+
+    /**
+     * The number of threads processing reports received from devices. If this
+     * property is not set, the default value of 10 threads is used.
+     */
+    @Bean
+    public int reportDispatcherPoolSize() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_REPORT_DISPATCHER_POOL_SIZE, 10);
+    }
+
+    /**
+     * The maximum number of received reports waiting to be processed. If this
+     * property is not set, the default value of 10000 reports is used.
+     */
+    @Bean
+    public int reportDispatcherCapacity() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_REPORT_DISPATCHER_CAPACITY, 10000);
+    }
+
+    /**
+     * What happens with a received report when the maximum number of reports
+     * is waiting to be processed: BLOCK, DROP_NEWEST or DROP_OLDEST. If this
+     * property is not set, the default value of BLOCK is used, which slows
+     * down receiving reports instead of losing them.
+     */
+    @Bean
+    public String reportDispatcherOverflowPolicy() {
+        return this.environment.getProperty(PROPERTY_NAME_IEC61850_REPORT_DISPATCHER_OVERFLOW_POLICY, "BLOCK");
+    }
+
+    /**
+     * The interval (in milliseconds) at which the last report entries received
+     * from devices are written to the database. If this property is not set,
+     * the default value of 1000 milliseconds is used.
+     */
+    @Bean
+    public int reportEntryFlushInterval() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_REPORT_ENTRY_FLUSH_INTERVAL, 1000);
+    }
+
+    /**
+     * The number of last report entries waiting to be written after which
+     * they are written without waiting for the flush interval. If this
+     * property is not set, the default value of 100 entries is used.
+     */
+    @Bean
+    public int reportEntryFlushBatchSize() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_REPORT_ENTRY_FLUSH_BATCH_SIZE, 100);
+    }
+
+    /**
+     * The time (in milliseconds) the results of reports of a device are
+     * collected to be published as one message. A value of 0 disables
+     * batching. If this property is not set, the default value of 0 is used.
+     */
+    @Bean
+    public int reportBatchWindow() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_REPORT_BATCH_WINDOW, 0);
+    }
+
+    /**
+     * The maximum number of report results published as one message. If this
+     * property is not set, the default value of 50 results is used.
+     */
+    @Bean
+    public int reportBatchMaxSize() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_REPORT_BATCH_MAX_SIZE, 50);
+    }
+
+    /**
+     * The time (in milliseconds) event notifications received from an SSLD are
+     * collected before they are sent, while the association is open. A value
+     * of 0 means event notifications are only sent when the association is
+     * closed. If this property is not set, the default value of 0 is used.
+     */
+    @Bean
+    public int eventNotificationFlushInterval() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_EVENT_NOTIFICATION_FLUSH_INTERVAL, 0);
+    }
+
+    /**
+     * The number of collected event notifications after which they are sent
+     * without waiting for the flush interval. If this property is not set, the
+     * default value of 100 event notifications is used.
+     */
+    @Bean
+    public int eventNotificationFlushMaxSize() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_EVENT_NOTIFICATION_FLUSH_MAX_SIZE, 100);
+    }
+
+    /**
+     * The sample rate of the logging of received reports: one in every N
+     * reports of a device and data set is logged. A value of 0 disables the
+     * logging of reports. If this property is not set, the default value of 1
+     * is used, which logs every report.
+     */
+    @Bean
+    public int reportLogSampleRate() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_REPORT_LOG_SAMPLE_RATE, 1);
+    }
+
+    /**
+     * The minimum time (in milliseconds) between two resyncs of the same
+     * buffered report after a gap in the received reports was detected. A
+     * value of 0 disables resyncing after a gap. If this property is not set,
+     * the default value of 60000 milliseconds is used.
+     */
+    @Bean
+    public int reportGapResyncInterval() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_REPORT_GAP_RESYNC_INTERVAL, 60000);
+    }
+
+    /**
+     * The codec of the payload of the responses sent to OSGP core. If this
+     * property is not set, the default value of "java" is used, which sends
+     * the payload as ObjectMessage.
+     */
+    @Bean
+    public String iec61850ResponsesPayloadCodec() {
+        return this.environment.getProperty(PROPERTY_NAME_JMS_IEC61850_RESPONSES_PAYLOAD_CODEC,
+                PayloadCodecs.JAVA_SERIALIZATION);
+    }
+
+    /**
+     * The codec of the payload of the requests sent to OSGP core. If this
+     * property is not set, the default value of "java" is used, which sends
+     * the payload as ObjectMessage.
+     */
+    @Bean
+    public String osgpRequestsPayloadCodec() {
+        return this.environment.getProperty(PROPERTY_NAME_JMS_OSGP_REQUESTS_PAYLOAD_CODEC,
+                PayloadCodecs.JAVA_SERIALIZATION);
+    }
+
+    /**
+     * The codec of the payload of the device message log items. If this
+     * property is not set, the default value of "java" is used, which sends
+     * the log item in the properties of an ObjectMessage.
+     */
+    @Bean
+    public String iec61850LogItemRequestsPayloadCodec() {
+        return this.environment.getProperty(PROPERTY_NAME_JMS_IEC61850_LOG_ITEM_REQUESTS_PAYLOAD_CODEC,
+                PayloadCodecs.JAVA_SERIALIZATION);
+    }
+
+    /**
+     * The maximum number of device message log items waiting to be sent. If
+     * this property is not set, the default value of 10000 log items is used.
+     */
+    @Bean
+    public int logItemQueueCapacity() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_LOG_ITEM_QUEUE_CAPACITY, 10000);
+    }
+
+    /**
+     * The maximum number of device message log items sent in one batch. If
+     * this property is not set, the default value of 100 log items is used.
+     */
+    @Bean
+    public int logItemBatchSize() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_LOG_ITEM_BATCH_SIZE, 100);
+    }
+
+    /**
+     * The log item that is dropped when too many device message log items are
+     * waiting: DROP_NEWEST or DROP_OLDEST. If this property is not set, the
+     * default value of DROP_OLDEST is used.
+     */
+    @Bean
+    public String logItemOverflowPolicy() {
+        return this.environment.getProperty(PROPERTY_NAME_IEC61850_LOG_ITEM_OVERFLOW_POLICY, "DROP_OLDEST");
+    }
+
+    /**
+     * The interval in milliseconds at which the number of threads and the
+     * maximum number of pending requests of the device request executor, and
+     * the maximum number of consumers of the OSGP responses listener, are
+     * adjusted to the observed load. 0 disables the adjustment. If this
+     * property is not set, the default value of 0 is used.
+     */
+    @Bean
+    public int jmsListenerAutotuningInterval() {
+        return this.getIntProperty(PROPERTY_NAME_JMS_LISTENER_AUTOTUNING_INTERVAL, 0);
+    }
+
+    /**
+     * The maximum number of threads executing device requests the number of
+     * threads can be adjusted to, from the configured number of threads. If
+     * this property is not set, the default value of 200 threads is used.
+     */
+    @Bean
+    public int deviceRequestExecutorAutotuningPoolSizeMax() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_DEVICE_REQUEST_EXECUTOR_AUTOTUNING_POOL_SIZE_MAX, 200);
+    }
+
+    /**
+     * The maximum number of pending device requests the maximum number of
+     * pending requests can be adjusted to, from the configured maximum. If this
+     * property is not set, the default value of 5000 requests is used.
+     */
+    @Bean
+    public int deviceRequestExecutorAutotuningMaxPendingMax() {
+        return this.getIntProperty(PROPERTY_NAME_IEC61850_DEVICE_REQUEST_EXECUTOR_AUTOTUNING_MAX_PENDING_MAX, 5000);
+    }
+
+    /**
+     * The retry policies for commands sent to devices. The properties starting
+     * with 'iec61850.retry.' apply to all types of IED, unless overridden by
+     * the properties starting with 'iec61850.retry.' followed by the lower case
+     * name of the IED type, for example 'iec61850.retry.zown_rtu.max.retries'.
+     * If a property is not set, the value of 'retrycount.max' (or 1 if that is
+     * not set either) is used for the maximum number of retries, an initial
+     * backoff of 1000 milliseconds that is doubled for each retry up to 10000
+     * milliseconds with a jitter of 20 percent, a maximum elapsed time of 60000
+     * milliseconds and a broken connection is replaced before retrying.
+     */
+    @Bean
+    public RetryPolicies retryPolicies() {
+        final RetryPolicy defaultRetryPolicy = RetryPolicy.newBuilder()
+                .maxRetries(this.getIntProperty(PROPERTY_PREFIX_IEC61850_RETRY + PROPERTY_SUFFIX_MAX_RETRIES,
+                        this.getIntProperty(PROPERTY_NAME_MAX_RETRY_COUNT, 1)))
+                .initialBackoff(this.getIntProperty(PROPERTY_PREFIX_IEC61850_RETRY + PROPERTY_SUFFIX_INITIAL_BACKOFF,
+                        1000))
+                .backoffMultiplier(
+                        this.getIntProperty(PROPERTY_PREFIX_IEC61850_RETRY + PROPERTY_SUFFIX_BACKOFF_MULTIPLIER, 2))
+                .maxBackoff(this.getIntProperty(PROPERTY_PREFIX_IEC61850_RETRY + PROPERTY_SUFFIX_MAX_BACKOFF, 10000))
+                .jitterPercentage(
+                        this.getIntProperty(PROPERTY_PREFIX_IEC61850_RETRY + PROPERTY_SUFFIX_JITTER_PERCENTAGE, 20))
+                .maxElapsedTime(
+                        this.getIntProperty(PROPERTY_PREFIX_IEC61850_RETRY + PROPERTY_SUFFIX_MAX_ELAPSED_TIME, 60000))
+                .reconnectOnBroken(this.getBooleanProperty(
+                        PROPERTY_PREFIX_IEC61850_RETRY + PROPERTY_SUFFIX_RECONNECT_ON_BROKEN, true))
+                .build();
+
+        final RetryPolicies retryPolicies = new RetryPolicies(defaultRetryPolicy);
+        for (final IED ied : IED.values()) {
+            final String prefix = PROPERTY_PREFIX_IEC61850_RETRY + ied.name().toLowerCase() + ".";
+            final RetryPolicy retryPolicy = RetryPolicy.newBuilder()
+                    .maxRetries(this.getIntProperty(prefix + PROPERTY_SUFFIX_MAX_RETRIES,
+                            defaultRetryPolicy.getMaxRetries()))
+                    .initialBackoff(this.getIntProperty(prefix + PROPERTY_SUFFIX_INITIAL_BACKOFF,
+                            defaultRetryPolicy.getInitialBackoff()))
+                    .backoffMultiplier(this.getIntProperty(prefix + PROPERTY_SUFFIX_BACKOFF_MULTIPLIER,
+                            defaultRetryPolicy.getBackoffMultiplier()))
+                    .maxBackoff(this.getIntProperty(prefix + PROPERTY_SUFFIX_MAX_BACKOFF,
+                            defaultRetryPolicy.getMaxBackoff()))
+                    .jitterPercentage(this.getIntProperty(prefix + PROPERTY_SUFFIX_JITTER_PERCENTAGE,
+                            defaultRetryPolicy.getJitterPercentage()))
+                    .maxElapsedTime(this.getIntProperty(prefix + PROPERTY_SUFFIX_MAX_ELAPSED_TIME,
+                            defaultRetryPolicy.getMaxElapsedTime()))
+                    .reconnectOnBroken(this.getBooleanProperty(prefix + PROPERTY_SUFFIX_RECONNECT_ON_BROKEN,
+                            defaultRetryPolicy.isReconnectOnBroken()))
+                    .build();
+            LOGGER.info("Retry policy for {}: {}", ied, retryPolicy);
+            retryPolicies.setRetryPolicy(ied, retryPolicy);
+        }
+        return retryPolicies;
+    }
+
+    private boolean getBooleanProperty(final String propertyName, final boolean defaultValue) {
+        final String property = this.environment.getProperty(propertyName);
+        boolean value;
+        if (StringUtils.isEmpty(property)) {
+            value = defaultValue;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, value, propertyName);
+        } else {
+            value = Boolean.parseBoolean(property);
+            LOGGER.info(PROPERTY_IS_VALUE, propertyName, value);
+        }
+        return value;
+    }
+
+    private int getIntProperty(final String propertyName, final int defaultValue) {
+        final String property = this.environment.getProperty(propertyName);
+        int value;
+        if (StringUtils.isEmpty(property)) {
+            value = defaultValue;
+            LOGGER.info(DEFAULT_PROPERTY_MESSAGE, value, propertyName);
+        } else {
+            value = Integer.parseInt(property);
+            LOGGER.info(PROPERTY_IS_VALUE, propertyName, value);
+        }
+        return value;
+    }
 }
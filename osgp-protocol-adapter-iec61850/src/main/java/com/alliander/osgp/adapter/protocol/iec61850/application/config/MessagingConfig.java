@@ -7,6 +7,7 @@
  */
 package com.alliander.osgp.adapter.protocol.iec61850.application.config;
 
+import org.apache.activemq.ActiveMQSession;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -58,6 +59,12 @@ public class MessagingConfig extends AbstractMessagingConfig {
             final JmsConfiguration iec61850RequestJmsConfiguration) {
         final DefaultMessageListenerContainer messageListenerContainer = iec61850RequestJmsConfiguration
                 .getMessageListenerContainer();
+        // Requests are executed on the threads of the DeviceRequestExecutor,
+        // which acknowledges each message on its own when its request is
+        // finished. Until then the message stays on the broker, and is
+        // redelivered if the adapter stops.
+        messageListenerContainer.setSessionTransacted(false);
+        messageListenerContainer.setSessionAcknowledgeMode(ActiveMQSession.INDIVIDUAL_ACKNOWLEDGE);
         messageListenerContainer.setErrorHandler(new ErrorHandler() {
             @Override
             public void handleError(final Throwable t) {
@@ -102,7 +102,7 @@ public class DeviceRegistrationService {
             }
         };
 
-        this.iec61850DeviceConnectionService.sendCommandWithRetry(function, deviceIdentification);
+        this.iec61850DeviceConnectionService.sendCommandWithRetry(function, IED.FLEX_OVL, deviceIdentification);
     }
 
     /**
@@ -0,0 +1,119 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.application.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Device;
+import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850DeviceRepository;
+
+/**
+ * Read-through cache of {@link Iec61850Device} rows, keyed by device
+ * identification. A row is read from the database again when it has been
+ * cached longer than the configured time to live, or after it has been
+ * invalidated. The absence of a row is cached as well.
+ * <p>
+ * The cached entities are detached and shared between threads, they must not
+ * be modified.
+ */
+@Component
+@ManagedResource(description = "Cache of IEC61850 device configurations")
+public class Iec61850DeviceCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850DeviceCache.class);
+
+    @Autowired
+    private Iec61850DeviceRepository iec61850DeviceRepository;
+
+    @Autowired
+    private int iec61850DeviceCacheTimeToLive;
+
+    private final ConcurrentMap<String, CachedDevice> devices = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @return The configuration of the given device, or {@code null} if there
+     *         is none.
+     */
+    public Iec61850Device findByDeviceIdentification(final String deviceIdentification) {
+        final long now = System.currentTimeMillis();
+        final CachedDevice cachedDevice = this.devices.get(deviceIdentification);
+        if (cachedDevice != null && now - cachedDevice.getLoadedAt() < this.iec61850DeviceCacheTimeToLive) {
+            this.hits.incrementAndGet();
+            return cachedDevice.getDevice();
+        }
+
+        this.misses.incrementAndGet();
+        final Iec61850Device device = this.iec61850DeviceRepository.findByDeviceIdentification(deviceIdentification);
+        if (this.iec61850DeviceCacheTimeToLive > 0) {
+            this.devices.put(deviceIdentification, new CachedDevice(device, now));
+        }
+        return device;
+    }
+
+    @ManagedOperation(description = "Removes the configuration of the given device from the cache")
+    public void invalidate(final String deviceIdentification) {
+        if (this.devices.remove(deviceIdentification) != null) {
+            LOGGER.info("Removed configuration of device: {} from cache", deviceIdentification);
+        }
+    }
+
+    @ManagedOperation(description = "Removes the configurations of all devices from the cache")
+    public void invalidateAll() {
+        this.devices.clear();
+        LOGGER.info("Removed all device configurations from cache");
+    }
+
+    @ManagedAttribute(description = "Identifications of the devices for which the configuration is cached")
+    public List<String> getDeviceIdentifications() {
+        return new ArrayList<>(this.devices.keySet());
+    }
+
+    @ManagedAttribute(description = "Number of times a device configuration was found in the cache")
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    @ManagedAttribute(description = "Number of times a device configuration was read from the database")
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    private static class CachedDevice {
+
+        private final Iec61850Device device;
+        private final long loadedAt;
+
+        CachedDevice(final Iec61850Device device, final long loadedAt) {
+            this.device = device;
+            this.loadedAt = loadedAt;
+        }
+
+        Iec61850Device getDevice() {
+            return this.device;
+        }
+
+        long getLoadedAt() {
+            return this.loadedAt;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.application.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalNode;
+import com.alliander.osgp.core.db.api.iec61850.entities.LightMeasurementDevice;
+
+/**
+ * Read-through cache of the real light measurement devices (using digital
+ * input 1 to 4), keyed by the name of the SPGGIO logical node of their digital
+ * input. The devices are read from the database again when they have been
+ * cached longer than the time to live of the device cache, or after the cache
+ * has been invalidated.
+ */
+@Component
+@ManagedResource(description = "Cache of light measurement devices")
+public class LightMeasurementDeviceCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LightMeasurementDeviceCache.class);
+
+    @Autowired
+    private DeviceManagementService deviceManagementService;
+
+    @Autowired
+    private int iec61850DeviceCacheTimeToLive;
+
+    private volatile Map<String, LightMeasurementDevice> devicesByNodeName;
+    private volatile long loadedAt;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @return The real light measurement devices, keyed by the name of the
+     *         SPGGIO logical node of their digital input, for example
+     *         "SPGGIO1".
+     */
+    public Map<String, LightMeasurementDevice> getRealLightMeasurementDevicesByNodeName() {
+        final Map<String, LightMeasurementDevice> cached = this.devicesByNodeName;
+        if (cached != null && System.currentTimeMillis() - this.loadedAt < this.iec61850DeviceCacheTimeToLive) {
+            this.hits.incrementAndGet();
+            return cached;
+        }
+        return this.load();
+    }
+
+    @ManagedOperation(description = "Removes the light measurement devices from the cache")
+    public void invalidate() {
+        this.devicesByNodeName = null;
+        LOGGER.info("Removed light measurement devices from cache");
+    }
+
+    @ManagedAttribute(description = "Light measurement devices in the cache, with the logical node of their input")
+    public List<String> getLightMeasurementDevices() {
+        final List<String> devices = new ArrayList<>();
+        final Map<String, LightMeasurementDevice> cached = this.devicesByNodeName;
+        if (cached != null) {
+            for (final Map.Entry<String, LightMeasurementDevice> entry : cached.entrySet()) {
+                devices.add(entry.getKey() + ": " + entry.getValue().getDeviceIdentification());
+            }
+        }
+        return devices;
+    }
+
+    @ManagedAttribute(description = "Number of times the light measurement devices were found in the cache")
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    @ManagedAttribute(description = "Number of times the light measurement devices were read from the database")
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    private synchronized Map<String, LightMeasurementDevice> load() {
+        this.misses.incrementAndGet();
+        final long now = System.currentTimeMillis();
+        final Map<String, LightMeasurementDevice> loaded = new HashMap<>();
+        for (final LightMeasurementDevice lmd : this.deviceManagementService.findRealLightMeasurementDevices()) {
+            loaded.put(LogicalNode.getSpggioByIndex(lmd.getDigitalInput()).getDescription(), lmd);
+        }
+        final Map<String, LightMeasurementDevice> devices = Collections.unmodifiableMap(loaded);
+        if (this.devicesByNodeName == null || !this.devicesByNodeName.keySet().equals(devices.keySet())) {
+            LOGGER.info("Loaded {} light measurement devices for logical nodes: {}", devices.size(),
+                    devices.keySet());
+        }
+        if (this.iec61850DeviceCacheTimeToLive > 0) {
+            this.devicesByNodeName = devices;
+            this.loadedAt = now;
+        }
+        return devices;
+    }
+}
@@ -0,0 +1,366 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.application.services;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.osgpfoundation.osgp.dto.da.GetPQValuesResponseDto;
+import org.osgpfoundation.osgp.dto.da.iec61850.LogicalDeviceDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+import com.alliander.osgp.dto.valueobjects.microgrids.GetDataResponseDto;
+import com.alliander.osgp.dto.valueobjects.microgrids.GetDataSystemIdentifierDto;
+import com.alliander.osgp.dto.valueobjects.microgrids.ReportDto;
+
+/**
+ * Publishes the results of reports received from devices to OSGP.
+ * <p>
+ * When batching is enabled (a batch window larger than 0), the results of the
+ * reports of a device are collected and published as one message when the
+ * batch window has passed since the first report of the batch, or when the
+ * batch reaches its maximum size. The batch window is the maximum latency
+ * added to the result of a report. Measurements are batched per device and
+ * {@link ReportDto}, since a message carries the SqNum, time of entry and
+ * report id of a single report, so only the results of the segments of one
+ * report are combined. Power quality values are batched per device and report
+ * data set, since the report data set determines the domain of the message.
+ * <p>
+ * When batching is disabled each result is published as it comes in. Actions
+ * that must not happen before a result is sent, like storing the entry of the
+ * report it came from, are run once the message with the result is sent, so a
+ * result that is lost does not count as received.
+ */
+@Component
+// Pending batches are published on shutdown, after which the entries of their
+// reports are stored, so the report entry writer has to be destroyed later.
+@DependsOn("iec61850ReportEntryWriter")
+@ManagedResource(description = "Publishing of IEC61850 report results")
+public class ReportResultPublisher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReportResultPublisher.class);
+
+    @Autowired
+    private DeviceManagementService deviceManagementService;
+
+    @Autowired
+    private int reportBatchWindow;
+
+    @Autowired
+    private int reportBatchMaxSize;
+
+    private final Map<String, Batch> batches = new HashMap<>();
+
+    private final AtomicLong reports = new AtomicLong();
+    private final AtomicLong messages = new AtomicLong();
+    private final long startTime = System.currentTimeMillis();
+
+    private ScheduledExecutorService batchExecutor;
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("reportBatchWindow: {}, reportBatchMaxSize: {}", this.reportBatchWindow, this.reportBatchMaxSize);
+
+        if (this.isBatching()) {
+            this.batchExecutor = Executors.newSingleThreadScheduledExecutor();
+        }
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (!this.isBatching()) {
+            return;
+        }
+        this.batchExecutor.shutdownNow();
+        final List<Batch> pendingBatches;
+        synchronized (this.batches) {
+            pendingBatches = new ArrayList<>(this.batches.values());
+            this.batches.clear();
+        }
+        for (final Batch batch : pendingBatches) {
+            this.publish(batch);
+        }
+    }
+
+    /**
+     * Publishes the measurements of a report.
+     *
+     * @param whenSent
+     *            Run when the measurements have been sent, or {@code null}.
+     */
+    public void publishMeasurements(final String deviceIdentification, final GetDataSystemIdentifierDto system,
+            final ReportDto report, final Runnable whenSent) throws ProtocolAdapterException {
+        this.reports.incrementAndGet();
+        if (!this.isBatching()) {
+            this.messages.incrementAndGet();
+            final List<GetDataSystemIdentifierDto> systems = new ArrayList<>();
+            systems.add(system);
+            this.deviceManagementService.sendMeasurements(deviceIdentification,
+                    new GetDataResponseDto(systems, report));
+            if (whenSent != null) {
+                whenSent.run();
+            }
+            return;
+        }
+        this.add(this.getBatch(new MeasurementsBatch(deviceIdentification, report)), system, whenSent);
+    }
+
+    public void publishPqValues(final String deviceIdentification, final String reportDataSet,
+            final List<LogicalDeviceDto> logicalDevices) throws ProtocolAdapterException {
+        this.reports.incrementAndGet();
+        if (!this.isBatching()) {
+            this.messages.incrementAndGet();
+            this.deviceManagementService.sendPqValues(deviceIdentification, reportDataSet,
+                    new GetPQValuesResponseDto(logicalDevices));
+            return;
+        }
+        this.add(this.getBatch(new PqValuesBatch(deviceIdentification, reportDataSet)), logicalDevices, null);
+    }
+
+    @ManagedAttribute(description = "Number of report results published")
+    public long getReportCount() {
+        return this.reports.get();
+    }
+
+    @ManagedAttribute(description = "Number of messages sent for the published report results")
+    public long getMessageCount() {
+        return this.messages.get();
+    }
+
+    @ManagedAttribute(description = "Average number of messages per second saved by batching report results")
+    public double getMessagesSavedPerSecond() {
+        final long seconds = Math.max(1, (System.currentTimeMillis() - this.startTime) / 1000);
+        return (double) (this.reports.get() - this.messages.get()) / seconds;
+    }
+
+    @ManagedAttribute(description = "Number of batches waiting to be published")
+    public int getPendingBatchCount() {
+        synchronized (this.batches) {
+            return this.batches.size();
+        }
+    }
+
+    private boolean isBatching() {
+        return this.reportBatchWindow > 0;
+    }
+
+    /**
+     * @return The pending batch with the same key as the given new batch, or
+     *         the new batch if there is none. Publishing of the new batch is
+     *         then scheduled after the batch window.
+     */
+    private Batch getBatch(final Batch newBatch) {
+        synchronized (this.batches) {
+            final Batch batch = this.batches.get(newBatch.getKey());
+            if (batch != null) {
+                return batch;
+            }
+            this.batches.put(newBatch.getKey(), newBatch);
+        }
+        this.batchExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                ReportResultPublisher.this.publishPending(newBatch);
+            }
+        }, this.reportBatchWindow, TimeUnit.MILLISECONDS);
+        return newBatch;
+    }
+
+    private void add(final Batch batch, final Object result, final Runnable whenSent) {
+        final boolean full;
+        synchronized (batch) {
+            if (batch.isPublished()) {
+                // Published between getting and adding to it, publish this
+                // result on its own.
+                final Batch single = batch.newEmptyBatch();
+                single.add(result, whenSent);
+                this.publish(single);
+                return;
+            }
+            batch.add(result, whenSent);
+            full = batch.size() >= this.reportBatchMaxSize;
+        }
+        if (full) {
+            this.publishPending(batch);
+        }
+    }
+
+    private void publishPending(final Batch batch) {
+        synchronized (this.batches) {
+            this.batches.remove(batch.getKey(), batch);
+        }
+        this.publish(batch);
+    }
+
+    private void publish(final Batch batch) {
+        synchronized (batch) {
+            if (batch.isPublished()) {
+                return;
+            }
+            batch.setPublished();
+        }
+        this.messages.incrementAndGet();
+        try {
+            batch.send();
+        } catch (final ProtocolAdapterException | RuntimeException e) {
+            LOGGER.error("Unable to publish batch of {} report results for device: {}", batch.size(),
+                    batch.getDeviceIdentification(), e);
+            return;
+        }
+        for (final Runnable whenSent : batch.getWhenSent()) {
+            try {
+                whenSent.run();
+            } catch (final RuntimeException e) {
+                LOGGER.error("Unexpected exception after publishing report results for device: {}",
+                        batch.getDeviceIdentification(), e);
+            }
+        }
+    }
+
+    private abstract static class Batch {
+
+        private final String deviceIdentification;
+        private final List<Runnable> whenSent = new ArrayList<>();
+        private boolean published;
+
+        Batch(final String deviceIdentification) {
+            this.deviceIdentification = deviceIdentification;
+        }
+
+        String getDeviceIdentification() {
+            return this.deviceIdentification;
+        }
+
+        void add(final Object result, final Runnable whenSent) {
+            this.addResult(result);
+            if (whenSent != null) {
+                this.whenSent.add(whenSent);
+            }
+        }
+
+        List<Runnable> getWhenSent() {
+            return this.whenSent;
+        }
+
+        boolean isPublished() {
+            return this.published;
+        }
+
+        void setPublished() {
+            this.published = true;
+        }
+
+        abstract String getKey();
+
+        abstract Batch newEmptyBatch();
+
+        abstract void addResult(Object result);
+
+        abstract int size();
+
+        abstract void send() throws ProtocolAdapterException;
+    }
+
+    private class MeasurementsBatch extends Batch {
+
+        private final ReportDto report;
+        private final List<GetDataSystemIdentifierDto> systems = new ArrayList<>();
+
+        MeasurementsBatch(final String deviceIdentification, final ReportDto report) {
+            super(deviceIdentification);
+            this.report = report;
+        }
+
+        @Override
+        String getKey() {
+            if (this.report == null) {
+                return "GET_DATA:" + this.getDeviceIdentification();
+            }
+            return "GET_DATA:" + this.getDeviceIdentification() + ":" + this.report.getReportId() + ":"
+                    + this.report.getSequenceNumber() + ":"
+                    + (this.report.getTimeStamp() == null ? "-" : this.report.getTimeStamp().getMillis());
+        }
+
+        @Override
+        Batch newEmptyBatch() {
+            return new MeasurementsBatch(this.getDeviceIdentification(), this.report);
+        }
+
+        @Override
+        void addResult(final Object result) {
+            this.systems.add((GetDataSystemIdentifierDto) result);
+        }
+
+        @Override
+        int size() {
+            return this.systems.size();
+        }
+
+        @Override
+        void send() throws ProtocolAdapterException {
+            ReportResultPublisher.this.deviceManagementService.sendMeasurements(this.getDeviceIdentification(),
+                    new GetDataResponseDto(this.systems, this.report));
+        }
+    }
+
+    private class PqValuesBatch extends Batch {
+
+        private final String reportDataSet;
+        private final List<LogicalDeviceDto> logicalDevices = new ArrayList<>();
+        private int reportCount;
+
+        PqValuesBatch(final String deviceIdentification, final String reportDataSet) {
+            super(deviceIdentification);
+            this.reportDataSet = reportDataSet;
+        }
+
+        @Override
+        String getKey() {
+            return "GET_PQ_VALUES:" + this.getDeviceIdentification() + ":" + this.reportDataSet;
+        }
+
+        @Override
+        Batch newEmptyBatch() {
+            return new PqValuesBatch(this.getDeviceIdentification(), this.reportDataSet);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void addResult(final Object result) {
+            this.logicalDevices.addAll((List<LogicalDeviceDto>) result);
+            this.reportCount++;
+        }
+
+        @Override
+        int size() {
+            return this.reportCount;
+        }
+
+        @Override
+        void send() throws ProtocolAdapterException {
+            ReportResultPublisher.this.deviceManagementService.sendPqValues(this.getDeviceIdentification(),
+                    this.reportDataSet, new GetPQValuesResponseDto(this.logicalDevices));
+        }
+    }
+}
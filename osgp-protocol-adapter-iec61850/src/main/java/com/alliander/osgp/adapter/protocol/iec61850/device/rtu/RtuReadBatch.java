@@ -0,0 +1,102 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.device.rtu;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openmuc.openiec61850.FcModelNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Client;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DeviceConnection;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalDevice;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.NodeContainer;
+
+/**
+ * Collects the nodes of several {@link RtuReadCommand}s for a logical device,
+ * reads them from the device at once and translates the results.
+ */
+public class RtuReadBatch {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RtuReadBatch.class);
+
+    private final Iec61850Client client;
+    private final DeviceConnection connection;
+    private final LogicalDevice logicalDevice;
+    private final int logicalDeviceIndex;
+
+    private final List<PendingRead<?>> pendingReads = new ArrayList<>();
+
+    public RtuReadBatch(final Iec61850Client client, final DeviceConnection connection,
+            final LogicalDevice logicalDevice, final int logicalDeviceIndex) {
+        this.client = client;
+        this.connection = connection;
+        this.logicalDevice = logicalDevice;
+        this.logicalDeviceIndex = logicalDeviceIndex;
+    }
+
+    /**
+     * Adds the command to the batch. The translated result of the command is
+     * added to the given results when the batch is executed.
+     */
+    public <T> void add(final RtuReadCommand<T> command, final List<T> results) throws NodeException {
+        final NodeContainer containingNode = command.getNode(this.connection, this.logicalDevice,
+                this.logicalDeviceIndex);
+        this.pendingReads.add(new PendingRead<>(command, containingNode, results));
+    }
+
+    /**
+     * Reads the nodes of all commands in the batch and adds the translated
+     * results to the results given for each command, in the order in which
+     * the commands were added.
+     */
+    public void execute() throws NodeException {
+        if (this.pendingReads.isEmpty()) {
+            return;
+        }
+
+        final List<FcModelNode> modelNodes = new ArrayList<>(this.pendingReads.size());
+        for (final PendingRead<?> pendingRead : this.pendingReads) {
+            modelNodes.add(pendingRead.getContainingNode().getFcmodelNode());
+        }
+        final int requests = this.client.readNodeDataValues(this.connection.getConnection().getClientAssociation(),
+                modelNodes);
+        LOGGER.info("Read {} nodes of logical device {}{} for device {} using {} requests", modelNodes.size(),
+                this.logicalDevice.getDescription(), this.logicalDeviceIndex,
+                this.connection.getDeviceIdentification(), requests);
+
+        for (final PendingRead<?> pendingRead : this.pendingReads) {
+            pendingRead.translate();
+        }
+        this.pendingReads.clear();
+    }
+
+    private static class PendingRead<T> {
+
+        private final RtuReadCommand<T> command;
+        private final NodeContainer containingNode;
+        private final List<T> results;
+
+        PendingRead(final RtuReadCommand<T> command, final NodeContainer containingNode, final List<T> results) {
+            this.command = command;
+            this.containingNode = containingNode;
+            this.results = results;
+        }
+
+        NodeContainer getContainingNode() {
+            return this.containingNode;
+        }
+
+        void translate() {
+            this.results.add(this.command.translate(this.containingNode));
+        }
+    }
+}
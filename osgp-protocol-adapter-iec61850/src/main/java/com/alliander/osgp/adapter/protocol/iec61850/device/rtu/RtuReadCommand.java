@@ -17,5 +17,12 @@ public interface RtuReadCommand<T> {
     T execute(Iec61850Client client, DeviceConnection connection, LogicalDevice logicalDevice, int logicalDeviceIndex)
             throws NodeException;
 
+    /**
+     * Returns the node read by this command, without reading it. Used to read
+     * the nodes of several commands at once, see {@link RtuReadBatch}.
+     */
+    NodeContainer getNode(DeviceConnection connection, LogicalDevice logicalDevice, int logicalDeviceIndex)
+            throws NodeException;
+
     T translate(final NodeContainer containingNode);
 }
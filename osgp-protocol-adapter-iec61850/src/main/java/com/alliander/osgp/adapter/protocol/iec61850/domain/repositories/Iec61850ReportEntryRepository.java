@@ -7,6 +7,9 @@
  */
 package com.alliander.osgp.adapter.protocol.iec61850.domain.repositories;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -16,4 +19,6 @@ import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Repo
 public interface Iec61850ReportEntryRepository extends JpaRepository<Iec61850ReportEntry, Long> {
 
     Iec61850ReportEntry findByDeviceIdentificationAndReportId(String deviceIdentification, String reportId);
+
+    List<Iec61850ReportEntry> findByDeviceIdentificationIn(Collection<String> deviceIdentifications);
 }
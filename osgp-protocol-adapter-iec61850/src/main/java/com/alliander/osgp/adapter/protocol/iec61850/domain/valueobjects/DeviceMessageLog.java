@@ -7,8 +7,13 @@
  */
 package com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.openmuc.openiec61850.Fc;
 
@@ -18,12 +23,35 @@ import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.Logi
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalNode;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.SubDataAttribute;
 
+/**
+ * Collects the variables read from or written to a device, to be logged as one
+ * message. The names of the variables are shared between all logs, the
+ * variables are kept in the order in which they were first added, and the
+ * message is rendered once, in a buffer of the exact size.
+ */
 public class DeviceMessageLog {
 
+    /**
+     * Maximum number of variable names shared between logs. Names of further
+     * variables are created for every log.
+     */
+    private static final int MAX_VARIABLE_NAMES = 10000;
+
+    private static final ConcurrentMap<VariableKey, String> VARIABLE_NAMES = new ConcurrentHashMap<>();
+
+    private static final String LOGICAL_DEVICE = "LogicalDevice: ";
+    private static final String MESSAGE_TYPE = " messageType: ";
+    private static final String VARIABLES_START = " {\n";
+    private static final String VALUE_SEPARATOR = ": ";
+    private static final String VARIABLE_END = "\n";
+    private static final String VARIABLES_END = " }";
+
     private IED ied;
     private LogicalDevice logicalDevice;
     private String messageType;
-    private Map<String, String> readVariables = new HashMap<>();
+    private final List<String> variableNames = new ArrayList<>();
+    private final List<String> values = new ArrayList<>();
+    private final Map<String, Integer> variableIndexes = new HashMap<>();
 
     public DeviceMessageLog(final IED ied, final LogicalDevice logicalDevice, final String messageType) {
         this.ied = ied;
@@ -33,49 +61,151 @@ public class DeviceMessageLog {
     }
 
     private void addReadVariable(final String variable, final String value) {
-        this.readVariables.put(variable, value);
+        final Integer index = this.variableIndexes.get(variable);
+        if (index != null) {
+            this.values.set(index, value);
+            return;
+        }
+        this.variableIndexes.put(variable, this.values.size());
+        this.variableNames.add(variable);
+        this.values.add(value);
     }
 
     public String getMessage() {
-        String result = "LogicalDevice: " + this.ied.getDescription() + this.logicalDevice.getDescription();
-        result = result.concat(" messageType: ").concat(this.messageType).concat(" {\n");
-
-        for (final String key : this.readVariables.keySet()) {
-            result = result.concat(key).concat(": ").concat(this.readVariables.get(key)).concat("\n");
+        final String iedDescription = this.ied.getDescription();
+        final String logicalDeviceDescription = this.logicalDevice.getDescription();
+        final String type = String.valueOf(this.messageType);
+
+        int length = LOGICAL_DEVICE.length() + iedDescription.length() + logicalDeviceDescription.length()
+                + MESSAGE_TYPE.length() + type.length() + VARIABLES_START.length() + VARIABLES_END.length();
+        for (int i = 0; i < this.values.size(); i++) {
+            length += this.variableNames.get(i).length() + VALUE_SEPARATOR.length()
+                    + String.valueOf(this.values.get(i)).length() + VARIABLE_END.length();
         }
 
-        result = result.concat(" }");
-        return result;
+        final StringBuilder message = new StringBuilder(length);
+        message.append(LOGICAL_DEVICE).append(iedDescription).append(logicalDeviceDescription);
+        message.append(MESSAGE_TYPE).append(type).append(VARIABLES_START);
+        for (int i = 0; i < this.values.size(); i++) {
+            message.append(this.variableNames.get(i)).append(VALUE_SEPARATOR).append(this.values.get(i))
+                    .append(VARIABLE_END);
+        }
+        message.append(VARIABLES_END);
+        return message.toString();
     }
 
     public void addVariable(final LogicalNode logicalNode, final DataAttribute dataAttribute,
             final Fc functionalConstraint, final String value) {
-        this.addReadVariable(logicalNode.getDescription().concat(".").concat(dataAttribute.getDescription())
-                .concat("[").concat(functionalConstraint.name()).concat("]"), value);
+        this.addReadVariable(getVariableName(logicalNode, dataAttribute, functionalConstraint, null, null, null),
+                value);
 
     }
 
     public void addVariable(final LogicalNode logicalNode, final DataAttribute dataAttribute,
             final Fc functionalConstraint, final SubDataAttribute subDataAttribute, final String value) {
         this.addReadVariable(
-                logicalNode.getDescription().concat(".").concat(dataAttribute.getDescription()).concat("[")
-                .concat(functionalConstraint.name()).concat("].").concat(subDataAttribute.getDescription()),
+                getVariableName(logicalNode, dataAttribute, functionalConstraint, null, subDataAttribute, null),
                 value);
     }
 
     public void addVariable(final LogicalNode logicalNode, final DataAttribute dataAttribute,
             final Fc functionalConstraint, final SubDataAttribute subDataAttribute,
             final SubDataAttribute subSubDataAttribute, final String value) {
-        this.addReadVariable(logicalNode.getDescription().concat(".").concat(dataAttribute.getDescription())
-                .concat("[").concat(functionalConstraint.name()).concat("].").concat(subDataAttribute.getDescription())
-                .concat(".").concat(subSubDataAttribute.getDescription()), value);
+        this.addReadVariable(getVariableName(logicalNode, dataAttribute, functionalConstraint, null,
+                subDataAttribute, subSubDataAttribute), value);
     }
 
     public void addVariable(final LogicalNode logicalNode, final DataAttribute dataAttribute,
             final Fc functionalConstraint, final String scheduleEntryName, final SubDataAttribute subSubDataAttribute,
             final String value) {
-        this.addReadVariable(logicalNode.getDescription().concat(".").concat(dataAttribute.getDescription())
-                .concat("[").concat(functionalConstraint.name()).concat("].").concat(scheduleEntryName).concat(".")
-                .concat(subSubDataAttribute.getDescription()), value);
+        this.addReadVariable(getVariableName(logicalNode, dataAttribute, functionalConstraint, scheduleEntryName,
+                null, subSubDataAttribute), value);
+    }
+
+    private static String getVariableName(final LogicalNode logicalNode, final DataAttribute dataAttribute,
+            final Fc functionalConstraint, final String entryName, final SubDataAttribute subDataAttribute,
+            final SubDataAttribute subSubDataAttribute) {
+        final VariableKey key = new VariableKey(logicalNode, dataAttribute, functionalConstraint, entryName,
+                subDataAttribute, subSubDataAttribute);
+        String variableName = VARIABLE_NAMES.get(key);
+        if (variableName == null) {
+            variableName = key.toVariableName();
+            if (VARIABLE_NAMES.size() < MAX_VARIABLE_NAMES) {
+                final String existing = VARIABLE_NAMES.putIfAbsent(key, variableName);
+                if (existing != null) {
+                    variableName = existing;
+                }
+            }
+        }
+        return variableName;
+    }
+
+    /**
+     * Identifies a variable by its logical node, data attribute, functional
+     * constraint and, optionally, its entry name and sub data attributes, in
+     * the order in which they appear in the variable name.
+     */
+    private static final class VariableKey {
+
+        private final LogicalNode logicalNode;
+        private final DataAttribute dataAttribute;
+        private final Fc functionalConstraint;
+        private final String entryName;
+        private final SubDataAttribute subDataAttribute;
+        private final SubDataAttribute subSubDataAttribute;
+
+        VariableKey(final LogicalNode logicalNode, final DataAttribute dataAttribute, final Fc functionalConstraint,
+                final String entryName, final SubDataAttribute subDataAttribute,
+                final SubDataAttribute subSubDataAttribute) {
+            this.logicalNode = logicalNode;
+            this.dataAttribute = dataAttribute;
+            this.functionalConstraint = functionalConstraint;
+            this.entryName = entryName;
+            this.subDataAttribute = subDataAttribute;
+            this.subSubDataAttribute = subSubDataAttribute;
+        }
+
+        String toVariableName() {
+            final StringBuilder variableName = new StringBuilder(64);
+            variableName.append(this.logicalNode.getDescription()).append('.')
+                    .append(this.dataAttribute.getDescription()).append('[')
+                    .append(this.functionalConstraint.name()).append(']');
+            if (this.entryName != null) {
+                variableName.append('.').append(this.entryName);
+            }
+            if (this.subDataAttribute != null) {
+                variableName.append('.').append(this.subDataAttribute.getDescription());
+            }
+            if (this.subSubDataAttribute != null) {
+                variableName.append('.').append(this.subSubDataAttribute.getDescription());
+            }
+            return variableName.toString();
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof VariableKey)) {
+                return false;
+            }
+            final VariableKey o = (VariableKey) obj;
+            return this.logicalNode == o.logicalNode && this.dataAttribute == o.dataAttribute
+                    && this.functionalConstraint == o.functionalConstraint
+                    && Objects.equals(this.entryName, o.entryName) && this.subDataAttribute == o.subDataAttribute
+                    && this.subSubDataAttribute == o.subSubDataAttribute;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = this.logicalNode.hashCode();
+            result = 31 * result + this.dataAttribute.hashCode();
+            result = 31 * result + this.functionalConstraint.hashCode();
+            result = 31 * result + Objects.hashCode(this.entryName);
+            result = 31 * result + Objects.hashCode(this.subDataAttribute);
+            result = 31 * result + Objects.hashCode(this.subSubDataAttribute);
+            return result;
+        }
     }
 }
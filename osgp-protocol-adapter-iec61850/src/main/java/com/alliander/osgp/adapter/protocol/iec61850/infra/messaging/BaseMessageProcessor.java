@@ -7,8 +7,12 @@
  */
 package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.jms.JMSException;
 import javax.jms.Message;
+import javax.jms.ObjectMessage;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,9 +24,11 @@ import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceResponse;
 import com.alliander.osgp.adapter.protocol.iec61850.device.ssld.responses.EmptyDeviceResponse;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.DomainInformation;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.RequestMessageData;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.CoalescedDeviceResponseHandler;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services.Iec61850DeviceResponseHandler;
 import com.alliander.osgp.adapter.protocol.iec61850.services.DeviceResponseService;
 import com.alliander.osgp.shared.exceptionhandling.OsgpException;
+import com.alliander.osgp.shared.infra.jms.Constants;
 import com.alliander.osgp.shared.infra.jms.DeviceMessageMetadata;
 import com.alliander.osgp.shared.infra.jms.MessageProcessor;
 import com.alliander.osgp.shared.infra.jms.MessageProcessorMap;
@@ -43,6 +49,9 @@ public abstract class BaseMessageProcessor implements MessageProcessor {
     @Autowired
     protected DeviceResponseService deviceResponseService;
 
+    @Autowired
+    protected DeviceRequestExecutor deviceRequestExecutor;
+
     @Autowired
     @Qualifier("iec61850DeviceRequestMessageProcessorMap")
     protected MessageProcessorMap iec61850RequestMessageProcessorMap;
@@ -55,11 +64,13 @@ public abstract class BaseMessageProcessor implements MessageProcessor {
 
     /**
      * Get the delivery count for a {@link Message} using 'JMSXDeliveryCount'
-     * property.
+     * property, including the redeliveries done by the
+     * {@link DeviceRequestExecutor}.
      */
     public Integer getJmsXdeliveryCount(final Message message) {
         try {
-            final int jmsXdeliveryCount = message.getIntProperty("JMSXDeliveryCount");
+            final int jmsXdeliveryCount = message.getIntProperty("JMSXDeliveryCount")
+                    + this.deviceRequestExecutor.getRedeliveryCount(message);
             LOGGER.info("jmsXdeliveryCount: {}", jmsXdeliveryCount);
             return jmsXdeliveryCount;
         } catch (final JMSException e) {
@@ -71,8 +82,8 @@ public abstract class BaseMessageProcessor implements MessageProcessor {
     /**
      * Use 'jmsxDeliveryCount' to determine if a request should be retried using
      * the re-delivery options. In case a JMSException is thrown, the request
-     * will be rolled-back to the message-broker and will be re-delivered
-     * according to the re-delivery policy set. If the maximum number of
+     * will be executed again by the {@link DeviceRequestExecutor} after the
+     * re-delivery delay. If the maximum number of
      * re-deliveries have been executed, a protocol response message will be
      * sent to osgp-core.
      */
@@ -150,10 +161,43 @@ public abstract class BaseMessageProcessor implements MessageProcessor {
         this.responseMessageSender.send(protocolResponseMessage);
     }
 
+    /**
+     * Creates the handler for the device response of the request. In case
+     * other requests are coalesced with the request by the
+     * {@link DeviceRequestExecutor}, the handler handles the device response
+     * for those requests as well.
+     */
     protected Iec61850DeviceResponseHandler createIec61850DeviceResponseHandler(
             final RequestMessageData requestMessageData, final Message message) {
         final Integer jsmxDeliveryCount = this.getJmsXdeliveryCount(message);
-        return new Iec61850DeviceResponseHandler(this, jsmxDeliveryCount, requestMessageData,
-                this.responseMessageSender);
+        final List<ObjectMessage> coalescedMessages = this.deviceRequestExecutor.getCoalescedMessages(message);
+        if (coalescedMessages.isEmpty() || !(this instanceof CoalescableMessageProcessor)) {
+            return new Iec61850DeviceResponseHandler(this, jsmxDeliveryCount, requestMessageData,
+                    this.responseMessageSender);
+        }
+
+        final List<Iec61850DeviceResponseHandler> coalescedHandlers = new ArrayList<>(coalescedMessages.size());
+        for (final ObjectMessage coalescedMessage : coalescedMessages) {
+            try {
+                coalescedHandlers.add(new Iec61850DeviceResponseHandler(this,
+                        this.getJmsXdeliveryCount(coalescedMessage), this.createRequestMessageData(coalescedMessage),
+                        this.responseMessageSender));
+            } catch (final JMSException e) {
+                LOGGER.error("UNRECOVERABLE ERROR, unable to read coalesced ObjectMessage instance, giving up.", e);
+            }
+        }
+        return new CoalescedDeviceResponseHandler(this, jsmxDeliveryCount, requestMessageData,
+                this.responseMessageSender, (CoalescableMessageProcessor) this, coalescedHandlers);
+    }
+
+    private RequestMessageData createRequestMessageData(final ObjectMessage message) throws JMSException {
+        final boolean isScheduled = message.propertyExists(Constants.IS_SCHEDULED)
+                ? message.getBooleanProperty(Constants.IS_SCHEDULED) : false;
+        return RequestMessageData.newBuilder().domain(message.getStringProperty(Constants.DOMAIN))
+                .domainVersion(message.getStringProperty(Constants.DOMAIN_VERSION))
+                .messageType(message.getJMSType()).retryCount(message.getIntProperty(Constants.RETRY_COUNT))
+                .isScheduled(isScheduled).correlationUid(message.getJMSCorrelationID())
+                .organisationIdentification(message.getStringProperty(Constants.ORGANISATION_IDENTIFICATION))
+                .deviceIdentification(message.getStringProperty(Constants.DEVICE_IDENTIFICATION)).build();
     }
 }
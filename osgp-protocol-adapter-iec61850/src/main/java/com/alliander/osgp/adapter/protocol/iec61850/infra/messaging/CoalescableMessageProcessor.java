@@ -0,0 +1,36 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
+
+import javax.jms.JMSException;
+import javax.jms.ObjectMessage;
+
+import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceResponse;
+import com.alliander.osgp.shared.infra.jms.MessageProcessor;
+
+/**
+ * A {@link MessageProcessor} for idempotent read requests, of which equal
+ * requests for the same device can be answered by a single round trip to the
+ * device. See {@link DeviceRequestExecutor}.
+ */
+public interface CoalescableMessageProcessor extends MessageProcessor {
+
+    /**
+     * @return A key that is equal for requests that can be answered with the
+     *         same device response, or {@code null} if the request of the
+     *         message can not be coalesced.
+     */
+    String getCoalescingKey(ObjectMessage message) throws JMSException;
+
+    /**
+     * @return A copy of the device response, addressed to the request with the
+     *         given organisation identification and correlation UID.
+     */
+    DeviceResponse copyDeviceResponse(DeviceResponse deviceResponse, String organisationIdentification,
+            String correlationUid);
+}
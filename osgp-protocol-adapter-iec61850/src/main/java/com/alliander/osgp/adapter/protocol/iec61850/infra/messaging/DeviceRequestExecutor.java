@@ -0,0 +1,657 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.ObjectMessage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jms.JmsException;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.shared.infra.jms.Constants;
+import com.alliander.osgp.shared.infra.jms.MessageProcessor;
+
+/**
+ * Executes device requests on a bounded pool of threads, so the JMS listener
+ * threads are not blocked while a device is slow to respond. Requests for the
+ * same device are executed one after the other, in the order in which they
+ * were submitted.
+ * <p>
+ * The message of a request is acknowledged individually to the message broker
+ * when the request is finished, whether it succeeded or all redeliveries
+ * failed, so accepted requests are redelivered by the broker if the adapter
+ * stops before finishing them. When a request asks to be redelivered (by
+ * throwing a {@link JMSException} or {@link JmsException}, which would have
+ * rolled back the message before), it is executed again after the redelivery
+ * delay, while its message stays unacknowledged. The number of redeliveries
+ * done here is added to the JMSXDeliveryCount of the message, see
+ * {@link #getRedeliveryCount(Message)}, so the maximum number of redeliveries
+ * is still honored. When the broker redelivers the message of a request that
+ * is still accepted, because the consumer that received it was closed, the
+ * request is not executed again, and the redelivered message is acknowledged
+ * instead when the request is finished.
+ * <p>
+ * When the maximum number of pending requests is reached, submitting a request
+ * blocks the JMS listener thread until a request has finished.
+ * <p>
+ * Requests for a {@link CoalescableMessageProcessor} that are queued directly
+ * after each other for the same device and have the same coalescing key are
+ * executed as one request. A request is never coalesced past another request
+ * for the device, which might change what it reads. The processor sends the
+ * response of the device to each of them, see
+ * {@link #getCoalescedMessages(Message)}.
+ * <p>
+ * Requests that are ready to be executed wait for a thread in the
+ * {@link DeviceRequestPriority} band of their JMS priority. Each band gets a
+ * share of the threads that become available in proportion to its weight, so
+ * high priority requests, like switching commands, are executed first without
+ * starving bulk reads. Within a band, the organisations take turns.
+ */
+@Component
+@ManagedResource(description = "Execution of IEC61850 device requests")
+public class DeviceRequestExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeviceRequestExecutor.class);
+
+    @Autowired
+    private int deviceRequestExecutorPoolSize;
+
+    @Autowired
+    private int deviceRequestExecutorMaxPending;
+
+    @Autowired
+    private int deviceRequestRedeliveryDelay;
+
+    @Autowired
+    private int maxRedeliveriesForIec61850Requests;
+
+    @Autowired
+    private String deviceRequestPriorityWeights;
+
+    private final Map<String, Deque<DeviceRequest>> deviceQueues = new HashMap<>();
+    private final ConcurrentMap<String, DeviceRequest> acceptedRequests = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> redeliveries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, List<ObjectMessage>> coalescedMessages = new ConcurrentHashMap<>();
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong redelivered = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong acknowledgeFailures = new AtomicLong();
+    private final LatencyWindow latencies = new LatencyWindow();
+    private final Map<DeviceRequestPriority, LatencyWindow> waitTimesPerPriority = new LinkedHashMap<>();
+    private final Map<DeviceRequestPriority, LatencyWindow> latenciesPerPriority = new LinkedHashMap<>();
+
+    private WeightedFairQueue<DeviceRequest> readyRequests;
+
+    private ResizableSemaphore pendingPermits;
+    private volatile int maxPending;
+    private ThreadPoolExecutor requestExecutor;
+    private ScheduledExecutorService redeliveryExecutor;
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("deviceRequestExecutorPoolSize: {}, deviceRequestExecutorMaxPending: {}",
+                this.deviceRequestExecutorPoolSize, this.deviceRequestExecutorMaxPending);
+        LOGGER.info("deviceRequestPriorityWeights: {}", this.deviceRequestPriorityWeights);
+
+        this.readyRequests = new WeightedFairQueue<>(this.parsePriorityWeights(this.deviceRequestPriorityWeights));
+        for (final DeviceRequestPriority priority : DeviceRequestPriority.values()) {
+            this.waitTimesPerPriority.put(priority, new LatencyWindow());
+            this.latenciesPerPriority.put(priority, new LatencyWindow());
+        }
+        this.maxPending = this.deviceRequestExecutorMaxPending;
+        this.pendingPermits = new ResizableSemaphore(this.maxPending);
+        this.requestExecutor = new ThreadPoolExecutor(this.deviceRequestExecutorPoolSize,
+                this.deviceRequestExecutorPoolSize, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>());
+        this.redeliveryExecutor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @PreDestroy
+    private void destroy() {
+        this.redeliveryExecutor.shutdownNow();
+        this.requestExecutor.shutdown();
+        try {
+            if (!this.requestExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                LOGGER.warn("Device requests still running after 30 seconds, interrupting them");
+                this.requestExecutor.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            this.requestExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Submits the message to be processed by the given processor. Blocks while
+     * the maximum number of pending requests is reached.
+     *
+     * @throws JMSException
+     *             In case the request could not be accepted, so the message
+     *             is rolled back to the message broker.
+     */
+    public void submit(final String deviceIdentification, final MessageProcessor processor,
+            final ObjectMessage message) throws JMSException {
+        final DeviceRequest request = new DeviceRequest(deviceIdentification, processor, message);
+        final DeviceRequest accepted = this.acceptedRequests.get(request.getMessageId());
+        if (accepted != null && accepted.replaceMessageToAcknowledge(message)) {
+            this.duplicates.incrementAndGet();
+            LOGGER.info("Request with messageId: {} for device: {} redelivered while accepted, not executing it again",
+                    request.getMessageId(), deviceIdentification);
+            return;
+        }
+        try {
+            this.pendingPermits.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JMSException("Interrupted while waiting to submit request for device: " + deviceIdentification);
+        }
+        this.submitted.incrementAndGet();
+        this.acceptedRequests.put(request.getMessageId(), request);
+        this.enqueue(request);
+    }
+
+    /**
+     * @return The number of times the given message has been redelivered by
+     *         this executor, to be added to its JMSXDeliveryCount.
+     */
+    public int getRedeliveryCount(final Message message) {
+        try {
+            final Integer count = this.redeliveries.get(message.getJMSMessageID());
+            return count == null ? 0 : count;
+        } catch (final JMSException e) {
+            LOGGER.error("JMSException while reading JMSMessageID", e);
+            return 0;
+        }
+    }
+
+    /**
+     * @return The messages of the requests that are coalesced with the request
+     *         of the given message while it is executed, or an empty list if
+     *         there are none.
+     */
+    public List<ObjectMessage> getCoalescedMessages(final Message message) {
+        try {
+            final List<ObjectMessage> messages = this.coalescedMessages.get(message.getJMSMessageID());
+            return messages == null ? Collections.<ObjectMessage> emptyList() : messages;
+        } catch (final JMSException e) {
+            LOGGER.error("JMSException while reading JMSMessageID", e);
+            return Collections.emptyList();
+        }
+    }
+
+    @ManagedAttribute(description = "Number of device requests that are accepted and not yet finished")
+    public int getPendingCount() {
+        return this.maxPending - this.pendingPermits.availablePermits();
+    }
+
+    @ManagedAttribute(description = "Maximum number of device requests that are accepted and not yet finished")
+    public int getMaxPendingCount() {
+        return this.maxPending;
+    }
+
+    /**
+     * Changes the maximum number of device requests that are accepted and not
+     * yet finished. When it decreases below the number of pending requests,
+     * no requests are accepted until enough of them are finished.
+     */
+    synchronized void setMaxPendingCount(final int maxPendingCount) {
+        final int difference = maxPendingCount - this.maxPending;
+        if (difference > 0) {
+            this.pendingPermits.release(difference);
+        } else if (difference < 0) {
+            this.pendingPermits.reduce(-difference);
+        }
+        this.maxPending = maxPendingCount;
+    }
+
+    @ManagedAttribute(description = "Number of threads executing device requests")
+    public int getPoolSize() {
+        return this.requestExecutor.getCorePoolSize();
+    }
+
+    /**
+     * Changes the number of threads executing device requests. When it
+     * decreases, threads stop after finishing their current request.
+     */
+    synchronized void setPoolSize(final int poolSize) {
+        if (poolSize > this.requestExecutor.getCorePoolSize()) {
+            this.requestExecutor.setMaximumPoolSize(poolSize);
+            this.requestExecutor.setCorePoolSize(poolSize);
+        } else {
+            this.requestExecutor.setCorePoolSize(poolSize);
+            this.requestExecutor.setMaximumPoolSize(poolSize);
+        }
+    }
+
+    @ManagedAttribute(description = "Number of devices for which requests are running or queued")
+    public int getActiveDeviceCount() {
+        synchronized (this.deviceQueues) {
+            return this.deviceQueues.size();
+        }
+    }
+
+    @ManagedAttribute(description = "Number of device requests submitted")
+    public long getSubmittedCount() {
+        return this.submitted.get();
+    }
+
+    @ManagedAttribute(description = "Number of device requests finished")
+    public long getCompletedCount() {
+        return this.completed.get();
+    }
+
+    @ManagedAttribute(description = "Number of device requests executed again after a failure")
+    public long getRedeliveredCount() {
+        return this.redelivered.get();
+    }
+
+    @ManagedAttribute(description = "Number of device requests given up on after all redeliveries failed")
+    public long getFailedCount() {
+        return this.failed.get();
+    }
+
+    @ManagedAttribute(description = "Number of device requests answered by executing an equal queued request")
+    public long getCoalescedCount() {
+        return this.coalesced.get();
+    }
+
+    @ManagedAttribute(description = "Number of messages redelivered by the broker while their request was accepted")
+    public long getDuplicateCount() {
+        return this.duplicates.get();
+    }
+
+    @ManagedAttribute(description = "Number of finished device requests whose message could not be acknowledged")
+    public long getAcknowledgeFailureCount() {
+        return this.acknowledgeFailures.get();
+    }
+
+    @ManagedAttribute(description = "Median time in milliseconds of recent device request executions")
+    public long getMedianLatency() {
+        return LatencyWindow.getPercentile(this.latencies.getSortedLatencies(), 50);
+    }
+
+    @ManagedAttribute(description = "90th percentile time in milliseconds of recent device request executions")
+    public long getLatency90thPercentile() {
+        return LatencyWindow.getPercentile(this.latencies.getSortedLatencies(), 90);
+    }
+
+    @ManagedAttribute(description = "Number of device requests waiting for a thread per priority")
+    public Map<String, Integer> getReadyCountPerPriority() {
+        final Map<String, Integer> readyCounts = new LinkedHashMap<>();
+        for (final DeviceRequestPriority priority : DeviceRequestPriority.values()) {
+            readyCounts.put(priority.name(), this.readyRequests.size(priority.ordinal()));
+        }
+        return readyCounts;
+    }
+
+    @ManagedAttribute(description = "90th percentile time in milliseconds that recent device requests waited for a "
+            + "thread per priority")
+    public Map<String, Long> getWaitTime90thPercentilePerPriority() {
+        return this.get90thPercentiles(this.waitTimesPerPriority);
+    }
+
+    @ManagedAttribute(description = "90th percentile time in milliseconds from accepting to finishing recent device "
+            + "requests per priority")
+    public Map<String, Long> getLatency90thPercentilePerPriority() {
+        return this.get90thPercentiles(this.latenciesPerPriority);
+    }
+
+    LatencyWindow getLatencies() {
+        return this.latencies;
+    }
+
+    /**
+     * @return The number of device requests waiting for a thread.
+     */
+    int getReadyCount() {
+        int readyCount = 0;
+        for (final DeviceRequestPriority priority : DeviceRequestPriority.values()) {
+            readyCount += this.readyRequests.size(priority.ordinal());
+        }
+        return readyCount;
+    }
+
+    private Map<String, Long> get90thPercentiles(final Map<DeviceRequestPriority, LatencyWindow> windows) {
+        final Map<String, Long> percentiles = new LinkedHashMap<>();
+        for (final Map.Entry<DeviceRequestPriority, LatencyWindow> entry : windows.entrySet()) {
+            percentiles.put(entry.getKey().name(),
+                    LatencyWindow.getPercentile(entry.getValue().getSortedLatencies(), 90));
+        }
+        return percentiles;
+    }
+
+    private int[] parsePriorityWeights(final String priorityWeights) {
+        final String[] values = priorityWeights.split(",");
+        if (values.length != DeviceRequestPriority.values().length) {
+            throw new IllegalArgumentException("Expected " + DeviceRequestPriority.values().length
+                    + " comma separated device request priority weights, got: " + priorityWeights);
+        }
+        final int[] weights = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            weights[i] = Integer.parseInt(values[i].trim());
+        }
+        return weights;
+    }
+
+    private void enqueue(final DeviceRequest request) {
+        synchronized (this.deviceQueues) {
+            final Deque<DeviceRequest> queue = this.deviceQueues.get(request.getDeviceIdentification());
+            if (queue != null) {
+                // A request for this device is running, it will pick up this
+                // request when it is done.
+                queue.addLast(request);
+                return;
+            }
+            this.deviceQueues.put(request.getDeviceIdentification(), new ArrayDeque<DeviceRequest>());
+        }
+        this.execute(request);
+    }
+
+    private void execute(final DeviceRequest request) {
+        request.setReadyTime(System.currentTimeMillis());
+        this.readyRequests.add(request.getPriority().ordinal(), request.getOrganisationIdentification(), request);
+        // Every task executes the next ready request, which is not
+        // necessarily the request it was created for.
+        this.requestExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final DeviceRequest next = DeviceRequestExecutor.this.readyRequests.poll();
+                DeviceRequestExecutor.this.waitTimesPerPriority.get(next.getPriority())
+                        .record(System.currentTimeMillis() - next.getReadyTime());
+                try {
+                    DeviceRequestExecutor.this.process(next);
+                } finally {
+                    DeviceRequestExecutor.this.executeNext(next.getDeviceIdentification());
+                }
+            }
+        });
+    }
+
+    private void executeNext(final String deviceIdentification) {
+        final DeviceRequest next;
+        synchronized (this.deviceQueues) {
+            final Deque<DeviceRequest> queue = this.deviceQueues.get(deviceIdentification);
+            next = queue.pollFirst();
+            if (next == null) {
+                this.deviceQueues.remove(deviceIdentification);
+                return;
+            }
+            this.coalesce(next, queue);
+        }
+        this.execute(next);
+    }
+
+    /**
+     * Moves the requests at the head of the queue that can be answered by
+     * executing the given request to the coalesced requests of the given
+     * request, up to the first request that can not.
+     */
+    void coalesce(final DeviceRequest request, final Deque<DeviceRequest> queue) {
+        if (request.getCoalescingKey() == null) {
+            return;
+        }
+        final Iterator<DeviceRequest> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            final DeviceRequest queued = iterator.next();
+            if (queued.getProcessor() != request.getProcessor()
+                    || !request.getCoalescingKey().equals(queued.getCoalescingKey())) {
+                // Later requests may depend on the outcome of this one, like
+                // a status read after switching the light.
+                break;
+            }
+            iterator.remove();
+            request.addCoalesced(queued);
+            this.coalesced.incrementAndGet();
+            LOGGER.info("Coalescing request with messageId: {} with request with messageId: {} for device: {}",
+                    queued.getMessageId(), request.getMessageId(), request.getDeviceIdentification());
+        }
+    }
+
+    private void process(final DeviceRequest request) {
+        final String messageId = request.getMessageId();
+        if (!request.getCoalesced().isEmpty()) {
+            final List<ObjectMessage> messages = new ArrayList<>();
+            for (final DeviceRequest coalescedRequest : request.getCoalesced()) {
+                messages.add(coalescedRequest.getMessage());
+            }
+            this.coalescedMessages.put(messageId, messages);
+        }
+        final long start = System.currentTimeMillis();
+        try {
+            request.getProcessor().processMessage(request.getMessage());
+        } catch (final JMSException | JmsException e) {
+            if (this.getRedeliveries(messageId) < this.maxRedeliveriesForIec61850Requests) {
+                this.scheduleRedelivery(request, e);
+                return;
+            }
+            LOGGER.error("All redelivery attempts failed for request with messageId: {} for device: {}", messageId,
+                    request.getDeviceIdentification(), e);
+            this.failed.incrementAndGet();
+        } catch (final RuntimeException e) {
+            LOGGER.error("Unexpected exception processing request with messageId: {} for device: {}", messageId,
+                    request.getDeviceIdentification(), e);
+        } finally {
+            this.coalescedMessages.remove(messageId);
+            this.latencies.record(System.currentTimeMillis() - start);
+        }
+        this.finish(request);
+        for (final DeviceRequest coalescedRequest : request.getCoalesced()) {
+            this.finish(coalescedRequest);
+        }
+    }
+
+    private void scheduleRedelivery(final DeviceRequest request, final Exception cause) {
+        final String messageId = request.getMessageId();
+        // Coalesced requests are redelivered together with the request they
+        // are coalesced with, so their redelivery counts are kept equal.
+        this.redeliveries.put(messageId, this.getRedeliveries(messageId) + 1);
+        for (final DeviceRequest coalescedRequest : request.getCoalesced()) {
+            this.redeliveries.put(coalescedRequest.getMessageId(),
+                    this.getRedeliveries(coalescedRequest.getMessageId()) + 1);
+        }
+        this.redelivered.incrementAndGet();
+        LOGGER.info("Redelivering request with messageId: {} for device: {} in {} ms, cause: {}", messageId,
+                request.getDeviceIdentification(), this.deviceRequestRedeliveryDelay, cause.getMessage());
+        this.redeliveryExecutor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                DeviceRequestExecutor.this.enqueue(request);
+            }
+        }, this.deviceRequestRedeliveryDelay, TimeUnit.MILLISECONDS);
+    }
+
+    private int getRedeliveries(final String messageId) {
+        final Integer count = this.redeliveries.get(messageId);
+        return count == null ? 0 : count;
+    }
+
+    private void finish(final DeviceRequest request) {
+        this.latenciesPerPriority.get(request.getPriority())
+                .record(System.currentTimeMillis() - request.getAcceptedTime());
+        this.redeliveries.remove(request.getMessageId());
+        this.acceptedRequests.remove(request.getMessageId(), request);
+        this.acknowledge(request);
+        this.completed.incrementAndGet();
+        this.pendingPermits.release();
+    }
+
+    private void acknowledge(final DeviceRequest request) {
+        try {
+            request.markAcknowledged().acknowledge();
+        } catch (final JMSException | RuntimeException e) {
+            // Typically the consumer that received the message has been
+            // closed, in which case the broker redelivers the message.
+            this.acknowledgeFailures.incrementAndGet();
+            LOGGER.warn("Unable to acknowledge message with messageId: {} for device: {}, it may be redelivered",
+                    request.getMessageId(), request.getDeviceIdentification(), e);
+        }
+    }
+
+    /**
+     * Semaphore of which the number of permits can be reduced, to decrease the
+     * maximum number of pending requests.
+     */
+    private static class ResizableSemaphore extends Semaphore {
+
+        private static final long serialVersionUID = -6318724506184716233L;
+
+        ResizableSemaphore(final int permits) {
+            super(permits);
+        }
+
+        void reduce(final int reduction) {
+            this.reducePermits(reduction);
+        }
+    }
+
+    static class DeviceRequest {
+
+        private final String deviceIdentification;
+        private final MessageProcessor processor;
+        private final ObjectMessage message;
+        private final String messageId;
+        private final String coalescingKey;
+        private final DeviceRequestPriority priority;
+        private final String organisationIdentification;
+        private final long acceptedTime = System.currentTimeMillis();
+        private final List<DeviceRequest> coalesced = new ArrayList<>();
+        private long readyTime;
+        private ObjectMessage messageToAcknowledge;
+        private boolean acknowledged;
+
+        DeviceRequest(final String deviceIdentification, final MessageProcessor processor,
+                final ObjectMessage message) throws JMSException {
+            this.deviceIdentification = deviceIdentification;
+            this.processor = processor;
+            this.message = message;
+            this.messageToAcknowledge = message;
+            this.messageId = message.getJMSMessageID();
+            this.coalescingKey = getCoalescingKey(processor, message);
+            this.priority = DeviceRequestPriority.forJmsPriority(message.getJMSPriority());
+            final String organisation = message.getStringProperty(Constants.ORGANISATION_IDENTIFICATION);
+            this.organisationIdentification = organisation == null ? "" : organisation;
+        }
+
+        private static String getCoalescingKey(final MessageProcessor processor, final ObjectMessage message) {
+            if (!(processor instanceof CoalescableMessageProcessor)) {
+                return null;
+            }
+            try {
+                return ((CoalescableMessageProcessor) processor).getCoalescingKey(message);
+            } catch (final JMSException | RuntimeException e) {
+                LOGGER.warn("Unable to determine coalescing key, request will not be coalesced", e);
+                return null;
+            }
+        }
+
+        String getDeviceIdentification() {
+            return this.deviceIdentification;
+        }
+
+        MessageProcessor getProcessor() {
+            return this.processor;
+        }
+
+        ObjectMessage getMessage() {
+            return this.message;
+        }
+
+        String getMessageId() {
+            return this.messageId;
+        }
+
+        /**
+         * Replaces the message that is acknowledged when this request is
+         * finished by a redelivery of it.
+         *
+         * @return {@code false} if the message has already been acknowledged.
+         */
+        synchronized boolean replaceMessageToAcknowledge(final ObjectMessage redeliveredMessage) {
+            if (this.acknowledged) {
+                return false;
+            }
+            this.messageToAcknowledge = redeliveredMessage;
+            return true;
+        }
+
+        /**
+         * @return The message to acknowledge, after which the message can no
+         *         longer be replaced.
+         */
+        synchronized ObjectMessage markAcknowledged() {
+            this.acknowledged = true;
+            return this.messageToAcknowledge;
+        }
+
+        String getCoalescingKey() {
+            return this.coalescingKey;
+        }
+
+        DeviceRequestPriority getPriority() {
+            return this.priority;
+        }
+
+        String getOrganisationIdentification() {
+            return this.organisationIdentification;
+        }
+
+        long getAcceptedTime() {
+            return this.acceptedTime;
+        }
+
+        long getReadyTime() {
+            return this.readyTime;
+        }
+
+        void setReadyTime(final long readyTime) {
+            this.readyTime = readyTime;
+        }
+
+        List<DeviceRequest> getCoalesced() {
+            return this.coalesced;
+        }
+
+        void addCoalesced(final DeviceRequest request) {
+            this.coalesced.add(request);
+            // Requests coalesced with the given request are answered along
+            // with this request as well.
+            this.coalesced.addAll(request.getCoalesced());
+            request.getCoalesced().clear();
+        }
+    }
+}
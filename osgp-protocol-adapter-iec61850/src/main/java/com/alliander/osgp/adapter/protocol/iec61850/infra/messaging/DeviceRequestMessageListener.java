@@ -21,6 +21,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jms.listener.SessionAwareMessageListener;
 import org.springframework.stereotype.Component;
 
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.codec.PayloadCodecs;
 import com.alliander.osgp.shared.exceptionhandling.ComponentType;
 import com.alliander.osgp.shared.exceptionhandling.FunctionalException;
 import com.alliander.osgp.shared.exceptionhandling.FunctionalExceptionType;
@@ -44,6 +45,12 @@ public class DeviceRequestMessageListener implements SessionAwareMessageListener
     @Autowired
     private DeviceResponseMessageSender deviceResponseMessageSender;
 
+    @Autowired
+    private DeviceRequestExecutor deviceRequestExecutor;
+
+    @Autowired
+    private PayloadCodecs payloadCodecs;
+
     /*
      * (non-Javadoc)
      *
@@ -53,19 +60,64 @@ public class DeviceRequestMessageListener implements SessionAwareMessageListener
      */
     @Override
     public void onMessage(final Message message, final Session session) throws JMSException {
-        final ObjectMessage objectMessage = (ObjectMessage) message;
         String messageType = null;
+        String deviceIdentification = null;
+        ObjectMessage objectMessage = null;
         MessageProcessor processor = null;
         try {
             messageType = message.getJMSType();
-            LOGGER.info("Received message of type: {}", messageType);
+            deviceIdentification = message.getStringProperty(Constants.DEVICE_IDENTIFICATION);
+            LOGGER.info("Received message of type: {} for device: {}", messageType, deviceIdentification);
+            // Requests with a payload encoded by a codec are processed as the
+            // ObjectMessage they were before encoding.
+            objectMessage = this.payloadCodecs.toObjectMessage(message);
             processor = this.iec61850RequestMessageProcessorMap.getMessageProcessor(objectMessage);
-        } catch (final IllegalArgumentException | JMSException e) {
+        } catch (final IllegalArgumentException | ClassCastException | JMSException e) {
             LOGGER.error("Unexpected IllegalArgumentException | JMSExceptionduring during onMessage(Message)", e);
-            this.createAndSendException(objectMessage, messageType);
+            if (objectMessage == null) {
+                this.sendUndecodableException(message, messageType, e);
+            } else {
+                this.createAndSendException(objectMessage, messageType);
+            }
+            // The container does not acknowledge messages in individual
+            // acknowledge mode, and a redelivery of the message would fail the
+            // same way, so the message is acknowledged once the response is
+            // sent.
+            this.acknowledge(message, deviceIdentification);
             return;
         }
-        processor.processMessage(objectMessage);
+        this.deviceRequestExecutor.submit(deviceIdentification, processor, objectMessage);
+    }
+
+    private void acknowledge(final Message message, final String deviceIdentification) {
+        try {
+            message.acknowledge();
+        } catch (final JMSException e) {
+            LOGGER.error("Unable to acknowledge message of device: {}", deviceIdentification, e);
+        }
+    }
+
+    /**
+     * Sends the response to a request of which the payload could not be
+     * decoded, with the metadata of the message and without data object.
+     */
+    private void sendUndecodableException(final Message message, final String messageType, final Exception exception) {
+        try {
+            final DeviceMessageMetadata deviceMessageMetadata = new DeviceMessageMetadata(
+                    message.getStringProperty(Constants.DEVICE_IDENTIFICATION),
+                    message.getStringProperty(Constants.ORGANISATION_IDENTIFICATION), message.getJMSCorrelationID(),
+                    messageType, message.getJMSPriority());
+            final FunctionalException osgpException = new FunctionalException(
+                    FunctionalExceptionType.UNSUPPORTED_DEVICE_ACTION, ComponentType.PROTOCOL_IEC61850, exception);
+            final ProtocolResponseMessage protocolResponseMessage = new ProtocolResponseMessage.Builder()
+            .deviceMessageMetadata(deviceMessageMetadata).domain(message.getStringProperty(Constants.DOMAIN))
+            .domainVersion(message.getStringProperty(Constants.DOMAIN_VERSION))
+            .result(ResponseMessageResultType.NOT_OK).osgpException(osgpException).scheduled(false).build();
+
+            this.deviceResponseMessageSender.send(protocolResponseMessage);
+        } catch (final Exception e) {
+            LOGGER.error("Unexpected error during sendUndecodableException(Message, String, Exception)", e);
+        }
     }
 
     private void createAndSendException(final ObjectMessage objectMessage, final String messageType) {
@@ -0,0 +1,29 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
+
+/**
+ * Priority bands of device requests, determined by the JMS priority of their
+ * message. Requests without an explicit priority have the default JMS priority
+ * of 4, and are in the {@link #NORMAL} band.
+ */
+public enum DeviceRequestPriority {
+    HIGH,
+    NORMAL,
+    LOW;
+
+    public static DeviceRequestPriority forJmsPriority(final int jmsPriority) {
+        if (jmsPriority >= 7) {
+            return HIGH;
+        }
+        if (jmsPriority >= 4) {
+            return NORMAL;
+        }
+        return LOW;
+    }
+}
@@ -7,9 +7,9 @@
  */
 package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
 
+import javax.annotation.PostConstruct;
 import javax.jms.JMSException;
 import javax.jms.Message;
-import javax.jms.ObjectMessage;
 import javax.jms.Session;
 
 import org.apache.commons.lang3.StringUtils;
@@ -20,6 +20,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.core.MessageCreator;
 
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.codec.PayloadCodecs;
 import com.alliander.osgp.shared.infra.jms.Constants;
 import com.alliander.osgp.shared.infra.jms.ProtocolResponseMessage;
 import com.alliander.osgp.shared.infra.jms.ResponseMessage;
@@ -33,6 +34,18 @@ public class DeviceResponseMessageSender implements ResponseMessageSender {
     @Qualifier("iec61850ResponsesJmsTemplate")
     private JmsTemplate iec61850ResponsesJmsTemplate;
 
+    @Autowired
+    private PayloadCodecs payloadCodecs;
+
+    @Autowired
+    private String iec61850ResponsesPayloadCodec;
+
+    @PostConstruct
+    private void init() {
+        this.payloadCodecs.checkCodec(this.iec61850ResponsesPayloadCodec);
+        LOGGER.info("iec61850ResponsesPayloadCodec: {}", this.iec61850ResponsesPayloadCodec);
+    }
+
     @Override
     public void send(final ResponseMessage responseMessage) {
         if (!(responseMessage instanceof ProtocolResponseMessage)) {
@@ -82,23 +95,25 @@ public class DeviceResponseMessageSender implements ResponseMessageSender {
         this.iec61850ResponsesJmsTemplate.send(new MessageCreator() {
             @Override
             public Message createMessage(final Session session) throws JMSException {
-                final ObjectMessage objectMessage = session.createObjectMessage(responseMessage);
-                objectMessage.setJMSCorrelationID(responseMessage.getCorrelationUid());
-                objectMessage.setStringProperty(Constants.DOMAIN, responseMessage.getDomain());
-                objectMessage.setStringProperty(Constants.DOMAIN_VERSION, responseMessage.getDomainVersion());
-                objectMessage.setJMSType(responseMessage.getMessageType());
-                objectMessage.setStringProperty(Constants.ORGANISATION_IDENTIFICATION,
+                final Message message = DeviceResponseMessageSender.this.payloadCodecs
+                        .createMessage(DeviceResponseMessageSender.this.iec61850ResponsesPayloadCodec, session,
+                                responseMessage);
+                message.setJMSCorrelationID(responseMessage.getCorrelationUid());
+                message.setStringProperty(Constants.DOMAIN, responseMessage.getDomain());
+                message.setStringProperty(Constants.DOMAIN_VERSION, responseMessage.getDomainVersion());
+                message.setJMSType(responseMessage.getMessageType());
+                message.setStringProperty(Constants.ORGANISATION_IDENTIFICATION,
                         responseMessage.getOrganisationIdentification());
-                objectMessage.setStringProperty(Constants.DEVICE_IDENTIFICATION,
+                message.setStringProperty(Constants.DEVICE_IDENTIFICATION,
                         responseMessage.getDeviceIdentification());
-                objectMessage.setStringProperty(Constants.RESULT, responseMessage.getResult().toString());
+                message.setStringProperty(Constants.RESULT, responseMessage.getResult().toString());
                 if (responseMessage.getOsgpException() != null) {
-                    objectMessage.setStringProperty(Constants.DESCRIPTION, responseMessage.getOsgpException()
+                    message.setStringProperty(Constants.DESCRIPTION, responseMessage.getOsgpException()
                             .getMessage());
                 }
-                objectMessage.setBooleanProperty(Constants.IS_SCHEDULED, responseMessage.isScheduled());
-                objectMessage.setIntProperty(Constants.RETRY_COUNT, responseMessage.getRetryCount());
-                return objectMessage;
+                message.setBooleanProperty(Constants.IS_SCHEDULED, responseMessage.isScheduled());
+                message.setIntProperty(Constants.RETRY_COUNT, responseMessage.getRetryCount());
+                return message;
             }
         });
     }
@@ -7,11 +7,15 @@
  */
 package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
 
+import java.io.Serializable;
+
 import org.apache.commons.lang3.StringUtils;
 
 import com.alliander.osgp.iec61850.RegisterDeviceRequest;
 
-public class Iec61850LogItemRequestMessage {
+public class Iec61850LogItemRequestMessage implements Serializable {
+
+    private static final long serialVersionUID = 3813307413547834370L;
 
     private static final int MAX_MESSAGE_LENGTH = 8000;
 
@@ -55,6 +59,22 @@ public class Iec61850LogItemRequestMessage {
         this.decodedMessage = StringUtils.substring(message.toString(), 0, MAX_MESSAGE_LENGTH);
     }
 
+    /**
+     * Creates a log item with messages that have already been encoded and
+     * truncated, for example when the log item is decoded from a message.
+     */
+    public Iec61850LogItemRequestMessage(final String deviceIdentification, final String organisationIdentification,
+            final boolean incoming, final boolean valid, final String encodedMessage, final String decodedMessage,
+            final int payloadMessageSerializedSize) {
+        this.deviceIdentification = deviceIdentification;
+        this.organisationIdentification = organisationIdentification;
+        this.incoming = incoming;
+        this.valid = valid;
+        this.encodedMessage = encodedMessage;
+        this.decodedMessage = decodedMessage;
+        this.payloadMessageSerializedSize = payloadMessageSerializedSize;
+    }
+
     public Boolean isIncoming() {
         return this.incoming;
     }
@@ -7,50 +7,276 @@
  */
 package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.jms.JMSException;
 import javax.jms.Message;
-import javax.jms.ObjectMessage;
+import javax.jms.MessageProducer;
 import javax.jms.Session;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jms.JmsException;
 import org.springframework.jms.core.JmsTemplate;
-import org.springframework.jms.core.MessageCreator;
+import org.springframework.jms.core.ProducerCallback;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
 
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.codec.PayloadCodecs;
 import com.alliander.osgp.shared.infra.jms.Constants;
 
+/**
+ * Sends log items to the log item requests queue without holding up the
+ * caller. Log items are put on a bounded in-memory queue and sent in batches,
+ * using one session and producer per batch, by a single thread. When the queue
+ * is full, the overflow policy determines which log item is dropped:
+ * {@link OverflowPolicy#DROP_NEWEST} drops the new log item,
+ * {@link OverflowPolicy#DROP_OLDEST} drops the oldest waiting log item. Dropped
+ * log items are logged at most once per drop warning interval. On shutdown,
+ * the batch being sent is finished, and then the waiting log items are sent.
+ */
+@ManagedResource(description = "Sending of IEC61850 log items")
 public class Iec61850LogItemRequestMessageSender {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850LogItemRequestMessageSender.class);
 
+    /**
+     * Time in milliseconds the sender thread waits for a log item, before it
+     * checks whether it has to stop.
+     */
+    private static final long POLL_TIMEOUT = 1000;
+
+    private static final long DROP_WARNING_INTERVAL = 10000;
+
+    public enum OverflowPolicy {
+        DROP_NEWEST,
+        DROP_OLDEST
+    }
+
     @Autowired
     private JmsTemplate iec61850LogItemRequestsJmsTemplate;
 
-    public void send(final Iec61850LogItemRequestMessage iec61850LogItemRequestMessage) {
+    @Autowired
+    private int logItemQueueCapacity;
+
+    @Autowired
+    private int logItemBatchSize;
+
+    @Autowired
+    private String logItemOverflowPolicy;
 
-        LOGGER.debug("Sending Iec61850LogItemRequestMessage");
+    @Autowired
+    private PayloadCodecs payloadCodecs;
+
+    @Autowired
+    private String iec61850LogItemRequestsPayloadCodec;
+
+    private OverflowPolicy overflowPolicy;
+    private BlockingDeque<Iec61850LogItemRequestMessage> logItems;
+    private ExecutorService sendExecutor;
+    private volatile boolean running = true;
 
-        this.iec61850LogItemRequestsJmsTemplate.send(new MessageCreator() {
+    private final AtomicLong queued = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong lastDropWarning = new AtomicLong();
+    private final AtomicLong droppedSinceWarning = new AtomicLong();
+
+    @PostConstruct
+    private void init() {
+        this.overflowPolicy = OverflowPolicy.valueOf(this.logItemOverflowPolicy.trim().toUpperCase());
+        this.payloadCodecs.checkCodec(this.iec61850LogItemRequestsPayloadCodec);
+        LOGGER.info("logItemQueueCapacity: {}, logItemBatchSize: {}, logItemOverflowPolicy: {}",
+                this.logItemQueueCapacity, this.logItemBatchSize, this.overflowPolicy);
+        LOGGER.info("iec61850LogItemRequestsPayloadCodec: {}", this.iec61850LogItemRequestsPayloadCodec);
+
+        this.logItems = new LinkedBlockingDeque<>(this.logItemQueueCapacity);
+        this.sendExecutor = Executors.newSingleThreadExecutor();
+        this.sendExecutor.execute(new Runnable() {
             @Override
-            public Message createMessage(final Session session) throws JMSException {
-                final ObjectMessage objectMessage = session.createObjectMessage();
-                objectMessage.setJMSType(Constants.IEC61850_LOG_ITEM_REQUEST);
-                objectMessage.setStringProperty(Constants.IS_INCOMING, iec61850LogItemRequestMessage.isIncoming()
-                        .toString());
-                objectMessage.setStringProperty(Constants.ENCODED_MESSAGE,
-                        iec61850LogItemRequestMessage.getEncodedMessage());
-                objectMessage.setStringProperty(Constants.DECODED_MESSAGE,
-                        iec61850LogItemRequestMessage.getDecodedMessage());
-                objectMessage.setStringProperty(Constants.DEVICE_IDENTIFICATION,
-                        iec61850LogItemRequestMessage.getDeviceIdentification());
-                objectMessage.setStringProperty(Constants.ORGANISATION_IDENTIFICATION,
-                        iec61850LogItemRequestMessage.getOrganisationIdentification());
-                objectMessage.setStringProperty(Constants.IS_VALID, iec61850LogItemRequestMessage.isValid().toString());
-                objectMessage.setIntProperty(Constants.PAYLOAD_MESSAGE_SERIALIZED_SIZE,
-                        iec61850LogItemRequestMessage.getPayloadMessageSerializedSize());
-                return objectMessage;
+            public void run() {
+                Iec61850LogItemRequestMessageSender.this.sendLogItems();
             }
         });
     }
+
+    @PreDestroy
+    private void destroy() {
+        // Let the sender thread finish the batch it is sending, instead of
+        // interrupting it, since that batch is no longer on the queue.
+        this.running = false;
+        this.sendExecutor.shutdown();
+        try {
+            if (!this.sendExecutor.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.warn("Log items still being sent after 10 seconds, sending the waiting log items");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        final List<Iec61850LogItemRequestMessage> batch = new ArrayList<>();
+        while (this.logItems.drainTo(batch, this.logItemBatchSize) > 0) {
+            this.sendBatch(batch);
+            batch.clear();
+        }
+    }
+
+    public void send(final Iec61850LogItemRequestMessage iec61850LogItemRequestMessage) {
+        this.queued.incrementAndGet();
+        if (this.logItems.offerLast(iec61850LogItemRequestMessage)) {
+            return;
+        }
+        if (this.overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+            while (!this.logItems.offerLast(iec61850LogItemRequestMessage)) {
+                if (this.logItems.pollFirst() != null) {
+                    this.dropped.incrementAndGet();
+                    this.droppedSinceWarning.incrementAndGet();
+                }
+            }
+        } else {
+            this.dropped.incrementAndGet();
+            this.droppedSinceWarning.incrementAndGet();
+        }
+        this.warnDropped();
+    }
+
+    /**
+     * Logs the number of log items dropped since the previous warning, unless
+     * that was less than the drop warning interval ago.
+     */
+    private void warnDropped() {
+        final long now = System.currentTimeMillis();
+        final long lastWarning = this.lastDropWarning.get();
+        if (now - lastWarning < DROP_WARNING_INTERVAL || !this.lastDropWarning.compareAndSet(lastWarning, now)) {
+            return;
+        }
+        LOGGER.warn("Too many log items waiting, dropped {} {} log items since the previous warning",
+                this.droppedSinceWarning.getAndSet(0),
+                this.overflowPolicy == OverflowPolicy.DROP_OLDEST ? "oldest" : "newest");
+    }
+
+    @ManagedAttribute(description = "Number of log items waiting to be sent")
+    public int getQueueDepth() {
+        return this.logItems.size();
+    }
+
+    @ManagedAttribute(description = "Number of log items queued")
+    public long getQueuedCount() {
+        return this.queued.get();
+    }
+
+    @ManagedAttribute(description = "Number of log items sent")
+    public long getSentCount() {
+        return this.sent.get();
+    }
+
+    @ManagedAttribute(description = "Number of batches of log items sent")
+    public long getBatchCount() {
+        return this.batches.get();
+    }
+
+    @ManagedAttribute(description = "Number of log items dropped because too many log items were waiting")
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    @ManagedAttribute(description = "Number of log items that could not be sent")
+    public long getFailedCount() {
+        return this.failed.get();
+    }
+
+    private void sendLogItems() {
+        final List<Iec61850LogItemRequestMessage> batch = new ArrayList<>(this.logItemBatchSize);
+        while (this.running) {
+            final Iec61850LogItemRequestMessage logItem;
+            try {
+                logItem = this.logItems.pollFirst(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (logItem == null) {
+                continue;
+            }
+            batch.add(logItem);
+            this.logItems.drainTo(batch, this.logItemBatchSize - 1);
+            this.sendBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void sendBatch(final List<Iec61850LogItemRequestMessage> batch) {
+        LOGGER.debug("Sending {} Iec61850LogItemRequestMessages", batch.size());
+        try {
+            this.iec61850LogItemRequestsJmsTemplate.execute(new ProducerCallback<Void>() {
+                @Override
+                public Void doInJms(final Session session, final MessageProducer producer) throws JMSException {
+                    Iec61850LogItemRequestMessageSender.this.sendBatch(session, producer, batch);
+                    return null;
+                }
+            });
+            this.sent.addAndGet(batch.size());
+            this.batches.incrementAndGet();
+        } catch (final JmsException e) {
+            this.failed.addAndGet(batch.size());
+            LOGGER.error("Unable to send {} Iec61850LogItemRequestMessages", batch.size(), e);
+        }
+    }
+
+    private void sendBatch(final Session session, final MessageProducer producer,
+            final List<Iec61850LogItemRequestMessage> batch) throws JMSException {
+        final JmsTemplate jmsTemplate = this.iec61850LogItemRequestsJmsTemplate;
+        for (final Iec61850LogItemRequestMessage iec61850LogItemRequestMessage : batch) {
+            final Message message = this.createMessage(session, iec61850LogItemRequestMessage);
+            if (jmsTemplate.isExplicitQosEnabled()) {
+                producer.send(message, jmsTemplate.getDeliveryMode(), jmsTemplate.getPriority(),
+                        jmsTemplate.getTimeToLive());
+            } else {
+                producer.send(message);
+            }
+        }
+        JmsUtils.commitIfNecessary(session);
+    }
+
+    /**
+     * Creates a message with the log item in its properties, or, if a payload
+     * codec is configured, with the encoded log item as payload. The messages
+     * of an encoded log item are only in the payload, the other fields of the
+     * log item are in the properties as well.
+     */
+    private Message createMessage(final Session session,
+            final Iec61850LogItemRequestMessage iec61850LogItemRequestMessage) throws JMSException {
+        final boolean encoded = !PayloadCodecs.JAVA_SERIALIZATION.equals(this.iec61850LogItemRequestsPayloadCodec);
+        final Message message;
+        if (encoded) {
+            message = this.payloadCodecs.createMessage(this.iec61850LogItemRequestsPayloadCodec, session,
+                    iec61850LogItemRequestMessage);
+        } else {
+            message = session.createObjectMessage();
+            message.setStringProperty(Constants.ENCODED_MESSAGE, iec61850LogItemRequestMessage.getEncodedMessage());
+            message.setStringProperty(Constants.DECODED_MESSAGE, iec61850LogItemRequestMessage.getDecodedMessage());
+        }
+        message.setJMSType(Constants.IEC61850_LOG_ITEM_REQUEST);
+        message.setStringProperty(Constants.IS_INCOMING, iec61850LogItemRequestMessage.isIncoming().toString());
+        message.setStringProperty(Constants.DEVICE_IDENTIFICATION,
+                iec61850LogItemRequestMessage.getDeviceIdentification());
+        message.setStringProperty(Constants.ORGANISATION_IDENTIFICATION,
+                iec61850LogItemRequestMessage.getOrganisationIdentification());
+        message.setStringProperty(Constants.IS_VALID, iec61850LogItemRequestMessage.isValid().toString());
+        message.setIntProperty(Constants.PAYLOAD_MESSAGE_SERIALIZED_SIZE,
+                iec61850LogItemRequestMessage.getPayloadMessageSerializedSize());
+        return message;
+    }
 }
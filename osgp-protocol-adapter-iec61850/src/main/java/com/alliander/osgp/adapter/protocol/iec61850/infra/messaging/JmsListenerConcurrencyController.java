@@ -0,0 +1,396 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.MapMessage;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.Session;
+import javax.jms.TemporaryQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jms.JmsException;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.core.SessionCallback;
+import org.springframework.jms.listener.DefaultMessageListenerContainer;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adjusts the execution of device requests and the maximum number of consumers
+ * of the OSGP responses listener to the observed load.
+ * <p>
+ * Every interval, the number of threads needed is estimated from the number of
+ * requests handled and the 90th percentile of their latency, with some
+ * headroom for bursts. The number of threads of the device request executor
+ * follows the estimate, but decreases gradually, and increases while requests
+ * are waiting for a thread. The maximum number of pending device requests
+ * increases while it is nearly reached, all requests have a thread and
+ * messages are waiting on the requests queue, because the requests are then
+ * waiting for their devices. It decreases gradually while less than half of it
+ * is used. The maximum number of consumers of the OSGP responses listener is
+ * tuned the same way as the number of threads, and increases when more
+ * messages are waiting on the queue than there are consumers.
+ * <p>
+ * The number of messages waiting on a queue is requested from the statistics
+ * plugin of the broker. When the plugin is not enabled, the backlog is
+ * unknown, and only the latency is used. An interval of 0 disables the tuning,
+ * leaving the configured values.
+ */
+@Component
+@ManagedResource(description = "Auto-tuning of the device request executor and the JMS listeners")
+public class JmsListenerConcurrencyController {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JmsListenerConcurrencyController.class);
+
+    private static final int LATENCY_PERCENTILE = 90;
+
+    /**
+     * Factor by which the number of threads or consumers needed for the
+     * observed load is multiplied, to absorb bursts.
+     */
+    private static final double HEADROOM = 1.5;
+
+    /**
+     * The number of threads, pending requests or consumers decreases by at most
+     * a quarter per interval, and increases by at least a quarter.
+     */
+    private static final int STEP_DIVISOR = 4;
+
+    /**
+     * Percentage of the maximum number of pending device requests from which
+     * the device request executor is saturated.
+     */
+    private static final int SATURATION_PERCENTAGE = 90;
+
+    /**
+     * Prefix of the destination of the statistics plugin of ActiveMQ, replying
+     * with the statistics of the destination named after the prefix.
+     */
+    private static final String STATISTICS_DESTINATION_PREFIX = "ActiveMQ.Statistics.Destination.";
+
+    private static final long STATISTICS_RECEIVE_TIMEOUT = 1000;
+
+    private static final String DEVICE_REQUEST_EXECUTOR = "deviceRequestExecutor";
+    private static final String OSGP_RESPONSES = "osgp.responses";
+
+    @Autowired
+    @Qualifier("iec61850RequestsMessageListenerContainer")
+    private DefaultMessageListenerContainer iec61850RequestsMessageListenerContainer;
+
+    @Autowired
+    @Qualifier("osgpResponsesMessageListenerContainer")
+    private DefaultMessageListenerContainer osgpResponsesMessageListenerContainer;
+
+    @Autowired
+    private DeviceRequestExecutor deviceRequestExecutor;
+
+    @Autowired
+    private OsgpResponseMessageListener osgpResponseMessageListener;
+
+    @Autowired
+    private int jmsListenerAutotuningInterval;
+
+    @Autowired
+    private int deviceRequestExecutorPoolSize;
+
+    @Autowired
+    private int deviceRequestExecutorMaxPending;
+
+    @Autowired
+    private int deviceRequestExecutorAutotuningPoolSizeMax;
+
+    @Autowired
+    private int deviceRequestExecutorAutotuningMaxPendingMax;
+
+    private final Map<String, String> decisions = new TreeMap<>();
+    private ScheduledExecutorService tuningExecutor;
+
+    private LoadWindow requestLoad;
+    private LoadWindow responseLoad;
+    private int minConsumers;
+    private int maxConsumers;
+
+    private final AtomicLong increases = new AtomicLong();
+    private final AtomicLong decreases = new AtomicLong();
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("jmsListenerAutotuningInterval: {}", this.jmsListenerAutotuningInterval);
+        if (this.jmsListenerAutotuningInterval <= 0) {
+            return;
+        }
+        LOGGER.info("deviceRequestExecutorAutotuningPoolSizeMax: {}", this.deviceRequestExecutorAutotuningPoolSizeMax);
+        LOGGER.info("deviceRequestExecutorAutotuningMaxPendingMax: {}",
+                this.deviceRequestExecutorAutotuningMaxPendingMax);
+
+        this.requestLoad = new LoadWindow(this.deviceRequestExecutor.getLatencies());
+        this.responseLoad = new LoadWindow(this.osgpResponseMessageListener.getLatencies());
+        this.minConsumers = this.osgpResponsesMessageListenerContainer.getConcurrentConsumers();
+        this.maxConsumers = this.osgpResponsesMessageListenerContainer.getMaxConcurrentConsumers();
+
+        this.tuningExecutor = Executors.newSingleThreadScheduledExecutor();
+        this.tuningExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                JmsListenerConcurrencyController.this.tune();
+            }
+        }, this.jmsListenerAutotuningInterval, this.jmsListenerAutotuningInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (this.tuningExecutor != null) {
+            this.tuningExecutor.shutdownNow();
+        }
+    }
+
+    @ManagedAttribute(description = "Last tuning decisions, with the load they were based on")
+    public synchronized Map<String, String> getDecisions() {
+        return new TreeMap<>(this.decisions);
+    }
+
+    @ManagedAttribute(description = "Maximum number of consumers of the OSGP responses queue")
+    public int getMaxConsumers() {
+        return this.osgpResponsesMessageListenerContainer.getMaxConcurrentConsumers();
+    }
+
+    @ManagedAttribute(description = "Number of times a number of threads, pending requests or consumers was increased")
+    public long getIncreaseCount() {
+        return this.increases.get();
+    }
+
+    @ManagedAttribute(description = "Number of times a number of threads, pending requests or consumers was decreased")
+    public long getDecreaseCount() {
+        return this.decreases.get();
+    }
+
+    private void tune() {
+        try {
+            this.tuneDeviceRequestExecutor();
+        } catch (final RuntimeException e) {
+            LOGGER.error("Unexpected exception tuning the device request executor", e);
+        }
+        try {
+            this.tuneOsgpResponsesConsumers();
+        } catch (final RuntimeException e) {
+            LOGGER.error("Unexpected exception tuning the consumers of queue: {}", OSGP_RESPONSES, e);
+        }
+    }
+
+    private void tuneDeviceRequestExecutor() {
+        final DeviceRequestExecutor executor = this.deviceRequestExecutor;
+        this.requestLoad.update();
+        final int needed = this.requestLoad.getNeeded();
+        final int ready = executor.getReadyCount();
+
+        final int currentPoolSize = executor.getPoolSize();
+        final int poolSizeStep = Math.max(1, currentPoolSize / STEP_DIVISOR);
+        int poolSize;
+        if (ready > 0) {
+            poolSize = Math.max(needed, currentPoolSize + poolSizeStep);
+        } else {
+            poolSize = needed > currentPoolSize ? needed : Math.max(needed, currentPoolSize - poolSizeStep);
+        }
+        poolSize = clamp(poolSize, this.deviceRequestExecutorPoolSize,
+                Math.max(this.deviceRequestExecutorPoolSize, this.deviceRequestExecutorAutotuningPoolSizeMax));
+
+        final long backlog = this.getBacklog(this.iec61850RequestsMessageListenerContainer);
+        final int pending = executor.getPendingCount();
+        final int currentMaxPending = executor.getMaxPendingCount();
+        final int maxPendingStep = Math.max(1, currentMaxPending / STEP_DIVISOR);
+        int maxPending = currentMaxPending;
+        if (backlog > 0 && ready == 0
+                && pending * 100L >= currentMaxPending * (long) SATURATION_PERCENTAGE) {
+            maxPending = currentMaxPending + maxPendingStep;
+        } else if (pending * 2 < currentMaxPending) {
+            maxPending = currentMaxPending - maxPendingStep;
+        }
+        maxPending = clamp(maxPending, this.deviceRequestExecutorMaxPending,
+                Math.max(this.deviceRequestExecutorMaxPending, this.deviceRequestExecutorAutotuningMaxPendingMax));
+
+        final String decision = String.format("poolSize: %d -> %d, maxPending: %d -> %d, %s, ready: %d, "
+                + "pending: %d, backlog: %s", currentPoolSize, poolSize, currentMaxPending, maxPending,
+                this.requestLoad, ready, pending, describeBacklog(backlog));
+        this.setDecision(DEVICE_REQUEST_EXECUTOR, decision);
+        if (poolSize == currentPoolSize && maxPending == currentMaxPending) {
+            LOGGER.debug("Device request executor, {}", decision);
+            return;
+        }
+        if (poolSize != currentPoolSize) {
+            executor.setPoolSize(poolSize);
+            this.count(poolSize > currentPoolSize);
+        }
+        if (maxPending != currentMaxPending) {
+            executor.setMaxPendingCount(maxPending);
+            this.count(maxPending > currentMaxPending);
+        }
+        LOGGER.info("Device request executor, {}", decision);
+    }
+
+    private void tuneOsgpResponsesConsumers() {
+        final DefaultMessageListenerContainer container = this.osgpResponsesMessageListenerContainer;
+        this.responseLoad.update();
+        final int needed = this.responseLoad.getNeeded();
+        final long backlog = this.getBacklog(container);
+        final int current = container.getMaxConcurrentConsumers();
+        final int step = Math.max(1, current / STEP_DIVISOR);
+
+        int target;
+        if (backlog > current) {
+            target = Math.max(needed, current + step);
+        } else {
+            target = needed > current ? needed : Math.max(needed, current - step);
+        }
+        target = clamp(target, this.minConsumers, this.maxConsumers);
+
+        final String decision = String.format("maxConsumers: %d -> %d, %s, backlog: %s, active: %d", current,
+                target, this.responseLoad, describeBacklog(backlog), container.getActiveConsumerCount());
+        this.setDecision(OSGP_RESPONSES, decision);
+        if (target == current) {
+            LOGGER.debug("Queue: {}, {}", OSGP_RESPONSES, decision);
+            return;
+        }
+        container.setMaxConcurrentConsumers(target);
+        this.count(target > current);
+        LOGGER.info("Queue: {}, {}", OSGP_RESPONSES, decision);
+    }
+
+    private synchronized void setDecision(final String name, final String decision) {
+        this.decisions.put(name, decision);
+    }
+
+    private void count(final boolean increased) {
+        if (increased) {
+            this.increases.incrementAndGet();
+        } else {
+            this.decreases.incrementAndGet();
+        }
+    }
+
+    private static int clamp(final int value, final int min, final int max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static String describeBacklog(final long backlog) {
+        return backlog < 0 ? "unknown" : Long.toString(backlog);
+    }
+
+    /**
+     * Requests the size of the queue of the given container from the
+     * statistics plugin of the broker, which replies with a map message with
+     * the statistics of the queue.
+     *
+     * @return The number of messages on the queue, or -1 if the broker did not
+     *         reply.
+     */
+    private long getBacklog(final DefaultMessageListenerContainer container) {
+        final JmsTemplate jmsTemplate = new JmsTemplate(container.getConnectionFactory());
+        try {
+            final String queueName = getQueueName(container);
+            final Long backlog = jmsTemplate.execute(new SessionCallback<Long>() {
+                @Override
+                public Long doInJms(final Session session) throws JMSException {
+                    return requestQueueSize(session, queueName);
+                }
+            }, true);
+            return backlog == null ? -1 : backlog;
+        } catch (final JmsException | JMSException e) {
+            LOGGER.warn("Unable to request the size of the queue of listener: {}, {}", container.getBeanName(),
+                    e.getMessage());
+            return -1;
+        }
+    }
+
+    private static String getQueueName(final DefaultMessageListenerContainer container) throws JMSException {
+        final Destination destination = container.getDestination();
+        if (destination instanceof Queue) {
+            return ((Queue) destination).getQueueName();
+        }
+        return container.getDestinationName();
+    }
+
+    private static Long requestQueueSize(final Session session, final String queueName) throws JMSException {
+        final TemporaryQueue replyQueue = session.createTemporaryQueue();
+        final MessageProducer producer = session.createProducer(session.createQueue(STATISTICS_DESTINATION_PREFIX
+                + queueName));
+        final MessageConsumer consumer = session.createConsumer(replyQueue);
+        try {
+            final Message request = session.createMessage();
+            request.setJMSReplyTo(replyQueue);
+            producer.send(request);
+            final Message reply = consumer.receive(STATISTICS_RECEIVE_TIMEOUT);
+            if (reply instanceof MapMessage && ((MapMessage) reply).itemExists("size")) {
+                return ((MapMessage) reply).getLong("size");
+            }
+            return null;
+        } finally {
+            consumer.close();
+            producer.close();
+            replyQueue.delete();
+        }
+    }
+
+    /**
+     * The rate and latency of the messages or requests handled since the
+     * previous interval.
+     */
+    private static class LoadWindow {
+
+        private final LatencyWindow latencies;
+
+        private long lastCount;
+        private long lastTime = System.currentTimeMillis();
+        private double rate;
+        private long latency;
+
+        LoadWindow(final LatencyWindow latencies) {
+            this.latencies = latencies;
+            this.lastCount = latencies.getCount();
+        }
+
+        void update() {
+            final long now = System.currentTimeMillis();
+            final long count = this.latencies.getCount();
+            this.rate = (count - this.lastCount) * 1000.0 / Math.max(1, now - this.lastTime);
+            this.lastCount = count;
+            this.lastTime = now;
+            this.latency = LatencyWindow.getPercentile(this.latencies.getSortedLatencies(), LATENCY_PERCENTILE);
+        }
+
+        /**
+         * @return The number of threads or consumers needed to handle the rate
+         *         with the latency, with headroom.
+         */
+        int getNeeded() {
+            return (int) Math.ceil(this.rate * this.latency / 1000.0 * HEADROOM);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("rate: %.1f/s, p%d latency: %d ms", this.rate, LATENCY_PERCENTILE, this.latency);
+        }
+    }
+}
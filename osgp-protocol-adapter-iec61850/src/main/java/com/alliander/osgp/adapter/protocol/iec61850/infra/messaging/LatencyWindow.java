@@ -0,0 +1,59 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the most recently handled messages, to determine
+ * latency percentiles, and counts all messages handled.
+ */
+class LatencyWindow {
+
+    private static final int SIZE = 1024;
+
+    private final long[] latencies = new long[SIZE];
+    private long count;
+
+    /**
+     * Records the latency in milliseconds of a handled message.
+     */
+    synchronized void record(final long latency) {
+        this.latencies[(int) (this.count % SIZE)] = latency;
+        this.count++;
+    }
+
+    /**
+     * @return The number of messages handled.
+     */
+    synchronized long getCount() {
+        return this.count;
+    }
+
+    /**
+     * @return The sorted latencies in milliseconds of the most recently
+     *         handled messages.
+     */
+    synchronized long[] getSortedLatencies() {
+        final long[] sorted = Arrays.copyOf(this.latencies, (int) Math.min(this.count, SIZE));
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * @return The given percentile of the sorted latencies, or 0 if there are
+     *         none.
+     */
+    static long getPercentile(final long[] sortedLatencies, final int percentile) {
+        if (sortedLatencies.length == 0) {
+            return 0;
+        }
+        final int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(0, index)];
+    }
+}
@@ -7,9 +7,9 @@
  */
 package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
 
+import javax.annotation.PostConstruct;
 import javax.jms.JMSException;
 import javax.jms.Message;
-import javax.jms.ObjectMessage;
 import javax.jms.Session;
 
 import org.slf4j.Logger;
@@ -19,6 +19,7 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.jms.core.JmsTemplate;
 import org.springframework.jms.core.MessageCreator;
 
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.codec.PayloadCodecs;
 import com.alliander.osgp.shared.infra.jms.Constants;
 import com.alliander.osgp.shared.infra.jms.RequestMessage;
 
@@ -30,6 +31,18 @@ public class OsgpRequestMessageSender {
     @Qualifier("osgpRequestsJmsTemplate")
     private JmsTemplate iec61850RequestsJmsTemplate;
 
+    @Autowired
+    private PayloadCodecs payloadCodecs;
+
+    @Autowired
+    private String osgpRequestsPayloadCodec;
+
+    @PostConstruct
+    private void init() {
+        this.payloadCodecs.checkCodec(this.osgpRequestsPayloadCodec);
+        LOGGER.info("osgpRequestsPayloadCodec: {}", this.osgpRequestsPayloadCodec);
+    }
+
     public void send(final RequestMessage requestMessage, final String messageType) {
         LOGGER.info("Sending request message to OSGP.");
 
@@ -37,14 +50,14 @@ public class OsgpRequestMessageSender {
 
             @Override
             public Message createMessage(final Session session) throws JMSException {
-                final ObjectMessage objectMessage = session.createObjectMessage(requestMessage);
-                objectMessage.setJMSType(messageType);
-                objectMessage.setStringProperty(Constants.ORGANISATION_IDENTIFICATION,
+                final Message message = OsgpRequestMessageSender.this.payloadCodecs
+                        .createMessage(OsgpRequestMessageSender.this.osgpRequestsPayloadCodec, session, requestMessage);
+                message.setJMSType(messageType);
+                message.setStringProperty(Constants.ORGANISATION_IDENTIFICATION,
                         requestMessage.getOrganisationIdentification());
-                objectMessage.setStringProperty(Constants.DEVICE_IDENTIFICATION,
-                        requestMessage.getDeviceIdentification());
+                message.setStringProperty(Constants.DEVICE_IDENTIFICATION, requestMessage.getDeviceIdentification());
 
-                return objectMessage;
+                return message;
             }
 
         });
@@ -10,12 +10,13 @@ package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
 import javax.jms.JMSException;
 import javax.jms.Message;
 import javax.jms.MessageListener;
-import javax.jms.ObjectMessage;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.codec.PayloadCodecs;
 import com.alliander.osgp.dto.valueobjects.DeviceFunctionDto;
 import com.alliander.osgp.shared.exceptionhandling.OsgpException;
 import com.alliander.osgp.shared.infra.jms.Constants;
@@ -27,15 +28,20 @@ public class OsgpResponseMessageListener implements MessageListener {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OsgpResponseMessageListener.class);
 
+    @Autowired
+    private PayloadCodecs payloadCodecs;
+
+    private final LatencyWindow latencies = new LatencyWindow();
+
     @Override
     public void onMessage(final Message message) {
+        final long start = System.currentTimeMillis();
         try {
             LOGGER.info("Received message of type: {}", message.getJMSType());
 
-            final ObjectMessage objectMessage = (ObjectMessage) message;
-            final String messageType = objectMessage.getJMSType();
-            final String deviceIdentification = objectMessage.getStringProperty(Constants.DEVICE_IDENTIFICATION);
-            final ResponseMessage responseMessage = (ResponseMessage) objectMessage.getObject();
+            final String messageType = message.getJMSType();
+            final String deviceIdentification = message.getStringProperty(Constants.DEVICE_IDENTIFICATION);
+            final ResponseMessage responseMessage = (ResponseMessage) this.payloadCodecs.readPayload(message);
             final String result = responseMessage == null ? null : responseMessage.getResult().toString();
             final OsgpException osgpException = responseMessage == null ? null : responseMessage.getOsgpException();
 
@@ -51,9 +57,15 @@ public class OsgpResponseMessageListener implements MessageListener {
             LOGGER.error("ProtocolAdapterException", e);
         } catch (final UnknownMessageTypeException e) {
             LOGGER.error("UnknownMessageTypeException", e);
+        } finally {
+            this.latencies.record(System.currentTimeMillis() - start);
         }
     }
 
+    LatencyWindow getLatencies() {
+        return this.latencies;
+    }
+
     private void handleDeviceRegistration(final String result, final String deviceIdentification,
             final String messageType, final OsgpException osgpException) throws ProtocolAdapterException {
         if (ResponseMessageResultType.valueOf(result).equals(ResponseMessageResultType.NOT_OK)) {
@@ -61,6 +61,13 @@ public abstract class SsldDeviceRequestMessageProcessor extends BaseMessageProce
                 this.deviceRequestMessageType.name(), this);
     }
 
+    // This function is used in 3 domains.
+    protected DeviceResponse copyGetStatusDeviceResponse(final DeviceResponse deviceResponse,
+            final String organisationIdentification, final String correlationUid) {
+        return new GetStatusDeviceResponse(organisationIdentification, deviceResponse.getDeviceIdentification(),
+                correlationUid, ((GetStatusDeviceResponse) deviceResponse).getDeviceStatus());
+    }
+
     // This function is used in 3 domains.
     protected void handleGetStatusDeviceResponse(final DeviceResponse deviceResponse,
             final ResponseMessageSender responseMessageSender, final DomainInformation domainInformation,
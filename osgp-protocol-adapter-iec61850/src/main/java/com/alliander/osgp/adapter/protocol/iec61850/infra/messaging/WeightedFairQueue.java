@@ -0,0 +1,94 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queue of elements in bands, where each band gets a share of the polls in
+ * proportion to its weight, as long as it has elements. Bands without elements
+ * do not build up a share. Within a band, the elements are polled round robin
+ * over their keys, and in the order in which they were added per key.
+ */
+class WeightedFairQueue<E> {
+
+    private final int[] weights;
+    private final int[] currentWeights;
+    private final int[] sizes;
+    private final List<Map<String, Deque<E>>> bands = new ArrayList<>();
+
+    WeightedFairQueue(final int[] weights) {
+        this.weights = weights.clone();
+        this.currentWeights = new int[weights.length];
+        this.sizes = new int[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] <= 0) {
+                throw new IllegalArgumentException("Weight of band " + i + " must be positive: " + weights[i]);
+            }
+            this.bands.add(new LinkedHashMap<String, Deque<E>>());
+        }
+    }
+
+    synchronized void add(final int band, final String key, final E element) {
+        final Map<String, Deque<E>> elementsPerKey = this.bands.get(band);
+        Deque<E> elements = elementsPerKey.get(key);
+        if (elements == null) {
+            elements = new ArrayDeque<>();
+            elementsPerKey.put(key, elements);
+        }
+        elements.addLast(element);
+        this.sizes[band]++;
+    }
+
+    /**
+     * @return The next element, or {@code null} if the queue is empty.
+     */
+    synchronized E poll() {
+        int selected = -1;
+        int totalWeight = 0;
+        for (int i = 0; i < this.weights.length; i++) {
+            if (this.sizes[i] == 0) {
+                continue;
+            }
+            this.currentWeights[i] += this.weights[i];
+            totalWeight += this.weights[i];
+            if (selected == -1 || this.currentWeights[i] > this.currentWeights[selected]) {
+                selected = i;
+            }
+        }
+        if (selected == -1) {
+            return null;
+        }
+        this.currentWeights[selected] -= totalWeight;
+
+        // Take the first element of the key that is longest without a poll,
+        // and move the key to the end if it has more elements.
+        final Iterator<Map.Entry<String, Deque<E>>> iterator = this.bands.get(selected).entrySet().iterator();
+        final Map.Entry<String, Deque<E>> first = iterator.next();
+        iterator.remove();
+        final E element = first.getValue().pollFirst();
+        if (!first.getValue().isEmpty()) {
+            this.bands.get(selected).put(first.getKey(), first.getValue());
+        }
+        this.sizes[selected]--;
+        if (this.sizes[selected] == 0) {
+            this.currentWeights[selected] = 0;
+        }
+        return element;
+    }
+
+    synchronized int size(final int band) {
+        return this.sizes[band];
+    }
+}
@@ -0,0 +1,29 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.codec;
+
+import java.io.IOException;
+import java.io.Serializable;
+
+/**
+ * Encodes the payload of a JMS message as the body of a {@code BytesMessage}.
+ * Codecs are picked up by {@link PayloadCodecs} and selected by their name,
+ * which is sent with the message.
+ */
+public interface PayloadCodec {
+
+    /**
+     * @return The name of the codec, as configured and as sent in the
+     *         {@link PayloadCodecs#PAYLOAD_CODEC} property of a message.
+     */
+    String getName();
+
+    byte[] encode(Serializable payload) throws IOException;
+
+    Serializable decode(byte[] bytes) throws IOException, ClassNotFoundException;
+}
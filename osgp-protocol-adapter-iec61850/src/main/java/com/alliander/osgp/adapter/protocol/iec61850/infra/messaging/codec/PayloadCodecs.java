@@ -0,0 +1,192 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.codec;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.ObjectMessage;
+import javax.jms.Session;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates and reads JMS messages with a payload encoded by a
+ * {@link PayloadCodec}. The payload of a message created with the codec name
+ * {@link #JAVA_SERIALIZATION} is sent in an {@link ObjectMessage}, as before
+ * codecs were introduced. Other payloads are sent in a {@link BytesMessage},
+ * with the name of the codec in the {@link #PAYLOAD_CODEC} property, so the
+ * receiver can decode it. Messages without this property are read as
+ * {@link ObjectMessage}, so codecs can be rolled out per queue.
+ */
+@Component
+@ManagedResource(description = "Encoding of JMS message payloads")
+public class PayloadCodecs {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PayloadCodecs.class);
+
+    public static final String PAYLOAD_CODEC = "PayloadCodec";
+
+    public static final String JAVA_SERIALIZATION = "java";
+
+    @Autowired
+    private List<PayloadCodec> payloadCodecList;
+
+    private final Map<String, PayloadCodec> payloadCodecs = new HashMap<>();
+
+    private final AtomicLong encoded = new AtomicLong();
+    private final AtomicLong encodedBytes = new AtomicLong();
+    private final AtomicLong encodeNanos = new AtomicLong();
+    private final AtomicLong decoded = new AtomicLong();
+    private final AtomicLong decodeNanos = new AtomicLong();
+
+    @PostConstruct
+    private void init() {
+        for (final PayloadCodec payloadCodec : this.payloadCodecList) {
+            this.payloadCodecs.put(payloadCodec.getName(), payloadCodec);
+        }
+        LOGGER.info("Payload codecs: {}", this.payloadCodecs.keySet());
+    }
+
+    /**
+     * Checks that a codec with the given name exists.
+     *
+     * @throws IllegalArgumentException
+     *             If there is no codec with the given name.
+     */
+    public void checkCodec(final String codecName) {
+        if (!JAVA_SERIALIZATION.equals(codecName) && !this.payloadCodecs.containsKey(codecName)) {
+            throw new IllegalArgumentException("Unknown payload codec: " + codecName + ", available codecs: "
+                    + JAVA_SERIALIZATION + ", " + this.payloadCodecs.keySet());
+        }
+    }
+
+    /**
+     * Creates a message with the payload encoded by the codec with the given
+     * name.
+     */
+    public Message createMessage(final String codecName, final Session session, final Serializable payload)
+            throws JMSException {
+        if (JAVA_SERIALIZATION.equals(codecName)) {
+            return session.createObjectMessage(payload);
+        }
+
+        final PayloadCodec payloadCodec = this.getPayloadCodec(codecName);
+        final long start = System.nanoTime();
+        final byte[] bytes;
+        try {
+            bytes = payloadCodec.encode(payload);
+        } catch (final IOException e) {
+            throw this.jmsException("Unable to encode payload with codec: " + codecName, e);
+        }
+        this.encodeNanos.addAndGet(System.nanoTime() - start);
+        this.encoded.incrementAndGet();
+        this.encodedBytes.addAndGet(bytes.length);
+
+        final BytesMessage bytesMessage = session.createBytesMessage();
+        bytesMessage.setStringProperty(PAYLOAD_CODEC, codecName);
+        bytesMessage.writeBytes(bytes);
+        return bytesMessage;
+    }
+
+    /**
+     * Reads the payload of a message created by
+     * {@link #createMessage(String, Session, Serializable)}, or of an
+     * {@link ObjectMessage}.
+     */
+    public Serializable readPayload(final Message message) throws JMSException {
+        final String codecName = message.getStringProperty(PAYLOAD_CODEC);
+        if (codecName == null || message instanceof ObjectMessage) {
+            return ((ObjectMessage) message).getObject();
+        }
+
+        final PayloadCodec payloadCodec = this.getPayloadCodec(codecName);
+        final BytesMessage bytesMessage = (BytesMessage) message;
+        final byte[] bytes = new byte[(int) bytesMessage.getBodyLength()];
+        bytesMessage.readBytes(bytes);
+
+        final long start = System.nanoTime();
+        final Serializable payload;
+        try {
+            payload = payloadCodec.decode(bytes);
+        } catch (final IOException | ClassNotFoundException e) {
+            throw this.jmsException("Unable to decode payload with codec: " + codecName, e);
+        }
+        this.decodeNanos.addAndGet(System.nanoTime() - start);
+        this.decoded.incrementAndGet();
+        return payload;
+    }
+
+    /**
+     * Gives the message as {@link ObjectMessage}. A message with an encoded
+     * payload is decoded and wrapped in an {@link ObjectMessage} with the
+     * headers and properties of the message, which acknowledges the message
+     * when it is acknowledged.
+     */
+    public ObjectMessage toObjectMessage(final Message message) throws JMSException {
+        if (message instanceof ObjectMessage) {
+            return (ObjectMessage) message;
+        }
+        return new DecodedObjectMessage(message, this.readPayload(message));
+    }
+
+    @ManagedAttribute(description = "Number of payloads encoded in a BytesMessage")
+    public long getEncodedCount() {
+        return this.encoded.get();
+    }
+
+    @ManagedAttribute(description = "Average size in bytes of the payloads encoded in a BytesMessage")
+    public long getAverageEncodedSize() {
+        final long count = this.encoded.get();
+        return count == 0 ? 0 : this.encodedBytes.get() / count;
+    }
+
+    @ManagedAttribute(description = "Average time in microseconds to encode a payload in a BytesMessage")
+    public long getAverageEncodeTime() {
+        final long count = this.encoded.get();
+        return count == 0 ? 0 : this.encodeNanos.get() / count / 1000;
+    }
+
+    @ManagedAttribute(description = "Number of payloads decoded from a BytesMessage")
+    public long getDecodedCount() {
+        return this.decoded.get();
+    }
+
+    @ManagedAttribute(description = "Average time in microseconds to decode a payload from a BytesMessage")
+    public long getAverageDecodeTime() {
+        final long count = this.decoded.get();
+        return count == 0 ? 0 : this.decodeNanos.get() / count / 1000;
+    }
+
+    private PayloadCodec getPayloadCodec(final String codecName) throws JMSException {
+        final PayloadCodec payloadCodec = this.payloadCodecs.get(codecName);
+        if (payloadCodec == null) {
+            throw new JMSException("Unknown payload codec: " + codecName);
+        }
+        return payloadCodec;
+    }
+
+    private JMSException jmsException(final String message, final Exception e) {
+        final JMSException jmsException = new JMSException(message + ", " + e.getMessage());
+        jmsException.setLinkedException(e);
+        return jmsException;
+    }
+}
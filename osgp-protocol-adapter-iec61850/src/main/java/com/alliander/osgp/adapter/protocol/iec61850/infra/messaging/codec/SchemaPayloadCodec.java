@@ -0,0 +1,616 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.osgpfoundation.osgp.dto.da.GetPQValuesResponseDto;
+import org.osgpfoundation.osgp.dto.da.iec61850.DataSampleDto;
+import org.osgpfoundation.osgp.dto.da.iec61850.LogicalDeviceDto;
+import org.osgpfoundation.osgp.dto.da.iec61850.LogicalNodeDto;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.Iec61850LogItemRequestMessage;
+import com.alliander.osgp.dto.valueobjects.microgrids.GetDataResponseDto;
+import com.alliander.osgp.dto.valueobjects.microgrids.GetDataSystemIdentifierDto;
+import com.alliander.osgp.dto.valueobjects.microgrids.MeasurementDto;
+import com.alliander.osgp.dto.valueobjects.microgrids.ProfileDto;
+import com.alliander.osgp.dto.valueobjects.microgrids.ProfileEntryDto;
+import com.alliander.osgp.dto.valueobjects.microgrids.ReportDto;
+import com.alliander.osgp.shared.exceptionhandling.OsgpException;
+import com.alliander.osgp.shared.infra.jms.DeviceMessageMetadata;
+import com.alliander.osgp.shared.infra.jms.ProtocolResponseMessage;
+import com.alliander.osgp.shared.infra.jms.RequestMessage;
+import com.alliander.osgp.shared.infra.jms.ResponseMessageResultType;
+
+/**
+ * Encodes payloads in a binary format with a fixed layout per type. The fields
+ * are written from the getters of the type, in a fixed order, and read back
+ * through its constructor or builder. No class descriptors are written, and a
+ * string that occurs more than once in a payload, like the node of a
+ * measurement, is written once and referred to by its index after that.
+ * <p>
+ * Layouts exist for the messages sent to OSGP core, for the results of get
+ * data and get power quality values requests, and for device message log
+ * items. Payloads of other types, and exceptions, are written in their Java
+ * serialized form. The layouts are versioned by {@link #VERSION}, which has to
+ * be incremented when a layout changes.
+ */
+@Component
+public class SchemaPayloadCodec implements PayloadCodec {
+
+    public static final String NAME = "schema";
+
+    private static final int VERSION = 1;
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final int NULL = 0;
+    private static final int SERIALIZED = 1;
+    private static final int PROTOCOL_RESPONSE_MESSAGE = 2;
+    private static final int REQUEST_MESSAGE = 3;
+    private static final int GET_DATA_RESPONSE = 4;
+    private static final int GET_PQ_VALUES_RESPONSE = 5;
+    private static final int LOG_ITEM_REQUEST_MESSAGE = 6;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] encode(final Serializable payload) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(BUFFER_SIZE);
+        final Output output = new Output(new DataOutputStream(bytes));
+        output.writeVarInt(VERSION);
+        this.writePayload(output, payload);
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public Serializable decode(final byte[] bytes) throws IOException, ClassNotFoundException {
+        final Input input = new Input(new DataInputStream(new ByteArrayInputStream(bytes)));
+        final int version = input.readVarInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported version of schema payload: " + version);
+        }
+        return this.readPayload(input);
+    }
+
+    /*
+     * Only payloads of exactly the type of a layout are written in that
+     * layout, the fields of a subclass would be lost.
+     */
+    private void writePayload(final Output output, final Serializable payload) throws IOException {
+        if (payload == null) {
+            output.writeVarInt(NULL);
+        } else if (payload.getClass() == ProtocolResponseMessage.class) {
+            output.writeVarInt(PROTOCOL_RESPONSE_MESSAGE);
+            this.writeProtocolResponseMessage(output, (ProtocolResponseMessage) payload);
+        } else if (payload.getClass() == RequestMessage.class) {
+            output.writeVarInt(REQUEST_MESSAGE);
+            this.writeRequestMessage(output, (RequestMessage) payload);
+        } else if (payload.getClass() == GetDataResponseDto.class) {
+            output.writeVarInt(GET_DATA_RESPONSE);
+            this.writeGetDataResponse(output, (GetDataResponseDto) payload);
+        } else if (payload.getClass() == GetPQValuesResponseDto.class) {
+            output.writeVarInt(GET_PQ_VALUES_RESPONSE);
+            this.writeGetPqValuesResponse(output, (GetPQValuesResponseDto) payload);
+        } else if (payload.getClass() == Iec61850LogItemRequestMessage.class) {
+            output.writeVarInt(LOG_ITEM_REQUEST_MESSAGE);
+            this.writeLogItemRequestMessage(output, (Iec61850LogItemRequestMessage) payload);
+        } else {
+            output.writeVarInt(SERIALIZED);
+            output.writeSerialized(payload);
+        }
+    }
+
+    private Serializable readPayload(final Input input) throws IOException, ClassNotFoundException {
+        final int type = input.readVarInt();
+        switch (type) {
+        case NULL:
+            return null;
+        case SERIALIZED:
+            return input.readSerialized();
+        case PROTOCOL_RESPONSE_MESSAGE:
+            return this.readProtocolResponseMessage(input);
+        case REQUEST_MESSAGE:
+            return this.readRequestMessage(input);
+        case GET_DATA_RESPONSE:
+            return this.readGetDataResponse(input);
+        case GET_PQ_VALUES_RESPONSE:
+            return this.readGetPqValuesResponse(input);
+        case LOG_ITEM_REQUEST_MESSAGE:
+            return this.readLogItemRequestMessage(input);
+        default:
+            throw new IOException("Unknown type of schema payload: " + type);
+        }
+    }
+
+    private void writeProtocolResponseMessage(final Output output, final ProtocolResponseMessage message)
+            throws IOException {
+        output.writeString(message.getDeviceIdentification());
+        output.writeString(message.getOrganisationIdentification());
+        output.writeString(message.getCorrelationUid());
+        output.writeString(message.getMessageType());
+        output.writeVarInt(message.getMessagePriority());
+        output.writeString(message.getDomain());
+        output.writeString(message.getDomainVersion());
+        output.writeString(message.getResult() == null ? null : message.getResult().name());
+        output.writeSerialized(message.getOsgpException());
+        output.writeBoolean(message.isScheduled());
+        output.writeVarInt(message.getRetryCount());
+        this.writePayload(output, message.getDataObject());
+    }
+
+    private ProtocolResponseMessage readProtocolResponseMessage(final Input input)
+            throws IOException, ClassNotFoundException {
+        final String deviceIdentification = input.readString();
+        final String organisationIdentification = input.readString();
+        final String correlationUid = input.readString();
+        final String messageType = input.readString();
+        final int messagePriority = input.readVarInt();
+        final String domain = input.readString();
+        final String domainVersion = input.readString();
+        final String result = input.readString();
+        final OsgpException osgpException = (OsgpException) input.readSerialized();
+        final boolean scheduled = input.readBoolean();
+        final int retryCount = input.readVarInt();
+        final Serializable dataObject = this.readPayload(input);
+
+        return new ProtocolResponseMessage.Builder()
+                .deviceMessageMetadata(new DeviceMessageMetadata(deviceIdentification, organisationIdentification,
+                        correlationUid, messageType, messagePriority))
+                .domain(domain).domainVersion(domainVersion)
+                .result(result == null ? null : ResponseMessageResultType.valueOf(result))
+                .osgpException(osgpException).scheduled(scheduled).retryCount(retryCount).dataObject(dataObject)
+                .build();
+    }
+
+    private void writeRequestMessage(final Output output, final RequestMessage message) throws IOException {
+        output.writeString(message.getCorrelationUid());
+        output.writeString(message.getOrganisationIdentification());
+        output.writeString(message.getDeviceIdentification());
+        output.writeString(message.getIpAddress());
+        this.writePayload(output, message.getRequest());
+    }
+
+    private RequestMessage readRequestMessage(final Input input) throws IOException, ClassNotFoundException {
+        final String correlationUid = input.readString();
+        final String organisationIdentification = input.readString();
+        final String deviceIdentification = input.readString();
+        final String ipAddress = input.readString();
+        final Serializable request = this.readPayload(input);
+        return new RequestMessage(correlationUid, organisationIdentification, deviceIdentification, ipAddress,
+                request);
+    }
+
+    private void writeGetDataResponse(final Output output, final GetDataResponseDto response) throws IOException {
+        final List<GetDataSystemIdentifierDto> systems = response.getGetDataSystemIdentifiers();
+        output.writeSize(systems);
+        if (systems != null) {
+            for (final GetDataSystemIdentifierDto system : systems) {
+                this.writeSystem(output, system);
+            }
+        }
+
+        final ReportDto report = response.getReport();
+        output.writeBoolean(report != null);
+        if (report != null) {
+            output.writeInteger(report.getSequenceNumber());
+            output.writeDateTime(report.getTimeStamp());
+            output.writeString(report.getReportId());
+        }
+    }
+
+    private GetDataResponseDto readGetDataResponse(final Input input) throws IOException {
+        final int numberOfSystems = input.readSize();
+        List<GetDataSystemIdentifierDto> systems = null;
+        if (numberOfSystems >= 0) {
+            systems = new ArrayList<>(numberOfSystems);
+            for (int i = 0; i < numberOfSystems; i++) {
+                systems.add(this.readSystem(input));
+            }
+        }
+
+        ReportDto report = null;
+        if (input.readBoolean()) {
+            report = new ReportDto(input.readInteger(), input.readDateTime(), input.readString());
+        }
+        return new GetDataResponseDto(systems, report);
+    }
+
+    private void writeSystem(final Output output, final GetDataSystemIdentifierDto system) throws IOException {
+        output.writeVarInt(system.getId());
+        output.writeString(system.getSystemType());
+
+        final List<MeasurementDto> measurements = system.getMeasurements();
+        output.writeSize(measurements);
+        if (measurements != null) {
+            for (final MeasurementDto measurement : measurements) {
+                output.writeVarInt(measurement.getId());
+                output.writeString(measurement.getNode());
+                output.writeVarInt(measurement.getQualifier());
+                output.writeDateTime(measurement.getTime());
+                output.writeDouble(measurement.getValue());
+            }
+        }
+
+        final List<ProfileDto> profiles = system.getProfiles();
+        output.writeSize(profiles);
+        if (profiles != null) {
+            for (final ProfileDto profile : profiles) {
+                output.writeVarInt(profile.getId());
+                output.writeString(profile.getNode());
+                final List<ProfileEntryDto> profileEntries = profile.getProfileEntries();
+                output.writeSize(profileEntries);
+                if (profileEntries != null) {
+                    for (final ProfileEntryDto profileEntry : profileEntries) {
+                        output.writeVarInt(profileEntry.getId());
+                        output.writeDateTime(profileEntry.getTime());
+                        output.writeDouble(profileEntry.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    private GetDataSystemIdentifierDto readSystem(final Input input) throws IOException {
+        final int id = input.readVarInt();
+        final String systemType = input.readString();
+
+        final int numberOfMeasurements = input.readSize();
+        List<MeasurementDto> measurements = null;
+        if (numberOfMeasurements >= 0) {
+            measurements = new ArrayList<>(numberOfMeasurements);
+            for (int i = 0; i < numberOfMeasurements; i++) {
+                measurements.add(new MeasurementDto(input.readVarInt(), input.readString(), input.readVarInt(),
+                        input.readDateTime(), input.readDouble()));
+            }
+        }
+
+        final int numberOfProfiles = input.readSize();
+        if (numberOfProfiles < 0) {
+            return new GetDataSystemIdentifierDto(id, systemType, measurements);
+        }
+        final List<ProfileDto> profiles = new ArrayList<>(numberOfProfiles);
+        for (int i = 0; i < numberOfProfiles; i++) {
+            final int profileId = input.readVarInt();
+            final String node = input.readString();
+            final int numberOfProfileEntries = input.readSize();
+            List<ProfileEntryDto> profileEntries = null;
+            if (numberOfProfileEntries >= 0) {
+                profileEntries = new ArrayList<>(numberOfProfileEntries);
+                for (int j = 0; j < numberOfProfileEntries; j++) {
+                    profileEntries.add(new ProfileEntryDto(input.readVarInt(), input.readDateTime(),
+                            input.readDouble()));
+                }
+            }
+            profiles.add(new ProfileDto(profileId, node, profileEntries));
+        }
+        return new GetDataSystemIdentifierDto(id, systemType, measurements, profiles);
+    }
+
+    private void writeGetPqValuesResponse(final Output output, final GetPQValuesResponseDto response)
+            throws IOException {
+        final List<LogicalDeviceDto> logicalDevices = response.getLogicalDevices();
+        output.writeSize(logicalDevices);
+        if (logicalDevices == null) {
+            return;
+        }
+        for (final LogicalDeviceDto logicalDevice : logicalDevices) {
+            output.writeString(logicalDevice.getName());
+            final List<LogicalNodeDto> logicalNodes = logicalDevice.getLogicalNodes();
+            output.writeSize(logicalNodes);
+            if (logicalNodes == null) {
+                continue;
+            }
+            for (final LogicalNodeDto logicalNode : logicalNodes) {
+                output.writeString(logicalNode.getName());
+                final List<DataSampleDto> dataSamples = logicalNode.getDataSamples();
+                output.writeSize(dataSamples);
+                if (dataSamples == null) {
+                    continue;
+                }
+                for (final DataSampleDto dataSample : dataSamples) {
+                    output.writeString(dataSample.getType());
+                    output.writeDate(dataSample.getTimestamp());
+                    output.writeBigDecimal(dataSample.getValue());
+                }
+            }
+        }
+    }
+
+    private GetPQValuesResponseDto readGetPqValuesResponse(final Input input) throws IOException {
+        final int numberOfLogicalDevices = input.readSize();
+        if (numberOfLogicalDevices < 0) {
+            return new GetPQValuesResponseDto(null);
+        }
+        final List<LogicalDeviceDto> logicalDevices = new ArrayList<>(numberOfLogicalDevices);
+        for (int i = 0; i < numberOfLogicalDevices; i++) {
+            final String logicalDeviceName = input.readString();
+            final int numberOfLogicalNodes = input.readSize();
+            List<LogicalNodeDto> logicalNodes = null;
+            if (numberOfLogicalNodes >= 0) {
+                logicalNodes = new ArrayList<>(numberOfLogicalNodes);
+                for (int j = 0; j < numberOfLogicalNodes; j++) {
+                    logicalNodes.add(this.readLogicalNode(input));
+                }
+            }
+            logicalDevices.add(new LogicalDeviceDto(logicalDeviceName, logicalNodes));
+        }
+        return new GetPQValuesResponseDto(logicalDevices);
+    }
+
+    private LogicalNodeDto readLogicalNode(final Input input) throws IOException {
+        final String logicalNodeName = input.readString();
+        final int numberOfDataSamples = input.readSize();
+        List<DataSampleDto> dataSamples = null;
+        if (numberOfDataSamples >= 0) {
+            dataSamples = new ArrayList<>(numberOfDataSamples);
+            for (int i = 0; i < numberOfDataSamples; i++) {
+                dataSamples.add(new DataSampleDto(input.readString(), input.readDate(), input.readBigDecimal()));
+            }
+        }
+        return new LogicalNodeDto(logicalNodeName, dataSamples);
+    }
+
+    private void writeLogItemRequestMessage(final Output output, final Iec61850LogItemRequestMessage message)
+            throws IOException {
+        output.writeString(message.getDeviceIdentification());
+        output.writeString(message.getOrganisationIdentification());
+        output.writeBoolean(message.isIncoming());
+        output.writeBoolean(message.isValid());
+        output.writeString(message.getEncodedMessage());
+        output.writeString(message.getDecodedMessage());
+        output.writeVarInt(message.getPayloadMessageSerializedSize());
+    }
+
+    private Iec61850LogItemRequestMessage readLogItemRequestMessage(final Input input) throws IOException {
+        final String deviceIdentification = input.readString();
+        final String organisationIdentification = input.readString();
+        final boolean incoming = input.readBoolean();
+        final boolean valid = input.readBoolean();
+        final String encodedMessage = input.readString();
+        final String decodedMessage = input.readString();
+        final int payloadMessageSerializedSize = input.readVarInt();
+        return new Iec61850LogItemRequestMessage(deviceIdentification, organisationIdentification, incoming, valid,
+                encodedMessage, decodedMessage, payloadMessageSerializedSize);
+    }
+
+    /**
+     * Writes the values of a payload, keeping track of the strings written.
+     */
+    private static class Output {
+
+        private final DataOutputStream out;
+        private final Map<String, Integer> strings = new HashMap<>();
+
+        Output(final DataOutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Writes the value in 7 bits per byte, with the high bit set if more
+         * bytes follow. Negative values take 5 bytes.
+         */
+        void writeVarInt(final int value) throws IOException {
+            int remaining = value;
+            while ((remaining & ~0x7F) != 0) {
+                this.out.writeByte((remaining & 0x7F) | 0x80);
+                remaining >>>= 7;
+            }
+            this.out.writeByte(remaining);
+        }
+
+        /**
+         * Writes 0 for {@code null}, 1 followed by the UTF-8 bytes of a string
+         * that has not been written before, or the index of the string plus 2.
+         */
+        void writeString(final String value) throws IOException {
+            if (value == null) {
+                this.writeVarInt(0);
+                return;
+            }
+            final Integer index = this.strings.get(value);
+            if (index != null) {
+                this.writeVarInt(index + 2);
+                return;
+            }
+            this.strings.put(value, this.strings.size());
+            this.writeVarInt(1);
+            this.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Writes 0 for {@code null}, or the size of the list plus 1.
+         */
+        void writeSize(final List<?> list) throws IOException {
+            this.writeVarInt(list == null ? 0 : list.size() + 1);
+        }
+
+        void writeBoolean(final boolean value) throws IOException {
+            this.out.writeBoolean(value);
+        }
+
+        void writeDouble(final double value) throws IOException {
+            this.out.writeDouble(value);
+        }
+
+        void writeInteger(final Integer value) throws IOException {
+            this.out.writeBoolean(value != null);
+            if (value != null) {
+                this.writeVarInt(value);
+            }
+        }
+
+        void writeDate(final Date value) throws IOException {
+            this.out.writeBoolean(value != null);
+            if (value != null) {
+                this.out.writeLong(value.getTime());
+            }
+        }
+
+        void writeDateTime(final DateTime value) throws IOException {
+            this.out.writeBoolean(value != null);
+            if (value != null) {
+                this.out.writeLong(value.getMillis());
+                this.writeString(value.getZone().getID());
+            }
+        }
+
+        void writeBigDecimal(final BigDecimal value) throws IOException {
+            this.out.writeBoolean(value != null);
+            if (value != null) {
+                this.writeVarInt(value.scale());
+                this.writeBytes(value.unscaledValue().toByteArray());
+            }
+        }
+
+        void writeSerialized(final Serializable value) throws IOException {
+            this.out.writeBoolean(value != null);
+            if (value != null) {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream(BUFFER_SIZE);
+                try (final ObjectOutputStream objectOut = new ObjectOutputStream(bytes)) {
+                    objectOut.writeObject(value);
+                }
+                this.writeBytes(bytes.toByteArray());
+            }
+        }
+
+        void flush() throws IOException {
+            this.out.flush();
+        }
+
+        private void writeBytes(final byte[] bytes) throws IOException {
+            this.writeVarInt(bytes.length);
+            this.out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads the values of a payload written by {@link Output}.
+     */
+    private static class Input {
+
+        private final DataInputStream in;
+        private final List<String> strings = new ArrayList<>();
+
+        Input(final DataInputStream in) {
+            this.in = in;
+        }
+
+        int readVarInt() throws IOException {
+            int value = 0;
+            int shift = 0;
+            int next;
+            do {
+                if (shift > 28) {
+                    throw new IOException("Malformed variable length integer in schema payload");
+                }
+                next = this.in.readUnsignedByte();
+                value |= (next & 0x7F) << shift;
+                shift += 7;
+            } while ((next & 0x80) != 0);
+            return value;
+        }
+
+        String readString() throws IOException {
+            final int reference = this.readVarInt();
+            if (reference == 0) {
+                return null;
+            }
+            if (reference > 1) {
+                final int index = reference - 2;
+                if (index >= this.strings.size()) {
+                    throw new IOException("Reference to unknown string " + index + " in schema payload");
+                }
+                return this.strings.get(index);
+            }
+            final String value = new String(this.readBytes(), StandardCharsets.UTF_8);
+            this.strings.add(value);
+            return value;
+        }
+
+        /**
+         * @return The size of the list, or -1 if the list is {@code null}.
+         */
+        int readSize() throws IOException {
+            return this.readVarInt() - 1;
+        }
+
+        boolean readBoolean() throws IOException {
+            return this.in.readBoolean();
+        }
+
+        double readDouble() throws IOException {
+            return this.in.readDouble();
+        }
+
+        Integer readInteger() throws IOException {
+            return this.in.readBoolean() ? this.readVarInt() : null;
+        }
+
+        Date readDate() throws IOException {
+            return this.in.readBoolean() ? new Date(this.in.readLong()) : null;
+        }
+
+        DateTime readDateTime() throws IOException {
+            if (!this.in.readBoolean()) {
+                return null;
+            }
+            final long millis = this.in.readLong();
+            return new DateTime(millis, DateTimeZone.forID(this.readString()));
+        }
+
+        BigDecimal readBigDecimal() throws IOException {
+            if (!this.in.readBoolean()) {
+                return null;
+            }
+            final int scale = this.readVarInt();
+            return new BigDecimal(new BigInteger(this.readBytes()), scale);
+        }
+
+        Serializable readSerialized() throws IOException, ClassNotFoundException {
+            if (!this.in.readBoolean()) {
+                return null;
+            }
+            try (final ObjectInputStream objectIn = new ObjectInputStream(new ByteArrayInputStream(this.readBytes()))) {
+                return (Serializable) objectIn.readObject();
+            }
+        }
+
+        private byte[] readBytes() throws IOException {
+            final int length = this.readVarInt();
+            if (length < 0 || length > this.in.available()) {
+                throw new IOException("Length of " + length + " bytes exceeds the schema payload");
+            }
+            final byte[] bytes = new byte[length];
+            this.in.readFully(bytes);
+            return bytes;
+        }
+    }
+}
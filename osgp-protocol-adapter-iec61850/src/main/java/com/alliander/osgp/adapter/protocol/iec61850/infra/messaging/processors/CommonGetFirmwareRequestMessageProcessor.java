@@ -21,6 +21,7 @@ import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceRequest;
 import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceResponse;
 import com.alliander.osgp.adapter.protocol.iec61850.device.ssld.responses.GetFirmwareVersionDeviceResponse;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.DomainInformation;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.CoalescableMessageProcessor;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.DeviceRequestMessageType;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.SsldDeviceRequestMessageProcessor;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.RequestMessageData;
@@ -39,7 +40,8 @@ import com.alliander.osgp.shared.infra.jms.ResponseMessageSender;
  * Class for processing common get firmware request messages
  */
 @Component("iec61850CommonGetFirmwareRequestMessageProcessor")
-public class CommonGetFirmwareRequestMessageProcessor extends SsldDeviceRequestMessageProcessor {
+public class CommonGetFirmwareRequestMessageProcessor extends SsldDeviceRequestMessageProcessor
+        implements CoalescableMessageProcessor {
     /**
      * Logger for this class
      */
@@ -104,6 +106,19 @@ public class CommonGetFirmwareRequestMessageProcessor extends SsldDeviceRequestM
         this.deviceService.getFirmwareVersion(deviceRequest, iec61850DeviceResponseHandler);
     }
 
+    @Override
+    public String getCoalescingKey(final ObjectMessage message) throws JMSException {
+        return message.getJMSType();
+    }
+
+    @Override
+    public DeviceResponse copyDeviceResponse(final DeviceResponse deviceResponse,
+            final String organisationIdentification, final String correlationUid) {
+        return new GetFirmwareVersionDeviceResponse(organisationIdentification,
+                deviceResponse.getDeviceIdentification(), correlationUid,
+                ((GetFirmwareVersionDeviceResponse) deviceResponse).getFirmwareVersions());
+    }
+
     @Override
     public void handleDeviceResponse(final DeviceResponse deviceResponse,
             final ResponseMessageSender responseMessageSender, final DomainInformation domainInformation,
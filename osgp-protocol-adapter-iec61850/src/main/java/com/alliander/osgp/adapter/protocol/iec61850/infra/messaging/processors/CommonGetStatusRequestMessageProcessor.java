@@ -17,6 +17,7 @@ import org.springframework.stereotype.Component;
 import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceRequest;
 import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceResponse;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.DomainInformation;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.CoalescableMessageProcessor;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.DeviceRequestMessageType;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.SsldDeviceRequestMessageProcessor;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.RequestMessageData;
@@ -28,7 +29,8 @@ import com.alliander.osgp.shared.infra.jms.ResponseMessageSender;
  * Class for processing common get status request messages
  */
 @Component("iec61850CommonGetStatusRequestMessageProcessor")
-public class CommonGetStatusRequestMessageProcessor extends SsldDeviceRequestMessageProcessor {
+public class CommonGetStatusRequestMessageProcessor extends SsldDeviceRequestMessageProcessor
+        implements CoalescableMessageProcessor {
     /**
      * Logger for this class
      */
@@ -93,6 +95,17 @@ public class CommonGetStatusRequestMessageProcessor extends SsldDeviceRequestMes
         this.deviceService.getStatus(deviceRequest, iec61850DeviceResponseHandler);
     }
 
+    @Override
+    public String getCoalescingKey(final ObjectMessage message) throws JMSException {
+        return message.getJMSType();
+    }
+
+    @Override
+    public DeviceResponse copyDeviceResponse(final DeviceResponse deviceResponse,
+            final String organisationIdentification, final String correlationUid) {
+        return this.copyGetStatusDeviceResponse(deviceResponse, organisationIdentification, correlationUid);
+    }
+
     @Override
     public void handleDeviceResponse(final DeviceResponse deviceResponse,
             final ResponseMessageSender responseMessageSender, final DomainInformation domainInformation,
@@ -10,6 +10,8 @@ package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.processors;
 import javax.jms.JMSException;
 import javax.jms.ObjectMessage;
 
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.SerializationUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -20,6 +22,7 @@ import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceResponse;
 import com.alliander.osgp.adapter.protocol.iec61850.device.rtu.requests.GetDataDeviceRequest;
 import com.alliander.osgp.adapter.protocol.iec61850.device.ssld.responses.GetDataDeviceResponse;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.DomainInformation;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.CoalescableMessageProcessor;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.DeviceRequestMessageType;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.RtuDeviceRequestMessageProcessor;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.RequestMessageData;
@@ -39,7 +42,8 @@ import com.alliander.osgp.shared.infra.jms.ResponseMessageSender;
  * Class for processing microgrids get data request messages
  */
 @Component("iec61850MicrogridsGetDataRequestMessageProcessor")
-public class MicrogridsGetDataRequestMessageProcessor extends RtuDeviceRequestMessageProcessor {
+public class MicrogridsGetDataRequestMessageProcessor extends RtuDeviceRequestMessageProcessor
+        implements CoalescableMessageProcessor {
     /**
      * Logger for this class
      */
@@ -107,6 +111,23 @@ public class MicrogridsGetDataRequestMessageProcessor extends RtuDeviceRequestMe
                 iec61850DeviceResponseHandler);
     }
 
+    /**
+     * Get data requests with equal filters are coalesced. The filters are
+     * compared by their serialized form.
+     */
+    @Override
+    public String getCoalescingKey(final ObjectMessage message) throws JMSException {
+        return message.getJMSType() + ":" + DigestUtils.sha1Hex(SerializationUtils.serialize(message.getObject()));
+    }
+
+    @Override
+    public DeviceResponse copyDeviceResponse(final DeviceResponse deviceResponse,
+            final String organisationIdentification, final String correlationUid) {
+        final GetDataDeviceResponse response = (GetDataDeviceResponse) deviceResponse;
+        return new GetDataDeviceResponse(organisationIdentification, deviceResponse.getDeviceIdentification(),
+                correlationUid, response.getStatus(), response.getDataResponse());
+    }
+
     @Override
     public void handleDeviceResponse(final DeviceResponse deviceResponse,
             final ResponseMessageSender responseMessageSender, final DomainInformation domainInformation,
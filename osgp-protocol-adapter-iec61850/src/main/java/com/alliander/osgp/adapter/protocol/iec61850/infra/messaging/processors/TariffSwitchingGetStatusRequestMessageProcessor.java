@@ -17,6 +17,7 @@ import org.springframework.stereotype.Component;
 import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceRequest;
 import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceResponse;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.DomainInformation;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.CoalescableMessageProcessor;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.DeviceRequestMessageType;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.SsldDeviceRequestMessageProcessor;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.RequestMessageData;
@@ -27,7 +28,8 @@ import com.alliander.osgp.shared.infra.jms.Constants;
  * Class for processing tariff switching get status request messages
  */
 @Component("iec61850TariffSwitchingGetStatusRequestMessageProcessor")
-public class TariffSwitchingGetStatusRequestMessageProcessor extends SsldDeviceRequestMessageProcessor {
+public class TariffSwitchingGetStatusRequestMessageProcessor extends SsldDeviceRequestMessageProcessor
+        implements CoalescableMessageProcessor {
     /**
      * Logger for this class
      */
@@ -92,6 +94,17 @@ public class TariffSwitchingGetStatusRequestMessageProcessor extends SsldDeviceR
         this.deviceService.getStatus(deviceRequest, iec61850DeviceResponseHandler);
     }
 
+    @Override
+    public String getCoalescingKey(final ObjectMessage message) throws JMSException {
+        return message.getJMSType();
+    }
+
+    @Override
+    public DeviceResponse copyDeviceResponse(final DeviceResponse deviceResponse,
+            final String organisationIdentification, final String correlationUid) {
+        return this.copyGetStatusDeviceResponse(deviceResponse, organisationIdentification, correlationUid);
+    }
+
     @Override
     public void handleDeviceResponse(final DeviceResponse deviceResponse,
             final com.alliander.osgp.shared.infra.jms.ResponseMessageSender responseMessageSender,
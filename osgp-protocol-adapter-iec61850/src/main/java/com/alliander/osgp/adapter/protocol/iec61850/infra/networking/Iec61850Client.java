@@ -9,19 +9,28 @@ package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
 
 import java.io.IOException;
 import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.PostConstruct;
 
 import org.apache.commons.lang3.StringUtils;
+import org.openmuc.openiec61850.BdaVisibleString;
 import org.openmuc.openiec61850.ClientAssociation;
 import org.openmuc.openiec61850.ClientSap;
+import org.openmuc.openiec61850.DataSet;
+import org.openmuc.openiec61850.Fc;
 import org.openmuc.openiec61850.FcModelNode;
-import org.openmuc.openiec61850.SclParseException;
+import org.openmuc.openiec61850.ModelNode;
 import org.openmuc.openiec61850.ServerModel;
 import org.openmuc.openiec61850.ServiceError;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.stereotype.Component;
 
 import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.DeviceMessageLog;
@@ -29,19 +38,56 @@ import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ConnectionFailure
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeReadException;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeWriteException;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ConnectionPool.PooledConnection;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.ConnectionState;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DataAttribute;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.Function;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalDevice;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalNode;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.Reconnector;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.RetryPolicies;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.RetryPolicy;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.SubDataAttribute;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting.Iec61850ClientBaseEventListener;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting.Iec61850ClientEventListenerFactory;
 
 @Component
+@ManagedResource(description = "IEC61850 client")
 public class Iec61850Client {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850Client.class);
     private static final String COULD_NOT_EXECUTE_COMMAND = "Could not execute command";
 
+    /**
+     * Prefix of the non-persistent data sets used to read multiple nodes at
+     * once. Non-persistent data sets only exist within the association that
+     * created them.
+     */
+    private static final String READ_BATCH_DATA_SET_PREFIX = "@OsgpReadBatch";
+
+    /**
+     * Reading nodes using a data set takes three requests: create, read and
+     * delete. For fewer nodes, these are read one by one.
+     */
+    private static final int READ_BATCH_MINIMUM_SIZE = 4;
+
+    /**
+     * Maximum number of basic data attributes read using one data set, as an
+     * estimate of the size of the response, which has to fit in the maximum
+     * PDU size negotiated with the device.
+     */
+    private static final int READ_BATCH_MAXIMUM_ATTRIBUTES = 400;
+
+    @Autowired
+    private Iec61850ServerModelCache iec61850ServerModelCache;
+
+    @Autowired
+    private Iec61850ServerModelSnapshotCache iec61850ServerModelSnapshotCache;
+
+    @Autowired
+    private Iec61850ConnectionPool iec61850ConnectionPool;
+
     @Autowired
     private int iec61850PortClient;
 
@@ -58,14 +104,26 @@ public class Iec61850Client {
     private int maxRedeliveriesForIec61850Requests;
 
     @Autowired
-    private int maxRetryCount;
+    private RetryPolicies retryPolicies;
+
+    @Autowired
+    private int readBatchMaxSize;
+
+    private final AtomicLong readRequests = new AtomicLong();
+    private final AtomicLong readBatchDataSets = new AtomicLong();
+    private final AtomicLong readBatchFallbacks = new AtomicLong();
+    private final AtomicLong commandAttempts = new AtomicLong();
+    private final AtomicLong commandRetries = new AtomicLong();
+    private final AtomicLong commandReconnects = new AtomicLong();
+    private final AtomicLong commandAttemptTimeTotal = new AtomicLong();
+    private final AtomicLong commandAttemptTimeMax = new AtomicLong();
 
     @PostConstruct
     private void init() {
         LOGGER.info(
-                "portClient: {}, portClientLocal: {}, iec61850SsldPortServer: {}, iec61850RtuPortServer: {}, maxRetryCount: {}, maxRedeliveriesForIec61850Requests: {}",
+                "portClient: {}, portClientLocal: {}, iec61850SsldPortServer: {}, iec61850RtuPortServer: {}, maxRedeliveriesForIec61850Requests: {}, readBatchMaxSize: {}",
                 this.iec61850PortClient, this.iec61850PortClientLocal, this.iec61850SsldPortServer,
-                this.iec61850RtuPortServer, this.maxRetryCount, this.maxRedeliveriesForIec61850Requests);
+                this.iec61850RtuPortServer, this.maxRedeliveriesForIec61850Requests, this.readBatchMaxSize);
     }
 
     /**
@@ -94,8 +152,8 @@ public class Iec61850Client {
         // connect using SSL.
         final ClientSap clientSap = new ClientSap();
         final Iec61850ClientAssociation clientAssociation;
-        LOGGER.info("Attempting to connect to server: {} on port: {}, max redelivery count: {} and max retry count: {}",
-                ipAddress.getHostAddress(), port, this.maxRedeliveriesForIec61850Requests, this.maxRetryCount);
+        LOGGER.info("Attempting to connect to server: {} on port: {}, max redelivery count: {}",
+                ipAddress.getHostAddress(), port, this.maxRedeliveriesForIec61850Requests);
 
         try {
             final ClientAssociation association = clientSap.associate(ipAddress, port, null, reportListener);
@@ -154,6 +212,82 @@ public class Iec61850Client {
         }
     }
 
+    /**
+     * Read the device model, reusing the snapshot retrieved from the device
+     * earlier if the configuration revisions of its logical devices are
+     * unchanged. Otherwise the model is retrieved using
+     * {@link #readServerModelFromDevice(ClientAssociation)} and stored as a
+     * new snapshot.
+     *
+     * @param clientAssociation
+     *            Instance of {@link ClientAssociation}
+     * @param deviceIdentification
+     *            The device identification.
+     *
+     * @return Instance of {@link ServerModel}
+     *
+     * @throws ProtocolAdapterException
+     *             In case the connection to the device could not be
+     *             established.
+     */
+    public ServerModel readServerModelFromDevice(final ClientAssociation clientAssociation,
+            final String deviceIdentification) throws ProtocolAdapterException {
+        final ServerModel snapshot = this.iec61850ServerModelSnapshotCache.getServerModel(deviceIdentification);
+        if (snapshot != null) {
+            clientAssociation.setServerModel(snapshot);
+            final String fingerprint = this.readServerModelFingerprint(clientAssociation, snapshot);
+            if (fingerprint != null
+                    && fingerprint.equals(this.iec61850ServerModelSnapshotCache.getFingerprint(deviceIdentification))) {
+                LOGGER.info("Using server model snapshot for device: {}", deviceIdentification);
+                this.iec61850ServerModelSnapshotCache.registerHit();
+                return snapshot;
+            }
+            LOGGER.info("Server model snapshot for device: {} is outdated, fingerprint on device: {}",
+                    deviceIdentification, fingerprint);
+        }
+
+        this.iec61850ServerModelSnapshotCache.registerMiss();
+        final ServerModel serverModel = this.readServerModelFromDevice(clientAssociation);
+        final String fingerprint = this.readServerModelFingerprint(clientAssociation, serverModel);
+        if (fingerprint != null) {
+            this.iec61850ServerModelSnapshotCache.putServerModel(deviceIdentification, serverModel, fingerprint);
+        } else {
+            this.iec61850ServerModelSnapshotCache.invalidate(deviceIdentification);
+        }
+        return serverModel;
+    }
+
+    /**
+     * Reads the configuration revision of every logical device in the given
+     * model from the device.
+     *
+     * @return The configuration revisions, or {@code null} if these are not
+     *         available for all logical devices.
+     */
+    private String readServerModelFingerprint(final ClientAssociation clientAssociation,
+            final ServerModel serverModel) {
+        final StringBuilder fingerprint = new StringBuilder();
+        for (final ModelNode logicalDevice : serverModel.getChildren()) {
+            final String objectReference = logicalDevice.getName() + "/"
+                    + LogicalNode.LOGICAL_NODE_ZERO.getDescription() + "." + DataAttribute.NAME_PLATE.getDescription()
+                    + "." + SubDataAttribute.CONFIGURATION_REVISION.getDescription();
+            final ModelNode configurationRevision = serverModel.findModelNode(objectReference, Fc.DC);
+            if (!(configurationRevision instanceof BdaVisibleString)) {
+                LOGGER.debug("No configuration revision available for: {}", objectReference);
+                return null;
+            }
+            try {
+                clientAssociation.getDataValues((FcModelNode) configurationRevision);
+            } catch (final ServiceError | IOException e) {
+                LOGGER.warn("Unable to read configuration revision: {}", objectReference, e);
+                return null;
+            }
+            fingerprint.append(logicalDevice.getName()).append('=')
+                    .append(((BdaVisibleString) configurationRevision).getStringValue()).append(';');
+        }
+        return fingerprint.length() == 0 ? null : fingerprint.toString();
+    }
+
     /**
      * Use an ICD file (model file) to read the device model.
      *
@@ -173,11 +307,11 @@ public class Iec61850Client {
             throw new ProtocolAdapterException("File path is empty");
         }
 
-        try {
-            return clientAssociation.getModelFromSclFile(filePath);
-        } catch (final SclParseException e) {
-            throw new ProtocolAdapterException("Error parsing SCL file: " + filePath, e);
-        }
+        // Use a copy of the cached model, the file is only parsed again when
+        // it has changed.
+        final ServerModel serverModel = this.iec61850ServerModelCache.getServerModel(filePath);
+        clientAssociation.setServerModel(serverModel);
+        return serverModel;
     }
 
     /**
@@ -219,6 +353,7 @@ public class Iec61850Client {
     public void readNodeDataValues(final ClientAssociation clientAssociation, final FcModelNode modelNode)
             throws NodeReadException {
         try {
+            this.readRequests.incrementAndGet();
             clientAssociation.getDataValues(modelNode);
         } catch (final ServiceError e) {
             LOGGER.error("ServiceError during readNodeDataValues", e);
@@ -230,31 +365,169 @@ public class Iec61850Client {
     }
 
     /**
-     * Executes the apply method of the given {@link Function} with retries.
+     * Read the values of all data attributes of the given nodes, using as few
+     * requests as possible. The nodes are read in batches using temporary
+     * non-persistent data sets, of at most {@code readBatchMaxSize} nodes and
+     * an estimated response size that fits in a PDU. If the device does not
+     * allow a data set to be created, or fails to read it, the nodes of the
+     * batch are read one by one.
      *
-     * @return The given T.
+     * @param clientAssociation
+     *            An {@link ClientAssociation} instance.
+     * @param modelNodes
+     *            The {@link FcModelNode}s to read, every node is read once.
+     *
+     * @return The number of requests sent to the device.
+     *
+     * @throws NodeReadException
+     *             In case the read action fails.
      */
-    public <T> T sendCommandWithRetry(final Function<T> function, final String deviceIdentification)
-            throws ProtocolAdapterException {
-        T output = null;
+    public int readNodeDataValues(final ClientAssociation clientAssociation, final List<FcModelNode> modelNodes)
+            throws NodeReadException {
+        final List<FcModelNode> distinctModelNodes = new ArrayList<>(new LinkedHashSet<>(modelNodes));
+        int requests = 0;
+        List<FcModelNode> batch = new ArrayList<>();
+        int batchAttributes = 0;
+        for (final FcModelNode modelNode : distinctModelNodes) {
+            final int attributes = modelNode.getBasicDataAttributes().size();
+            if (!batch.isEmpty() && (batch.size() >= this.readBatchMaxSize
+                    || batchAttributes + attributes > READ_BATCH_MAXIMUM_ATTRIBUTES)) {
+                requests += this.readBatch(clientAssociation, batch);
+                batch = new ArrayList<>();
+                batchAttributes = 0;
+            }
+            batch.add(modelNode);
+            batchAttributes += attributes;
+        }
+        if (!batch.isEmpty()) {
+            requests += this.readBatch(clientAssociation, batch);
+        }
+        LOGGER.debug("Read {} nodes using {} requests", distinctModelNodes.size(), requests);
+        return requests;
+    }
 
-        try {
-            output = function.apply(null);
-        } catch (final NodeWriteException | NodeReadException e) {
-            if (ConnectionState.OK.equals(e.getConnectionState())) {
-                // ServiceError means we have to retry.
-                LOGGER.error("Caught ServiceError, retrying", e);
-                this.sendCommandWithRetry(function, deviceIdentification, 1, null);
+    /**
+     * Reads the given nodes using a data set, or one by one if there are only
+     * a few nodes or the data set cannot be created or read.
+     *
+     * @return The number of requests sent to the device.
+     */
+    private int readBatch(final ClientAssociation clientAssociation, final List<FcModelNode> modelNodes)
+            throws NodeReadException {
+        int requests = 0;
+        if (modelNodes.size() >= READ_BATCH_MINIMUM_SIZE) {
+            final DataSet dataSet = new DataSet(READ_BATCH_DATA_SET_PREFIX + this.readBatchDataSets.incrementAndGet(),
+                    modelNodes);
+            if (!this.createReadBatchDataSet(clientAssociation, dataSet)) {
+                requests = 1;
             } else {
-                LOGGER.error("Caught IOException, connection with device is broken.", e);
+                try {
+                    this.readRequests.incrementAndGet();
+                    clientAssociation.getDataSetValues(dataSet);
+                    return 3;
+                } catch (final ServiceError e) {
+                    LOGGER.warn("Unable to read data set {}, reading nodes one by one", dataSet.getReferenceStr(), e);
+                    this.readBatchFallbacks.incrementAndGet();
+                    requests = 3;
+                } catch (final IOException e) {
+                    LOGGER.error("IOException during readNodeDataValues", e);
+                    throw new NodeReadException(e.getMessage(), e, ConnectionState.BROKEN);
+                } finally {
+                    this.deleteReadBatchDataSet(clientAssociation, dataSet);
+                }
             }
-        } catch (final ProtocolAdapterException e) {
-            throw e;
-        } catch (final Exception e) {
-            throw new ProtocolAdapterException(e.getMessage() == null ? COULD_NOT_EXECUTE_COMMAND : e.getMessage(), e);
         }
 
-        return output;
+        for (final FcModelNode modelNode : modelNodes) {
+            this.readNodeDataValues(clientAssociation, modelNode);
+        }
+        return requests + modelNodes.size();
+    }
+
+    private boolean createReadBatchDataSet(final ClientAssociation clientAssociation, final DataSet dataSet)
+            throws NodeReadException {
+        try {
+            this.readRequests.incrementAndGet();
+            clientAssociation.createDataSet(dataSet);
+            return true;
+        } catch (final ServiceError e) {
+            LOGGER.debug("Unable to create data set {}, reading nodes one by one", dataSet.getReferenceStr(), e);
+            return false;
+        } catch (final IOException e) {
+            LOGGER.error("IOException during createDataSet", e);
+            throw new NodeReadException(e.getMessage(), e, ConnectionState.BROKEN);
+        }
+    }
+
+    private void deleteReadBatchDataSet(final ClientAssociation clientAssociation, final DataSet dataSet) {
+        try {
+            this.readRequests.incrementAndGet();
+            clientAssociation.deleteDataSet(dataSet);
+        } catch (final ServiceError | IOException e) {
+            LOGGER.warn("Unable to delete data set {}", dataSet.getReferenceStr(), e);
+        }
+    }
+
+    @ManagedAttribute(description = "Number of read requests sent to devices")
+    public long getReadRequestCount() {
+        return this.readRequests.get();
+    }
+
+    @ManagedAttribute(description = "Number of read batches that fell back to reading the nodes one by one")
+    public long getReadBatchFallbackCount() {
+        return this.readBatchFallbacks.get();
+    }
+
+    @ManagedAttribute(description = "Number of attempts to execute a command on a device")
+    public long getCommandAttemptCount() {
+        return this.commandAttempts.get();
+    }
+
+    @ManagedAttribute(description = "Number of retries of commands on devices")
+    public long getCommandRetryCount() {
+        return this.commandRetries.get();
+    }
+
+    @ManagedAttribute(description = "Number of broken connections replaced before retrying a command")
+    public long getCommandReconnectCount() {
+        return this.commandReconnects.get();
+    }
+
+    @ManagedAttribute(description = "Total duration in milliseconds of all attempts to execute a command")
+    public long getCommandAttemptTimeTotal() {
+        return this.commandAttemptTimeTotal.get();
+    }
+
+    @ManagedAttribute(description = "Longest duration in milliseconds of an attempt to execute a command")
+    public long getCommandAttemptTimeMax() {
+        return this.commandAttemptTimeMax.get();
+    }
+
+    /**
+     * Executes the apply method of the given {@link Function} with retries,
+     * according to the {@link RetryPolicy} for the given {@link IED}. The
+     * pooled connection of the device is leased while the command is executed,
+     * so it is not evicted from the pool underneath it.
+     *
+     * @return The given T.
+     */
+    public <T> T sendCommandWithRetry(final Function<T> function, final IED ied, final String deviceIdentification)
+            throws ProtocolAdapterException {
+        return this.sendCommandWithRetry(function, ied, deviceIdentification, null, null);
+    }
+
+    /**
+     * Executes the apply method of the given {@link Function} with retries,
+     * according to the {@link RetryPolicy} for the given {@link IED}. When the
+     * connection turns out to be broken and the retry policy allows it, the
+     * given {@link Reconnector} is used to replace the connection before
+     * retrying.
+     *
+     * @return The given T.
+     */
+    public <T> T sendCommandWithRetry(final Function<T> function, final IED ied, final String deviceIdentification,
+            final Reconnector reconnector) throws ProtocolAdapterException {
+        return this.sendCommandWithRetry(function, ied, deviceIdentification, null, reconnector);
     }
 
     /**
@@ -265,51 +538,87 @@ public class Iec61850Client {
      */
     public <T> T sendCommandWithRetry(final Function<T> function, final String functionName,
             final String deviceIdentification) throws ProtocolAdapterException {
-        T output = null;
         final DeviceMessageLog deviceMessageLog = new DeviceMessageLog(IED.FLEX_OVL, LogicalDevice.LIGHTING,
                 functionName);
+        return this.sendCommandWithRetry(function, IED.FLEX_OVL, deviceIdentification, deviceMessageLog, null);
+    }
+
+    private <T> T sendCommandWithRetry(final Function<T> function, final IED ied, final String deviceIdentification,
+            final DeviceMessageLog deviceMessageLog, final Reconnector reconnector) throws ProtocolAdapterException {
+        final RetryPolicy retryPolicy = this.retryPolicies.getRetryPolicy(ied);
+        final long startTime = System.currentTimeMillis();
+        PooledConnection lease = this.iec61850ConnectionPool.lease(deviceIdentification);
         try {
-            output = function.apply(deviceMessageLog);
-        } catch (final NodeWriteException | NodeReadException e) {
-            if (ConnectionState.OK.equals(e.getConnectionState())) {
-                // ServiceError means we have to retry.
-                LOGGER.error("Caught ServiceError, retrying", e);
-                this.sendCommandWithRetry(function, deviceIdentification, 1, deviceMessageLog);
-            } else {
-                LOGGER.error("Caught IOException, connection with device is broken.", e);
+            for (int retry = 1;; retry++) {
+                final long attemptStartTime = System.currentTimeMillis();
+                try {
+                    final T output = function.apply(deviceMessageLog);
+                    this.recordCommandAttempt(attemptStartTime);
+                    return output;
+                } catch (final NodeWriteException | NodeReadException e) {
+                    final long attemptTime = this.recordCommandAttempt(attemptStartTime);
+                    final boolean isBroken = !ConnectionState.OK.equals(e.getConnectionState());
+                    if (isBroken && (reconnector == null || !retryPolicy.isReconnectOnBroken())) {
+                        LOGGER.error("Caught IOException, connection with device is broken.", e);
+                        throw e;
+                    }
+
+                    final long backoff = retryPolicy.getBackoff(retry);
+                    if (!retryPolicy.isRetryAllowed(retry, System.currentTimeMillis() - startTime, backoff)) {
+                        LOGGER.error("Giving up after {} attempts for deviceIdentification: {}", retry,
+                                deviceIdentification, e);
+                        throw e;
+                    }
+
+                    // A ServiceError means we have to retry, a broken
+                    // connection is replaced first.
+                    LOGGER.warn("Attempt {} failed after {} ms for deviceIdentification: {}, retry {} of {} in {} ms",
+                            retry, attemptTime, deviceIdentification, retry, retryPolicy.getMaxRetries(), backoff, e);
+                    this.waitBeforeRetry(backoff);
+                    if (isBroken) {
+                        this.commandReconnects.incrementAndGet();
+                        reconnector.reconnect();
+                        // The broken connection is replaced in the pool, so
+                        // lease the new one instead.
+                        if (lease != null) {
+                            this.iec61850ConnectionPool.release(lease);
+                        }
+                        lease = this.iec61850ConnectionPool.lease(deviceIdentification);
+                    }
+                    this.commandRetries.incrementAndGet();
+                } catch (final ProtocolAdapterException e) {
+                    this.recordCommandAttempt(attemptStartTime);
+                    throw e;
+                } catch (final Exception e) {
+                    this.recordCommandAttempt(attemptStartTime);
+                    throw new ProtocolAdapterException(
+                            e.getMessage() == null ? COULD_NOT_EXECUTE_COMMAND : e.getMessage(), e);
+                }
+            }
+        } finally {
+            if (lease != null) {
+                this.iec61850ConnectionPool.release(lease);
             }
-        } catch (final ProtocolAdapterException e) {
-            throw e;
-        } catch (final Exception e) {
-            throw new ProtocolAdapterException(e.getMessage() == null ? COULD_NOT_EXECUTE_COMMAND : e.getMessage(), e);
         }
-
-        return output;
     }
 
-    /**
-     * Basically the same as sendCommandWithRetry, but with a retry parameter.
-     */
-    private <T> T sendCommandWithRetry(final Function<T> function, final String deviceIdentification,
-            final int retryCount, final DeviceMessageLog deviceMessageLog) throws ProtocolAdapterException {
-
-        T output = null;
-
-        LOGGER.info("retry: {} of {} for deviceIdentification: {}", retryCount, this.maxRetryCount,
-                deviceIdentification);
+    private long recordCommandAttempt(final long attemptStartTime) {
+        final long attemptTime = System.currentTimeMillis() - attemptStartTime;
+        this.commandAttempts.incrementAndGet();
+        this.commandAttemptTimeTotal.addAndGet(attemptTime);
+        long max = this.commandAttemptTimeMax.get();
+        while (attemptTime > max && !this.commandAttemptTimeMax.compareAndSet(max, attemptTime)) {
+            max = this.commandAttemptTimeMax.get();
+        }
+        return attemptTime;
+    }
 
+    private void waitBeforeRetry(final long backoff) throws ProtocolAdapterException {
         try {
-            output = function.apply(deviceMessageLog);
-        } catch (final ProtocolAdapterException e) {
-            if (retryCount >= this.maxRetryCount) {
-                throw e;
-            } else {
-                this.sendCommandWithRetry(function, deviceIdentification, retryCount + 1, deviceMessageLog);
-            }
-        } catch (final Exception e) {
-            throw new ProtocolAdapterException(e.getMessage() == null ? COULD_NOT_EXECUTE_COMMAND : e.getMessage(), e);
+            Thread.sleep(backoff);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ProtocolAdapterException("Interrupted while waiting to retry command", e);
         }
-
-        return output;
     }
 }
@@ -0,0 +1,563 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.openmuc.openiec61850.ClientAssociation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.DeviceConnectionParameters;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.ConnectionState;
+
+/**
+ * Bounded pool of cached {@link Iec61850Connection} instances, keyed by device
+ * identification.
+ * <p>
+ * The number of open connections on this node is capped at
+ * {@code connectionPoolMaxSize}. When the cap is reached the least recently
+ * used connection is evicted. Connections that have been idle for longer than
+ * {@code connectionPoolIdleTimeout} or that are older than
+ * {@code connectionPoolMaxAge} are evicted by a periodic sweep, or when they
+ * are looked up. Evicted connections are disconnected, which closes the
+ * {@link ClientAssociation} cleanly.
+ * <p>
+ * A connection that is leased by a request, see {@link #lease(String)}, is
+ * not evicted for being idle, aged or least recently used. A leased connection
+ * that is removed from the pool for another reason, for example because it is
+ * replaced or broken, is disconnected when its last lease is released.
+ * <p>
+ * For every pooled connection the {@link ConnectionState} as last verified is
+ * kept, so a connection that has been verified recently can be used without
+ * checking it first.
+ */
+@Component
+@ManagedResource(description = "Pool of cached IEC61850 device connections")
+public class Iec61850ConnectionPool {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850ConnectionPool.class);
+
+    @Autowired
+    private int connectionPoolMaxSize;
+
+    @Autowired
+    private int connectionPoolIdleTimeout;
+
+    @Autowired
+    private int connectionPoolMaxAge;
+
+    @Autowired
+    private int connectionPoolEvictionInterval;
+
+    /**
+     * Access ordered map, the first entry is the least recently used one. All
+     * access is guarded by synchronizing on the map itself.
+     */
+    private final LinkedHashMap<String, PooledConnection> connections = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong postponedEvictions = new AtomicLong();
+
+    private ScheduledExecutorService evictionExecutor;
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("connectionPoolMaxSize: {}, connectionPoolIdleTimeout: {}, connectionPoolMaxAge: {}",
+                this.connectionPoolMaxSize, this.connectionPoolIdleTimeout, this.connectionPoolMaxAge);
+
+        this.evictionExecutor = Executors.newSingleThreadScheduledExecutor();
+        this.evictionExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                Iec61850ConnectionPool.this.evictExpired();
+            }
+        }, this.connectionPoolEvictionInterval, this.connectionPoolEvictionInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    private void destroy() {
+        this.evictionExecutor.shutdownNow();
+        this.evictAll();
+    }
+
+    /**
+     * Returns the cached connection for the given device, or {@code null} if
+     * no usable connection is available. A connection that exceeded its idle
+     * time or maximum age is evicted instead of returned.
+     */
+    public Iec61850Connection get(final String deviceIdentification) {
+        final PooledConnection expired;
+        synchronized (this.connections) {
+            final PooledConnection pooledConnection = this.connections.get(deviceIdentification);
+            if (pooledConnection == null) {
+                this.misses.incrementAndGet();
+                return null;
+            }
+            if (!this.isExpired(pooledConnection, System.currentTimeMillis())) {
+                this.hits.incrementAndGet();
+                pooledConnection.touch();
+                return pooledConnection.getConnection();
+            }
+            this.connections.remove(deviceIdentification);
+            expired = pooledConnection;
+        }
+        this.misses.incrementAndGet();
+        this.close(deviceIdentification, expired, "expired");
+        return null;
+    }
+
+    /**
+     * Leases the pooled connection for the given device, so it is not
+     * disconnected while it is used. Waits while the connection is leased
+     * exclusively for a health check. Every lease must be released using
+     * {@link #release(PooledConnection)}.
+     *
+     * @return The leased connection, or {@code null} if no connection is
+     *         pooled for the device.
+     */
+    public PooledConnection lease(final String deviceIdentification) {
+        final PooledConnection pooledConnection;
+        synchronized (this.connections) {
+            pooledConnection = this.connections.get(deviceIdentification);
+        }
+        if (pooledConnection == null || !pooledConnection.lease()) {
+            return null;
+        }
+        return pooledConnection;
+    }
+
+    /**
+     * Leases the given pooled connection exclusively, if it is not in use. No
+     * other lease is given out until this lease is released using
+     * {@link #release(PooledConnection)}.
+     *
+     * @return {@code true} if the connection has been leased.
+     */
+    public boolean leaseExclusive(final PooledConnection pooledConnection) {
+        return pooledConnection.leaseExclusive();
+    }
+
+    /**
+     * Releases a lease obtained by {@link #lease(String)}. If the connection
+     * was removed from the pool while it was leased, it is disconnected when
+     * its last lease is released.
+     */
+    public void release(final PooledConnection pooledConnection) {
+        if (pooledConnection.release()) {
+            this.disconnect(pooledConnection.getDeviceIdentification(), pooledConnection);
+        }
+    }
+
+    /**
+     * Adds the connection for the given device to the pool. A connection that
+     * was pooled earlier for the same device is disconnected. If the pool is
+     * full, the least recently used connection is evicted.
+     */
+    public void put(final String deviceIdentification, final Iec61850Connection connection) {
+        this.put(deviceIdentification, connection, null);
+    }
+
+    /**
+     * Adds the connection for the given device to the pool, together with the
+     * parameters that are needed to verify the connection. A connection that
+     * was pooled earlier for the same device is disconnected. If the pool is
+     * full, the least recently used connection is evicted.
+     */
+    public void put(final String deviceIdentification, final Iec61850Connection connection,
+            final DeviceConnectionParameters deviceConnectionParameters) {
+        final Map<String, PooledConnection> toClose = new LinkedHashMap<>();
+        synchronized (this.connections) {
+            final PooledConnection previous = this.connections.put(deviceIdentification,
+                    new PooledConnection(deviceIdentification, connection, deviceConnectionParameters));
+            if (previous != null && previous.getConnection() != connection) {
+                toClose.put(deviceIdentification, previous);
+            }
+            final Iterator<Map.Entry<String, PooledConnection>> iterator = this.connections.entrySet().iterator();
+            while (this.connections.size() > this.connectionPoolMaxSize && iterator.hasNext()) {
+                final Map.Entry<String, PooledConnection> eldest = iterator.next();
+                if (!eldest.getKey().equals(deviceIdentification) && !eldest.getValue().isLeased()) {
+                    iterator.remove();
+                    toClose.put(eldest.getKey(), eldest.getValue());
+                }
+            }
+            if (this.connections.size() > this.connectionPoolMaxSize) {
+                LOGGER.warn("Connection pool exceeds its maximum size of {}, {} connections are in use",
+                        this.connectionPoolMaxSize, this.connections.size());
+            }
+        }
+        for (final Map.Entry<String, PooledConnection> entry : toClose.entrySet()) {
+            this.close(entry.getKey(), entry.getValue(), "least recently used");
+        }
+    }
+
+    /**
+     * Returns the state of the connection for the given device, as verified
+     * not longer than {@code maxVerificationAge} milliseconds ago.
+     *
+     * @return {@link ConnectionState#OK} or {@link ConnectionState#BROKEN} if
+     *         the connection has been verified recently enough,
+     *         {@link ConnectionState#UNKNOWN} otherwise.
+     */
+    public ConnectionState getConnectionState(final String deviceIdentification, final long maxVerificationAge) {
+        final PooledConnection pooledConnection;
+        synchronized (this.connections) {
+            pooledConnection = this.connections.get(deviceIdentification);
+        }
+        if (pooledConnection == null
+                || System.currentTimeMillis() - pooledConnection.getLastVerified() > maxVerificationAge) {
+            return ConnectionState.UNKNOWN;
+        }
+        return pooledConnection.getConnectionState();
+    }
+
+    /**
+     * Records the verified state of a pooled connection. The state is ignored
+     * if the given connection is no longer the pooled connection for the
+     * device.
+     */
+    public void setConnectionState(final String deviceIdentification, final Iec61850Connection connection,
+            final ConnectionState connectionState) {
+        final PooledConnection pooledConnection;
+        synchronized (this.connections) {
+            pooledConnection = this.connections.get(deviceIdentification);
+        }
+        if (pooledConnection != null && pooledConnection.getConnection() == connection) {
+            pooledConnection.verified(connectionState);
+        }
+    }
+
+    /**
+     * @return A snapshot of all pooled connections, least recently used first.
+     */
+    public List<PooledConnection> getPooledConnections() {
+        synchronized (this.connections) {
+            return new ArrayList<>(this.connections.values());
+        }
+    }
+
+    /**
+     * Removes the connection for the given device from the pool, without
+     * disconnecting it.
+     *
+     * @return The removed connection, or {@code null} if none was pooled.
+     */
+    public Iec61850Connection remove(final String deviceIdentification) {
+        final PooledConnection pooledConnection;
+        synchronized (this.connections) {
+            pooledConnection = this.connections.remove(deviceIdentification);
+        }
+        return pooledConnection == null ? null : pooledConnection.getConnection();
+    }
+
+    /**
+     * Removes the connection for the given device from the pool and
+     * disconnects it, or disconnects it when it is released if it is in use.
+     *
+     * @return {@code true} if a connection was pooled for the device.
+     */
+    public boolean evict(final String deviceIdentification) {
+        final PooledConnection pooledConnection;
+        synchronized (this.connections) {
+            pooledConnection = this.connections.remove(deviceIdentification);
+        }
+        if (pooledConnection == null) {
+            return false;
+        }
+        this.close(deviceIdentification, pooledConnection, "evicted on request");
+        return true;
+    }
+
+    /**
+     * Evicts the connection for the given device, like
+     * {@link #evict(String)}, but only if the given connection is still the
+     * pooled connection for the device.
+     *
+     * @return {@code true} if the given connection was evicted.
+     */
+    public boolean evict(final String deviceIdentification, final Iec61850Connection connection) {
+        final PooledConnection pooledConnection;
+        synchronized (this.connections) {
+            pooledConnection = this.connections.get(deviceIdentification);
+            if (pooledConnection == null || pooledConnection.getConnection() != connection) {
+                return false;
+            }
+            this.connections.remove(deviceIdentification);
+        }
+        this.close(deviceIdentification, pooledConnection, "evicted on request");
+        return true;
+    }
+
+    /**
+     * Evicts all connections that exceeded their idle time or maximum age.
+     */
+    @ManagedOperation(description = "Evicts idle and aged connections")
+    public void evictExpired() {
+        final Map<String, PooledConnection> toClose = new LinkedHashMap<>();
+        final long now = System.currentTimeMillis();
+        synchronized (this.connections) {
+            final Iterator<Map.Entry<String, PooledConnection>> iterator = this.connections.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<String, PooledConnection> entry = iterator.next();
+                if (this.isExpired(entry.getValue(), now)) {
+                    iterator.remove();
+                    toClose.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        for (final Map.Entry<String, PooledConnection> entry : toClose.entrySet()) {
+            this.close(entry.getKey(), entry.getValue(), "expired");
+        }
+        if (!toClose.isEmpty()) {
+            LOGGER.info("Evicted {} expired connections, open connections: {}, hits: {}, misses: {}, evictions: {}",
+                    toClose.size(), this.getOpenConnectionCount(), this.getHitCount(), this.getMissCount(),
+                    this.getEvictionCount());
+        }
+    }
+
+    /**
+     * Evicts all pooled connections.
+     */
+    @ManagedOperation(description = "Evicts all connections")
+    public void evictAll() {
+        final Map<String, PooledConnection> toClose;
+        synchronized (this.connections) {
+            toClose = new LinkedHashMap<>(this.connections);
+            this.connections.clear();
+        }
+        for (final Map.Entry<String, PooledConnection> entry : toClose.entrySet()) {
+            this.close(entry.getKey(), entry.getValue(), "pool cleared");
+        }
+    }
+
+    /**
+     * @return The device identifications of all pooled connections, least
+     *         recently used first.
+     */
+    public List<String> getDeviceIdentifications() {
+        synchronized (this.connections) {
+            return new ArrayList<>(this.connections.keySet());
+        }
+    }
+
+    @ManagedAttribute(description = "Number of lookups that returned a pooled connection")
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    @ManagedAttribute(description = "Number of lookups that did not return a pooled connection")
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    @ManagedAttribute(description = "Number of connections evicted from the pool")
+    public long getEvictionCount() {
+        return this.evictions.get();
+    }
+
+    @ManagedAttribute(description = "Number of evictions postponed until the connection was no longer in use")
+    public long getPostponedEvictionCount() {
+        return this.postponedEvictions.get();
+    }
+
+    @ManagedAttribute(description = "Number of open connections in the pool")
+    public int getOpenConnectionCount() {
+        synchronized (this.connections) {
+            return this.connections.size();
+        }
+    }
+
+    @ManagedAttribute(description = "Maximum number of open connections in the pool")
+    public int getMaxSize() {
+        return this.connectionPoolMaxSize;
+    }
+
+    private boolean isExpired(final PooledConnection pooledConnection, final long now) {
+        if (pooledConnection.isLeased()) {
+            return false;
+        }
+        return now - pooledConnection.getLastUsed() > this.connectionPoolIdleTimeout
+                || now - pooledConnection.getCreated() > this.connectionPoolMaxAge;
+    }
+
+    private void close(final String deviceIdentification, final PooledConnection pooledConnection,
+            final String reason) {
+        this.evictions.incrementAndGet();
+        LOGGER.info("Evicting connection for device: {}, reason: {}", deviceIdentification, reason);
+        if (!pooledConnection.closeWhenReleased()) {
+            this.postponedEvictions.incrementAndGet();
+            LOGGER.info("Connection for device: {} is in use, disconnecting it when it is released",
+                    deviceIdentification);
+            return;
+        }
+        this.disconnect(deviceIdentification, pooledConnection);
+    }
+
+    private void disconnect(final String deviceIdentification, final PooledConnection pooledConnection) {
+        final ClientAssociation clientAssociation = pooledConnection.getConnection().getClientAssociation();
+        if (clientAssociation == null) {
+            return;
+        }
+        try {
+            clientAssociation.disconnect();
+        } catch (final RuntimeException e) {
+            LOGGER.warn("Unexpected exception disconnecting evicted connection for device: {}", deviceIdentification,
+                    e);
+        }
+    }
+
+    /**
+     * A connection in the pool, with the data used to decide on eviction and
+     * on the need to verify the connection.
+     */
+    public static class PooledConnection {
+
+        private final String deviceIdentification;
+        private final Iec61850Connection connection;
+        private final DeviceConnectionParameters deviceConnectionParameters;
+        private final long created;
+        private volatile long lastUsed;
+        private volatile long lastVerified;
+        private volatile ConnectionState connectionState;
+        private int leases;
+        private boolean exclusive;
+        private boolean closing;
+
+        PooledConnection(final String deviceIdentification, final Iec61850Connection connection,
+                final DeviceConnectionParameters deviceConnectionParameters) {
+            this.deviceIdentification = deviceIdentification;
+            this.connection = connection;
+            this.deviceConnectionParameters = deviceConnectionParameters;
+            this.created = System.currentTimeMillis();
+            this.lastUsed = this.created;
+            // A new connection has just been set up, so it is known to work.
+            this.lastVerified = this.created;
+            this.connectionState = ConnectionState.OK;
+        }
+
+        void touch() {
+            this.lastUsed = System.currentTimeMillis();
+        }
+
+        /**
+         * @return {@code false} if the connection is being closed and can no
+         *         longer be leased.
+         */
+        synchronized boolean lease() {
+            while (this.exclusive) {
+                try {
+                    this.wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            if (this.closing) {
+                return false;
+            }
+            this.leases++;
+            this.touch();
+            return true;
+        }
+
+        /**
+         * @return {@code false} if the connection is in use or being closed.
+         */
+        synchronized boolean leaseExclusive() {
+            if (this.closing || this.leases > 0) {
+                return false;
+            }
+            this.leases = 1;
+            this.exclusive = true;
+            return true;
+        }
+
+        /**
+         * @return {@code true} if the last lease is released from a
+         *         connection that is to be closed, so it can be disconnected
+         *         now.
+         */
+        synchronized boolean release() {
+            this.leases--;
+            if (this.exclusive) {
+                // An exclusive lease does not count as use of the connection.
+                this.exclusive = false;
+                this.notifyAll();
+            } else {
+                this.touch();
+            }
+            return this.leases == 0 && this.closing;
+        }
+
+        /**
+         * Marks the connection to be closed.
+         *
+         * @return {@code true} if the connection is not leased, so it can be
+         *         disconnected now.
+         */
+        synchronized boolean closeWhenReleased() {
+            this.closing = true;
+            return this.leases == 0;
+        }
+
+        public synchronized boolean isLeased() {
+            return this.leases > 0;
+        }
+
+        void verified(final ConnectionState connectionState) {
+            this.connectionState = connectionState;
+            this.lastVerified = System.currentTimeMillis();
+        }
+
+        public String getDeviceIdentification() {
+            return this.deviceIdentification;
+        }
+
+        public Iec61850Connection getConnection() {
+            return this.connection;
+        }
+
+        public DeviceConnectionParameters getDeviceConnectionParameters() {
+            return this.deviceConnectionParameters;
+        }
+
+        public long getCreated() {
+            return this.created;
+        }
+
+        public long getLastUsed() {
+            return this.lastUsed;
+        }
+
+        public long getLastVerified() {
+            return this.lastVerified;
+        }
+
+        public ConnectionState getConnectionState() {
+            return this.connectionState;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openmuc.openiec61850.SclParseException;
+import org.openmuc.openiec61850.SclParser;
+import org.openmuc.openiec61850.ServerModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+
+/**
+ * Cache of {@link ServerModel} instances parsed from SCL / ICD files, keyed by
+ * the path of the file.
+ * <p>
+ * A cached model is only used as long as the last modified time and the size
+ * of the file are unchanged, otherwise the file is parsed again. The cached
+ * model is never handed out itself, every caller gets its own copy, because a
+ * {@link ServerModel} holds the values read from a device.
+ */
+@Component
+@ManagedResource(description = "Cache of server models parsed from SCL / ICD files")
+public class Iec61850ServerModelCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850ServerModelCache.class);
+
+    private final ConcurrentMap<String, CachedServerModel> serverModels = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Returns a copy of the {@link ServerModel} described by the SCL file at
+     * the given path. The file is only parsed if it was not parsed before, or
+     * if it has changed since.
+     *
+     * @throws ProtocolAdapterException
+     *             In case the file can not be read or parsed.
+     */
+    public ServerModel getServerModel(final String filePath) throws ProtocolAdapterException {
+        final Path path = Paths.get(filePath);
+        final long lastModified;
+        final long size;
+        try {
+            lastModified = Files.getLastModifiedTime(path).toMillis();
+            size = Files.size(path);
+        } catch (final IOException e) {
+            throw new ProtocolAdapterException("Error reading SCL file: " + filePath, e);
+        }
+
+        final CachedServerModel cachedServerModel = this.serverModels.get(filePath);
+        if (cachedServerModel != null && cachedServerModel.isUnchanged(lastModified, size)) {
+            this.hits.incrementAndGet();
+            return cachedServerModel.getServerModel().copy();
+        }
+
+        this.misses.incrementAndGet();
+        LOGGER.info("Parsing SCL file: {}", filePath);
+        final ServerModel serverModel = this.parse(filePath);
+        this.serverModels.put(filePath, new CachedServerModel(serverModel, lastModified, size));
+        return serverModel.copy();
+    }
+
+    /**
+     * Removes the server model parsed from the file at the given path from the
+     * cache, so the file will be parsed again when it is used next.
+     */
+    @ManagedOperation(description = "Removes the server model parsed from the given SCL file from the cache")
+    public void invalidate(final String filePath) {
+        if (this.serverModels.remove(filePath) != null) {
+            LOGGER.info("Removed server model for SCL file: {} from cache", filePath);
+        }
+    }
+
+    @ManagedOperation(description = "Removes all server models from the cache")
+    public void invalidateAll() {
+        this.serverModels.clear();
+        LOGGER.info("Removed all server models from cache");
+    }
+
+    @ManagedAttribute(description = "Paths of the SCL files for which a server model is cached")
+    public List<String> getFilePaths() {
+        return new ArrayList<>(this.serverModels.keySet());
+    }
+
+    @ManagedAttribute(description = "Number of times a cached server model was used")
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    @ManagedAttribute(description = "Number of times an SCL file had to be parsed")
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    private ServerModel parse(final String filePath) throws ProtocolAdapterException {
+        try {
+            final List<ServerModel> serverModels = SclParser.parse(filePath);
+            if (serverModels.isEmpty()) {
+                throw new ProtocolAdapterException("No server model found in SCL file: " + filePath);
+            }
+            return serverModels.get(0);
+        } catch (final SclParseException e) {
+            throw new ProtocolAdapterException("Error parsing SCL file: " + filePath, e);
+        }
+    }
+
+    private static class CachedServerModel {
+
+        private final ServerModel serverModel;
+        private final long lastModified;
+        private final long size;
+
+        CachedServerModel(final ServerModel serverModel, final long lastModified, final long size) {
+            this.serverModel = serverModel;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        boolean isUnchanged(final long lastModified, final long size) {
+            return this.lastModified == lastModified && this.size == size;
+        }
+
+        ServerModel getServerModel() {
+            return this.serverModel;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.openmuc.openiec61850.ServerModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache of {@link ServerModel} instances retrieved from devices, keyed by
+ * device identification.
+ * <p>
+ * Each snapshot is stored with a fingerprint of the model on the device (the
+ * configuration revisions of the logical devices). A snapshot is only reused
+ * by the caller when the fingerprint read from the device still matches. The
+ * cached model is never handed out itself, every caller gets its own copy.
+ * <p>
+ * At most {@code serverModelSnapshotCacheMaxSize} snapshots are kept, when
+ * there are more the snapshot of the least recently used device is removed.
+ */
+@Component
+@ManagedResource(description = "Cache of server models retrieved from devices")
+public class Iec61850ServerModelSnapshotCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850ServerModelSnapshotCache.class);
+
+    @Autowired
+    private int serverModelSnapshotCacheMaxSize;
+
+    /**
+     * Access ordered map, the first entry is the least recently used one. All
+     * access is guarded by synchronizing on the map itself.
+     */
+    private final Map<String, Snapshot> snapshots = new LinkedHashMap<String, Snapshot>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Snapshot> eldest) {
+            if (this.size() <= Iec61850ServerModelSnapshotCache.this.serverModelSnapshotCacheMaxSize) {
+                return false;
+            }
+            Iec61850ServerModelSnapshotCache.this.evictions.incrementAndGet();
+            LOGGER.info("Removed server model snapshot for least recently used device: {} from cache",
+                    eldest.getKey());
+            return true;
+        }
+    };
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("serverModelSnapshotCacheMaxSize: {}", this.serverModelSnapshotCacheMaxSize);
+    }
+
+    /**
+     * @return A copy of the cached server model for the given device, or
+     *         {@code null} if there is none.
+     */
+    public ServerModel getServerModel(final String deviceIdentification) {
+        final Snapshot snapshot = this.getSnapshot(deviceIdentification);
+        if (snapshot == null) {
+            return null;
+        }
+        return snapshot.getServerModel().copy();
+    }
+
+    /**
+     * @return The fingerprint of the cached server model for the given device,
+     *         or {@code null} if there is none.
+     */
+    public String getFingerprint(final String deviceIdentification) {
+        final Snapshot snapshot = this.getSnapshot(deviceIdentification);
+        if (snapshot == null) {
+            return null;
+        }
+        return snapshot.getFingerprint();
+    }
+
+    /**
+     * Stores a copy of the given server model for the device, replacing any
+     * earlier snapshot.
+     */
+    public void putServerModel(final String deviceIdentification, final ServerModel serverModel,
+            final String fingerprint) {
+        final Snapshot snapshot = new Snapshot(serverModel.copy(), fingerprint);
+        synchronized (this.snapshots) {
+            this.snapshots.put(deviceIdentification, snapshot);
+        }
+        LOGGER.info("Stored server model snapshot for device: {} with fingerprint: {}", deviceIdentification,
+                fingerprint);
+    }
+
+    public void registerHit() {
+        this.hits.incrementAndGet();
+    }
+
+    public void registerMiss() {
+        this.misses.incrementAndGet();
+    }
+
+    @ManagedOperation(description = "Removes the server model snapshot of the given device from the cache")
+    public void invalidate(final String deviceIdentification) {
+        final Snapshot removed;
+        synchronized (this.snapshots) {
+            removed = this.snapshots.remove(deviceIdentification);
+        }
+        if (removed != null) {
+            LOGGER.info("Removed server model snapshot for device: {} from cache", deviceIdentification);
+        }
+    }
+
+    @ManagedOperation(description = "Removes all server model snapshots from the cache")
+    public void invalidateAll() {
+        synchronized (this.snapshots) {
+            this.snapshots.clear();
+        }
+        LOGGER.info("Removed all server model snapshots from cache");
+    }
+
+    @ManagedAttribute(description = "Identifications of the devices for which a server model snapshot is cached")
+    public List<String> getDeviceIdentifications() {
+        synchronized (this.snapshots) {
+            return new ArrayList<>(this.snapshots.keySet());
+        }
+    }
+
+    @ManagedAttribute(description = "Number of times a server model snapshot was reused")
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    @ManagedAttribute(description = "Number of times a server model had to be retrieved from a device")
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    @ManagedAttribute(description = "Number of snapshots removed because the cache was full")
+    public long getEvictionCount() {
+        return this.evictions.get();
+    }
+
+    @ManagedAttribute(description = "Maximum number of server model snapshots in the cache")
+    public int getMaxSize() {
+        return this.serverModelSnapshotCacheMaxSize;
+    }
+
+    private Snapshot getSnapshot(final String deviceIdentification) {
+        synchronized (this.snapshots) {
+            return this.snapshots.get(deviceIdentification);
+        }
+    }
+
+    private static class Snapshot {
+
+        private final ServerModel serverModel;
+        private final String fingerprint;
+
+        Snapshot(final ServerModel serverModel, final String fingerprint) {
+            this.serverModel = serverModel;
+            this.fingerprint = fingerprint;
+        }
+
+        ServerModel getServerModel() {
+            return this.serverModel;
+        }
+
+        String getFingerprint() {
+            return this.fingerprint;
+        }
+    }
+}
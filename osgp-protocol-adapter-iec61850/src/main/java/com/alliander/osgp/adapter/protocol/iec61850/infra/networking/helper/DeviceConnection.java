@@ -21,7 +21,7 @@ public class DeviceConnection {
     private static final Logger LOGGER = LoggerFactory.getLogger(DeviceConnection.class);
 
     private final String serverName;
-    private final Iec61850Connection connection;
+    private volatile Iec61850Connection connection;
     private final String deviceIdentification;
     private final String organisationIdentification;
 
@@ -125,4 +125,12 @@ public class DeviceConnection {
     public Iec61850Connection getConnection() {
         return this.connection;
     }
+
+    /**
+     * Replaces the connection, for instance after the connection turned out to
+     * be broken. See {@link Reconnector}.
+     */
+    public void setConnection(final Iec61850Connection connection) {
+        this.connection = connection;
+    }
 }
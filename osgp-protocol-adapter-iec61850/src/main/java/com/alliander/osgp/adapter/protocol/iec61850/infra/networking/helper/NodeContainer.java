@@ -8,7 +8,11 @@
 package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import org.openmuc.openiec61850.Array;
@@ -26,6 +30,7 @@ import org.openmuc.openiec61850.BdaQuality;
 import org.openmuc.openiec61850.BdaTimestamp;
 import org.openmuc.openiec61850.BdaVisibleString;
 import org.openmuc.openiec61850.FcModelNode;
+import org.openmuc.openiec61850.ModelNode;
 import org.openmuc.openiec61850.ServiceError;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +50,13 @@ public class NodeContainer {
     protected final DeviceConnection connection;
     protected final FcModelNode parent;
 
+    /**
+     * Writes staged since {@link #stageWrites()}, shared with the children
+     * returned by {@link #getChild(SubDataAttribute)}. {@code null} if writes
+     * are sent to the device immediately.
+     */
+    private StagedWrites stagedWrites;
+
     public NodeContainer(final DeviceConnection connection, final FcModelNode fcmodelNode) {
         Objects.requireNonNull(connection, "connection must not be null");
         Objects.requireNonNull(fcmodelNode, "fcmodelNode must not be null");
@@ -74,6 +86,87 @@ public class NodeContainer {
         this.writeNode(this.parent);
     }
 
+    /**
+     * Stages all following writes on this node and its children, instead of
+     * sending each of them to the device immediately. The staged writes are
+     * sent by {@link #flushWrites()}.
+     * <p>
+     * The values of this node should have been read before writes are
+     * staged, because flushing may write all values of a child of this node.
+     */
+    public void stageWrites() {
+        if (this.stagedWrites == null) {
+            this.stagedWrites = new StagedWrites(this);
+        }
+    }
+
+    /**
+     * Sends the writes staged since {@link #stageWrites()} to the device. The
+     * staged attributes are grouped by the child of this node that contains
+     * them, and one write is sent per group: just the attribute if it is the
+     * only one in its group, otherwise the containing child. Attributes in
+     * other children of this node are not written. After flushing, writes are
+     * sent to the device immediately again.
+     *
+     * @throws NodeWriteException
+     *             In case the write action fails, see {@link #write()}.
+     */
+    public void flushWrites() throws NodeWriteException {
+        final StagedWrites staged = this.stagedWrites;
+        if (staged == null || staged.getOwner() != this) {
+            // Only the node on which writes were staged can flush them.
+            return;
+        }
+        staged.close();
+        this.stagedWrites = null;
+
+        final List<FcModelNode> nodes = staged.getNodes();
+        if (nodes.isEmpty()) {
+            return;
+        }
+        if (nodes.contains(this.parent)) {
+            LOGGER.info("Device: {}, flushing {} staged writes for {} in 1 write", this.deviceIdentification,
+                    nodes.size(), this.parent.getReference());
+            this.writeNode(this.parent);
+            return;
+        }
+
+        final Map<FcModelNode, List<FcModelNode>> nodesPerChild = new LinkedHashMap<>();
+        for (final FcModelNode node : nodes) {
+            final FcModelNode child = this.getEnclosingChild(node);
+            List<FcModelNode> childNodes = nodesPerChild.get(child);
+            if (childNodes == null) {
+                childNodes = new ArrayList<>();
+                nodesPerChild.put(child, childNodes);
+            }
+            childNodes.add(node);
+        }
+        LOGGER.info("Device: {}, flushing {} staged writes for {} in {} writes", this.deviceIdentification,
+                nodes.size(), this.parent.getReference(), nodesPerChild.size());
+        for (final Map.Entry<FcModelNode, List<FcModelNode>> entry : nodesPerChild.entrySet()) {
+            if (entry.getValue().size() == 1) {
+                this.writeNode(entry.getValue().get(0));
+            } else {
+                this.writeNode(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * @return The child of this node that is, or contains, the given node, or
+     *         the given node itself if it is not part of this node.
+     */
+    private FcModelNode getEnclosingChild(final FcModelNode node) {
+        ModelNode child = node;
+        while (child.getParent() != null && child.getParent() != this.parent) {
+            child = child.getParent();
+        }
+        if (child.getParent() == null || !(child instanceof FcModelNode)) {
+            return node;
+        }
+        return (FcModelNode) child;
+    }
+
     /**
      * Returns a String for {@link BdaVisibleString} values
      */
@@ -280,9 +373,13 @@ public class NodeContainer {
     }
 
     /**
-     * Writes the new data of the node to the device.
+     * Writes the new data of the node to the device, or stages it if writes
+     * are staged.
      */
     private void writeNode(final FcModelNode node) throws NodeWriteException {
+        if (this.stagedWrites != null && this.stagedWrites.add(node)) {
+            return;
+        }
         try {
             this.connection.getConnection().getClientAssociation().setDataValues(node);
         } catch (final ServiceError e) {
@@ -313,7 +410,7 @@ public class NodeContainer {
      *            The name of the child to fetch.
      */
     public NodeContainer getChild(final SubDataAttribute child) {
-        return new NodeContainer(this.connection, (FcModelNode) this.parent.getChild(child.getDescription()));
+        return this.getChild(child.getDescription());
     }
 
     /**
@@ -323,7 +420,10 @@ public class NodeContainer {
      *            The name of the child to fetch.
      */
     public NodeContainer getChild(final String child) {
-        return new NodeContainer(this.connection, (FcModelNode) this.parent.getChild(child));
+        final NodeContainer nodeContainer = new NodeContainer(this.connection,
+                (FcModelNode) this.parent.getChild(child));
+        nodeContainer.stagedWrites = this.stagedWrites;
+        return nodeContainer;
     }
 
     @Override
@@ -335,4 +435,41 @@ public class NodeContainer {
         return this.parent.toString();
     }
 
+    private static final class StagedWrites {
+
+        private final NodeContainer owner;
+        private final List<FcModelNode> nodes = new ArrayList<>();
+        private boolean open = true;
+
+        StagedWrites(final NodeContainer owner) {
+            this.owner = owner;
+        }
+
+        /**
+         * @return {@code true} if the node is staged, {@code false} if writes
+         *         are no longer staged.
+         */
+        boolean add(final FcModelNode node) {
+            if (!this.open) {
+                return false;
+            }
+            if (!this.nodes.contains(node)) {
+                this.nodes.add(node);
+            }
+            return true;
+        }
+
+        void close() {
+            this.open = false;
+        }
+
+        NodeContainer getOwner() {
+            return this.owner;
+        }
+
+        List<FcModelNode> getNodes() {
+            return this.nodes;
+        }
+    }
+
 }
@@ -0,0 +1,19 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+
+/**
+ * Replaces a broken connection to a device by a new one, so a
+ * {@link Function} can be retried on the new connection.
+ */
+public interface Reconnector {
+
+    void reconnect() throws ProtocolAdapterException;
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The {@link RetryPolicy} to use for each type of {@link IED}.
+ */
+public class RetryPolicies {
+
+    private final RetryPolicy defaultRetryPolicy;
+    private final Map<IED, RetryPolicy> retryPolicies = new EnumMap<>(IED.class);
+
+    public RetryPolicies(final RetryPolicy defaultRetryPolicy) {
+        this.defaultRetryPolicy = defaultRetryPolicy;
+    }
+
+    public void setRetryPolicy(final IED ied, final RetryPolicy retryPolicy) {
+        this.retryPolicies.put(ied, retryPolicy);
+    }
+
+    /**
+     * @return The retry policy for the given IED, or the default retry policy
+     *         if none is set for the IED or the IED is {@code null}.
+     */
+    public RetryPolicy getRetryPolicy(final IED ied) {
+        final RetryPolicy retryPolicy = ied == null ? null : this.retryPolicies.get(ied);
+        return retryPolicy == null ? this.defaultRetryPolicy : retryPolicy;
+    }
+}
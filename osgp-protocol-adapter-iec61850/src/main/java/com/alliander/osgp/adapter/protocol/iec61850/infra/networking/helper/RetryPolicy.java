@@ -0,0 +1,157 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Describes how a command sent to a device is retried: how many times, how
+ * long to wait between the attempts and whether a broken connection is
+ * replaced by a new one before retrying.
+ * <p>
+ * The time to wait before retry n (starting at 1) is the initial backoff
+ * multiplied by the backoff multiplier n - 1 times, limited to the maximum
+ * backoff. A random jitter of at most the jitter percentage of this time is
+ * added or subtracted, so retries for many devices are spread out.
+ */
+public class RetryPolicy {
+
+    private final int maxRetries;
+    private final int initialBackoff;
+    private final int backoffMultiplier;
+    private final int maxBackoff;
+    private final int jitterPercentage;
+    private final int maxElapsedTime;
+    private final boolean reconnectOnBroken;
+
+    public RetryPolicy(final Builder builder) {
+        this.maxRetries = builder.maxRetries;
+        this.initialBackoff = builder.initialBackoff;
+        this.backoffMultiplier = builder.backoffMultiplier;
+        this.maxBackoff = builder.maxBackoff;
+        this.jitterPercentage = builder.jitterPercentage;
+        this.maxElapsedTime = builder.maxElapsedTime;
+        this.reconnectOnBroken = builder.reconnectOnBroken;
+    }
+
+    public static class Builder {
+        private int maxRetries = 0;
+        private int initialBackoff = 0;
+        private int backoffMultiplier = 1;
+        private int maxBackoff = 0;
+        private int jitterPercentage = 0;
+        private int maxElapsedTime = Integer.MAX_VALUE;
+        private boolean reconnectOnBroken = false;
+
+        public Builder maxRetries(final int maxRetries) {
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        public Builder initialBackoff(final int initialBackoff) {
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        public Builder backoffMultiplier(final int backoffMultiplier) {
+            this.backoffMultiplier = backoffMultiplier;
+            return this;
+        }
+
+        public Builder maxBackoff(final int maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        public Builder jitterPercentage(final int jitterPercentage) {
+            this.jitterPercentage = jitterPercentage;
+            return this;
+        }
+
+        public Builder maxElapsedTime(final int maxElapsedTime) {
+            this.maxElapsedTime = maxElapsedTime;
+            return this;
+        }
+
+        public Builder reconnectOnBroken(final boolean reconnectOnBroken) {
+            this.reconnectOnBroken = reconnectOnBroken;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * @return The time (in milliseconds) to wait before the given retry,
+     *         starting at 1, including the jitter.
+     */
+    public long getBackoff(final int retry) {
+        long backoff = this.initialBackoff;
+        for (int i = 1; i < retry && backoff < this.maxBackoff; i++) {
+            backoff *= this.backoffMultiplier;
+        }
+        backoff = Math.min(backoff, this.maxBackoff);
+
+        final long jitter = backoff * this.jitterPercentage / 100;
+        if (jitter > 0) {
+            backoff += ThreadLocalRandom.current().nextLong(-jitter, jitter + 1);
+        }
+        return Math.max(backoff, 0);
+    }
+
+    /**
+     * @return {@code true} if the given retry, starting at 1, may be done
+     *         after waiting the given backoff, when the given time has elapsed
+     *         since the first attempt.
+     */
+    public boolean isRetryAllowed(final int retry, final long elapsedTime, final long backoff) {
+        return retry <= this.maxRetries && elapsedTime + backoff <= this.maxElapsedTime;
+    }
+
+    public int getMaxRetries() {
+        return this.maxRetries;
+    }
+
+    public int getInitialBackoff() {
+        return this.initialBackoff;
+    }
+
+    public int getBackoffMultiplier() {
+        return this.backoffMultiplier;
+    }
+
+    public int getMaxBackoff() {
+        return this.maxBackoff;
+    }
+
+    public int getJitterPercentage() {
+        return this.jitterPercentage;
+    }
+
+    public int getMaxElapsedTime() {
+        return this.maxElapsedTime;
+    }
+
+    public boolean isReconnectOnBroken() {
+        return this.reconnectOnBroken;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "RetryPolicy[maxRetries=%d, initialBackoff=%d, backoffMultiplier=%d, maxBackoff=%d, jitterPercentage=%d, maxElapsedTime=%d, reconnectOnBroken=%b]",
+                this.maxRetries, this.initialBackoff, this.backoffMultiplier, this.maxBackoff, this.jitterPercentage,
+                this.maxElapsedTime, this.reconnectOnBroken);
+    }
+}
@@ -330,7 +330,12 @@ public enum SubDataAttribute {
     /**
      * ctl Model
      */
-    CTL_MODEL("ctlModel");
+    CTL_MODEL("ctlModel"),
+    /**
+     * Attribute of Property NamPlt, the revision of the configuration of a
+     * logical device.
+     */
+    CONFIGURATION_REVISION("configRev");
 
     private String description;
 
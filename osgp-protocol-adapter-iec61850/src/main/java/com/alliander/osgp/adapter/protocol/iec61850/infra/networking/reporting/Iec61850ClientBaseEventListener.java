@@ -14,6 +14,7 @@ import java.util.List;
 import org.joda.time.DateTime;
 import org.openmuc.openiec61850.BdaReasonForInclusion;
 import org.openmuc.openiec61850.ClientEventListener;
+import org.openmuc.openiec61850.FcModelNode;
 import org.openmuc.openiec61850.HexConverter;
 import org.openmuc.openiec61850.Report;
 import org.slf4j.Logger;
@@ -30,6 +31,7 @@ public abstract class Iec61850ClientBaseEventListener implements ClientEventList
      */
     protected final String deviceIdentification;
     protected final DeviceManagementService deviceManagementService;
+    private final Iec61850ReportLogSampler reportLogSampler;
     protected Integer firstNewSqNum = null;
     /**
      * The EntryTime from IEC61850 has timestamp values relative to 01-01-1984.
@@ -40,9 +42,11 @@ public abstract class Iec61850ClientBaseEventListener implements ClientEventList
     protected static final long IEC61850_ENTRY_TIME_OFFSET = 441763200000L;
 
     public Iec61850ClientBaseEventListener(final String deviceIdentification,
-            final DeviceManagementService deviceManagementService, final Class<?> loggerClass) {
+            final DeviceManagementService deviceManagementService, final Iec61850ReportLogSampler reportLogSampler,
+            final Class<?> loggerClass) {
         this.deviceManagementService = deviceManagementService;
         this.deviceIdentification = deviceIdentification;
+        this.reportLogSampler = reportLogSampler;
         this.logger = LoggerFactory.getLogger(loggerClass);
     }
 
@@ -63,6 +67,68 @@ public abstract class Iec61850ClientBaseEventListener implements ClientEventList
         this.firstNewSqNum = value;
     }
 
+    /**
+     * Logs a single line summary of the {@link Report} at INFO level, and the
+     * details of the report at DEBUG level, if the report is sampled for
+     * logging. The details are only rendered when they are logged.
+     *
+     * @param reportDescription
+     *            Describes the report by its {@code toString()}.
+     */
+    protected void logReport(final Report report, final Object reportDescription) {
+        if (!this.logger.isInfoEnabled()
+                || !this.reportLogSampler.isSampled(this.deviceIdentification, report.getDataSetRef())) {
+            return;
+        }
+
+        final List<FcModelNode> dataSetMembers = report.getValues();
+        this.logger.info("newReport for {}, dataSet: {}, members: {}", reportDescription, report.getDataSetRef(),
+                dataSetMembers == null ? "null" : dataSetMembers.size());
+
+        if (this.logger.isDebugEnabled()) {
+            final StringBuilder sb = new StringBuilder("Report details for device ")
+                    .append(this.deviceIdentification).append(System.lineSeparator());
+            this.logDefaultReportDetails(sb, report);
+            this.logDataSetMembersDetails(report, dataSetMembers, sb);
+            this.logger.debug(sb.append(System.lineSeparator()).toString());
+        }
+    }
+
+    /**
+     * Single line description of a {@link Report} for logging, which is only
+     * formatted when it is logged.
+     */
+    protected class ReportDescription {
+
+        private final Report report;
+        private String description;
+
+        public ReportDescription(final Report report) {
+            this.report = report;
+        }
+
+        @Override
+        public String toString() {
+            if (this.description == null) {
+                final DateTime timeOfEntry = this.report.getTimeOfEntry() == null ? null
+                        : new DateTime(this.report.getTimeOfEntry().getTimestampValue() + IEC61850_ENTRY_TIME_OFFSET);
+                this.description = String.format("device: %s, reportId: %s, timeOfEntry: %s, sqNum: %s%s%s",
+                        Iec61850ClientBaseEventListener.this.deviceIdentification, this.report.getRptId(),
+                        timeOfEntry == null ? "-" : timeOfEntry, this.report.getSqNum(),
+                        this.report.getSubSqNum() == null ? "" : " subSqNum: " + this.report.getSubSqNum(),
+                        this.report.isMoreSegmentsFollow() ? " (more segments follow for this sqNum)" : "");
+            }
+            return this.description;
+        }
+    }
+
+    /**
+     * The logging of the {@link Report} consists of a default part and a custom
+     * part. This method is intended for the custom part.
+     */
+    protected abstract void logDataSetMembersDetails(final Report report, final List<FcModelNode> dataSetMembers,
+            final StringBuilder sb);
+
     /**
      * The logging of the {@link Report} consists of a default part and a custom
      * part. This method is intended for the default part.
@@ -12,40 +12,58 @@ import java.math.BigDecimal;
 import java.math.MathContext;
 import java.math.RoundingMode;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
-import org.joda.time.DateTime;
 import org.openmuc.openiec61850.BdaFloat32;
 import org.openmuc.openiec61850.BdaTimestamp;
 import org.openmuc.openiec61850.Fc;
 import org.openmuc.openiec61850.FcModelNode;
 import org.openmuc.openiec61850.ModelNode;
 import org.openmuc.openiec61850.Report;
-import org.osgpfoundation.osgp.dto.da.GetPQValuesResponseDto;
 import org.osgpfoundation.osgp.dto.da.iec61850.DataSampleDto;
 import org.osgpfoundation.osgp.dto.da.iec61850.LogicalDeviceDto;
 import org.osgpfoundation.osgp.dto.da.iec61850.LogicalNodeDto;
 import org.springframework.util.CollectionUtils;
 
 import com.alliander.osgp.adapter.protocol.iec61850.application.services.DeviceManagementService;
+import com.alliander.osgp.adapter.protocol.iec61850.application.services.ReportResultPublisher;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
 
 public class Iec61850ClientDaRTUEventListener extends Iec61850ClientBaseEventListener {
 
+    private static final MathContext VALUE_MATH_CONTEXT = new MathContext(3, RoundingMode.HALF_EVEN);
+
+    /**
+     * Maximum number of data set layouts for which a translation plan is kept.
+     * A device only reports a few layouts, so the plans are simply cleared
+     * when there are more.
+     */
+    private static final int MAX_TRANSLATION_PLANS = 16;
+
+    private ReportResultPublisher reportResultPublisher;
+
+    /**
+     * The translation plans per data set reference and inclusion bit string of
+     * the reports.
+     */
+    private final Map<String, TranslationPlan> translationPlans = new HashMap<>();
+
     public Iec61850ClientDaRTUEventListener(final String deviceIdentification,
-            final DeviceManagementService deviceManagementService) throws ProtocolAdapterException {
-        super(deviceIdentification, deviceManagementService, Iec61850ClientDaRTUEventListener.class);
+            final DeviceManagementService deviceManagementService, final Iec61850ReportLogSampler reportLogSampler,
+            final ReportResultPublisher reportResultPublisher) throws ProtocolAdapterException {
+        super(deviceIdentification, deviceManagementService, reportLogSampler,
+                Iec61850ClientDaRTUEventListener.class);
+        this.reportResultPublisher = reportResultPublisher;
     }
 
     @Override
     public void newReport(final Report report) {
-        final DateTime timeOfEntry = report.getTimeOfEntry() == null ? null
-                : new DateTime(report.getTimeOfEntry().getTimestampValue() + IEC61850_ENTRY_TIME_OFFSET);
-
-        final String reportDescription = this.getReportDescription(report, timeOfEntry);
+        final ReportDescription reportDescription = new ReportDescription(report);
 
-        this.logger.info("newReport for {}", reportDescription);
-        this.logReportDetails(report);
+        this.logReport(report, reportDescription);
         try {
             this.processReport(report, reportDescription);
         } catch (final ProtocolAdapterException e) {
@@ -53,82 +71,84 @@ public class Iec61850ClientDaRTUEventListener extends Iec61850ClientBaseEventLis
         }
     }
 
-    private void processReport(final Report report, final String reportDescription) throws ProtocolAdapterException {
+    private void processReport(final Report report, final ReportDescription reportDescription)
+            throws ProtocolAdapterException {
         final List<FcModelNode> dataSetMembers = report.getValues();
-        final List<LogicalDevice> logicalDevices = new ArrayList<>();
 
         if (CollectionUtils.isEmpty(dataSetMembers)) {
             this.logger.warn("No dataSet members available for {}", reportDescription);
             return;
         }
 
-        for (final FcModelNode member : dataSetMembers) {
-            // we are only interested in measurements
-            if (member.getFc() == Fc.MX) {
-                this.processMeasurementNode(logicalDevices, member);
+        final List<LogicalDeviceDto> logicalDevicesDtos = this.translate(
+                report.getDataSetRef() + Arrays.toString(report.getInclusionBitString()), dataSetMembers);
+        this.reportResultPublisher.publishPqValues(this.deviceIdentification, report.getRptId(), logicalDevicesDtos);
+    }
+
+    /**
+     * Translates the measurements among the members of a report to data
+     * samples, grouped by logical device and logical node.
+     *
+     * @param layout
+     *            The data set reference and inclusion bit string of the
+     *            report.
+     */
+    List<LogicalDeviceDto> translate(final String layout, final List<FcModelNode> dataSetMembers) {
+        return this.getTranslationPlan(layout, dataSetMembers).translate(dataSetMembers);
+    }
+
+    /**
+     * @return The translation plan for the data set layout of a report. The
+     *         plan is created from the first report with the layout, and
+     *         reused for the following reports with the same layout.
+     */
+    private TranslationPlan getTranslationPlan(final String layout, final List<FcModelNode> dataSetMembers) {
+        TranslationPlan plan = this.translationPlans.get(layout);
+        if (plan == null || plan.getMemberCount() != dataSetMembers.size()) {
+            plan = this.createTranslationPlan(dataSetMembers);
+            if (this.translationPlans.size() >= MAX_TRANSLATION_PLANS) {
+                this.translationPlans.clear();
             }
+            this.translationPlans.put(layout, plan);
+            this.logger.debug("Created translation plan for data set layout {} with {} samples", layout,
+                    plan.getSampleCount());
         }
+        return plan;
+    }
 
-        final List<LogicalDeviceDto> logicalDevicesDtos = new ArrayList<>();
-        for (final LogicalDevice logicalDevice : logicalDevices) {
-            final List<LogicalNodeDto> logicalNodeDtos = new ArrayList<>();
-            for (final LogicalNode logicalNode : logicalDevice.getLogicalNodes()) {
-                final LogicalNodeDto logicalNodeDto = new LogicalNodeDto(logicalNode.getName(),
-                        logicalNode.getDataSamples());
-                logicalNodeDtos.add(logicalNodeDto);
+    private TranslationPlan createTranslationPlan(final List<FcModelNode> dataSetMembers) {
+        final TranslationPlan plan = new TranslationPlan(dataSetMembers.size());
+        for (int memberIndex = 0; memberIndex < dataSetMembers.size(); memberIndex++) {
+            final FcModelNode member = dataSetMembers.get(memberIndex);
+            // we are only interested in measurements
+            if (member.getFc() == Fc.MX) {
+                this.planMeasurementNode(plan, memberIndex, member);
             }
-            final LogicalDeviceDto logicalDeviceDto = new LogicalDeviceDto(logicalDevice.getName(), logicalNodeDtos);
-            logicalDevicesDtos.add(logicalDeviceDto);
         }
-        final GetPQValuesResponseDto response = new GetPQValuesResponseDto(logicalDevicesDtos);
-
-        this.deviceManagementService.sendPqValues(this.deviceIdentification, report.getRptId(), response);
+        return plan;
     }
 
-    private void processMeasurementNode(final List<LogicalDevice> logicalDevices, final FcModelNode member) {
-        final String logicalDeviceName = member.getReference().get(0);
-        final LogicalDevice logicalDevice = this.addLogicalDeviceIfNew(logicalDeviceName, logicalDevices);
-        final String logicalNodeName = member.getReference().get(1);
-        final LogicalNode logicalNode = this.addLogicalNodeIfNew(logicalNodeName, logicalDevice.getLogicalNodes());
+    private void planMeasurementNode(final TranslationPlan plan, final int memberIndex, final FcModelNode member) {
+        final PlannedLogicalNode logicalNode = plan.addLogicalNodeIfNew(member.getReference().get(0),
+                member.getReference().get(1));
         if (this.modelNodeIsTotalMeasurement(member)) {
-            this.processTotalMeasurementNode(member, logicalNode);
+            final BdaFloat32 totalMeasurement = this.getTotalMeasurementModelNode(member);
+            final String type = member.getName() + "." + totalMeasurement.getParent().getName() + "."
+                    + totalMeasurement.getName();
+            logicalNode.addSample(new PlannedSample(memberIndex, null, type.intern()));
         } else {
-            this.processOtherMeasurementNode(member, logicalNode);
-        }
-    }
-
-    private void processTotalMeasurementNode(final FcModelNode member, final LogicalNode logicalNode) {
-        final BdaFloat32 totalMeasurement = this.getTotalMeasurementModelNode(member);
-        final BdaTimestamp timestampMeasurement = this.getTimestampModelNode(member);
-        String type = member.getName();
-        type += "." + totalMeasurement.getParent().getName() + "." + totalMeasurement.getName();
-        final BigDecimal value = new BigDecimal(totalMeasurement.getFloat(),
-                new MathContext(3, RoundingMode.HALF_EVEN));
-        final DataSampleDto sample = new DataSampleDto(type, timestampMeasurement.getDate(), value);
-        logicalNode.getDataSamples().add(sample);
-    }
-
-    private void processOtherMeasurementNode(final FcModelNode member, final LogicalNode logicalNode) {
-        for (final ModelNode childNode : member.getChildren()) {
-            if (this.modelNodeIsSingleMeasurement(childNode)) {
-                this.processSingleMeasurementNode(member, logicalNode, childNode);
+            for (final ModelNode childNode : member.getChildren()) {
+                if (this.modelNodeIsSingleMeasurement(childNode)) {
+                    final BdaFloat32 singleMeasurement = this.getSingleMeasurementModelNode(childNode);
+                    final String type = member.getName() + "." + childNode.getName() + "."
+                            + singleMeasurement.getParent().getParent().getName() + "."
+                            + singleMeasurement.getParent().getName() + "." + singleMeasurement.getName();
+                    logicalNode.addSample(new PlannedSample(memberIndex, childNode.getName(), type.intern()));
+                }
             }
         }
     }
 
-    private void processSingleMeasurementNode(final FcModelNode member, final LogicalNode logicalNode,
-            final ModelNode childNode) {
-        final BdaFloat32 singleMeasurement = this.getSingleMeasurementModelNode(childNode);
-        final BdaTimestamp timestampMeasurement = this.getTimestampModelNode(childNode);
-        String type = member.getName() + "." + childNode.getName();
-        type += "." + singleMeasurement.getParent().getParent().getName() + "."
-                + singleMeasurement.getParent().getName() + "." + singleMeasurement.getName();
-        final BigDecimal value = new BigDecimal(singleMeasurement.getFloat(),
-                new MathContext(3, RoundingMode.HALF_EVEN));
-        final DataSampleDto sample = new DataSampleDto(type, timestampMeasurement.getDate(), value);
-        logicalNode.getDataSamples().add(sample);
-    }
-
     private boolean modelNodeIsTotalMeasurement(final ModelNode modelNode) {
         boolean totalMeasurement = false;
         if (modelNode != null && modelNode.getChild("mag") != null && modelNode.getChild("mag").getChild("f") != null) {
@@ -159,34 +179,75 @@ public class Iec61850ClientDaRTUEventListener extends Iec61850ClientBaseEventLis
         return (BdaTimestamp) modelNode.getChild("t");
     }
 
-    private LogicalDevice addLogicalDeviceIfNew(final String logicalDeviceName,
-            final List<LogicalDevice> logicalDevices) {
-        for (final LogicalDevice logicalDevice : logicalDevices) {
-            if (logicalDevice.getName().equals(logicalDeviceName)) {
-                return logicalDevice;
+    /**
+     * The translation of the members of a data set layout to data samples,
+     * grouped by logical device and logical node in the order in which they
+     * first occur in the data set. The type of every sample and the path to
+     * its value are determined once, so a report is translated by indexed
+     * access to its members.
+     */
+    private class TranslationPlan {
+        private final int memberCount;
+        private final List<PlannedLogicalDevice> logicalDevices = new ArrayList<>();
+        private int sampleCount;
+
+        public TranslationPlan(final int memberCount) {
+            this.memberCount = memberCount;
+        }
+
+        public int getMemberCount() {
+            return this.memberCount;
+        }
+
+        public int getSampleCount() {
+            return this.sampleCount;
+        }
+
+        public PlannedLogicalNode addLogicalNodeIfNew(final String logicalDeviceName,
+                final String logicalNodeName) {
+            PlannedLogicalDevice logicalDevice = null;
+            for (final PlannedLogicalDevice plannedLogicalDevice : this.logicalDevices) {
+                if (plannedLogicalDevice.getName().equals(logicalDeviceName)) {
+                    logicalDevice = plannedLogicalDevice;
+                    break;
+                }
+            }
+            if (logicalDevice == null) {
+                logicalDevice = new PlannedLogicalDevice(logicalDeviceName);
+                this.logicalDevices.add(logicalDevice);
             }
+            for (final PlannedLogicalNode logicalNode : logicalDevice.getLogicalNodes()) {
+                if (logicalNode.getName().equals(logicalNodeName)) {
+                    return logicalNode;
+                }
+            }
+            final PlannedLogicalNode newLogicalNode = new PlannedLogicalNode(logicalNodeName, this);
+            logicalDevice.getLogicalNodes().add(newLogicalNode);
+            return newLogicalNode;
         }
-        final LogicalDevice newLogicalDevice = new LogicalDevice(logicalDeviceName);
-        logicalDevices.add(newLogicalDevice);
-        return newLogicalDevice;
-    }
 
-    private LogicalNode addLogicalNodeIfNew(final String logicalNodeName, final List<LogicalNode> logicalNodes) {
-        for (final LogicalNode logicalNode : logicalNodes) {
-            if (logicalNode.getName().equals(logicalNodeName)) {
-                return logicalNode;
+        public List<LogicalDeviceDto> translate(final List<FcModelNode> dataSetMembers) {
+            final List<LogicalDeviceDto> logicalDeviceDtos = new ArrayList<>(this.logicalDevices.size());
+            for (final PlannedLogicalDevice logicalDevice : this.logicalDevices) {
+                final List<LogicalNodeDto> logicalNodeDtos = new ArrayList<>(logicalDevice.getLogicalNodes().size());
+                for (final PlannedLogicalNode logicalNode : logicalDevice.getLogicalNodes()) {
+                    final List<DataSampleDto> dataSamples = new ArrayList<>(logicalNode.getSamples().size());
+                    for (final PlannedSample sample : logicalNode.getSamples()) {
+                        dataSamples.add(sample.translate(dataSetMembers));
+                    }
+                    logicalNodeDtos.add(new LogicalNodeDto(logicalNode.getName(), dataSamples));
+                }
+                logicalDeviceDtos.add(new LogicalDeviceDto(logicalDevice.getName(), logicalNodeDtos));
             }
+            return logicalDeviceDtos;
         }
-        final LogicalNode newLogicalNode = new LogicalNode(logicalNodeName);
-        logicalNodes.add(newLogicalNode);
-        return newLogicalNode;
     }
 
-    private class LogicalNode {
-        private String name;
-        private List<DataSampleDto> dataSamples = new ArrayList<>();
+    private class PlannedLogicalDevice {
+        private final String name;
+        private final List<PlannedLogicalNode> logicalNodes = new ArrayList<>();
 
-        public LogicalNode(final String name) {
+        public PlannedLogicalDevice(final String name) {
             this.name = name;
         }
 
@@ -194,47 +255,71 @@ public class Iec61850ClientDaRTUEventListener extends Iec61850ClientBaseEventLis
             return this.name;
         }
 
-        public List<DataSampleDto> getDataSamples() {
-            return this.dataSamples;
+        public List<PlannedLogicalNode> getLogicalNodes() {
+            return this.logicalNodes;
         }
     }
 
-    private class LogicalDevice {
-        private String name;
-        private List<LogicalNode> logicalNodes = new ArrayList<>();
+    private class PlannedLogicalNode {
+        private final String name;
+        private final TranslationPlan plan;
+        private final List<PlannedSample> samples = new ArrayList<>();
 
-        public LogicalDevice(final String name) {
+        public PlannedLogicalNode(final String name, final TranslationPlan plan) {
             this.name = name;
+            this.plan = plan;
         }
 
         public String getName() {
             return this.name;
         }
 
-        public List<LogicalNode> getLogicalNodes() {
-            return this.logicalNodes;
+        public List<PlannedSample> getSamples() {
+            return this.samples;
         }
-    }
 
-    private String getReportDescription(final Report report, final DateTime timeOfEntry) {
-        return String.format("device: %s, reportId: %s, timeOfEntry: %s, sqNum: %s%s%s", this.deviceIdentification,
-                report.getRptId(), timeOfEntry == null ? "-" : timeOfEntry, report.getSqNum(),
-                report.getSubSqNum() == null ? "" : " subSqNum: " + report.getSubSqNum(),
-                report.isMoreSegmentsFollow() ? " (more segments follow for this sqNum)" : "");
+        public void addSample(final PlannedSample sample) {
+            this.samples.add(sample);
+            this.plan.sampleCount++;
+        }
     }
 
-    private void logReportDetails(final Report report) {
-        final StringBuilder sb = new StringBuilder("Report details for device ").append(this.deviceIdentification)
-                .append(System.lineSeparator());
-        this.logDefaultReportDetails(sb, report);
-
-        final List<FcModelNode> dataSetMembers = report.getValues();
-        this.logDataSetMembersDetails(report, dataSetMembers, sb);
+    private class PlannedSample {
+        private final int memberIndex;
+        private final String childName;
+        private final String type;
+
+        /**
+         * @param childName
+         *            The name of the child of the member holding a single
+         *            measurement, or {@code null} if the member holds a total
+         *            measurement.
+         */
+        public PlannedSample(final int memberIndex, final String childName, final String type) {
+            this.memberIndex = memberIndex;
+            this.childName = childName;
+            this.type = type;
+        }
 
-        this.logger.info(sb.append(System.lineSeparator()).toString());
+        public DataSampleDto translate(final List<FcModelNode> dataSetMembers) {
+            final FcModelNode member = dataSetMembers.get(this.memberIndex);
+            final BdaFloat32 measurement;
+            final BdaTimestamp timestampMeasurement;
+            if (this.childName == null) {
+                measurement = Iec61850ClientDaRTUEventListener.this.getTotalMeasurementModelNode(member);
+                timestampMeasurement = Iec61850ClientDaRTUEventListener.this.getTimestampModelNode(member);
+            } else {
+                final ModelNode childNode = member.getChild(this.childName);
+                measurement = Iec61850ClientDaRTUEventListener.this.getSingleMeasurementModelNode(childNode);
+                timestampMeasurement = Iec61850ClientDaRTUEventListener.this.getTimestampModelNode(childNode);
+            }
+            final BigDecimal value = new BigDecimal(measurement.getFloat(), VALUE_MATH_CONTEXT);
+            return new DataSampleDto(this.type, timestampMeasurement.getDate(), value);
+        }
     }
 
-    private void logDataSetMembersDetails(final Report report, final List<FcModelNode> dataSetMembers,
+    @Override
+    protected void logDataSetMembersDetails(final Report report, final List<FcModelNode> dataSetMembers,
             final StringBuilder sb) {
         if (dataSetMembers == null) {
             sb.append("\t           DataSet:\tnull").append(System.lineSeparator());
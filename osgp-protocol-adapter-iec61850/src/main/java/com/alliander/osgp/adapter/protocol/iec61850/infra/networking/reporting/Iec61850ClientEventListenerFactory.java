@@ -13,7 +13,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.alliander.osgp.adapter.protocol.iec61850.application.services.DeviceManagementService;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850ReportEntryRepository;
+import com.alliander.osgp.adapter.protocol.iec61850.application.services.LightMeasurementDeviceCache;
+import com.alliander.osgp.adapter.protocol.iec61850.application.services.ReportResultPublisher;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
 
@@ -23,20 +24,47 @@ public class Iec61850ClientEventListenerFactory {
     private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850ClientEventListenerFactory.class);
 
     @Autowired
-    private Iec61850ReportEntryRepository iec61850ReportEntryRepository;
+    private Iec61850ReportEntryWriter iec61850ReportEntryWriter;
+
+    @Autowired
+    private Iec61850ReportDispatcher iec61850ReportDispatcher;
+
+    @Autowired
+    private Iec61850ReportHandlerRegistry iec61850ReportHandlerRegistry;
+
+    @Autowired
+    private ReportResultPublisher reportResultPublisher;
+
+    @Autowired
+    private Iec61850EventNotificationScheduler iec61850EventNotificationScheduler;
+
+    @Autowired
+    private LightMeasurementDeviceCache lightMeasurementDeviceCache;
+
+    @Autowired
+    private Iec61850ReportLogSampler iec61850ReportLogSampler;
+
+    @Autowired
+    private Iec61850ReportSequenceTracker iec61850ReportSequenceTracker;
 
     public Iec61850ClientBaseEventListener getEventListener(final IED ied, final String deviceIdentification,
             final DeviceManagementService deviceManagementService) throws ProtocolAdapterException {
         switch (ied) {
         case FLEX_OVL:
-            return new Iec61850ClientSSLDEventListener(deviceIdentification, deviceManagementService);
+            return new Iec61850ClientSSLDEventListener(deviceIdentification, deviceManagementService,
+                    this.iec61850ReportLogSampler, this.iec61850EventNotificationScheduler);
         case ABB_RTU:
-            return new Iec61850ClientLMDEventListener(deviceIdentification, deviceManagementService);
+            return new Iec61850ClientLMDEventListener(deviceIdentification, deviceManagementService,
+                    this.iec61850ReportLogSampler, this.lightMeasurementDeviceCache,
+                    this.iec61850ReportSequenceTracker);
         case ZOWN_RTU:
             return new Iec61850ClientRTUEventListener(deviceIdentification, deviceManagementService,
-                    this.iec61850ReportEntryRepository);
+                    this.iec61850ReportLogSampler, this.iec61850ReportEntryWriter, this.iec61850ReportDispatcher,
+                    this.iec61850ReportHandlerRegistry, this.reportResultPublisher,
+                    this.iec61850ReportSequenceTracker);
         case DA_RTU:
-            return new Iec61850ClientDaRTUEventListener(deviceIdentification, deviceManagementService);
+            return new Iec61850ClientDaRTUEventListener(deviceIdentification, deviceManagementService,
+                    this.iec61850ReportLogSampler, this.reportResultPublisher);
         default:
             LOGGER.warn("Unknown IED {}, could not create event listener for device {}", ied, deviceIdentification);
             return null;
@@ -8,6 +8,7 @@
 package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -21,18 +22,40 @@ import org.openmuc.openiec61850.Report;
 import org.springframework.util.CollectionUtils;
 
 import com.alliander.osgp.adapter.protocol.iec61850.application.services.DeviceManagementService;
+import com.alliander.osgp.adapter.protocol.iec61850.application.services.LightMeasurementDeviceCache;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
-import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalNode;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.SubDataAttribute;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting.Iec61850ReportSequenceTracker.Sequence;
 import com.alliander.osgp.core.db.api.iec61850.entities.LightMeasurementDevice;
 import com.alliander.osgp.dto.valueobjects.EventNotificationDto;
 import com.alliander.osgp.dto.valueobjects.EventTypeDto;
 
 public class Iec61850ClientLMDEventListener extends Iec61850ClientBaseEventListener {
 
+    /**
+     * Maximum number of data set layouts for which the logical node names of
+     * the members are kept. A device only reports a few layouts, so the index
+     * is simply cleared when it is full.
+     */
+    private static final int MAX_DATA_SET_LAYOUTS = 16;
+
+    private final LightMeasurementDeviceCache lightMeasurementDeviceCache;
+
+    private final Iec61850ReportSequenceTracker iec61850ReportSequenceTracker;
+
+    /**
+     * The logical node names of the data set members, per data set reference
+     * and inclusion bit string of the reports.
+     */
+    private final Map<String, List<String>> memberNodeNamesPerLayout = new HashMap<>();
+
     public Iec61850ClientLMDEventListener(final String deviceIdentification,
-            final DeviceManagementService deviceManagementService) throws ProtocolAdapterException {
-        super(deviceIdentification, deviceManagementService, Iec61850ClientLMDEventListener.class);
+            final DeviceManagementService deviceManagementService, final Iec61850ReportLogSampler reportLogSampler,
+            final LightMeasurementDeviceCache lightMeasurementDeviceCache,
+            final Iec61850ReportSequenceTracker iec61850ReportSequenceTracker) throws ProtocolAdapterException {
+        super(deviceIdentification, deviceManagementService, reportLogSampler, Iec61850ClientLMDEventListener.class);
+        this.lightMeasurementDeviceCache = lightMeasurementDeviceCache;
+        this.iec61850ReportSequenceTracker = iec61850ReportSequenceTracker;
     }
 
     @Override
@@ -42,19 +65,18 @@ public class Iec61850ClientLMDEventListener extends Iec61850ClientBaseEventListe
 
         final String reportDescription = this.getReportDescription(report, timeOfEntry);
 
-        this.logger.info("newReport for {}", reportDescription);
-        boolean skipRecordBecauseOfOldSqNum = false;
+        this.logReport(report, reportDescription);
 
         if (Boolean.TRUE.equals(report.getBufOvfl())) {
             this.logger.warn("Buffer Overflow reported for {} - entries within the buffer may have been lost.",
                     reportDescription);
         }
 
-        if (this.firstNewSqNum != null && report.getSqNum() != null && report.getSqNum() < this.firstNewSqNum) {
-            skipRecordBecauseOfOldSqNum = true;
-            this.logger.warn("Unused boolean skipRecordBecauseOfOldSqNum is set to {}!", skipRecordBecauseOfOldSqNum);
+        final Sequence sequence = this.iec61850ReportSequenceTracker.track(this.deviceIdentification, report);
+        if (sequence == Sequence.DUPLICATE) {
+            this.logger.warn("Skipping report because it has been received already for {}", reportDescription);
+            return;
         }
-        this.logReportDetails(report);
 
         if (CollectionUtils.isEmpty(report.getValues())) {
             this.logger.warn("No dataSet members available for {}", reportDescription);
@@ -62,7 +84,7 @@ public class Iec61850ClientLMDEventListener extends Iec61850ClientBaseEventListe
         }
 
         final Map<LightMeasurementDevice, FcModelNode> reportMemberPerDevice = this
-                .processReportedDataForLightMeasurementDevices(report.getValues());
+                .processReportedDataForLightMeasurementDevices(report);
 
         for (final LightMeasurementDevice lmd : reportMemberPerDevice.keySet()) {
             final String deviceIdentification = lmd.getDeviceIdentification();
@@ -82,28 +104,48 @@ public class Iec61850ClientLMDEventListener extends Iec61850ClientBaseEventListe
     }
 
     private Map<LightMeasurementDevice, FcModelNode> processReportedDataForLightMeasurementDevices(
-            final List<FcModelNode> dataSetMembers) {
+            final Report report) {
         final Map<LightMeasurementDevice, FcModelNode> result = new HashMap<>();
 
-        this.logger.info("Trying to find light measurement devices...");
-        final List<LightMeasurementDevice> lmds = this.deviceManagementService.findRealLightMeasurementDevices();
-        this.logger.info("Found {} light measurement devices.", lmds == null ? "null" : lmds.size());
-
-        for (final LightMeasurementDevice lmd : lmds) {
-            final String nodeName = LogicalNode.getSpggioByIndex(lmd.getDigitalInput()).getDescription().concat(".");
+        final Map<String, LightMeasurementDevice> lmdsPerNodeName = this.lightMeasurementDeviceCache
+                .getRealLightMeasurementDevicesByNodeName();
+        final List<FcModelNode> dataSetMembers = report.getValues();
+        final List<String> memberNodeNames = this.getMemberNodeNames(report);
 
-            for (final FcModelNode member : dataSetMembers) {
-                if (member.getReference().toString().contains(nodeName)) {
-                    result.put(lmd, member);
-                }
+        for (int i = 0; i < dataSetMembers.size(); i++) {
+            final LightMeasurementDevice lmd = lmdsPerNodeName.get(memberNodeNames.get(i));
+            if (lmd != null) {
+                result.put(lmd, dataSetMembers.get(i));
             }
         }
 
-        this.logger.info("Returning {} results.", result.size());
+        this.logger.debug("Found {} of {} light measurement devices in report.", result.size(),
+                lmdsPerNodeName.size());
 
         return result;
     }
 
+    /**
+     * @return The logical node names of the data set members of the report,
+     *         in the order of the members. The names are determined once for
+     *         every data set layout the device reports.
+     */
+    private List<String> getMemberNodeNames(final Report report) {
+        final String layout = report.getDataSetRef() + Arrays.toString(report.getInclusionBitString());
+        List<String> memberNodeNames = this.memberNodeNamesPerLayout.get(layout);
+        if (memberNodeNames == null || memberNodeNames.size() != report.getValues().size()) {
+            memberNodeNames = new ArrayList<>();
+            for (final FcModelNode member : report.getValues()) {
+                memberNodeNames.add(member.getReference().get(1));
+            }
+            if (this.memberNodeNamesPerLayout.size() >= MAX_DATA_SET_LAYOUTS) {
+                this.memberNodeNamesPerLayout.clear();
+            }
+            this.memberNodeNamesPerLayout.put(layout, memberNodeNames);
+        }
+        return memberNodeNames;
+    }
+
     private DateTime getTimeOfEntry(final Report report) {
         return report.getTimeOfEntry() == null ? DateTime.now(DateTimeZone.UTC)
                 : new DateTime(report.getTimeOfEntry().getTimestampValue() + IEC61850_ENTRY_TIME_OFFSET);
@@ -150,18 +192,8 @@ public class Iec61850ClientLMDEventListener extends Iec61850ClientBaseEventListe
                 + evnRpn.getReference() + " from " + reportDescription);
     }
 
-    private void logReportDetails(final Report report) {
-        final StringBuilder sb = new StringBuilder("Report details for device ").append(this.deviceIdentification)
-                .append(System.lineSeparator());
-        this.logDefaultReportDetails(sb, report);
-
-        final List<FcModelNode> dataSetMembers = report.getValues();
-        this.logDataSetMembersDetails(report, dataSetMembers, sb);
-
-        this.logger.info(sb.append(System.lineSeparator()).toString());
-    }
-
-    private void logDataSetMembersDetails(final Report report, final List<FcModelNode> dataSetMembers,
+    @Override
+    protected void logDataSetMembersDetails(final Report report, final List<FcModelNode> dataSetMembers,
             final StringBuilder sb) {
         if (dataSetMembers == null) {
             sb.append("\t           DataSet members:\tnull").append(System.lineSeparator());
@@ -211,5 +243,6 @@ public class Iec61850ClientLMDEventListener extends Iec61850ClientBaseEventListe
     public void associationClosed(final IOException e) {
         this.logger.info("associationClosed() for device: {}, {}", this.deviceIdentification,
                 e.getMessage() == null ? "no IOException" : "IOException: " + e.getMessage());
+        this.iec61850ReportSequenceTracker.forget(this.deviceIdentification);
     }
 }
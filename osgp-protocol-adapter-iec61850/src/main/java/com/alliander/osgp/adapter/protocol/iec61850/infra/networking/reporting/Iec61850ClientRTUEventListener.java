@@ -8,138 +8,103 @@
 package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
 
 import java.io.IOException;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.joda.time.DateTime;
 import org.openmuc.openiec61850.FcModelNode;
 import org.openmuc.openiec61850.Report;
-import org.springframework.orm.jpa.JpaOptimisticLockingFailureException;
 import org.springframework.util.CollectionUtils;
 
-import com.alliander.osgp.adapter.protocol.iec61850.application.config.BeanUtil;
 import com.alliander.osgp.adapter.protocol.iec61850.application.services.DeviceManagementService;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Device;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850ReportEntry;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850DeviceRepository;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850ReportEntryRepository;
+import com.alliander.osgp.adapter.protocol.iec61850.application.services.ReportResultPublisher;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.ReadOnlyNodeContainer;
-import com.alliander.osgp.dto.valueobjects.microgrids.GetDataResponseDto;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting.Iec61850ReportSequenceTracker.Sequence;
 import com.alliander.osgp.dto.valueobjects.microgrids.GetDataSystemIdentifierDto;
 import com.alliander.osgp.dto.valueobjects.microgrids.MeasurementDto;
 import com.alliander.osgp.dto.valueobjects.microgrids.ReportDto;
 
 public class Iec61850ClientRTUEventListener extends Iec61850ClientBaseEventListener {
 
-    private static final String NODE_NAMES = "(RTU|PV|BATTERY|ENGINE|LOAD|CHP|HEAT_BUFFER|GAS_FURNACE|HEAT_PUMP|BOILER|WIND|PQ)";
-
-    private static final Pattern REPORT_PATTERN = Pattern
-            .compile("\\A(.*)" + NODE_NAMES + "([1-9]\\d*+)/LLN0\\.(Status|Measurements|Heartbeat)\\Z");
-
-    private static final Map<String, Class<? extends Iec61850ReportHandler>> REPORT_HANDLERS_MAP = new HashMap<>();
-
-    private Iec61850ReportEntryRepository iec61850ReportEntryRepository;
-
-    static {
-        REPORT_HANDLERS_MAP.put("RTU", Iec61850RtuReportHandler.class);
-        REPORT_HANDLERS_MAP.put("PV", Iec61850PvReportHandler.class);
-        REPORT_HANDLERS_MAP.put("BATTERY", Iec61850BatteryReportHandler.class);
-        REPORT_HANDLERS_MAP.put("ENGINE", Iec61850EngineReportHandler.class);
-        REPORT_HANDLERS_MAP.put("LOAD", Iec61850LoadReportHandler.class);
-        REPORT_HANDLERS_MAP.put("LOAD_COMBINED", Iec61850CombinedLoadReportHandler.class);
-        REPORT_HANDLERS_MAP.put("CHP", Iec61850ChpReportHandler.class);
-        REPORT_HANDLERS_MAP.put("HEAT_BUFFER", Iec61850HeatBufferReportHandler.class);
-        REPORT_HANDLERS_MAP.put("GAS_FURNACE", Iec61850GasFurnaceReportHandler.class);
-        REPORT_HANDLERS_MAP.put("HEAT_PUMP", Iec61850HeatPumpReportHandler.class);
-        REPORT_HANDLERS_MAP.put("BOILER", Iec61850BoilerReportHandler.class);
-        REPORT_HANDLERS_MAP.put("WIND", Iec61850WindReportHandler.class);
-        REPORT_HANDLERS_MAP.put("PQ", Iec61850PqReportHandler.class);
-    }
+    private Iec61850ReportEntryWriter iec61850ReportEntryWriter;
 
-    public Iec61850ClientRTUEventListener(final String deviceIdentification,
-            final DeviceManagementService deviceManagementService,
-            final Iec61850ReportEntryRepository iec61850ReportEntryRepository) {
-        super(deviceIdentification, deviceManagementService, Iec61850ClientRTUEventListener.class);
-        this.iec61850ReportEntryRepository = iec61850ReportEntryRepository;
-    }
+    private Iec61850ReportDispatcher iec61850ReportDispatcher;
 
-    private Iec61850ReportHandler getReportHandler(final String dataSetRef) {
-        final Matcher reportMatcher = REPORT_PATTERN.matcher(dataSetRef);
-        if (reportMatcher.matches()) {
-            String node = reportMatcher.group(2);
+    private Iec61850ReportHandlerRegistry iec61850ReportHandlerRegistry;
 
-            if ("LOAD".equals(node) && this.useCombinedLoad()) {
-                node += "_COMBINED";
-            }
+    private ReportResultPublisher reportResultPublisher;
 
-            final int systemId = Integer.parseInt(reportMatcher.group(3));
-            final Class<?> clazz = REPORT_HANDLERS_MAP.get(node);
-            try {
-                final Constructor<?> ctor = clazz.getConstructor(new Class<?>[] { int.class });
-                return (Iec61850ReportHandler) ctor.newInstance(systemId);
-            } catch (InstantiationException | IllegalAccessException | IllegalArgumentException
-                    | InvocationTargetException | NoSuchMethodException ex) {
-                this.logger.error("Unable to instantiate Iec61850ReportHandler ", ex);
-            }
-        }
-        return null;
-    }
+    private Iec61850ReportSequenceTracker iec61850ReportSequenceTracker;
 
-    private boolean useCombinedLoad() {
-        final Iec61850DeviceRepository repository = BeanUtil.getBean(Iec61850DeviceRepository.class);
-        final Iec61850Device device = repository.findByDeviceIdentification(this.deviceIdentification);
-        if (device != null) {
-            return device.isUseCombinedLoad();
-        }
-        return BeanUtil.getBeanByName("defaultUseCombinedLoad", Boolean.class);
+    public Iec61850ClientRTUEventListener(final String deviceIdentification,
+            final DeviceManagementService deviceManagementService, final Iec61850ReportLogSampler reportLogSampler,
+            final Iec61850ReportEntryWriter iec61850ReportEntryWriter,
+            final Iec61850ReportDispatcher iec61850ReportDispatcher,
+            final Iec61850ReportHandlerRegistry iec61850ReportHandlerRegistry,
+            final ReportResultPublisher reportResultPublisher,
+            final Iec61850ReportSequenceTracker iec61850ReportSequenceTracker) {
+        super(deviceIdentification, deviceManagementService, reportLogSampler, Iec61850ClientRTUEventListener.class);
+        this.iec61850ReportEntryWriter = iec61850ReportEntryWriter;
+        this.iec61850ReportDispatcher = iec61850ReportDispatcher;
+        this.iec61850ReportHandlerRegistry = iec61850ReportHandlerRegistry;
+        this.reportResultPublisher = reportResultPublisher;
+        this.iec61850ReportSequenceTracker = iec61850ReportSequenceTracker;
     }
 
     @Override
     public void newReport(final Report report) {
-        final DateTime timeOfEntry = report.getTimeOfEntry() == null ? null
-                : new DateTime(report.getTimeOfEntry().getTimestampValue() + IEC61850_ENTRY_TIME_OFFSET);
+        // The report is processed by a worker of the dispatcher, so the
+        // receive thread of the association is not held up by the database
+        // and the message broker.
+        this.iec61850ReportDispatcher.dispatch(this.deviceIdentification, new Runnable() {
+            @Override
+            public void run() {
+                Iec61850ClientRTUEventListener.this.processNewReport(report);
+            }
+        });
+    }
 
-        final String reportDescription = this.getReportDescription(report, timeOfEntry);
+    private void processNewReport(final Report report) {
+        final ReportDescription reportDescription = new ReportDescription(report);
 
-        this.logger.info("newReport for {}", reportDescription);
+        this.logReport(report, reportDescription);
 
         if (Boolean.TRUE.equals(report.getBufOvfl())) {
             this.logger.warn("Buffer Overflow reported for {} - entries within the buffer may have been lost.",
                     reportDescription);
         }
 
-        final Iec61850ReportHandler reportHandler = this.getReportHandler(report.getDataSetRef());
+        final Sequence sequence = this.iec61850ReportSequenceTracker.track(this.deviceIdentification, report);
+        if (sequence == Sequence.DUPLICATE) {
+            this.logger.warn("Skipping report because it has been received already for {}", reportDescription);
+            return;
+        }
+
+        final Iec61850ReportHandler reportHandler = this.iec61850ReportHandlerRegistry
+                .getReportHandler(report.getDataSetRef(), this.deviceIdentification);
         if (reportHandler == null) {
             this.logger.warn("Skipping report because dataset is not supported {}", report.getDataSetRef());
             return;
         }
 
-        this.logReportDetails(report);
         try {
-            this.processReport(report, reportDescription, reportHandler);
+            this.processReport(report, reportDescription, reportHandler, sequence);
         } catch (final ProtocolAdapterException e) {
             this.logger.warn("Unable to process report, discarding report", e);
         }
-    }
 
-    private String getReportDescription(final Report report, final DateTime timeOfEntry) {
-        return String.format("device: %s, reportId: %s, timeOfEntry: %s, sqNum: %s%s%s", this.deviceIdentification,
-                report.getRptId(), timeOfEntry == null ? "-" : timeOfEntry, report.getSqNum(),
-                report.getSubSqNum() == null ? "" : " subSqNum: " + report.getSubSqNum(),
-                report.isMoreSegmentsFollow() ? " (more segments follow for this sqNum)" : "");
+        if (sequence == Sequence.GAP || sequence == Sequence.AFTER_GAP) {
+            // Have the device send the missing reports again, starting after
+            // the last stored report entry, until they have been received.
+            this.iec61850ReportSequenceTracker.requestResync(this.deviceIdentification, report.getRptId());
+        }
     }
 
-    private void processReport(final Report report, final String reportDescription,
-            final Iec61850ReportHandler reportHandler) throws ProtocolAdapterException {
+    private void processReport(final Report report, final ReportDescription reportDescription,
+            final Iec61850ReportHandler reportHandler, final Sequence sequence) throws ProtocolAdapterException {
         final List<FcModelNode> dataSetMembers = report.getValues();
         if (CollectionUtils.isEmpty(dataSetMembers)) {
             this.logger.warn("No dataSet members available for {}", reportDescription);
@@ -150,50 +115,46 @@ public class Iec61850ClientRTUEventListener extends Iec61850ClientBaseEventListe
                 dataSetMembers);
 
         final GetDataSystemIdentifierDto systemResult = reportHandler.createResult(measurements);
-        final List<GetDataSystemIdentifierDto> systems = new ArrayList<>();
-        systems.add(systemResult);
 
         final ReportDto reportDto = new ReportDto(report.getSqNum(),
                 new DateTime(report.getTimeOfEntry().getTimestampValue() + IEC61850_ENTRY_TIME_OFFSET),
                 report.getRptId());
 
-        this.deviceManagementService.sendMeasurements(this.deviceIdentification,
-                new GetDataResponseDto(systems, reportDto));
-
-        this.storeLastReportEntry(report, this.deviceIdentification);
+        // The entry of a report after a gap is not stored, so a resync starts
+        // before the missing reports. The entry is stored when the results of
+        // the report have been sent, so a resync sends them again if they are
+        // lost before.
+        final Runnable storeLastReportEntry = sequence == Sequence.GAP || sequence == Sequence.AFTER_GAP ? null
+                : this.storeLastReportEntry(report, this.deviceIdentification);
+        this.reportResultPublisher.publishMeasurements(this.deviceIdentification, systemResult, reportDto,
+                storeLastReportEntry);
     }
 
-    private void storeLastReportEntry(final Report report, final String deviceIdentification) {
+    /**
+     * @return Stores the entry of the report as last report entry, or
+     *         {@code null} if the report has no entry.
+     */
+    private Runnable storeLastReportEntry(final Report report, final String deviceIdentification) {
         if (Objects.isNull(report.getEntryId()) || Objects.isNull(report.getTimeOfEntry())) {
             this.logger.warn(
                     "Not all report entry data availabe for report id {} and device identification {}, skip storing last report entry",
                     report.getRptId(), deviceIdentification);
-            return;
-        }
-        Iec61850ReportEntry reportEntry = this.iec61850ReportEntryRepository
-                .findByDeviceIdentificationAndReportId(deviceIdentification, report.getRptId());
-        if (reportEntry == null) {
-            reportEntry = new Iec61850ReportEntry(deviceIdentification, report.getRptId(),
-                    report.getEntryId().getValue(),
-                    new Date(report.getTimeOfEntry().getTimestampValue() + IEC61850_ENTRY_TIME_OFFSET));
-            this.logger.info("Store new last report entry: {}", reportEntry);
-        } else {
-            reportEntry.updateLastReportEntry(report.getEntryId().getValue(),
-                    new Date(report.getTimeOfEntry().getTimestampValue() + IEC61850_ENTRY_TIME_OFFSET));
-            this.logger.info("Store updated last report entry: {}", reportEntry);
-        }
-        try {
-            this.iec61850ReportEntryRepository.saveAndFlush(reportEntry);
-        } catch (final JpaOptimisticLockingFailureException e) {
-            this.logger.debug("JpaOptimisticLockingFailureException", e);
-            this.logger.warn(
-                    "JPA optimistic locking failure exception while saving last report entry: {} with id {} and version {}",
-                    reportEntry, reportEntry.getId(), reportEntry.getVersion());
+            return null;
         }
+        final String reportId = report.getRptId();
+        final byte[] entryId = report.getEntryId().getValue();
+        final Date timeOfEntry = new Date(report.getTimeOfEntry().getTimestampValue() + IEC61850_ENTRY_TIME_OFFSET);
+        return new Runnable() {
+            @Override
+            public void run() {
+                Iec61850ClientRTUEventListener.this.iec61850ReportEntryWriter.store(deviceIdentification, reportId,
+                        entryId, timeOfEntry);
+            }
+        };
     }
 
     private List<MeasurementDto> processMeasurements(final Iec61850ReportHandler reportHandler,
-            final String reportDescription, final List<FcModelNode> members) {
+            final ReportDescription reportDescription, final List<FcModelNode> members) {
         final List<MeasurementDto> measurements = new ArrayList<>();
         for (final FcModelNode member : members) {
             if (member == null) {
@@ -201,7 +162,7 @@ public class Iec61850ClientRTUEventListener extends Iec61850ClientBaseEventListe
                 continue;
             }
 
-            this.logger.info("Handle member {} for {}", member.getReference(), reportDescription);
+            this.logger.debug("Handle member {} for {}", member.getReference(), reportDescription);
             try {
                 final List<MeasurementDto> memberMeasurements = reportHandler
                         .handleMember(new ReadOnlyNodeContainer(this.deviceIdentification, member));
@@ -219,18 +180,8 @@ public class Iec61850ClientRTUEventListener extends Iec61850ClientBaseEventListe
         return measurements;
     }
 
-    private void logReportDetails(final Report report) {
-        final StringBuilder sb = new StringBuilder("Report details for device ").append(this.deviceIdentification)
-                .append(System.lineSeparator());
-        this.logDefaultReportDetails(sb, report);
-
-        final List<FcModelNode> dataSetMembers = report.getValues();
-        this.logDataSetMembersDetails(report, dataSetMembers, sb);
-
-        this.logger.info(sb.append(System.lineSeparator()).toString());
-    }
-
-    private void logDataSetMembersDetails(final Report report, final List<FcModelNode> dataSetMembers,
+    @Override
+    protected void logDataSetMembersDetails(final Report report, final List<FcModelNode> dataSetMembers,
             final StringBuilder sb) {
         if (dataSetMembers == null) {
             sb.append("\t           DataSet:\tnull").append(System.lineSeparator());
@@ -249,6 +200,18 @@ public class Iec61850ClientRTUEventListener extends Iec61850ClientBaseEventListe
     public void associationClosed(final IOException e) {
         this.logger.info("associationClosed for device: {}, {}", this.deviceIdentification,
                 e == null ? "no IOException" : "IOException: " + e.getMessage());
+        // Write the last report entries after the reports that are still
+        // waiting to be processed, so a new association can resync from them.
+        // This task must not be dropped when too many reports are waiting.
+        this.iec61850ReportDispatcher.dispatch(this.deviceIdentification, new Runnable() {
+            @Override
+            public void run() {
+                Iec61850ClientRTUEventListener.this.iec61850ReportEntryWriter
+                        .flush(Iec61850ClientRTUEventListener.this.deviceIdentification);
+                Iec61850ClientRTUEventListener.this.iec61850ReportSequenceTracker
+                        .forget(Iec61850ClientRTUEventListener.this.deviceIdentification);
+            }
+        }, false);
     }
 
 }
@@ -8,9 +8,11 @@
 package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
@@ -45,6 +47,13 @@ public class Iec61850ClientSSLDEventListener extends Iec61850ClientBaseEventList
 
     private static final Map<Short, String> TRG_TYPE_DESCRIPTION_PER_CODE = new TreeMap<>();
 
+    /**
+     * Number of recent reports that are remembered to skip duplicates. It is
+     * kept well below the range of SqNum, so a SqNum that wrapped around is
+     * not mistaken for a duplicate.
+     */
+    private static final int RECENT_REPORTS = 32;
+
     private static final Comparator<EventNotificationDto> NOTIFICATIONS_BY_TIME = new Comparator<EventNotificationDto>() {
         @Override
         public int compare(final EventNotificationDto o1, final EventNotificationDto o2) {
@@ -62,9 +71,16 @@ public class Iec61850ClientSSLDEventListener extends Iec61850ClientBaseEventList
     private final List<EventNotificationDto> eventNotifications = new ArrayList<>();
     private final Map<Integer, Integer> externalIndexByInternalIndex = new TreeMap<>();
 
+    private final Iec61850EventNotificationScheduler eventNotificationScheduler;
+    private final Deque<String> recentReports = new ArrayDeque<>();
+    private boolean flushScheduled;
+
     public Iec61850ClientSSLDEventListener(final String deviceIdentification,
-            final DeviceManagementService deviceManagementService) throws ProtocolAdapterException {
-        super(deviceIdentification, deviceManagementService, Iec61850ClientSSLDEventListener.class);
+            final DeviceManagementService deviceManagementService,
+            final Iec61850ReportLogSampler reportLogSampler,
+            final Iec61850EventNotificationScheduler eventNotificationScheduler) throws ProtocolAdapterException {
+        super(deviceIdentification, deviceManagementService, reportLogSampler, Iec61850ClientSSLDEventListener.class);
+        this.eventNotificationScheduler = eventNotificationScheduler;
         this.externalIndexByInternalIndex
                 .putAll(this.buildExternalByInternalIndexMap(this.deviceManagementService, this.deviceIdentification));
     }
@@ -93,7 +109,7 @@ public class Iec61850ClientSSLDEventListener extends Iec61850ClientBaseEventList
 
         final String reportDescription = this.getReportDescription(report, timeOfEntry);
 
-        this.logger.info("newReport for {}", reportDescription);
+        this.logReport(report, reportDescription);
         boolean skipRecordBecauseOfOldSqNum = false;
 
         if (Boolean.TRUE.equals(report.getBufOvfl())) {
@@ -104,7 +120,10 @@ public class Iec61850ClientSSLDEventListener extends Iec61850ClientBaseEventList
         if (this.firstNewSqNum != null && report.getSqNum() != null && report.getSqNum() < this.firstNewSqNum) {
             skipRecordBecauseOfOldSqNum = true;
         }
-        this.logReportDetails(report);
+        if (this.eventNotificationScheduler.isStreaming() && this.isDuplicate(report)) {
+            this.logger.warn("Skipping report because it has been received already for {}", reportDescription);
+            return;
+        }
 
         final List<FcModelNode> dataSetMembers = report.getValues();
         if (CollectionUtils.isEmpty(dataSetMembers)) {
@@ -118,7 +137,7 @@ public class Iec61850ClientSSLDEventListener extends Iec61850ClientBaseEventList
                 this.logger.warn("Member == null in DataSet for {}", reportDescription);
                 continue;
             }
-            this.logger.info("Handle member {} for {}", member.getReference(), reportDescription);
+            this.logger.debug("Handle member {} for {}", member.getReference(), reportDescription);
             try {
                 if (skipRecordBecauseOfOldSqNum) {
                     this.logger.warn(
@@ -158,6 +177,63 @@ public class Iec61850ClientSSLDEventListener extends Iec61850ClientBaseEventList
                 eventType, description, index);
         synchronized (this.eventNotifications) {
             this.eventNotifications.add(eventNotification);
+            if (!this.eventNotificationScheduler.isStreaming()) {
+                return;
+            }
+            if (this.eventNotifications.size() >= this.eventNotificationScheduler.getMaxSize()) {
+                this.flushEventNotifications();
+            } else if (!this.flushScheduled) {
+                this.flushScheduled = true;
+                this.eventNotificationScheduler.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        Iec61850ClientSSLDEventListener.this.flushEventNotifications();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Checks if a report with the same report id, SqNum and SubSqNum has been
+     * received recently, for instance because buffered reports are sent
+     * again.
+     */
+    private boolean isDuplicate(final Report report) {
+        if (report.getSqNum() == null) {
+            return false;
+        }
+        final String key = report.getRptId() + ":" + report.getSqNum() + ":" + report.getSubSqNum();
+        synchronized (this.recentReports) {
+            if (this.recentReports.contains(key)) {
+                return true;
+            }
+            if (this.recentReports.size() >= RECENT_REPORTS) {
+                this.recentReports.pollFirst();
+            }
+            this.recentReports.addLast(key);
+            return false;
+        }
+    }
+
+    /**
+     * Sends the collected event notifications, ordered by time. Holds the lock
+     * on the event notifications while sending, so the batches of a device are
+     * sent in order.
+     */
+    private void flushEventNotifications() {
+        synchronized (this.eventNotifications) {
+            this.flushScheduled = false;
+            if (this.eventNotifications.isEmpty()) {
+                return;
+            }
+            Collections.sort(this.eventNotifications, NOTIFICATIONS_BY_TIME);
+            try {
+                this.deviceManagementService.addEventNotifications(this.deviceIdentification, this.eventNotifications);
+            } catch (final ProtocolAdapterException pae) {
+                this.logger.error("Error adding device notifications for device: " + this.deviceIdentification, pae);
+            }
+            this.eventNotifications.clear();
         }
     }
 
@@ -266,18 +342,8 @@ public class Iec61850ClientSSLDEventListener extends Iec61850ClientBaseEventList
                 + evnRpn.getReference() + " from " + reportDescription);
     }
 
-    private void logReportDetails(final Report report) {
-        final StringBuilder sb = new StringBuilder("Report details for device ").append(this.deviceIdentification)
-                .append(System.lineSeparator());
-        this.logDefaultReportDetails(sb, report);
-
-        final List<FcModelNode> dataSetMembers = report.getValues();
-        this.logDataSetMembersDetails(report, dataSetMembers, sb);
-
-        this.logger.info(sb.append(System.lineSeparator()).toString());
-    }
-
-    private void logDataSetMembersDetails(final Report report, final List<FcModelNode> dataSetMembers,
+    @Override
+    protected void logDataSetMembersDetails(final Report report, final List<FcModelNode> dataSetMembers,
             final StringBuilder sb) {
         if (dataSetMembers == null) {
             sb.append("\t           DataSet members:\tnull").append(System.lineSeparator());
@@ -375,12 +441,7 @@ public class Iec61850ClientSSLDEventListener extends Iec61850ClientBaseEventList
                 this.logger.info("No event notifications received from device: {}", this.deviceIdentification);
                 return;
             }
-            Collections.sort(this.eventNotifications, NOTIFICATIONS_BY_TIME);
-            try {
-                this.deviceManagementService.addEventNotifications(this.deviceIdentification, this.eventNotifications);
-            } catch (final ProtocolAdapterException pae) {
-                this.logger.error("Error adding device notifications for device: " + this.deviceIdentification, pae);
-            }
+            this.flushEventNotifications();
         }
     }
 }
@@ -0,0 +1,83 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Schedules sending the event notifications collected by the
+ * {@link Iec61850ClientSSLDEventListener}s while their associations are open.
+ * When the flush interval is 0, event notifications are only sent when the
+ * association is closed.
+ */
+@Component
+public class Iec61850EventNotificationScheduler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850EventNotificationScheduler.class);
+
+    @Autowired
+    private int eventNotificationFlushInterval;
+
+    @Autowired
+    private int eventNotificationFlushMaxSize;
+
+    private ScheduledExecutorService flushExecutor;
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("eventNotificationFlushInterval: {}, eventNotificationFlushMaxSize: {}",
+                this.eventNotificationFlushInterval, this.eventNotificationFlushMaxSize);
+
+        if (this.isStreaming()) {
+            this.flushExecutor = Executors.newSingleThreadScheduledExecutor();
+        }
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (this.flushExecutor != null) {
+            this.flushExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return {@code true} if event notifications are sent while the
+     *         association is open.
+     */
+    public boolean isStreaming() {
+        return this.eventNotificationFlushInterval > 0;
+    }
+
+    /**
+     * @return The number of collected event notifications after which they
+     *         are sent without waiting for the flush interval.
+     */
+    public int getMaxSize() {
+        return this.eventNotificationFlushMaxSize;
+    }
+
+    /**
+     * Schedules the given flush after the flush interval.
+     */
+    public void schedule(final Runnable flush) {
+        if (this.flushExecutor.isShutdown()) {
+            return;
+        }
+        this.flushExecutor.schedule(flush, this.eventNotificationFlushInterval, TimeUnit.MILLISECONDS);
+    }
+}
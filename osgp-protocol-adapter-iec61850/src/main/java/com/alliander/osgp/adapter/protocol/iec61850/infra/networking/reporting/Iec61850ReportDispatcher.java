@@ -0,0 +1,354 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Processes reports received from devices on a bounded pool of threads, so the
+ * receive thread of the client association of a device is not held up while
+ * reports are translated, sent and stored. Reports of the same device are
+ * processed one after the other, in the order in which they were received.
+ * <p>
+ * The number of reports waiting to be processed is bounded. When the bound is
+ * reached, the overflow policy determines what happens with a newly received
+ * report:
+ * <ul>
+ * <li>{@link OverflowPolicy#BLOCK}: the receive thread waits until there is
+ * room, which slows down reading reports from the device;</li>
+ * <li>{@link OverflowPolicy#DROP_NEWEST}: the new report is dropped;</li>
+ * <li>{@link OverflowPolicy#DROP_OLDEST}: the oldest waiting report of the same
+ * device is dropped, or the new report if there is none.</li>
+ * </ul>
+ * Control tasks of a device, like storing its last report entries when its
+ * association is closed, are processed in order with its reports, but are
+ * never dropped and do not count as reports.
+ */
+@Component
+// Reports that are still processed on shutdown publish their results and store
+// their last report entry, so these beans have to be destroyed after this one.
+@DependsOn({ "iec61850ReportEntryWriter", "reportResultPublisher" })
+@ManagedResource(description = "Processing of reports received from IEC61850 devices")
+public class Iec61850ReportDispatcher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850ReportDispatcher.class);
+
+    public enum OverflowPolicy {
+        BLOCK,
+        DROP_NEWEST,
+        DROP_OLDEST
+    }
+
+    @Autowired
+    private int reportDispatcherPoolSize;
+
+    @Autowired
+    private int reportDispatcherCapacity;
+
+    @Autowired
+    private String reportDispatcherOverflowPolicy;
+
+    /**
+     * The reports waiting to be processed per device. A device has an entry
+     * while one of its reports is being processed.
+     */
+    private final Map<String, Deque<ReportTask>> deviceQueues = new HashMap<>();
+    private int waiting;
+
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong maxWaiting = new AtomicLong();
+    private final AtomicLong lastLag = new AtomicLong();
+    private final AtomicLong maxLag = new AtomicLong();
+
+    private OverflowPolicy overflowPolicy;
+    private ExecutorService reportExecutor;
+
+    @PostConstruct
+    private void init() {
+        this.overflowPolicy = OverflowPolicy.valueOf(this.reportDispatcherOverflowPolicy.trim().toUpperCase());
+        LOGGER.info("reportDispatcherPoolSize: {}, reportDispatcherCapacity: {}, reportDispatcherOverflowPolicy: {}",
+                this.reportDispatcherPoolSize, this.reportDispatcherCapacity, this.overflowPolicy);
+
+        this.reportExecutor = Executors.newFixedThreadPool(this.reportDispatcherPoolSize);
+    }
+
+    @PreDestroy
+    private void destroy() {
+        this.reportExecutor.shutdown();
+        try {
+            if (!this.reportExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                LOGGER.warn("Reports still being processed after 30 seconds, interrupting them");
+                this.reportExecutor.shutdownNow();
+            }
+        } catch (final InterruptedException e) {
+            this.reportExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues the processing of a report received from the given device.
+     *
+     * @param task
+     *            Processes the report. The report must not be used by the
+     *            caller afterwards.
+     */
+    public void dispatch(final String deviceIdentification, final Runnable task) {
+        this.dispatch(deviceIdentification, task, true);
+    }
+
+    /**
+     * Queues a task of the given device after the reports received before.
+     *
+     * @param droppable
+     *            {@code false} for a control task, which is not dropped when
+     *            too many reports are waiting and does not count as a report.
+     */
+    public void dispatch(final String deviceIdentification, final Runnable task, final boolean droppable) {
+        final ReportTask reportTask = new ReportTask(deviceIdentification, task, droppable);
+        if (droppable) {
+            this.received.incrementAndGet();
+        }
+        synchronized (this.deviceQueues) {
+            Deque<ReportTask> queue = this.deviceQueues.get(deviceIdentification);
+            if (queue == null) {
+                // No report of this device is being processed.
+                this.deviceQueues.put(deviceIdentification, new ArrayDeque<ReportTask>());
+            } else {
+                if (droppable && !this.makeRoom(deviceIdentification)) {
+                    return;
+                }
+                // The queue may have been removed while waiting for room.
+                queue = this.deviceQueues.get(deviceIdentification);
+                if (queue != null) {
+                    // A report of this device is being processed, the next one
+                    // is picked up when it is done.
+                    queue.addLast(reportTask);
+                    if (droppable) {
+                        this.waiting++;
+                        this.updateMaxWaiting();
+                    }
+                    return;
+                }
+                this.deviceQueues.put(deviceIdentification, new ArrayDeque<ReportTask>());
+            }
+        }
+        this.execute(reportTask);
+    }
+
+    @ManagedAttribute(description = "Number of reports waiting to be processed")
+    public int getQueueDepth() {
+        synchronized (this.deviceQueues) {
+            return this.waiting;
+        }
+    }
+
+    @ManagedAttribute(description = "Highest number of reports waiting to be processed")
+    public long getMaxQueueDepth() {
+        return this.maxWaiting.get();
+    }
+
+    @ManagedAttribute(description = "Number of devices for which reports are being processed or waiting")
+    public int getActiveDeviceCount() {
+        synchronized (this.deviceQueues) {
+            return this.deviceQueues.size();
+        }
+    }
+
+    @ManagedAttribute(description = "Time in milliseconds the last processed report waited to be processed")
+    public long getLastLag() {
+        return this.lastLag.get();
+    }
+
+    @ManagedAttribute(description = "Longest time in milliseconds a report waited to be processed")
+    public long getMaxLag() {
+        return this.maxLag.get();
+    }
+
+    @ManagedAttribute(description = "Number of reports received")
+    public long getReceivedCount() {
+        return this.received.get();
+    }
+
+    @ManagedAttribute(description = "Number of reports processed")
+    public long getProcessedCount() {
+        return this.processed.get();
+    }
+
+    @ManagedAttribute(description = "Number of reports dropped because too many reports were waiting")
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    @ManagedAttribute(description = "Number of reports of which the processing failed unexpectedly")
+    public long getFailedCount() {
+        return this.failed.get();
+    }
+
+    @ManagedOperation(description = "Resets the highest queue depth and the longest lag")
+    public void resetMaxima() {
+        this.maxWaiting.set(0);
+        this.maxLag.set(0);
+    }
+
+    /**
+     * Makes room for a report of the given device according to the overflow
+     * policy. Must be called holding the lock on the device queues.
+     *
+     * @return {@code true} if the report can be queued, {@code false} if it is
+     *         dropped.
+     */
+    private boolean makeRoom(final String deviceIdentification) {
+        if (this.waiting < this.reportDispatcherCapacity) {
+            return true;
+        }
+        switch (this.overflowPolicy) {
+        case DROP_OLDEST:
+            final Iterator<ReportTask> iterator = this.deviceQueues.get(deviceIdentification).iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().isDroppable()) {
+                    iterator.remove();
+                    this.waiting--;
+                    this.dropped.incrementAndGet();
+                    LOGGER.warn("Too many reports waiting, dropped oldest waiting report of device: {}",
+                            deviceIdentification);
+                    return true;
+                }
+            }
+            break;
+        case BLOCK:
+            LOGGER.warn("Too many reports waiting, waiting for room to queue report of device: {}",
+                    deviceIdentification);
+            while (this.waiting >= this.reportDispatcherCapacity) {
+                try {
+                    this.deviceQueues.wait();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (this.waiting < this.reportDispatcherCapacity) {
+                return true;
+            }
+            break;
+        default:
+            break;
+        }
+        this.dropped.incrementAndGet();
+        LOGGER.warn("Too many reports waiting, dropped report of device: {}", deviceIdentification);
+        return false;
+    }
+
+    private void updateMaxWaiting() {
+        if (this.waiting > this.maxWaiting.get()) {
+            this.maxWaiting.set(this.waiting);
+        }
+    }
+
+    private void execute(final ReportTask reportTask) {
+        this.reportExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Iec61850ReportDispatcher.this.process(reportTask);
+                } finally {
+                    Iec61850ReportDispatcher.this.executeNext(reportTask.getDeviceIdentification());
+                }
+            }
+        });
+    }
+
+    private void executeNext(final String deviceIdentification) {
+        final ReportTask next;
+        synchronized (this.deviceQueues) {
+            next = this.deviceQueues.get(deviceIdentification).pollFirst();
+            if (next == null) {
+                this.deviceQueues.remove(deviceIdentification);
+                return;
+            }
+            if (next.isDroppable()) {
+                this.waiting--;
+                this.deviceQueues.notifyAll();
+            }
+        }
+        this.execute(next);
+    }
+
+    private void process(final ReportTask reportTask) {
+        if (reportTask.isDroppable()) {
+            final long lag = System.currentTimeMillis() - reportTask.getReceivedAt();
+            this.lastLag.set(lag);
+            if (lag > this.maxLag.get()) {
+                this.maxLag.set(lag);
+            }
+        }
+        try {
+            reportTask.getTask().run();
+            if (reportTask.isDroppable()) {
+                this.processed.incrementAndGet();
+            }
+        } catch (final RuntimeException e) {
+            this.failed.incrementAndGet();
+            LOGGER.error("Unexpected exception processing report of device: {}",
+                    reportTask.getDeviceIdentification(), e);
+        }
+    }
+
+    private static class ReportTask {
+
+        private final String deviceIdentification;
+        private final Runnable task;
+        private final boolean droppable;
+        private final long receivedAt = System.currentTimeMillis();
+
+        ReportTask(final String deviceIdentification, final Runnable task, final boolean droppable) {
+            this.deviceIdentification = deviceIdentification;
+            this.task = task;
+            this.droppable = droppable;
+        }
+
+        String getDeviceIdentification() {
+            return this.deviceIdentification;
+        }
+
+        Runnable getTask() {
+            return this.task;
+        }
+
+        boolean isDroppable() {
+            return this.droppable;
+        }
+
+        long getReceivedAt() {
+            return this.receivedAt;
+        }
+    }
+}
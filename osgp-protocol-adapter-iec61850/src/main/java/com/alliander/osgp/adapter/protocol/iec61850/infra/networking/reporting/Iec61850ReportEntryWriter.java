@@ -0,0 +1,307 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850ReportEntry;
+import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850ReportEntryRepository;
+
+/**
+ * Keeps the last report entry per device and report id in memory and writes
+ * them to the database in batches, instead of reading and writing the
+ * database for every report.
+ * <p>
+ * The entries are written every flush interval, or earlier when the number of
+ * entries waiting reaches the batch size. Entries of a device are also written
+ * when its association is closed, and all entries are written on shutdown.
+ * Entries that are not written yet are returned by
+ * {@link #getLastReportEntry(String, String)}, so a resync of buffered
+ * reporting always uses the most recent entry.
+ */
+@Component
+@ManagedResource(description = "Storage of the last report entries received from IEC61850 devices")
+public class Iec61850ReportEntryWriter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850ReportEntryWriter.class);
+
+    @Autowired
+    private Iec61850ReportEntryRepository iec61850ReportEntryRepository;
+
+    @Autowired
+    @Qualifier("transactionManager")
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private int reportEntryFlushInterval;
+
+    @Autowired
+    private int reportEntryFlushBatchSize;
+
+    private final ConcurrentMap<EntryKey, PendingEntry> pendingEntries = new ConcurrentHashMap<>();
+
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private ScheduledExecutorService flushExecutor;
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("reportEntryFlushInterval: {}, reportEntryFlushBatchSize: {}", this.reportEntryFlushInterval,
+                this.reportEntryFlushBatchSize);
+
+        this.transactionTemplate = new TransactionTemplate(this.transactionManager);
+
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor();
+        this.flushExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                Iec61850ReportEntryWriter.this.flushAll();
+            }
+        }, this.reportEntryFlushInterval, this.reportEntryFlushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    private void destroy() {
+        this.flushExecutor.shutdownNow();
+        this.flushAll();
+    }
+
+    /**
+     * Stores the given entry as the last report entry of the report of the
+     * device, replacing any entry that is not written yet.
+     */
+    public void store(final String deviceIdentification, final String reportId, final byte[] entryId,
+            final Date timeOfEntry) {
+        this.pendingEntries.put(new EntryKey(deviceIdentification, reportId), new PendingEntry(entryId, timeOfEntry));
+        this.stored.incrementAndGet();
+        if (this.pendingEntries.size() >= this.reportEntryFlushBatchSize && !this.flushExecutor.isShutdown()
+                && this.flushRequested.compareAndSet(false, true)) {
+            this.flushExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    Iec61850ReportEntryWriter.this.flushRequested.set(false);
+                    Iec61850ReportEntryWriter.this.flushAll();
+                }
+            });
+        }
+    }
+
+    /**
+     * @return The last report entry of the report of the device, including an
+     *         entry that is not written yet, or {@code null} if there is none.
+     */
+    public Iec61850ReportEntry getLastReportEntry(final String deviceIdentification, final String reportId) {
+        final PendingEntry pendingEntry = this.pendingEntries.get(new EntryKey(deviceIdentification, reportId));
+        if (pendingEntry != null) {
+            return new Iec61850ReportEntry(deviceIdentification, reportId, pendingEntry.getEntryId(),
+                    pendingEntry.getTimeOfEntry());
+        }
+        return this.iec61850ReportEntryRepository.findByDeviceIdentificationAndReportId(deviceIdentification,
+                reportId);
+    }
+
+    /**
+     * Writes the entries of the given device that are not written yet.
+     */
+    public void flush(final String deviceIdentification) {
+        final Map<EntryKey, PendingEntry> entries = new HashMap<>();
+        for (final Map.Entry<EntryKey, PendingEntry> entry : this.pendingEntries.entrySet()) {
+            if (entry.getKey().getDeviceIdentification().equals(deviceIdentification)) {
+                entries.put(entry.getKey(), entry.getValue());
+            }
+        }
+        this.write(entries);
+    }
+
+    @ManagedOperation(description = "Writes all last report entries that are not written yet")
+    public void flushAll() {
+        this.write(new HashMap<>(this.pendingEntries));
+    }
+
+    @ManagedAttribute(description = "Number of last report entries that are not written yet")
+    public int getPendingCount() {
+        return this.pendingEntries.size();
+    }
+
+    @ManagedAttribute(description = "Number of last report entries stored")
+    public long getStoredCount() {
+        return this.stored.get();
+    }
+
+    @ManagedAttribute(description = "Number of last report entries written to the database")
+    public long getWrittenCount() {
+        return this.written.get();
+    }
+
+    @ManagedAttribute(description = "Number of batches written to the database")
+    public long getFlushCount() {
+        return this.flushes.get();
+    }
+
+    @ManagedAttribute(description = "Number of batches that could not be written to the database")
+    public long getFailedFlushCount() {
+        return this.failedFlushes.get();
+    }
+
+    /**
+     * Writes the given entries as one batch, by updating the existing rows and
+     * inserting the missing ones, in one transaction so the existing rows stay
+     * managed and are updated when the transaction commits. Entries that are
+     * replaced while writing stay pending, they are written with the next
+     * batch.
+     */
+    private synchronized void write(final Map<EntryKey, PendingEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        final Set<String> deviceIdentifications = new HashSet<>();
+        for (final EntryKey key : entries.keySet()) {
+            deviceIdentifications.add(key.getDeviceIdentification());
+        }
+
+        try {
+            this.transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+                @Override
+                protected void doInTransactionWithoutResult(final TransactionStatus status) {
+                    Iec61850ReportEntryWriter.this.writeInTransaction(entries, deviceIdentifications);
+                }
+            });
+        } catch (final DataAccessException | TransactionException e) {
+            this.failedFlushes.incrementAndGet();
+            LOGGER.warn("Unable to write {} last report entries, retrying with the next batch", entries.size(), e);
+            return;
+        }
+
+        for (final Map.Entry<EntryKey, PendingEntry> entry : entries.entrySet()) {
+            this.pendingEntries.remove(entry.getKey(), entry.getValue());
+        }
+        this.written.addAndGet(entries.size());
+        this.flushes.incrementAndGet();
+        LOGGER.debug("Wrote {} last report entries for {} devices", entries.size(), deviceIdentifications.size());
+    }
+
+    private void writeInTransaction(final Map<EntryKey, PendingEntry> entries,
+            final Set<String> deviceIdentifications) {
+        final Map<EntryKey, Iec61850ReportEntry> existingEntries = new HashMap<>();
+        for (final Iec61850ReportEntry reportEntry : this.iec61850ReportEntryRepository
+                .findByDeviceIdentificationIn(deviceIdentifications)) {
+            existingEntries.put(new EntryKey(reportEntry.getDeviceIdentification(), reportEntry.getReportId()),
+                    reportEntry);
+        }
+
+        final List<Iec61850ReportEntry> reportEntries = new ArrayList<>(entries.size());
+        for (final Map.Entry<EntryKey, PendingEntry> entry : entries.entrySet()) {
+            final EntryKey key = entry.getKey();
+            final PendingEntry pendingEntry = entry.getValue();
+            Iec61850ReportEntry reportEntry = existingEntries.get(key);
+            if (reportEntry == null) {
+                reportEntry = new Iec61850ReportEntry(key.getDeviceIdentification(), key.getReportId(),
+                        pendingEntry.getEntryId(), pendingEntry.getTimeOfEntry());
+            } else {
+                reportEntry.updateLastReportEntry(pendingEntry.getEntryId(), pendingEntry.getTimeOfEntry());
+            }
+            reportEntries.add(reportEntry);
+        }
+
+        this.iec61850ReportEntryRepository.save(reportEntries);
+        this.iec61850ReportEntryRepository.flush();
+    }
+
+    private static class EntryKey {
+
+        private final String deviceIdentification;
+        private final String reportId;
+
+        EntryKey(final String deviceIdentification, final String reportId) {
+            this.deviceIdentification = deviceIdentification;
+            this.reportId = reportId;
+        }
+
+        String getDeviceIdentification() {
+            return this.deviceIdentification;
+        }
+
+        String getReportId() {
+            return this.reportId;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof EntryKey)) {
+                return false;
+            }
+            final EntryKey other = (EntryKey) obj;
+            return this.deviceIdentification.equals(other.deviceIdentification)
+                    && this.reportId.equals(other.reportId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.deviceIdentification.hashCode() + this.reportId.hashCode();
+        }
+    }
+
+    private static class PendingEntry {
+
+        private final byte[] entryId;
+        private final Date timeOfEntry;
+
+        PendingEntry(final byte[] entryId, final Date timeOfEntry) {
+            this.entryId = entryId;
+            this.timeOfEntry = timeOfEntry;
+        }
+
+        byte[] getEntryId() {
+            return this.entryId;
+        }
+
+        Date getTimeOfEntry() {
+            return this.timeOfEntry;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.application.services.Iec61850DeviceCache;
+import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Device;
+
+/**
+ * Resolves the {@link Iec61850ReportHandler} for the data set of a report.
+ * <p>
+ * Each distinct data set reference is parsed once. Report handlers do not keep
+ * state between reports, so one instance is created per node type and system
+ * id and shared by all reports and devices. Both caches are bounded; when a
+ * cache is full it is cleared and filled again.
+ */
+@Component
+@ManagedResource(description = "Cache of report handlers for IEC61850 reports")
+public class Iec61850ReportHandlerRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850ReportHandlerRegistry.class);
+
+    private static final String NODE_NAMES = "(RTU|PV|BATTERY|ENGINE|LOAD|CHP|HEAT_BUFFER|GAS_FURNACE|HEAT_PUMP|BOILER|WIND|PQ)";
+
+    private static final Pattern REPORT_PATTERN = Pattern
+            .compile("\\A(.*)" + NODE_NAMES + "([1-9]\\d*+)/LLN0\\.(Status|Measurements|Heartbeat)\\Z");
+
+    private static final String LOAD = "LOAD";
+    private static final String LOAD_COMBINED = "LOAD_COMBINED";
+
+    private static final int MAX_CACHE_SIZE = 1000;
+
+    /**
+     * Marks data set references that are not supported.
+     */
+    private static final DataSet UNSUPPORTED = new DataSet(null, null);
+
+    @Autowired
+    private Iec61850DeviceCache iec61850DeviceCache;
+
+    @Autowired
+    private Boolean defaultUseCombinedLoad;
+
+    private final ConcurrentMap<String, DataSet> dataSets = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Iec61850ReportHandler> reportHandlers = new ConcurrentHashMap<>();
+
+    /**
+     * @return The report handler for reports of the given data set of the
+     *         given device, or {@code null} if the data set is not supported.
+     */
+    public Iec61850ReportHandler getReportHandler(final String dataSetRef, final String deviceIdentification) {
+        DataSet dataSet = this.dataSets.get(dataSetRef);
+        if (dataSet == null) {
+            dataSet = this.resolve(dataSetRef);
+            putBounded(this.dataSets, dataSetRef, dataSet);
+        }
+        if (dataSet.getCombinedLoadReportHandler() != null && this.useCombinedLoad(deviceIdentification)) {
+            return dataSet.getCombinedLoadReportHandler();
+        }
+        return dataSet.getReportHandler();
+    }
+
+    @ManagedAttribute(description = "Number of data set references for which the report handler is cached")
+    public int getDataSetCount() {
+        return this.dataSets.size();
+    }
+
+    @ManagedAttribute(description = "Number of report handler instances")
+    public int getReportHandlerCount() {
+        return this.reportHandlers.size();
+    }
+
+    @ManagedOperation(description = "Removes all data set references and report handlers from the cache")
+    public void clear() {
+        this.dataSets.clear();
+        this.reportHandlers.clear();
+        LOGGER.info("Removed all report handlers from cache");
+    }
+
+    private DataSet resolve(final String dataSetRef) {
+        final Matcher reportMatcher = REPORT_PATTERN.matcher(dataSetRef);
+        if (!reportMatcher.matches()) {
+            return UNSUPPORTED;
+        }
+        final String node = reportMatcher.group(2);
+        final int systemId = Integer.parseInt(reportMatcher.group(3));
+        final Iec61850ReportHandler reportHandler = this.getReportHandler(node, systemId);
+        if (LOAD.equals(node)) {
+            return new DataSet(reportHandler, this.getReportHandler(LOAD_COMBINED, systemId));
+        }
+        return new DataSet(reportHandler, null);
+    }
+
+    private Iec61850ReportHandler getReportHandler(final String node, final int systemId) {
+        final String key = node + systemId;
+        Iec61850ReportHandler reportHandler = this.reportHandlers.get(key);
+        if (reportHandler == null) {
+            reportHandler = createReportHandler(node, systemId);
+            LOGGER.info("Created report handler {} for {}{}", reportHandler.getClass().getSimpleName(), node,
+                    systemId);
+            putBounded(this.reportHandlers, key, reportHandler);
+        }
+        return reportHandler;
+    }
+
+    private static Iec61850ReportHandler createReportHandler(final String node, final int systemId) {
+        switch (node) {
+        case "RTU":
+            return new Iec61850RtuReportHandler(systemId);
+        case "PV":
+            return new Iec61850PvReportHandler(systemId);
+        case "BATTERY":
+            return new Iec61850BatteryReportHandler(systemId);
+        case "ENGINE":
+            return new Iec61850EngineReportHandler(systemId);
+        case LOAD:
+            return new Iec61850LoadReportHandler(systemId);
+        case LOAD_COMBINED:
+            return new Iec61850CombinedLoadReportHandler(systemId);
+        case "CHP":
+            return new Iec61850ChpReportHandler(systemId);
+        case "HEAT_BUFFER":
+            return new Iec61850HeatBufferReportHandler(systemId);
+        case "GAS_FURNACE":
+            return new Iec61850GasFurnaceReportHandler(systemId);
+        case "HEAT_PUMP":
+            return new Iec61850HeatPumpReportHandler(systemId);
+        case "BOILER":
+            return new Iec61850BoilerReportHandler(systemId);
+        case "WIND":
+            return new Iec61850WindReportHandler(systemId);
+        case "PQ":
+            return new Iec61850PqReportHandler(systemId);
+        default:
+            throw new IllegalArgumentException("Unknown node: " + node);
+        }
+    }
+
+    private static <T> void putBounded(final ConcurrentMap<String, T> cache, final String key, final T value) {
+        if (cache.size() >= MAX_CACHE_SIZE) {
+            cache.clear();
+        }
+        cache.put(key, value);
+    }
+
+    private boolean useCombinedLoad(final String deviceIdentification) {
+        final Iec61850Device device = this.iec61850DeviceCache.findByDeviceIdentification(deviceIdentification);
+        if (device != null) {
+            return device.isUseCombinedLoad();
+        }
+        return this.defaultUseCombinedLoad;
+    }
+
+    private static class DataSet {
+
+        private final Iec61850ReportHandler reportHandler;
+        private final Iec61850ReportHandler combinedLoadReportHandler;
+
+        DataSet(final Iec61850ReportHandler reportHandler, final Iec61850ReportHandler combinedLoadReportHandler) {
+            this.reportHandler = reportHandler;
+            this.combinedLoadReportHandler = combinedLoadReportHandler;
+        }
+
+        Iec61850ReportHandler getReportHandler() {
+            return this.reportHandler;
+        }
+
+        Iec61850ReportHandler getCombinedLoadReportHandler() {
+            return this.combinedLoadReportHandler;
+        }
+    }
+}
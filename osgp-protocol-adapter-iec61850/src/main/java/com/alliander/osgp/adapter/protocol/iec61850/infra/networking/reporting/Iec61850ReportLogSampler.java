@@ -0,0 +1,160 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Determines which received reports are logged by the event listeners. With a
+ * sample rate of N, one in every N reports of a device and data set is logged.
+ * A sample rate of 1 logs every report, a sample rate of 0 logs none.
+ * <p>
+ * The sample rate of a device takes precedence over the sample rate of a data
+ * set, which takes precedence over the default sample rate. The sample rates
+ * of devices and data sets can be changed at runtime.
+ */
+@Component
+@ManagedResource(description = "Sampling of the logging of reports received from IEC61850 devices")
+public class Iec61850ReportLogSampler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850ReportLogSampler.class);
+
+    /**
+     * Maximum number of report counters kept. The counters are cleared when
+     * there are more, which only restarts the sampling.
+     */
+    private static final int MAX_COUNTERS = 10000;
+
+    @Autowired
+    private volatile int reportLogSampleRate;
+
+    private final ConcurrentMap<String, Integer> deviceSampleRates = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Integer> dataSetSampleRates = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> reportCounters = new ConcurrentHashMap<>();
+
+    private final AtomicLong sampled = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("reportLogSampleRate: {}", this.reportLogSampleRate);
+    }
+
+    /**
+     * @return {@code true} if the report of the device for the data set is to
+     *         be logged.
+     */
+    public boolean isSampled(final String deviceIdentification, final String dataSetRef) {
+        final int sampleRate = this.getSampleRate(deviceIdentification, dataSetRef);
+        final boolean isSampled;
+        if (sampleRate <= 0) {
+            isSampled = false;
+        } else if (sampleRate == 1) {
+            isSampled = true;
+        } else {
+            isSampled = this.getReportCounter(deviceIdentification + ":" + dataSetRef).getAndIncrement()
+                    % sampleRate == 0;
+        }
+        if (isSampled) {
+            this.sampled.incrementAndGet();
+        } else {
+            this.skipped.incrementAndGet();
+        }
+        return isSampled;
+    }
+
+    @ManagedOperation(description = "Sets the sample rate of the reports of a device")
+    public void setDeviceSampleRate(final String deviceIdentification, final int sampleRate) {
+        this.deviceSampleRates.put(deviceIdentification, sampleRate);
+    }
+
+    @ManagedOperation(description = "Removes the sample rate of the reports of a device")
+    public void removeDeviceSampleRate(final String deviceIdentification) {
+        this.deviceSampleRates.remove(deviceIdentification);
+    }
+
+    @ManagedOperation(description = "Sets the sample rate of the reports for a data set reference")
+    public void setDataSetSampleRate(final String dataSetRef, final int sampleRate) {
+        this.dataSetSampleRates.put(dataSetRef, sampleRate);
+    }
+
+    @ManagedOperation(description = "Removes the sample rate of the reports for a data set reference")
+    public void removeDataSetSampleRate(final String dataSetRef) {
+        this.dataSetSampleRates.remove(dataSetRef);
+    }
+
+    @ManagedAttribute(description = "Sample rate of the reports without a device or data set sample rate")
+    public int getDefaultSampleRate() {
+        return this.reportLogSampleRate;
+    }
+
+    @ManagedAttribute(description = "Sample rate of the reports without a device or data set sample rate")
+    public void setDefaultSampleRate(final int sampleRate) {
+        this.reportLogSampleRate = sampleRate;
+    }
+
+    @ManagedAttribute(description = "Sample rates of the reports of devices")
+    public Map<String, Integer> getDeviceSampleRates() {
+        return this.deviceSampleRates;
+    }
+
+    @ManagedAttribute(description = "Sample rates of the reports for data set references")
+    public Map<String, Integer> getDataSetSampleRates() {
+        return this.dataSetSampleRates;
+    }
+
+    @ManagedAttribute(description = "Number of reports logged")
+    public long getSampledCount() {
+        return this.sampled.get();
+    }
+
+    @ManagedAttribute(description = "Number of reports not logged")
+    public long getSkippedCount() {
+        return this.skipped.get();
+    }
+
+    private int getSampleRate(final String deviceIdentification, final String dataSetRef) {
+        final Integer deviceSampleRate = this.deviceSampleRates.get(deviceIdentification);
+        if (deviceSampleRate != null) {
+            return deviceSampleRate;
+        }
+        final Integer dataSetSampleRate = dataSetRef == null ? null : this.dataSetSampleRates.get(dataSetRef);
+        if (dataSetSampleRate != null) {
+            return dataSetSampleRate;
+        }
+        return this.reportLogSampleRate;
+    }
+
+    private AtomicLong getReportCounter(final String key) {
+        AtomicLong counter = this.reportCounters.get(key);
+        if (counter == null) {
+            if (this.reportCounters.size() >= MAX_COUNTERS) {
+                this.reportCounters.clear();
+            }
+            final AtomicLong newCounter = new AtomicLong();
+            counter = this.reportCounters.putIfAbsent(key, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        return counter;
+    }
+}
@@ -0,0 +1,439 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.openmuc.openiec61850.Report;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tracks the SqNum of the reports received per device and report id, to
+ * detect gaps, duplicates and buffer overflows.
+ * <p>
+ * A gap in a buffered report can be recovered by resyncing the report from
+ * its last stored report entry, see {@link #requestResync(String, String)}.
+ * The device then sends the buffered entries after the last stored entry
+ * again, which may include reports that were already processed. Resyncs of
+ * the same report are at least the resync interval apart, a resync interval
+ * of 0 disables them.
+ * <p>
+ * Until the missing reports have been received, the reports after a gap are
+ * tracked as {@link Sequence#AFTER_GAP}, also when the resync is skipped
+ * because of the resync interval, and reports that were queued before the resync do not make the
+ * reports sent again look like duplicates. Only the entries of reports that
+ * are in sequence with all reports before them should be stored.
+ * <p>
+ * When the missing reports cannot be recovered, because resyncing is disabled
+ * or the resync failed, or when they have not been received after a number of
+ * reports, the missing reports are taken as lost. The sequence then restarts,
+ * so the entries of the reports that follow are stored again.
+ */
+@Component
+@ManagedResource(description = "Sequence tracking of reports received from IEC61850 devices")
+public class Iec61850ReportSequenceTracker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850ReportSequenceTracker.class);
+
+    /**
+     * A SqNum at most this far behind the last SqNum is a duplicate. A SqNum
+     * further behind is taken as a restart or wrap around of the SqNum.
+     */
+    private static final int DUPLICATE_WINDOW = 32;
+
+    /**
+     * The number of reports received after a gap, after which the missing
+     * reports are taken as lost if they have not been received.
+     */
+    private static final int MAX_REPORTS_AFTER_GAP = 100;
+
+    public enum Sequence {
+        /**
+         * The report has no SqNum.
+         */
+        UNTRACKED,
+        /**
+         * The first report, or the first report after a restart of the SqNum.
+         */
+        FIRST,
+        IN_SEQUENCE,
+        /**
+         * One or more reports before this report are missing.
+         */
+        GAP,
+        /**
+         * A report after a gap that has not been recovered yet.
+         */
+        AFTER_GAP,
+        /**
+         * The report has been received already.
+         */
+        DUPLICATE
+    }
+
+    @Autowired
+    private Iec61850RtuDeviceReportingService iec61850RtuDeviceReportingService;
+
+    @Autowired
+    private int reportGapResyncInterval;
+
+    private final ConcurrentMap<String, ReportSequence> reportSequences = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> gapsPerDevice = new ConcurrentHashMap<>();
+
+    private final AtomicLong gaps = new AtomicLong();
+    private final AtomicLong missed = new AtomicLong();
+    private final AtomicLong duplicates = new AtomicLong();
+    private final AtomicLong overflows = new AtomicLong();
+    private final AtomicLong resyncs = new AtomicLong();
+    private final AtomicLong failedResyncs = new AtomicLong();
+    private final AtomicLong lostGaps = new AtomicLong();
+    private final AtomicLong lost = new AtomicLong();
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("reportGapResyncInterval: {}", this.reportGapResyncInterval);
+    }
+
+    /**
+     * Determines how the report of the device relates to the reports with the
+     * same report id received before.
+     */
+    public Sequence track(final String deviceIdentification, final Report report) {
+        if (Boolean.TRUE.equals(report.getBufOvfl())) {
+            this.overflows.incrementAndGet();
+        }
+        if (report.getSqNum() == null) {
+            return Sequence.UNTRACKED;
+        }
+
+        final ReportSequence reportSequence = this.getReportSequence(deviceIdentification, report.getRptId());
+        final Sequence sequence;
+        final int missing;
+        final int lostReports;
+        synchronized (reportSequence) {
+            missing = reportSequence.getMissing(report.getSqNum());
+            sequence = reportSequence.next(report.getSqNum(), report.getSubSqNum(),
+                    Boolean.TRUE.equals(report.getBufOvfl()));
+            lostReports = reportSequence.takeLostReports();
+        }
+        if (lostReports > 0) {
+            this.countLoss(deviceIdentification, report.getRptId(), lostReports,
+                    "they were not received after " + MAX_REPORTS_AFTER_GAP + " reports");
+        }
+
+        if (sequence == Sequence.GAP) {
+            this.gaps.incrementAndGet();
+            this.missed.addAndGet(missing);
+            this.getGapCounter(deviceIdentification).incrementAndGet();
+            LOGGER.warn("Gap of {} reports before sqNum {} in report {} of device {}", missing, report.getSqNum(),
+                    report.getRptId(), deviceIdentification);
+        } else if (sequence == Sequence.DUPLICATE) {
+            this.duplicates.incrementAndGet();
+        }
+        return sequence;
+    }
+
+    /**
+     * Resyncs the buffered report of the device from its last stored report
+     * entry, unless the report was resynced less than the resync interval ago.
+     * The reports after the gap are tracked as {@link Sequence#AFTER_GAP} until
+     * the missing reports have been sent again. When resyncing is disabled or
+     * the resync fails, the missing reports are taken as lost.
+     *
+     * @return {@code true} if the report has been resynced.
+     */
+    public boolean requestResync(final String deviceIdentification, final String reportId) {
+        final ReportSequence reportSequence = this.getReportSequence(deviceIdentification, reportId);
+        if (this.reportGapResyncInterval <= 0) {
+            this.acceptLoss(deviceIdentification, reportId, reportSequence, "resyncing is disabled");
+            return false;
+        }
+        final long now = System.currentTimeMillis();
+        synchronized (reportSequence) {
+            if (now - reportSequence.getLastResync() < this.reportGapResyncInterval) {
+                LOGGER.debug("Skipping resync of report {} of device {}, it was resynced less than {} ms ago",
+                        reportId, deviceIdentification, this.reportGapResyncInterval);
+                return false;
+            }
+            reportSequence.setLastResync(now);
+        }
+
+        if (!this.iec61850RtuDeviceReportingService.resyncBufferedReport(deviceIdentification, reportId)) {
+            this.failedResyncs.incrementAndGet();
+            this.acceptLoss(deviceIdentification, reportId, reportSequence, "the resync failed");
+            return false;
+        }
+        this.resyncs.incrementAndGet();
+        return true;
+    }
+
+    private void acceptLoss(final String deviceIdentification, final String reportId,
+            final ReportSequence reportSequence, final String reason) {
+        final int lostReports;
+        synchronized (reportSequence) {
+            lostReports = reportSequence.acceptLoss();
+        }
+        if (lostReports > 0) {
+            this.countLoss(deviceIdentification, reportId, lostReports, reason);
+        }
+    }
+
+    private void countLoss(final String deviceIdentification, final String reportId, final int lostReports,
+            final String reason) {
+        this.lostGaps.incrementAndGet();
+        this.lost.addAndGet(lostReports);
+        LOGGER.warn("Taking {} missing reports in report {} of device {} as lost, {}", lostReports, reportId,
+                deviceIdentification, reason);
+    }
+
+    /**
+     * Forgets the reports received from the device, for example because its
+     * association is closed.
+     */
+    public void forget(final String deviceIdentification) {
+        final String prefix = deviceIdentification + ":";
+        for (final String key : this.reportSequences.keySet()) {
+            if (key.startsWith(prefix)) {
+                this.reportSequences.remove(key);
+            }
+        }
+    }
+
+    @ManagedAttribute(description = "Number of gaps detected in the reports")
+    public long getGapCount() {
+        return this.gaps.get();
+    }
+
+    @ManagedAttribute(description = "Number of reports missing in the gaps detected")
+    public long getMissedReportCount() {
+        return this.missed.get();
+    }
+
+    @ManagedAttribute(description = "Number of duplicate reports received")
+    public long getDuplicateCount() {
+        return this.duplicates.get();
+    }
+
+    @ManagedAttribute(description = "Number of reports received with the buffer overflow flag set")
+    public long getOverflowCount() {
+        return this.overflows.get();
+    }
+
+    @ManagedAttribute(description = "Number of reports resynced after a gap")
+    public long getResyncCount() {
+        return this.resyncs.get();
+    }
+
+    @ManagedAttribute(description = "Number of resyncs after a gap that failed")
+    public long getFailedResyncCount() {
+        return this.failedResyncs.get();
+    }
+
+    @ManagedAttribute(description = "Number of gaps of which the missing reports were taken as lost")
+    public long getLostGapCount() {
+        return this.lostGaps.get();
+    }
+
+    @ManagedAttribute(description = "Number of missing reports taken as lost")
+    public long getLostReportCount() {
+        return this.lost.get();
+    }
+
+    @ManagedAttribute(description = "Number of gaps detected per device")
+    public Map<String, Long> getGapCountPerDevice() {
+        final Map<String, Long> gapCounts = new TreeMap<>();
+        for (final Map.Entry<String, AtomicLong> entry : this.gapsPerDevice.entrySet()) {
+            gapCounts.put(entry.getKey(), entry.getValue().get());
+        }
+        return gapCounts;
+    }
+
+    @ManagedOperation(description = "Resets the number of gaps detected per device")
+    public void resetGapCountPerDevice() {
+        this.gapsPerDevice.clear();
+    }
+
+    private ReportSequence getReportSequence(final String deviceIdentification, final String reportId) {
+        final String key = deviceIdentification + ":" + reportId;
+        ReportSequence reportSequence = this.reportSequences.get(key);
+        if (reportSequence == null) {
+            final ReportSequence newReportSequence = new ReportSequence();
+            reportSequence = this.reportSequences.putIfAbsent(key, newReportSequence);
+            if (reportSequence == null) {
+                reportSequence = newReportSequence;
+            }
+        }
+        return reportSequence;
+    }
+
+    private AtomicLong getGapCounter(final String deviceIdentification) {
+        AtomicLong counter = this.gapsPerDevice.get(deviceIdentification);
+        if (counter == null) {
+            final AtomicLong newCounter = new AtomicLong();
+            counter = this.gapsPerDevice.putIfAbsent(deviceIdentification, newCounter);
+            if (counter == null) {
+                counter = newCounter;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * The sequence of the reports with one report id of one device. Reports
+     * are in sequence up to the last report for which all reports before it
+     * have been received. Reports further ahead are after a gap, until the
+     * missing reports are received, or the device reports a buffer overflow
+     * because they have been lost, or they are taken as lost.
+     */
+    static class ReportSequence {
+
+        /**
+         * The SqNum up to which all reports have been received.
+         */
+        private Integer inSequenceSqNum;
+        private int inSequenceSubSqNum;
+        /**
+         * The highest SqNum received.
+         */
+        private int lastSqNum;
+        private int lastSubSqNum;
+        /**
+         * The number of reports received after the SqNum up to which all
+         * reports have been received.
+         */
+        private int reportsAfterGap;
+        /**
+         * The number of reports taken as lost by {@link #next}, not yet taken
+         * by {@link #takeLostReports()}.
+         */
+        private int lostReports;
+        private long lastResync;
+
+        int getMissing(final int sqNum) {
+            if (this.inSequenceSqNum == null || sqNum <= this.lastSqNum) {
+                return 0;
+            }
+            return sqNum - this.lastSqNum - 1;
+        }
+
+        Sequence next(final int sqNum, final Integer subSqNum, final boolean bufferOverflow) {
+            final int currentSubSqNum = subSqNum == null ? 0 : subSqNum;
+            if (this.inSequenceSqNum == null) {
+                this.restart(sqNum, currentSubSqNum);
+                return Sequence.FIRST;
+            }
+            if (sqNum == this.inSequenceSqNum) {
+                if (currentSubSqNum > this.inSequenceSubSqNum) {
+                    // Next segment of the same report.
+                    this.inSequenceSubSqNum = currentSubSqNum;
+                    return Sequence.IN_SEQUENCE;
+                }
+                return Sequence.DUPLICATE;
+            }
+            if (sqNum < this.inSequenceSqNum) {
+                if (this.lastSqNum - sqNum <= DUPLICATE_WINDOW) {
+                    return Sequence.DUPLICATE;
+                }
+                this.restart(sqNum, currentSubSqNum);
+                return Sequence.FIRST;
+            }
+            if (sqNum == this.inSequenceSqNum + 1) {
+                this.inSequenceSqNum = sqNum;
+                this.inSequenceSubSqNum = currentSubSqNum;
+                if (sqNum >= this.lastSqNum) {
+                    this.setLast(sqNum, currentSubSqNum);
+                    this.reportsAfterGap = 0;
+                }
+                return Sequence.IN_SEQUENCE;
+            }
+            if (bufferOverflow) {
+                // The reports before this report have been lost.
+                this.restart(sqNum, currentSubSqNum);
+                return Sequence.FIRST;
+            }
+            if (sqNum > this.lastSqNum + 1) {
+                this.setLast(sqNum, currentSubSqNum);
+                this.reportsAfterGap++;
+                return Sequence.GAP;
+            }
+            if (sqNum >= this.lastSqNum) {
+                this.setLast(sqNum, currentSubSqNum);
+                if (++this.reportsAfterGap >= MAX_REPORTS_AFTER_GAP) {
+                    // The missing reports are not coming anymore, continue
+                    // the sequence from this report.
+                    this.lostReports += this.acceptLoss();
+                    return Sequence.FIRST;
+                }
+            } else {
+                this.reportsAfterGap++;
+            }
+            return Sequence.AFTER_GAP;
+        }
+
+        /**
+         * Takes the reports missing after the SqNum up to which all reports
+         * have been received as lost, and continues the sequence from the
+         * highest SqNum received.
+         *
+         * @return The number of reports taken as lost.
+         */
+        int acceptLoss() {
+            if (this.inSequenceSqNum == null || this.lastSqNum <= this.inSequenceSqNum) {
+                return 0;
+            }
+            final int missing = Math.max(1, this.lastSqNum - this.inSequenceSqNum - this.reportsAfterGap);
+            this.restart(this.lastSqNum, this.lastSubSqNum);
+            return missing;
+        }
+
+        /**
+         * @return The number of reports taken as lost since the previous call.
+         */
+        int takeLostReports() {
+            final int taken = this.lostReports;
+            this.lostReports = 0;
+            return taken;
+        }
+
+        long getLastResync() {
+            return this.lastResync;
+        }
+
+        void setLastResync(final long lastResync) {
+            this.lastResync = lastResync;
+        }
+
+        /**
+         * Sets the highest SqNum received, from a SqNum that is not lower.
+         */
+        private void setLast(final int sqNum, final int subSqNum) {
+            this.lastSubSqNum = sqNum > this.lastSqNum ? subSqNum : Math.max(this.lastSubSqNum, subSqNum);
+            this.lastSqNum = sqNum;
+        }
+
+        private void restart(final int sqNum, final int subSqNum) {
+            this.inSequenceSqNum = sqNum;
+            this.inSequenceSubSqNum = subSqNum;
+            this.lastSqNum = sqNum;
+            this.lastSubSqNum = subSqNum;
+            this.reportsAfterGap = 0;
+        }
+    }
+}
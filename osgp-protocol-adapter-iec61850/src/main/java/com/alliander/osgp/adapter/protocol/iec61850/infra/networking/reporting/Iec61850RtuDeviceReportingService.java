@@ -21,17 +21,19 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import com.alliander.osgp.adapter.protocol.iec61850.application.services.Iec61850DeviceCache;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Device;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850DeviceReportGroup;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Report;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850ReportEntry;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850ReportGroup;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850DeviceReportGroupRepository;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850DeviceRepository;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850ReportEntryRepository;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeReadException;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeWriteException;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Client;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Connection;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ConnectionPool;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ConnectionPool.PooledConnection;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DeviceConnection;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.NodeContainer;
@@ -43,17 +45,20 @@ public class Iec61850RtuDeviceReportingService {
     private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850RtuDeviceReportingService.class);
 
     @Autowired
-    private Iec61850DeviceRepository iec61850DeviceRepository;
+    private Iec61850DeviceCache iec61850DeviceCache;
 
     @Autowired
     private Iec61850DeviceReportGroupRepository iec61850DeviceReportRepository;
 
     @Autowired
-    private Iec61850ReportEntryRepository iec61850ReportEntryRepository;
+    private Iec61850ReportEntryWriter iec61850ReportEntryWriter;
 
     @Autowired
     private Iec61850Client client;
 
+    @Autowired
+    private Iec61850ConnectionPool iec61850ConnectionPool;
+
     public void enableReportingForDevice(final DeviceConnection connection, final String deviceIdentification,
             final String serverName) {
         if (connection.getConnection().getIed() != null && IED.FLEX_OVL.equals(connection.getConnection().getIed())) {
@@ -63,7 +68,7 @@ public class Iec61850RtuDeviceReportingService {
         }
 
         try {
-            final Iec61850Device device = this.iec61850DeviceRepository
+            final Iec61850Device device = this.iec61850DeviceCache
                     .findByDeviceIdentification(deviceIdentification);
 
             if (device.isEnableAllReportsOnConnect()) {
@@ -112,7 +117,75 @@ public class Iec61850RtuDeviceReportingService {
         }
     }
 
-    private void resyncBufferedReport(final DeviceConnection connection, final String deviceIdentification,
+    /**
+     * Resyncs the buffered report with the given report id on the connected
+     * device from the last report entry, so the device sends the buffered
+     * entries after it again. Reporting is disabled while the entry id is
+     * written.
+     *
+     * @return {@code true} if the entry id of the last report entry was
+     *         written and reporting was enabled again.
+     */
+    public boolean resyncBufferedReport(final String deviceIdentification, final String reportId) {
+        final PooledConnection lease = this.iec61850ConnectionPool.lease(deviceIdentification);
+        if (lease == null) {
+            LOGGER.warn("Resync reporting for report {} on device {} not possible, device is not connected", reportId,
+                    deviceIdentification);
+            return false;
+        }
+        try {
+            return this.resyncBufferedReport(lease.getConnection(), deviceIdentification, reportId);
+        } finally {
+            this.iec61850ConnectionPool.release(lease);
+        }
+    }
+
+    private boolean resyncBufferedReport(final Iec61850Connection iec61850Connection,
+            final String deviceIdentification, final String reportId) {
+        final Brcb brcb = this.findBrcb(iec61850Connection.getServerModel(), reportId);
+        if (brcb == null) {
+            LOGGER.warn("Resync reporting for report {} on device {} not possible, report control block not found",
+                    reportId, deviceIdentification);
+            return false;
+        }
+
+        final DeviceConnection connection = new DeviceConnection(iec61850Connection, deviceIdentification, null,
+                null);
+        final NodeContainer node = new NodeContainer(connection, brcb);
+        try {
+            node.writeBoolean(SubDataAttribute.ENABLE_REPORTING, false);
+            final boolean resynced = this.resyncBufferedReport(connection, deviceIdentification, brcb);
+            node.writeBoolean(SubDataAttribute.ENABLE_REPORTING, true);
+            return resynced;
+        } catch (final NodeWriteException e) {
+            LOGGER.debug("NodeWriteException", e);
+            LOGGER.error("Resync reporting for report {} on device {} failed with exception: {}", reportId,
+                    deviceIdentification, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return The buffered report control block with the given report id, as
+     *         read when reporting was enabled, or {@code null} if there is
+     *         none. A report control block without report id sends its
+     *         reference as report id.
+     */
+    private Brcb findBrcb(final ServerModel serverModel, final String reportId) {
+        for (final Brcb brcb : serverModel.getBrcbs()) {
+            final String brcbReportId = brcb.getRptId() == null ? null : brcb.getRptId().getStringValue();
+            if (reportId.equals(brcbReportId) || reportId.equals(brcb.getReference().toString())) {
+                return brcb;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return {@code true} if the entry id of the last report entry was
+     *         written.
+     */
+    private boolean resyncBufferedReport(final DeviceConnection connection, final String deviceIdentification,
             final Brcb brcb) {
 
         final NodeContainer node = new NodeContainer(connection, brcb);
@@ -123,27 +196,29 @@ public class Iec61850RtuDeviceReportingService {
             LOGGER.debug("NodeReadException", e);
             LOGGER.error("Resync reporting failed, could not read report id from device {}, exception: {}",
                     deviceIdentification, e.getMessage());
-            return;
+            return false;
         }
         final String reportId = node.getString(SubDataAttribute.REPORT_ID);
 
         LOGGER.debug("Resync reporting for report {} on device {}", reportId, deviceIdentification);
 
-        final Iec61850ReportEntry reportEntry = this.iec61850ReportEntryRepository
-                .findByDeviceIdentificationAndReportId(deviceIdentification, reportId);
+        final Iec61850ReportEntry reportEntry = this.iec61850ReportEntryWriter.getLastReportEntry(deviceIdentification,
+                reportId);
         if (reportEntry == null) {
             LOGGER.info("Resync reporting for report {} on device {} not possible, no last report entry found",
                     reportId, deviceIdentification);
-        } else {
-            LOGGER.info("Resync reporting for report {} on device {} with last report entry: {}", reportId,
-                    deviceIdentification, reportEntry);
-            try {
-                node.writeOctetString(SubDataAttribute.ENTRY_ID, reportEntry.getEntryId());
-            } catch (final NodeWriteException e) {
-                LOGGER.debug("NodeWriteException", e);
-                LOGGER.error("Resync reporting for report {} on device {} failed with exception: {}", reportId,
-                        deviceIdentification, e.getMessage());
-            }
+            return false;
+        }
+        LOGGER.info("Resync reporting for report {} on device {} with last report entry: {}", reportId,
+                deviceIdentification, reportEntry);
+        try {
+            node.writeOctetString(SubDataAttribute.ENTRY_ID, reportEntry.getEntryId());
+            return true;
+        } catch (final NodeWriteException e) {
+            LOGGER.debug("NodeWriteException", e);
+            LOGGER.error("Resync reporting for report {} on device {} failed with exception: {}", reportId,
+                    deviceIdentification, e.getMessage());
+            return false;
         }
     }
 
@@ -0,0 +1,86 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
+
+import java.util.List;
+
+import javax.jms.JMSException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jms.JmsException;
+
+import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceResponse;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.BaseMessageProcessor;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.CoalescableMessageProcessor;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.RequestMessageData;
+import com.alliander.osgp.shared.infra.jms.DeviceMessageMetadata;
+import com.alliander.osgp.shared.infra.jms.ResponseMessageSender;
+
+/**
+ * Handles the device response of a request that was coalesced with other
+ * requests, by handling it for the request itself and for each of the other
+ * requests.
+ */
+public class CoalescedDeviceResponseHandler extends Iec61850DeviceResponseHandler {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CoalescedDeviceResponseHandler.class);
+
+    private final CoalescableMessageProcessor coalescableMessageProcessor;
+    private final List<Iec61850DeviceResponseHandler> coalescedHandlers;
+
+    public CoalescedDeviceResponseHandler(final BaseMessageProcessor messageProcessor,
+            final Integer jmsxDeliveryCount, final RequestMessageData requestMessageData,
+            final ResponseMessageSender responseMessageSender,
+            final CoalescableMessageProcessor coalescableMessageProcessor,
+            final List<Iec61850DeviceResponseHandler> coalescedHandlers) {
+        super(messageProcessor, jmsxDeliveryCount, requestMessageData, responseMessageSender);
+        this.coalescableMessageProcessor = coalescableMessageProcessor;
+        this.coalescedHandlers = coalescedHandlers;
+    }
+
+    @Override
+    public void handleResponse(final DeviceResponse deviceResponse) {
+        super.handleResponse(deviceResponse);
+        for (final Iec61850DeviceResponseHandler coalescedHandler : this.coalescedHandlers) {
+            final DeviceMessageMetadata deviceMessageMetadata = coalescedHandler.getDeviceMessageMetadata();
+            coalescedHandler.handleResponse(this.coalescableMessageProcessor.copyDeviceResponse(deviceResponse,
+                    deviceMessageMetadata.getOrganisationIdentification(), deviceMessageMetadata.getCorrelationUid()));
+        }
+    }
+
+    /**
+     * In case the request is to be redelivered, the exception thrown by the
+     * handler of the request itself causes the coalesced requests to be
+     * redelivered as well. Otherwise the failure is handled for each of the
+     * coalesced requests.
+     */
+    @Override
+    public void handleConnectionFailure(final Throwable t, final DeviceResponse deviceResponse) throws JMSException {
+        super.handleConnectionFailure(t, deviceResponse);
+        for (final Iec61850DeviceResponseHandler coalescedHandler : this.coalescedHandlers) {
+            try {
+                coalescedHandler.handleConnectionFailure(t, deviceResponse);
+            } catch (final JMSException | JmsException e) {
+                // The request this one is coalesced with has already been
+                // answered, so this request can not be redelivered on its own.
+                LOGGER.warn("Unable to redeliver coalesced request with correlationUid: {}",
+                        coalescedHandler.getDeviceMessageMetadata().getCorrelationUid(), e);
+                coalescedHandler.handleException(t, deviceResponse);
+            }
+        }
+    }
+
+    @Override
+    public void handleException(final Throwable t, final DeviceResponse deviceResponse) {
+        super.handleException(t, deviceResponse);
+        for (final Iec61850DeviceResponseHandler coalescedHandler : this.coalescedHandlers) {
+            coalescedHandler.handleException(t, deviceResponse);
+        }
+    }
+}
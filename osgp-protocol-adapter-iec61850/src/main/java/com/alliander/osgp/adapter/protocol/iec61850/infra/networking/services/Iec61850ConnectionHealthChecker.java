@@ -0,0 +1,253 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.openmuc.openiec61850.Fc;
+import org.openmuc.openiec61850.FcModelNode;
+import org.openmuc.openiec61850.ServerModel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.DeviceConnectionParameters;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeReadException;
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Client;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Connection;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ConnectionPool;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ConnectionPool.PooledConnection;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.ConnectionState;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DataAttribute;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalNode;
+
+/**
+ * Checks the cached connections in the {@link Iec61850ConnectionPool} in the
+ * background, by reading the name plate of logical node zero. The outcome is
+ * stored in the pool, so setting up a connection for a request does not have
+ * to wait for a check on the device when the connection was checked recently.
+ * Connections that turn out to be broken are evicted from the pool.
+ * <p>
+ * Connections are checked in parallel by a bounded number of threads, with a
+ * short response timeout, so a dead device does not hold up the checks of
+ * other devices. A connection that is in use by a request is skipped, and a
+ * connection being checked is leased exclusively, so requests wait for the
+ * check instead of using the association at the same time.
+ */
+@Component
+@ManagedResource(description = "Background health checks of cached IEC61850 device connections")
+public class Iec61850ConnectionHealthChecker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850ConnectionHealthChecker.class);
+
+    @Autowired
+    private Iec61850Client iec61850Client;
+
+    @Autowired
+    private Iec61850ConnectionPool iec61850ConnectionPool;
+
+    @Autowired
+    private int connectionHealthCheckInterval;
+
+    @Autowired
+    private int connectionHealthCheckPoolSize;
+
+    @Autowired
+    private int connectionHealthCheckTimeout;
+
+    @Autowired
+    private int responseTimeout;
+
+    private final AtomicLong checks = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    private ScheduledExecutorService healthCheckExecutor;
+    private ExecutorService checkExecutor;
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("connectionHealthCheckInterval: {}, connectionHealthCheckPoolSize: {}, "
+                + "connectionHealthCheckTimeout: {}", this.connectionHealthCheckInterval,
+                this.connectionHealthCheckPoolSize, this.connectionHealthCheckTimeout);
+
+        this.checkExecutor = Executors.newFixedThreadPool(this.connectionHealthCheckPoolSize);
+        this.healthCheckExecutor = Executors.newSingleThreadScheduledExecutor();
+        this.healthCheckExecutor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                Iec61850ConnectionHealthChecker.this.checkPooledConnections();
+            }
+        }, this.connectionHealthCheckInterval, this.connectionHealthCheckInterval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    private void destroy() {
+        this.healthCheckExecutor.shutdownNow();
+        this.checkExecutor.shutdownNow();
+    }
+
+    /**
+     * Starts checks of all pooled connections that have not been verified
+     * during the last check interval and are not in use. Connections without
+     * the parameters needed to read the name plate are skipped, these are
+     * checked when they are used.
+     */
+    void checkPooledConnections() {
+        final long verifiedBefore = System.currentTimeMillis() - this.connectionHealthCheckInterval;
+        for (final PooledConnection pooledConnection : this.iec61850ConnectionPool.getPooledConnections()) {
+            final DeviceConnectionParameters parameters = pooledConnection.getDeviceConnectionParameters();
+            if (pooledConnection.getLastVerified() > verifiedBefore || parameters == null
+                    || parameters.getIed() == null || parameters.getLogicalDevice() == null) {
+                continue;
+            }
+            if (!this.iec61850ConnectionPool.leaseExclusive(pooledConnection)) {
+                // In use by a request, or already being checked.
+                this.skipped.incrementAndGet();
+                continue;
+            }
+            this.checkExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    Iec61850ConnectionHealthChecker.this.checkLeasedConnection(pooledConnection, parameters);
+                }
+            });
+        }
+    }
+
+    private void checkLeasedConnection(final PooledConnection pooledConnection,
+            final DeviceConnectionParameters parameters) {
+        final Iec61850Connection iec61850Connection = pooledConnection.getConnection();
+        final boolean hasClientAssociation = iec61850Connection.getClientAssociation() != null;
+        try {
+            if (hasClientAssociation) {
+                iec61850Connection.getClientAssociation().setResponseTimeout(this.connectionHealthCheckTimeout);
+            }
+            this.probe(pooledConnection.getDeviceIdentification(), iec61850Connection, parameters.getIed(),
+                    parameters.getServerName(), parameters.getLogicalDevice());
+        } catch (final ProtocolAdapterException | RuntimeException e) {
+            LOGGER.warn("Unable to check connection for deviceIdentification: {}",
+                    pooledConnection.getDeviceIdentification(), e);
+        } finally {
+            if (hasClientAssociation) {
+                iec61850Connection.getClientAssociation().setResponseTimeout(this.responseTimeout);
+            }
+            this.iec61850ConnectionPool.release(pooledConnection);
+        }
+    }
+
+    /**
+     * Checks if the given connection is still usable. The outcome is recorded
+     * in the connection pool, and a broken connection is evicted from it.
+     *
+     * @return {@code true} if the connection is usable, {@code false}
+     *         otherwise.
+     * @throws ProtocolAdapterException
+     *             In case the node to check could not be found in the server
+     *             model of the connection.
+     */
+    public boolean checkConnection(final String deviceIdentification, final Iec61850Connection iec61850Connection,
+            final IED ied, final String serverName, final String logicalDevice) throws ProtocolAdapterException {
+        final PooledConnection lease = this.iec61850ConnectionPool.lease(deviceIdentification);
+        try {
+            return this.probe(deviceIdentification, iec61850Connection, ied, serverName, logicalDevice);
+        } finally {
+            if (lease != null) {
+                this.iec61850ConnectionPool.release(lease);
+            }
+        }
+    }
+
+    private boolean probe(final String deviceIdentification, final Iec61850Connection iec61850Connection,
+            final IED ied, final String serverName, final String logicalDevice) throws ProtocolAdapterException {
+        this.checks.incrementAndGet();
+        try {
+            // Read physical name node (only), which is much faster, but
+            // requires manual reads of remote data.
+            if (ied != null && logicalDevice != null) {
+                final String description = this.getActualServerName(ied, serverName);
+                LOGGER.info("Testing if connection is alive using {}{}/{}.{} for deviceIdentification: {}",
+                        description, logicalDevice, LogicalNode.LOGICAL_NODE_ZERO.getDescription(),
+                        DataAttribute.NAME_PLATE.getDescription(), deviceIdentification);
+
+                final FcModelNode modelNode = this.getModelNode(logicalDevice, iec61850Connection, description);
+                this.iec61850Client.readNodeDataValues(iec61850Connection.getClientAssociation(), modelNode);
+            } else {
+                // Read all data values, which is much slower, but requires
+                // no manual reads of remote data.
+                LOGGER.info("Testing if connection is alive using readAllDataValues() for deviceIdentification: {}",
+                        deviceIdentification);
+                this.iec61850Client.readAllDataValues(iec61850Connection.getClientAssociation());
+            }
+        } catch (final NodeReadException e) {
+            LOGGER.error("Connection is no longer active, removing connection from cache for deviceIdentification: "
+                    + deviceIdentification, e);
+            this.failures.incrementAndGet();
+            this.iec61850ConnectionPool.setConnectionState(deviceIdentification, iec61850Connection,
+                    ConnectionState.BROKEN);
+            this.iec61850ConnectionPool.evict(deviceIdentification, iec61850Connection);
+            return false;
+        }
+        LOGGER.info("Connection is still active for deviceIdentification: {}", deviceIdentification);
+        this.iec61850ConnectionPool.setConnectionState(deviceIdentification, iec61850Connection, ConnectionState.OK);
+        return true;
+    }
+
+    @ManagedAttribute(description = "Number of connection checks performed")
+    public long getCheckCount() {
+        return this.checks.get();
+    }
+
+    @ManagedAttribute(description = "Number of connection checks that found a broken connection")
+    public long getFailureCount() {
+        return this.failures.get();
+    }
+
+    @ManagedAttribute(description = "Number of background checks skipped because the connection was in use")
+    public long getSkippedCount() {
+        return this.skipped.get();
+    }
+
+    private FcModelNode getModelNode(final String logicalDevice, final Iec61850Connection iec61850Connection,
+            final String description) throws ProtocolAdapterException {
+        final ServerModel serverModel = iec61850Connection.getServerModel();
+        if (serverModel == null) {
+            final String msg = String.format("ServerModel is null for logicalDevice {%s}", logicalDevice);
+            throw new ProtocolAdapterException(msg);
+        }
+        final String objRef = description + logicalDevice + "/" + LogicalNode.LOGICAL_NODE_ZERO.getDescription() + "."
+                + DataAttribute.NAME_PLATE.getDescription();
+        final FcModelNode modelNode = (FcModelNode) serverModel.findModelNode(objRef, Fc.DC);
+        if (modelNode == null) {
+            final String msg = String.format("ModelNode is null for {%s}", objRef);
+            throw new ProtocolAdapterException(msg);
+        }
+        return modelNode;
+    }
+
+    private String getActualServerName(final IED ied, final String serverName) {
+        if (serverName != null && !serverName.isEmpty()) {
+            return serverName;
+        } else {
+            // this method is only called after null-check on IED
+            return ied.getDescription();
+        }
+    }
+}
@@ -18,6 +18,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.alliander.osgp.adapter.protocol.iec61850.application.services.Iec61850DeviceCache;
 import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceMessageStatus;
 import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceRequest;
 import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceResponseHandler;
@@ -26,7 +27,6 @@ import com.alliander.osgp.adapter.protocol.iec61850.device.da.rtu.DaDeviceRespon
 import com.alliander.osgp.adapter.protocol.iec61850.device.da.rtu.DaRtuDeviceService;
 import com.alliander.osgp.adapter.protocol.iec61850.device.ssld.responses.EmptyDeviceResponse;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Device;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850DeviceRepository;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.DeviceConnectionParameters;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ConnectionFailureException;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
@@ -38,6 +38,7 @@ import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.Devi
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.Function;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalDevice;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.Reconnector;
 
 @Component
 public class Iec61850DaRtuDeviceService implements DaRtuDeviceService {
@@ -51,7 +52,7 @@ public class Iec61850DaRtuDeviceService implements DaRtuDeviceService {
     private Iec61850Client iec61850Client;
 
     @Autowired
-    private Iec61850DeviceRepository iec61850DeviceRepository;
+    private Iec61850DeviceCache iec61850DeviceCache;
 
     @Override
     public void getData(final DaDeviceRequest deviceRequest, final DeviceResponseHandler deviceResponseHandler,
@@ -70,7 +71,7 @@ public class Iec61850DaRtuDeviceService implements DaRtuDeviceService {
                                             serverModel),
                                     deviceRequest.getDeviceIdentification(),
                                     deviceRequest.getOrganisationIdentification(), serverName),
-                            deviceRequest, messageProcessor);
+                            deviceRequest, serverName, messageProcessor);
 
             final DaDeviceResponse deviceResponse = new DaDeviceResponse(deviceRequest.getOrganisationIdentification(),
                     deviceRequest.getDeviceIdentification(), deviceRequest.getCorrelationUid(), DeviceMessageStatus.OK,
@@ -117,13 +118,40 @@ public class Iec61850DaRtuDeviceService implements DaRtuDeviceService {
     // ========================
 
     private <T> T handleGetData(final DeviceConnection connection, final DaDeviceRequest deviceRequest,
-            final DaRtuDeviceRequestMessageProcessor messageProcessor) throws ProtocolAdapterException {
+            final String serverName, final DaRtuDeviceRequestMessageProcessor messageProcessor)
+            throws ProtocolAdapterException {
         final Function<T> function = messageProcessor.getDataFunction(this.iec61850Client, connection, deviceRequest);
-        return this.iec61850Client.sendCommandWithRetry(function, deviceRequest.getDeviceIdentification());
+        return this.iec61850Client.sendCommandWithRetry(function, IED.DA_RTU, deviceRequest.getDeviceIdentification(),
+                this.createReconnector(connection, deviceRequest, serverName));
+    }
+
+    /**
+     * Creates a {@link Reconnector} that replaces the connection of the given
+     * device connection by a new connection to the device.
+     */
+    private Reconnector createReconnector(final DeviceConnection connection, final DeviceRequest deviceRequest,
+            final String serverName) {
+        return new Reconnector() {
+            @Override
+            public void reconnect() throws ProtocolAdapterException {
+                Iec61850DaRtuDeviceService.this.reconnect(connection, deviceRequest, serverName);
+            }
+        };
+    }
+
+    private void reconnect(final DeviceConnection connection, final DeviceRequest deviceRequest,
+            final String serverName) throws ProtocolAdapterException {
+        LOGGER.info("Replacing broken connection for device: {}", deviceRequest.getDeviceIdentification());
+        this.iec61850DeviceConnectionService.disconnect(deviceRequest.getDeviceIdentification());
+        final ServerModel serverModel = this.connectAndRetrieveServerModel(deviceRequest, serverName);
+        final ClientAssociation clientAssociation = this.iec61850DeviceConnectionService
+                .getClientAssociation(deviceRequest.getDeviceIdentification());
+        connection.setConnection(
+                new Iec61850Connection(new Iec61850ClientAssociation(clientAssociation, null), serverModel));
     }
 
     private String getServerName(final DeviceRequest deviceRequest) {
-        final Iec61850Device iec61850Device = this.iec61850DeviceRepository
+        final Iec61850Device iec61850Device = this.iec61850DeviceCache
                 .findByDeviceIdentification(deviceRequest.getDeviceIdentification());
         if (iec61850Device != null && iec61850Device.getServerName() != null) {
             return iec61850Device.getServerName();
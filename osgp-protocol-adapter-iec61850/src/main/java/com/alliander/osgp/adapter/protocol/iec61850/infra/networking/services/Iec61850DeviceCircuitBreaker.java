@@ -0,0 +1,196 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ConnectionFailureException;
+
+/**
+ * Keeps track of consecutive failures to connect to each device. After the
+ * configured number of consecutive failures the circuit for the device is
+ * opened, and attempts to connect fail immediately instead of waiting for the
+ * connection to time out. After the cooldown period a single attempt to
+ * connect is let through (half open). If it succeeds the circuit is closed
+ * again, otherwise it is opened for another cooldown period.
+ */
+@Component
+@ManagedResource(description = "Circuit breakers for connections to IEC61850 devices")
+public class Iec61850DeviceCircuitBreaker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850DeviceCircuitBreaker.class);
+
+    public enum CircuitState {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    @Autowired
+    private int circuitBreakerFailureThreshold;
+
+    @Autowired
+    private int circuitBreakerCooldown;
+
+    private final ConcurrentMap<String, Circuit> circuits = new ConcurrentHashMap<>();
+
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    @PostConstruct
+    private void init() {
+        LOGGER.info("circuitBreakerFailureThreshold: {}, circuitBreakerCooldown: {}",
+                this.circuitBreakerFailureThreshold, this.circuitBreakerCooldown);
+    }
+
+    /**
+     * Checks if an attempt may be made to connect to the given device.
+     *
+     * @throws ConnectionFailureException
+     *             In case the circuit for the device is open.
+     */
+    public void checkConnectAllowed(final String deviceIdentification) throws ConnectionFailureException {
+        if (this.circuitBreakerFailureThreshold <= 0) {
+            return;
+        }
+        final Circuit circuit = this.circuits.get(deviceIdentification);
+        if (circuit != null && !circuit.tryAcquire(System.currentTimeMillis(), this.circuitBreakerCooldown)) {
+            this.rejected.incrementAndGet();
+            throw new ConnectionFailureException("Circuit is open for device: " + deviceIdentification + " after "
+                    + circuit.getConsecutiveFailures() + " consecutive connection failures, not connecting");
+        }
+    }
+
+    /**
+     * Closes the circuit for the given device.
+     */
+    public void recordSuccess(final String deviceIdentification) {
+        if (this.circuits.remove(deviceIdentification) != null) {
+            LOGGER.info("Closed circuit for device: {}", deviceIdentification);
+        }
+    }
+
+    /**
+     * Registers a failure to connect to the given device, opening the circuit
+     * for the device when the failure threshold is reached or when the
+     * attempt was made while the circuit was half open.
+     */
+    public void recordFailure(final String deviceIdentification) {
+        if (this.circuitBreakerFailureThreshold <= 0) {
+            return;
+        }
+        Circuit circuit = this.circuits.get(deviceIdentification);
+        if (circuit == null) {
+            final Circuit newCircuit = new Circuit();
+            circuit = this.circuits.putIfAbsent(deviceIdentification, newCircuit);
+            if (circuit == null) {
+                circuit = newCircuit;
+            }
+        }
+        if (circuit.registerFailure(System.currentTimeMillis(), this.circuitBreakerFailureThreshold)) {
+            this.opened.incrementAndGet();
+            LOGGER.warn("Opened circuit for device: {} after {} consecutive connection failures",
+                    deviceIdentification, circuit.getConsecutiveFailures());
+        }
+    }
+
+    @ManagedOperation(description = "Returns the circuit state of the given device")
+    public String getCircuitState(final String deviceIdentification) {
+        final Circuit circuit = this.circuits.get(deviceIdentification);
+        return circuit == null ? CircuitState.CLOSED.name() : circuit.getState().name();
+    }
+
+    @ManagedOperation(description = "Closes the circuit of the given device")
+    public void reset(final String deviceIdentification) {
+        this.recordSuccess(deviceIdentification);
+    }
+
+    @ManagedOperation(description = "Closes the circuits of all devices")
+    public void resetAll() {
+        this.circuits.clear();
+        LOGGER.info("Closed all circuits");
+    }
+
+    @ManagedAttribute(description = "Devices for which the circuit is open or half open, with their state")
+    public List<String> getOpenCircuits() {
+        final List<String> openCircuits = new ArrayList<>();
+        for (final Map.Entry<String, Circuit> entry : this.circuits.entrySet()) {
+            final CircuitState state = entry.getValue().getState();
+            if (!CircuitState.CLOSED.equals(state)) {
+                openCircuits.add(entry.getKey() + ": " + state);
+            }
+        }
+        return openCircuits;
+    }
+
+    @ManagedAttribute(description = "Number of times a circuit was opened")
+    public long getOpenedCount() {
+        return this.opened.get();
+    }
+
+    @ManagedAttribute(description = "Number of connection attempts rejected by an open circuit")
+    public long getRejectedCount() {
+        return this.rejected.get();
+    }
+
+    private static class Circuit {
+
+        private CircuitState state = CircuitState.CLOSED;
+        private int consecutiveFailures;
+        private long openedAt;
+
+        synchronized boolean tryAcquire(final long now, final long cooldown) {
+            if (CircuitState.CLOSED.equals(this.state)) {
+                return true;
+            }
+            // Let a single attempt through after the cooldown. Another one is
+            // let through when that attempt has not finished within another
+            // cooldown period.
+            if (now - this.openedAt >= cooldown) {
+                this.state = CircuitState.HALF_OPEN;
+                this.openedAt = now;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized boolean registerFailure(final long now, final int failureThreshold) {
+            this.consecutiveFailures++;
+            if (CircuitState.HALF_OPEN.equals(this.state)
+                    || CircuitState.CLOSED.equals(this.state) && this.consecutiveFailures >= failureThreshold) {
+                this.state = CircuitState.OPEN;
+                this.openedAt = now;
+                return true;
+            }
+            return false;
+        }
+
+        synchronized CircuitState getState() {
+            return this.state;
+        }
+
+        synchronized int getConsecutiveFailures() {
+            return this.consecutiveFailures;
+        }
+    }
+}
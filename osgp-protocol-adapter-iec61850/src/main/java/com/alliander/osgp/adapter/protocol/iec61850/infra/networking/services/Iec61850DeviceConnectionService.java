@@ -10,12 +10,10 @@ package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.services;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.nio.file.Paths;
-import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
 import org.openmuc.openiec61850.ClientAssociation;
-import org.openmuc.openiec61850.Fc;
 import org.openmuc.openiec61850.FcModelNode;
 import org.openmuc.openiec61850.ServerModel;
 import org.slf4j.Logger;
@@ -24,9 +22,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import com.alliander.osgp.adapter.protocol.iec61850.application.services.DeviceManagementService;
+import com.alliander.osgp.adapter.protocol.iec61850.application.services.Iec61850DeviceCache;
 import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceRequest;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Device;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850DeviceRepository;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.DeviceConnectionParameters;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ConnectionFailureException;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.NodeReadException;
@@ -34,11 +32,11 @@ import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterEx
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Client;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ClientAssociation;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850Connection;
-import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DataAttribute;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.Iec61850ConnectionPool;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.ConnectionState;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.DeviceConnection;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.Function;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
-import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalNode;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting.Iec61850ClientBaseEventListener;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting.Iec61850ClientEventListenerFactory;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting.Iec61850RtuDeviceReportingService;
@@ -48,15 +46,13 @@ public class Iec61850DeviceConnectionService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(Iec61850DeviceConnectionService.class);
 
-    private static ConcurrentHashMap<String, Iec61850Connection> cache = new ConcurrentHashMap<>();
-
     private static final int IEC61850_DEFAULT_PORT = 102;
 
     @Autowired
     private DeviceManagementService deviceManagementService;
 
     @Autowired
-    private Iec61850DeviceRepository iec61850DeviceRepository;
+    private Iec61850DeviceCache iec61850DeviceCache;
 
     @Autowired
     private Iec61850RtuDeviceReportingService iec61850RtuDeviceReportingService;
@@ -67,6 +63,15 @@ public class Iec61850DeviceConnectionService {
     @Autowired
     private Iec61850Client iec61850Client;
 
+    @Autowired
+    private Iec61850ConnectionPool iec61850ConnectionPool;
+
+    @Autowired
+    private Iec61850ConnectionHealthChecker iec61850ConnectionHealthChecker;
+
+    @Autowired
+    private Iec61850DeviceCircuitBreaker iec61850DeviceCircuitBreaker;
+
     @Autowired
     private int iec61850SsldPortServer;
 
@@ -76,6 +81,9 @@ public class Iec61850DeviceConnectionService {
     @Autowired
     private int responseTimeout;
 
+    @Autowired
+    private int connectionHealthMaxAge;
+
     @Autowired
     private String icdFilesFolder;
 
@@ -113,6 +121,9 @@ public class Iec61850DeviceConnectionService {
             this.logProtocolAdapterException(deviceIdentification, e);
         }
 
+        // Fail fast if connecting to the device failed repeatedly.
+        this.iec61850DeviceCircuitBreaker.checkConnectAllowed(deviceIdentification);
+
         final InetAddress inetAddress = this.convertIpAddress(deviceConnectionParameters.getIpAddress());
 
         // Connect to obtain ClientAssociation and ServerModel.
@@ -129,14 +140,21 @@ public class Iec61850DeviceConnectionService {
             this.logProtocolAdapterException(deviceIdentification, e);
         }
 
-        final Iec61850Device iec61850Device = this.iec61850DeviceRepository
+        final Iec61850Device iec61850Device = this.iec61850DeviceCache
                 .findByDeviceIdentification(deviceIdentification);
 
         final int port = this.determinePortForIec61850Device(ied, iec61850Device);
 
         // Try to connect and receive the ClientAssociation.
-        final Iec61850ClientAssociation iec61850ClientAssociation = this.iec61850Client.connect(deviceIdentification,
-                inetAddress, eventListener, port);
+        final Iec61850ClientAssociation iec61850ClientAssociation;
+        try {
+            iec61850ClientAssociation = this.iec61850Client.connect(deviceIdentification, inetAddress, eventListener,
+                    port);
+        } catch (final ConnectionFailureException e) {
+            this.iec61850DeviceCircuitBreaker.recordFailure(deviceIdentification);
+            throw e;
+        }
+        this.iec61850DeviceCircuitBreaker.recordSuccess(deviceIdentification);
         final ClientAssociation clientAssociation = iec61850ClientAssociation.getClientAssociation();
         // Set response time-out.
         clientAssociation.setResponseTimeout(this.responseTimeout);
@@ -154,7 +172,7 @@ public class Iec61850DeviceConnectionService {
         final Iec61850Connection iec61850Connection = new Iec61850Connection(iec61850ClientAssociation, serverModel,
                 startTime, ied);
         if (cacheConnection) {
-            this.cacheIec61850Connection(deviceIdentification, iec61850Connection);
+            this.cacheIec61850Connection(deviceConnectionParameters, iec61850Connection);
         }
 
         final DeviceConnection connection = new DeviceConnection(iec61850Connection, deviceIdentification,
@@ -198,64 +216,31 @@ public class Iec61850DeviceConnectionService {
 
     private boolean testIfConnectionIsCachedAndAlive(final String deviceIdentification, final IED ied,
             final String serverName, final String logicalDevice) throws ProtocolAdapterException {
-        try {
-            LOGGER.info("Trying to find connection in cache for deviceIdentification: {}", deviceIdentification);
-            final Iec61850Connection iec61850Connection = this.fetchIec61850Connection(deviceIdentification);
-            if (iec61850Connection != null) {
-                // Already connected, check if connection is still usable.
-                LOGGER.info("Connection found for deviceIdentification: {}", deviceIdentification);
-                // Read physical name node (only), which is much faster, but
-                // requires manual reads of remote data.
-                if (ied != null && logicalDevice != null) {
-                    final String description = this.getActualServerName(ied, serverName);
-                    LOGGER.info("Testing if connection is alive using {}{}/{}.{} for deviceIdentification: {}",
-                            description, logicalDevice, LogicalNode.LOGICAL_NODE_ZERO.getDescription(),
-                            DataAttribute.NAME_PLATE.getDescription(), deviceIdentification);
-
-                    final FcModelNode modelNode = this.getModelNode(logicalDevice, iec61850Connection, description);
-                    this.iec61850Client.readNodeDataValues(iec61850Connection.getClientAssociation(), modelNode);
-                } else {
-                    // Read all data values, which is much slower, but requires
-                    // no manual reads of remote data.
-                    LOGGER.info("Testing if connection is alive using readAllDataValues() for deviceIdentification: {}",
-                            deviceIdentification);
-                    this.iec61850Client.readAllDataValues(iec61850Connection.getClientAssociation());
-                }
-                LOGGER.info("Connection is still active for deviceIdentification: {}", deviceIdentification);
-                return true;
-            }
-        } catch (final NodeReadException e) {
-            LOGGER.error("Connection is no longer active, removing connection from cache for deviceIdentification: "
-                    + deviceIdentification, e);
-            this.removeIec61850Connection(deviceIdentification);
+        LOGGER.info("Trying to find connection in cache for deviceIdentification: {}", deviceIdentification);
+        final Iec61850Connection iec61850Connection = this.fetchIec61850Connection(deviceIdentification);
+        if (iec61850Connection == null) {
+            return false;
         }
-        return false;
-    }
-
-    private FcModelNode getModelNode(final String logicalDevice, final Iec61850Connection iec61850Connection,
-            final String description) throws ProtocolAdapterException {
-        final ServerModel serverModel = iec61850Connection.getServerModel();
-        if (serverModel == null) {
-            final String msg = String.format("ServerModel is null for logicalDevice {%s}", logicalDevice);
-            throw new ProtocolAdapterException(msg);
+        LOGGER.info("Connection found for deviceIdentification: {}", deviceIdentification);
+
+        // Use the outcome of a recent (background) check if there is one, to
+        // avoid a round trip to the device before every request.
+        final ConnectionState connectionState = this.iec61850ConnectionPool.getConnectionState(deviceIdentification,
+                this.connectionHealthMaxAge);
+        if (ConnectionState.OK.equals(connectionState)) {
+            LOGGER.info("Connection was verified recently for deviceIdentification: {}", deviceIdentification);
+            return true;
         }
-        final String objRef = description + logicalDevice + "/" + LogicalNode.LOGICAL_NODE_ZERO.getDescription() + "."
-                + DataAttribute.NAME_PLATE.getDescription();
-        final FcModelNode modelNode = (FcModelNode) serverModel.findModelNode(objRef, Fc.DC);
-        if (modelNode == null) {
-            final String msg = String.format("ModelNode is null for {%s}", objRef);
-            throw new ProtocolAdapterException(msg);
+        if (ConnectionState.BROKEN.equals(connectionState)) {
+            LOGGER.info("Connection was found broken, removing connection from cache for deviceIdentification: {}",
+                    deviceIdentification);
+            this.iec61850ConnectionPool.evict(deviceIdentification);
+            return false;
         }
-        return modelNode;
-    }
 
-    private String getActualServerName(final IED ied, final String serverName) {
-        if (serverName != null && !serverName.isEmpty()) {
-            return serverName;
-        } else {
-            // this method is only called after null-check on IED
-            return ied.getDescription();
-        }
+        // Already connected, check if connection is still usable.
+        return this.iec61850ConnectionHealthChecker.checkConnection(deviceIdentification, iec61850Connection, ied,
+                serverName, logicalDevice);
     }
 
     private ServerModel readServerModel(final ClientAssociation clientAssociation, final String deviceIdentification,
@@ -281,7 +266,7 @@ public class Iec61850DeviceConnectionService {
             LOGGER.warn("Ignore exception reading server model based on configured ICD file.", e);
         }
         LOGGER.info("Reading ServerModel from device: {} using readServerModelFromDevice()", deviceIdentification);
-        return this.iec61850Client.readServerModelFromDevice(clientAssociation);
+        return this.iec61850Client.readServerModelFromDevice(clientAssociation, deviceIdentification);
     }
 
     private ServerModel readServerModelConfiguredForDevice(final ClientAssociation clientAssociation,
@@ -319,14 +304,12 @@ public class Iec61850DeviceConnectionService {
 
     /**
      * Closes the {@link ClientAssociation}, send a disconnect request and close
-     * the socket.
+     * the socket. When the connection is in use, it is closed when it is
+     * released.
      */
     public void disconnect(final String deviceIdentification) {
         LOGGER.info("Trying to disconnect from deviceIdentification: {}", deviceIdentification);
-        final Iec61850Connection iec61850Connection = this.fetchIec61850Connection(deviceIdentification);
-        if (iec61850Connection != null) {
-            iec61850Connection.getClientAssociation().disconnect();
-            this.removeIec61850Connection(deviceIdentification);
+        if (this.iec61850ConnectionPool.evict(deviceIdentification)) {
             LOGGER.info("Disconnected from deviceIdentification: {}", deviceIdentification);
         } else {
             LOGGER.info("Unable to disconnect from deviceIdentification: {}, no cached connection was found",
@@ -403,28 +386,25 @@ public class Iec61850DeviceConnectionService {
         this.iec61850Client.readNodeDataValues(clientAssociation, fcModelNode);
     }
 
-    public <T> T sendCommandWithRetry(final Function<T> function, final String deviceIdentification)
+    public <T> T sendCommandWithRetry(final Function<T> function, final IED ied, final String deviceIdentification)
             throws ProtocolAdapterException {
-        return this.iec61850Client.sendCommandWithRetry(function, deviceIdentification);
+        return this.iec61850Client.sendCommandWithRetry(function, ied, deviceIdentification);
     }
 
-    private void cacheIec61850Connection(final String deviceIdentification,
+    private void cacheIec61850Connection(final DeviceConnectionParameters deviceConnectionParameters,
             final Iec61850Connection iec61850Connection) {
-        cache.put(deviceIdentification, iec61850Connection);
+        this.iec61850ConnectionPool.put(deviceConnectionParameters.getDeviceIdentification(), iec61850Connection,
+                deviceConnectionParameters);
     }
 
     private Iec61850Connection fetchIec61850Connection(final String deviceIdentification) {
-        final Iec61850Connection iec61850Connection = cache.get(deviceIdentification);
+        final Iec61850Connection iec61850Connection = this.iec61850ConnectionPool.get(deviceIdentification);
         if (iec61850Connection == null) {
             LOGGER.info("No connection found for device: {}", deviceIdentification);
         }
         return iec61850Connection;
     }
 
-    private void removeIec61850Connection(final String deviceIdentification) {
-        cache.remove(deviceIdentification);
-    }
-
     private InetAddress convertIpAddress(final String ipAddress) throws ConnectionFailureException {
         try {
             if (StringUtils.isEmpty(ipAddress)) {
@@ -58,6 +58,10 @@ public class Iec61850DeviceResponseHandler implements DeviceResponseHandler {
         this.responseMessageSender = responseMessageSender;
     }
 
+    public DeviceMessageMetadata getDeviceMessageMetadata() {
+        return this.deviceMessageMetadata;
+    }
+
     /*
      * (non-Javadoc)
      *
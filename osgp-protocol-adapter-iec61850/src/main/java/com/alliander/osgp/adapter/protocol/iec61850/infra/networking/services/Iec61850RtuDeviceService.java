@@ -19,6 +19,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.alliander.osgp.adapter.protocol.iec61850.application.services.Iec61850DeviceCache;
 import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceMessageStatus;
 import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceRequest;
 import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceResponseHandler;
@@ -28,7 +29,6 @@ import com.alliander.osgp.adapter.protocol.iec61850.device.rtu.requests.SetDataD
 import com.alliander.osgp.adapter.protocol.iec61850.device.ssld.responses.EmptyDeviceResponse;
 import com.alliander.osgp.adapter.protocol.iec61850.device.ssld.responses.GetDataDeviceResponse;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.entities.Iec61850Device;
-import com.alliander.osgp.adapter.protocol.iec61850.domain.repositories.Iec61850DeviceRepository;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.DeviceConnectionParameters;
 import com.alliander.osgp.adapter.protocol.iec61850.domain.valueobjects.DeviceMessageLog;
 import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ConnectionFailureException;
@@ -41,6 +41,7 @@ import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.Devi
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.Function;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.IED;
 import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.LogicalDevice;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper.Reconnector;
 import com.alliander.osgp.dto.valueobjects.microgrids.GetDataRequestDto;
 import com.alliander.osgp.dto.valueobjects.microgrids.GetDataResponseDto;
 import com.alliander.osgp.dto.valueobjects.microgrids.GetDataSystemIdentifierDto;
@@ -63,7 +64,7 @@ public class Iec61850RtuDeviceService implements RtuDeviceService {
     private Iec61850Client iec61850Client;
 
     @Autowired
-    private Iec61850DeviceRepository iec61850DeviceRepository;
+    private Iec61850DeviceCache iec61850DeviceCache;
 
     @Override
     public void getData(final GetDataDeviceRequest deviceRequest, final DeviceResponseHandler deviceResponseHandler)
@@ -78,7 +79,7 @@ public class Iec61850RtuDeviceService implements RtuDeviceService {
             final GetDataResponseDto getDataResponse = this.handleGetData(new DeviceConnection(
                     new Iec61850Connection(new Iec61850ClientAssociation(clientAssociation, null), serverModel),
                     deviceRequest.getDeviceIdentification(), deviceRequest.getOrganisationIdentification(), serverName),
-                    deviceRequest);
+                    deviceRequest, serverName);
 
             if (getDataResponse == null) {
                 throw new ProtocolAdapterException("No valid response received during GetData");
@@ -120,7 +121,7 @@ public class Iec61850RtuDeviceService implements RtuDeviceService {
             this.handleSetData(new DeviceConnection(
                     new Iec61850Connection(new Iec61850ClientAssociation(clientAssociation, null), serverModel),
                     deviceRequest.getDeviceIdentification(), deviceRequest.getOrganisationIdentification(), serverName),
-                    deviceRequest);
+                    deviceRequest, serverName);
 
             final EmptyDeviceResponse deviceResponse = new EmptyDeviceResponse(
                     deviceRequest.getOrganisationIdentification(), deviceRequest.getDeviceIdentification(),
@@ -167,7 +168,7 @@ public class Iec61850RtuDeviceService implements RtuDeviceService {
     // ========================
 
     private GetDataResponseDto handleGetData(final DeviceConnection connection,
-            final GetDataDeviceRequest deviceRequest) throws ProtocolAdapterException {
+            final GetDataDeviceRequest deviceRequest, final String serverName) throws ProtocolAdapterException {
 
         final GetDataRequestDto requestedData = deviceRequest.getDataRequest();
 
@@ -189,11 +190,12 @@ public class Iec61850RtuDeviceService implements RtuDeviceService {
             }
         };
 
-        return this.iec61850Client.sendCommandWithRetry(function, deviceRequest.getDeviceIdentification());
+        return this.iec61850Client.sendCommandWithRetry(function, this.getIed(connection),
+                deviceRequest.getDeviceIdentification(), this.createReconnector(connection, deviceRequest, serverName));
     }
 
-    private void handleSetData(final DeviceConnection connection, final SetDataDeviceRequest deviceRequest)
-            throws ProtocolAdapterException {
+    private void handleSetData(final DeviceConnection connection, final SetDataDeviceRequest deviceRequest,
+            final String serverName) throws ProtocolAdapterException {
 
         final SetDataRequestDto setDataRequest = deviceRequest.getSetDataRequest();
 
@@ -213,11 +215,46 @@ public class Iec61850RtuDeviceService implements RtuDeviceService {
             }
         };
 
-        this.iec61850Client.sendCommandWithRetry(function, deviceRequest.getDeviceIdentification());
+        this.iec61850Client.sendCommandWithRetry(function, this.getIed(connection),
+                deviceRequest.getDeviceIdentification(), this.createReconnector(connection, deviceRequest, serverName));
+    }
+
+    /**
+     * @return The IED the device was connected as, which determines the retry
+     *         policy of commands sent to it.
+     */
+    private IED getIed(final DeviceConnection connection) {
+        final IED ied = connection.getConnection().getIed();
+        return ied == null ? IED.ZOWN_RTU : ied;
+    }
+
+    /**
+     * Creates a {@link Reconnector} that replaces the connection of the given
+     * device connection by a new connection to the device.
+     */
+    private Reconnector createReconnector(final DeviceConnection connection, final DeviceRequest deviceRequest,
+            final String serverName) {
+        return new Reconnector() {
+            @Override
+            public void reconnect() throws ProtocolAdapterException {
+                Iec61850RtuDeviceService.this.reconnect(connection, deviceRequest, serverName);
+            }
+        };
+    }
+
+    private void reconnect(final DeviceConnection connection, final DeviceRequest deviceRequest,
+            final String serverName) throws ProtocolAdapterException {
+        LOGGER.info("Replacing broken connection for device: {}", deviceRequest.getDeviceIdentification());
+        this.iec61850DeviceConnectionService.disconnect(deviceRequest.getDeviceIdentification());
+        final ServerModel serverModel = this.connectAndRetrieveServerModel(deviceRequest, serverName);
+        final ClientAssociation clientAssociation = this.iec61850DeviceConnectionService
+                .getClientAssociation(deviceRequest.getDeviceIdentification());
+        connection.setConnection(
+                new Iec61850Connection(new Iec61850ClientAssociation(clientAssociation, null), serverModel));
     }
 
     private String getServerName(final DeviceRequest deviceRequest) {
-        final Iec61850Device iec61850Device = this.iec61850DeviceRepository
+        final Iec61850Device iec61850Device = this.iec61850DeviceCache
                 .findByDeviceIdentification(deviceRequest.getDeviceIdentification());
         if (iec61850Device != null && iec61850Device.getServerName() != null) {
             return iec61850Device.getServerName();
@@ -13,6 +13,7 @@ import java.util.Set;
 
 import org.openmuc.openiec61850.BdaBoolean;
 import org.openmuc.openiec61850.Fc;
+import org.openmuc.openiec61850.FcModelNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -46,16 +47,33 @@ public class Iec61850GetStatusCommand {
 
             @Override
             public DeviceStatusDto apply(final DeviceMessageLog deviceMessageLog) throws ProtocolAdapterException {
+                // Read the relay positions and the configuration at once.
+                final List<NodeContainer> positions = new ArrayList<>();
+                final List<FcModelNode> modelNodes = new ArrayList<>();
+                for (final DeviceOutputSetting deviceOutputSetting : ssld.getOutputSettings()) {
+                    final LogicalNode logicalNode = LogicalNode
+                            .getSwitchComponentByIndex(deviceOutputSetting.getInternalId());
+                    final NodeContainer position = deviceConnection.getFcModelNode(LogicalDevice.LIGHTING, logicalNode,
+                            DataAttribute.POSITION, Fc.ST);
+                    positions.add(position);
+                    modelNodes.add(position.getFcmodelNode());
+                }
+                final NodeContainer eventBuffer = deviceConnection.getFcModelNode(LogicalDevice.LIGHTING,
+                        LogicalNode.STREET_LIGHT_CONFIGURATION, DataAttribute.EVENT_BUFFER, Fc.CF);
+                modelNodes.add(eventBuffer.getFcmodelNode());
+                final NodeContainer softwareConfiguration = deviceConnection.getFcModelNode(LogicalDevice.LIGHTING,
+                        LogicalNode.STREET_LIGHT_CONFIGURATION, DataAttribute.SOFTWARE_CONFIGURATION, Fc.CF);
+                modelNodes.add(softwareConfiguration.getFcmodelNode());
+                iec61850Client.readNodeDataValues(deviceConnection.getConnection().getClientAssociation(), modelNodes);
+
                 // getting the light relay values
                 final List<LightValueDto> lightValues = new ArrayList<>();
 
+                int positionIndex = 0;
                 for (final DeviceOutputSetting deviceOutputSetting : ssld.getOutputSettings()) {
                     final LogicalNode logicalNode = LogicalNode
                             .getSwitchComponentByIndex(deviceOutputSetting.getInternalId());
-                    final NodeContainer position = deviceConnection.getFcModelNode(LogicalDevice.LIGHTING, logicalNode,
-                            DataAttribute.POSITION, Fc.ST);
-                    iec61850Client.readNodeDataValues(deviceConnection.getConnection().getClientAssociation(),
-                            position.getFcmodelNode());
+                    final NodeContainer position = positions.get(positionIndex++);
                     final BdaBoolean state = position.getBoolean(SubDataAttribute.STATE);
                     final boolean on = state.getValue();
                     lightValues.add(new LightValueDto(deviceOutputSetting.getExternalId(), on, null));
@@ -66,10 +84,6 @@ public class Iec61850GetStatusCommand {
                     deviceMessageLog.addVariable(logicalNode, DataAttribute.POSITION, Fc.ST, Boolean.toString(on));
                 }
 
-                final NodeContainer eventBuffer = deviceConnection.getFcModelNode(LogicalDevice.LIGHTING,
-                        LogicalNode.STREET_LIGHT_CONFIGURATION, DataAttribute.EVENT_BUFFER, Fc.CF);
-                iec61850Client.readNodeDataValues(deviceConnection.getConnection().getClientAssociation(),
-                        eventBuffer.getFcmodelNode());
                 final String filter = eventBuffer.getString(SubDataAttribute.EVENT_BUFFER_FILTER);
                 LOGGER.info("Got EvnBuf.enbEvnType filter {}", filter);
 
@@ -82,10 +96,6 @@ public class Iec61850GetStatusCommand {
                     eventNotificationsMask |= notificationType.getValue();
                 }
 
-                final NodeContainer softwareConfiguration = deviceConnection.getFcModelNode(LogicalDevice.LIGHTING,
-                        LogicalNode.STREET_LIGHT_CONFIGURATION, DataAttribute.SOFTWARE_CONFIGURATION, Fc.CF);
-                iec61850Client.readNodeDataValues(deviceConnection.getConnection().getClientAssociation(),
-                        softwareConfiguration.getFcmodelNode());
                 String lightTypeValue = softwareConfiguration.getString(SubDataAttribute.LIGHT_TYPE);
                 // Fix for Kaifa bug KI-31
                 if (lightTypeValue == null || lightTypeValue.isEmpty()) {
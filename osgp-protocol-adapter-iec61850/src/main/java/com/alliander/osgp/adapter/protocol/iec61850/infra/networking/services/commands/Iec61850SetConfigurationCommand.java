@@ -87,6 +87,7 @@ public class Iec61850SetConfigurationCommand {
                             LogicalNode.STREET_LIGHT_CONFIGURATION, DataAttribute.REGISTRATION, Fc.CF);
                     iec61850Client.readNodeDataValues(deviceConnection.getConnection().getClientAssociation(),
                             registration.getFcmodelNode());
+                    registration.stageWrites();
 
                     if (configuration.getOsgpIpAddres() != null) {
                         LOGGER.info("Updating OspgIpAddress to {}", configuration.getOsgpIpAddres());
@@ -103,6 +104,8 @@ public class Iec61850SetConfigurationCommand {
                         deviceMessageLog.addVariable(LogicalNode.STREET_LIGHT_CONFIGURATION, DataAttribute.REGISTRATION,
                                 Fc.CF, SubDataAttribute.SERVER_PORT, configuration.getOsgpPortNumber().toString());
                     }
+
+                    registration.flushWrites();
                 }
 
                 // Checking to see if all software configuration values are
@@ -115,6 +118,7 @@ public class Iec61850SetConfigurationCommand {
                             LogicalNode.STREET_LIGHT_CONFIGURATION, DataAttribute.SOFTWARE_CONFIGURATION, Fc.CF);
                     iec61850Client.readNodeDataValues(deviceConnection.getConnection().getClientAssociation(),
                             softwareConfiguration.getFcmodelNode());
+                    softwareConfiguration.stageWrites();
 
                     if (configuration.getAstroGateSunRiseOffset() != null) {
                         LOGGER.info("Updating AstroGateSunRiseOffset to {}", configuration.getAstroGateSunRiseOffset());
@@ -145,6 +149,8 @@ public class Iec61850SetConfigurationCommand {
                                 DataAttribute.SOFTWARE_CONFIGURATION, Fc.CF, SubDataAttribute.LIGHT_TYPE,
                                 configuration.getLightType().name());
                     }
+
+                    softwareConfiguration.flushWrites();
                 }
 
                 // Checking to see if all register values are null, so that we
@@ -160,6 +166,7 @@ public class Iec61850SetConfigurationCommand {
                             LogicalNode.STREET_LIGHT_CONFIGURATION, DataAttribute.CLOCK, Fc.CF);
                     iec61850Client.readNodeDataValues(deviceConnection.getConnection().getClientAssociation(),
                             clock.getFcmodelNode());
+                    clock.stageWrites();
 
                     if (configuration.getTimeSyncFrequency() != null) {
                         LOGGER.info("Updating TimeSyncFrequency to {}", configuration.getTimeSyncFrequency());
@@ -244,6 +251,8 @@ public class Iec61850SetConfigurationCommand {
                         deviceMessageLog.addVariable(LogicalNode.STREET_LIGHT_CONFIGURATION, DataAttribute.CLOCK, Fc.CF,
                                 SubDataAttribute.NTP_SYNC_INTERVAL, configuration.getNtpSyncInterval().toString());
                     }
+
+                    clock.flushWrites();
                 }
 
                 // Checking to see if all network values are null, so that we
@@ -254,6 +263,7 @@ public class Iec61850SetConfigurationCommand {
                             LogicalNode.STREET_LIGHT_CONFIGURATION, DataAttribute.IP_CONFIGURATION, Fc.CF);
                     iec61850Client.readNodeDataValues(deviceConnection.getConnection().getClientAssociation(),
                             ipConfiguration.getFcmodelNode());
+                    ipConfiguration.stageWrites();
 
                     if (configuration.isDhcpEnabled() != null) {
                         LOGGER.info("Updating DhcpEnabled to {}", configuration.isDhcpEnabled());
@@ -285,6 +295,8 @@ public class Iec61850SetConfigurationCommand {
 
                     deviceMessageLog.addVariable(LogicalNode.STREET_LIGHT_CONFIGURATION, DataAttribute.IP_CONFIGURATION,
                             Fc.CF, SubDataAttribute.GATEWAY, deviceFixedIp.getGateWay());
+
+                    ipConfiguration.flushWrites();
                 }
 
                 DeviceMessageLoggingService.logMessage(deviceMessageLog, deviceConnection.getDeviceIdentification(),
@@ -103,6 +103,7 @@ public class Iec61850SetScheduleCommand {
                                 logicalNode, DataAttribute.SCHEDULE, Fc.CF);
                         iec61850Client.readNodeDataValues(deviceConnection.getConnection().getClientAssociation(),
                                 schedule.getFcmodelNode());
+                        schedule.stageWrites();
 
                         // Write the schedule entries of the switch schedule to
                         // the logical node of the schedule for the current
@@ -113,6 +114,7 @@ public class Iec61850SetScheduleCommand {
                             this.writeScheduleEntryForRelay(deviceMessageLog, scheduleEntries, logicalNode, schedule,
                                     i);
                         }
+                        schedule.flushWrites();
                     }
                     DeviceMessageLoggingService.logMessage(deviceMessageLog, deviceConnection.getDeviceIdentification(),
                             deviceConnection.getOrganisationIdentification(), false);
@@ -439,6 +441,7 @@ public class Iec61850SetScheduleCommand {
                     DataAttribute.SCHEDULE, Fc.CF);
             iec61850Client.readNodeDataValues(deviceConnection.getConnection().getClientAssociation(),
                     schedule.getFcmodelNode());
+            schedule.stageWrites();
 
             for (int i = 1; i <= MAX_NUMBER_OF_SCHEDULE_ENTRIES; i++) {
                 final String scheduleEntryName = SubDataAttribute.SCHEDULE_ENTRY.getDescription() + i;
@@ -455,6 +458,7 @@ public class Iec61850SetScheduleCommand {
                             SubDataAttribute.SCHEDULE_ENABLE, Boolean.toString(false));
                 }
             }
+            schedule.flushWrites();
         }
     }
 
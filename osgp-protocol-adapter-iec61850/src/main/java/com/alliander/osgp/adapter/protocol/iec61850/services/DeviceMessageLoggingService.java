@@ -39,7 +39,7 @@ public class DeviceMessageLoggingService {
         final Iec61850LogItemRequestMessage iec61850LogItemRequestMessage = new Iec61850LogItemRequestMessage(
                 deviceIdentification, organisationIdentification, incoming, valid, command + " - " + message, size);
 
-        LOGGER.info("Sending iec61850LogItemRequestMessage for device: {}", deviceIdentification);
+        LOGGER.debug("Queueing iec61850LogItemRequestMessage for device: {}", deviceIdentification);
         iec61850LogItemRequestMessageSender.send(iec61850LogItemRequestMessage);
     }
 
@@ -49,7 +49,7 @@ public class DeviceMessageLoggingService {
         final Iec61850LogItemRequestMessage iec61850LogItemRequestMessage = new Iec61850LogItemRequestMessage(
                 deviceIdentification, organisationIdentification, incoming, true, deviceMessageLog.getMessage(), 0);
 
-        LOGGER.info("Sending iec61850LogItemRequestMessage for device: {}", deviceIdentification);
+        LOGGER.debug("Queueing iec61850LogItemRequestMessage for device: {}", deviceIdentification);
         iec61850LogItemRequestMessageSender.send(iec61850LogItemRequestMessage);
     }
 }
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import javax.jms.JMSException;
+import javax.jms.ObjectMessage;
+
+import org.apache.activemq.command.ActiveMQObjectMessage;
+import org.junit.Test;
+
+import com.alliander.osgp.adapter.protocol.iec61850.device.DeviceResponse;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.DeviceRequestExecutor.DeviceRequest;
+import com.alliander.osgp.shared.infra.jms.MessageProcessor;
+
+public class DeviceRequestExecutorTest {
+
+    private static final String DEVICE_IDENTIFICATION = "TST-01";
+
+    private final MessageProcessor getStatusProcessor = new CoalescableMessageProcessor() {
+        @Override
+        public void processMessage(final ObjectMessage message) throws JMSException {
+            // Not executed by these tests.
+        }
+
+        @Override
+        public String getCoalescingKey(final ObjectMessage message) throws JMSException {
+            return DEVICE_IDENTIFICATION;
+        }
+
+        @Override
+        public DeviceResponse copyDeviceResponse(final DeviceResponse deviceResponse,
+                final String organisationIdentification, final String correlationUid) {
+            return deviceResponse;
+        }
+    };
+
+    private final MessageProcessor setLightProcessor = new MessageProcessor() {
+        @Override
+        public void processMessage(final ObjectMessage message) throws JMSException {
+            // Not executed by these tests.
+        }
+    };
+
+    private final DeviceRequestExecutor executor = new DeviceRequestExecutor();
+
+    @Test
+    public void testCoalesceStopsAtRequestThatCannotBeCoalesced() throws Exception {
+
+        // arrange
+        final DeviceRequest getStatus = this.createRequest(this.getStatusProcessor, "1");
+        final DeviceRequest setLight = this.createRequest(this.setLightProcessor, "2");
+        final DeviceRequest getStatusAfterSetLight = this.createRequest(this.getStatusProcessor, "3");
+        final Deque<DeviceRequest> queue = new ArrayDeque<>();
+        queue.add(setLight);
+        queue.add(getStatusAfterSetLight);
+
+        // act
+        this.executor.coalesce(getStatus, queue);
+
+        // assert
+        assertTrue(getStatus.getCoalesced().isEmpty());
+        assertEquals(this.messageIds(setLight, getStatusAfterSetLight), this.messageIds(queue));
+        assertEquals(0, this.executor.getCoalescedCount());
+    }
+
+    @Test
+    public void testCoalesceRequestsAtHeadOfQueue() throws Exception {
+
+        // arrange
+        final DeviceRequest getStatus = this.createRequest(this.getStatusProcessor, "1");
+        final DeviceRequest secondGetStatus = this.createRequest(this.getStatusProcessor, "2");
+        final DeviceRequest thirdGetStatus = this.createRequest(this.getStatusProcessor, "3");
+        final DeviceRequest setLight = this.createRequest(this.setLightProcessor, "4");
+        final DeviceRequest getStatusAfterSetLight = this.createRequest(this.getStatusProcessor, "5");
+        final Deque<DeviceRequest> queue = new ArrayDeque<>();
+        queue.add(secondGetStatus);
+        queue.add(thirdGetStatus);
+        queue.add(setLight);
+        queue.add(getStatusAfterSetLight);
+
+        // act
+        this.executor.coalesce(getStatus, queue);
+
+        // assert
+        assertEquals(this.messageIds(secondGetStatus, thirdGetStatus),
+                this.messageIds(getStatus.getCoalesced().toArray(new DeviceRequest[0])));
+        assertEquals(this.messageIds(setLight, getStatusAfterSetLight), this.messageIds(queue));
+        assertEquals(2, this.executor.getCoalescedCount());
+    }
+
+    private DeviceRequest createRequest(final MessageProcessor processor, final String messageId)
+            throws JMSException {
+        final ActiveMQObjectMessage message = new ActiveMQObjectMessage();
+        message.setJMSMessageID(messageId);
+        return new DeviceRequest(DEVICE_IDENTIFICATION, processor, message);
+    }
+
+    private List<String> messageIds(final Deque<DeviceRequest> queue) {
+        return this.messageIds(queue.toArray(new DeviceRequest[0]));
+    }
+
+    private List<String> messageIds(final DeviceRequest... requests) {
+        final List<String> messageIds = new ArrayList<>();
+        for (final DeviceRequest request : requests) {
+            messageIds.add(request.getMessageId());
+        }
+        return messageIds;
+    }
+}
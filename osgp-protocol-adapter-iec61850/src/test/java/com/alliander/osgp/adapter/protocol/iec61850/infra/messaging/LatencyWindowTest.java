@@ -0,0 +1,63 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class LatencyWindowTest {
+
+    @Test
+    public void testPercentiles() {
+
+        // arrange
+        final long[] sortedLatencies = { 10, 20, 30, 40, 50, 60, 70, 80, 90, 100 };
+
+        // act
+        final long p1 = LatencyWindow.getPercentile(sortedLatencies, 1);
+        final long p50 = LatencyWindow.getPercentile(sortedLatencies, 50);
+        final long p90 = LatencyWindow.getPercentile(sortedLatencies, 90);
+        final long p100 = LatencyWindow.getPercentile(sortedLatencies, 100);
+
+        // assert
+        assertEquals(10, p1);
+        assertEquals(50, p50);
+        assertEquals(90, p90);
+        assertEquals(100, p100);
+    }
+
+    @Test
+    public void testPercentileWithoutLatencies() {
+
+        // act
+        final long p90 = LatencyWindow.getPercentile(new long[0], 90);
+
+        // assert
+        assertEquals(0, p90);
+    }
+
+    @Test
+    public void testWindowKeepsMostRecentLatencies() {
+
+        // arrange
+        final LatencyWindow window = new LatencyWindow();
+
+        // act
+        for (int latency = 1; latency <= 2000; latency++) {
+            window.record(latency);
+        }
+        final long[] sortedLatencies = window.getSortedLatencies();
+
+        // assert
+        assertEquals(2000, window.getCount());
+        assertEquals(1024, sortedLatencies.length);
+        assertEquals(977, sortedLatencies[0]);
+        assertEquals(2000, sortedLatencies[sortedLatencies.length - 1]);
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class WeightedFairQueueTest {
+
+    @Test
+    public void testBandsGetShareInProportionToWeight() {
+
+        // arrange
+        final WeightedFairQueue<String> queue = new WeightedFairQueue<>(new int[] { 3, 1 });
+        for (int i = 0; i < 10; i++) {
+            queue.add(0, "organisation", "high" + i);
+            queue.add(1, "organisation", "low" + i);
+        }
+
+        // act
+        int high = 0;
+        int low = 0;
+        for (int i = 0; i < 8; i++) {
+            if (queue.poll().startsWith("high")) {
+                high++;
+            } else {
+                low++;
+            }
+        }
+
+        // assert
+        assertEquals(6, high);
+        assertEquals(2, low);
+        assertEquals(4, queue.size(0));
+        assertEquals(8, queue.size(1));
+    }
+
+    @Test
+    public void testOrganisationsArePolledRoundRobin() {
+
+        // arrange
+        final WeightedFairQueue<String> queue = new WeightedFairQueue<>(new int[] { 1 });
+        queue.add(0, "organisation-1", "1a");
+        queue.add(0, "organisation-1", "1b");
+        queue.add(0, "organisation-1", "1c");
+        queue.add(0, "organisation-2", "2a");
+        queue.add(0, "organisation-3", "3a");
+
+        // act
+        final List<String> polled = pollAll(queue);
+
+        // assert
+        assertEquals(Arrays.asList("1a", "2a", "3a", "1b", "1c"), polled);
+    }
+
+    @Test
+    public void testEmptyBandDoesNotKeepItsShare() {
+
+        // arrange
+        final WeightedFairQueue<String> queue = new WeightedFairQueue<>(new int[] { 1, 3 });
+        queue.add(0, "organisation", "high0");
+        queue.add(0, "organisation", "high1");
+        queue.add(1, "organisation", "low0");
+        final String first = queue.poll();
+
+        // act, the low band was selected before it became empty, which must
+        // not delay it once it has elements again
+        queue.add(1, "organisation", "low1");
+        final String second = queue.poll();
+
+        // assert
+        assertEquals("low0", first);
+        assertEquals("low1", second);
+    }
+
+    @Test
+    public void testPollOfEmptyQueue() {
+
+        // arrange
+        final WeightedFairQueue<String> queue = new WeightedFairQueue<>(new int[] { 2, 1 });
+        queue.add(1, "organisation", "low");
+
+        // act
+        final String low = queue.poll();
+        final String none = queue.poll();
+
+        // assert
+        assertEquals("low", low);
+        assertNull(none);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWeightMustBePositive() {
+        new WeightedFairQueue<String>(new int[] { 1, 0 });
+    }
+
+    private static List<String> pollAll(final WeightedFairQueue<String> queue) {
+        final List<String> polled = new ArrayList<>();
+        String element = queue.poll();
+        while (element != null) {
+            polled.add(element);
+            element = queue.poll();
+        }
+        return polled;
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares the time to encode and decode a response with power quality values
+ * with the payload codecs to Java serialization, as used for an ObjectMessage.
+ * The main method prints the encoded sizes before running the benchmarks. Run
+ * it from the test class path, or run the JMH runner on the test classes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayloadCodecBenchmark {
+
+    private static final String[] CODECS = { PayloadCodecs.JAVA_SERIALIZATION, DeflatePayloadCodec.NAME,
+            SchemaPayloadCodec.NAME };
+
+    @Param({ PayloadCodecs.JAVA_SERIALIZATION, DeflatePayloadCodec.NAME, SchemaPayloadCodec.NAME })
+    public String codecName;
+
+    /**
+     * The number of MMXU logical nodes per logical device in the response,
+     * each with 12 samples.
+     */
+    @Param({ "4", "32" })
+    public int logicalNodes;
+
+    private PayloadCodec codec;
+    private Serializable payload;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.codec = createCodec(this.codecName);
+        this.payload = createPayload(this.logicalNodes);
+        this.encoded = this.codec.encode(this.payload);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return this.codec.encode(this.payload);
+    }
+
+    @Benchmark
+    public Serializable decode() throws IOException, ClassNotFoundException {
+        return this.codec.decode(this.encoded);
+    }
+
+    public static void main(final String[] args) throws IOException, RunnerException {
+        for (final int logicalNodes : new int[] { 4, 32 }) {
+            final Serializable payload = createPayload(logicalNodes);
+            for (final String codecName : CODECS) {
+                System.out.println(String.format("%s, %d logical nodes: %d bytes", codecName, logicalNodes,
+                        createCodec(codecName).encode(payload).length));
+            }
+        }
+        new Runner(new OptionsBuilder().include(PayloadCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static Serializable createPayload(final int logicalNodes) {
+        return SchemaPayloadCodecTest.createResponseMessage(SchemaPayloadCodecTest.createPqValuesResponse(2,
+                logicalNodes, 12));
+    }
+
+    private static PayloadCodec createCodec(final String codecName) {
+        if (DeflatePayloadCodec.NAME.equals(codecName)) {
+            return new DeflatePayloadCodec();
+        }
+        if (SchemaPayloadCodec.NAME.equals(codecName)) {
+            return new SchemaPayloadCodec();
+        }
+        // The payload of an ObjectMessage.
+        return new PayloadCodec() {
+            @Override
+            public String getName() {
+                return PayloadCodecs.JAVA_SERIALIZATION;
+            }
+
+            @Override
+            public byte[] encode(final Serializable payload) throws IOException {
+                return SchemaPayloadCodecTest.serialize(payload);
+            }
+
+            @Override
+            public Serializable decode(final byte[] bytes) throws IOException, ClassNotFoundException {
+                try (final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return (Serializable) in.readObject();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+import org.osgpfoundation.osgp.dto.da.GetPQValuesResponseDto;
+import org.osgpfoundation.osgp.dto.da.iec61850.DataSampleDto;
+import org.osgpfoundation.osgp.dto.da.iec61850.LogicalDeviceDto;
+import org.osgpfoundation.osgp.dto.da.iec61850.LogicalNodeDto;
+
+import com.alliander.osgp.adapter.protocol.iec61850.infra.messaging.Iec61850LogItemRequestMessage;
+import com.alliander.osgp.dto.valueobjects.microgrids.GetDataResponseDto;
+import com.alliander.osgp.dto.valueobjects.microgrids.GetDataSystemIdentifierDto;
+import com.alliander.osgp.dto.valueobjects.microgrids.MeasurementDto;
+import com.alliander.osgp.dto.valueobjects.microgrids.ProfileDto;
+import com.alliander.osgp.dto.valueobjects.microgrids.ProfileEntryDto;
+import com.alliander.osgp.dto.valueobjects.microgrids.ReportDto;
+import com.alliander.osgp.shared.infra.jms.DeviceMessageMetadata;
+import com.alliander.osgp.shared.infra.jms.ProtocolResponseMessage;
+import com.alliander.osgp.shared.infra.jms.RequestMessage;
+import com.alliander.osgp.shared.infra.jms.ResponseMessageResultType;
+
+public class SchemaPayloadCodecTest {
+
+    private static final DateTime TIME = new DateTime(2018, 1, 1, 12, 0, DateTimeZone.UTC);
+
+    private final SchemaPayloadCodec codec = new SchemaPayloadCodec();
+
+    @Test
+    public void testProtocolResponseMessageWithPqValues() throws Exception {
+
+        // arrange
+        final ProtocolResponseMessage message = createResponseMessage(createPqValuesResponse(2, 3, 4));
+
+        // act
+        final ProtocolResponseMessage decoded = (ProtocolResponseMessage) this.roundTrip(message);
+
+        // assert
+        assertEquals(describeMessage(message), describeMessage(decoded));
+        assertEquals(describePqValues((GetPQValuesResponseDto) message.getDataObject()),
+                describePqValues((GetPQValuesResponseDto) decoded.getDataObject()));
+    }
+
+    @Test
+    public void testGetDataResponse() throws Exception {
+
+        // arrange
+        final List<MeasurementDto> measurements = Arrays.asList(new MeasurementDto(1, "ActualPower", 0, TIME, 12.5),
+                new MeasurementDto(2, "ActualPower", 3, TIME.plusMinutes(1), -1.0));
+        final List<ProfileDto> profiles = Arrays.asList(new ProfileDto(1, "Schedule",
+                Arrays.asList(new ProfileEntryDto(1, TIME, 4.0), new ProfileEntryDto(2, TIME.plusHours(1), 5.0))));
+        final GetDataResponseDto response = new GetDataResponseDto(Arrays.asList(
+                new GetDataSystemIdentifierDto(1, "RTU", measurements, profiles),
+                new GetDataSystemIdentifierDto(2, "PV", measurements)), new ReportDto(7, TIME, "RTU_REPORT"));
+
+        // act
+        final GetDataResponseDto decoded = (GetDataResponseDto) this.roundTrip(response);
+
+        // assert
+        assertEquals(describeGetData(response), describeGetData(decoded));
+    }
+
+    @Test
+    public void testGetDataResponseWithoutReport() throws Exception {
+
+        // arrange
+        final GetDataResponseDto response = new GetDataResponseDto(new ArrayList<GetDataSystemIdentifierDto>(), null);
+
+        // act
+        final GetDataResponseDto decoded = (GetDataResponseDto) this.roundTrip(response);
+
+        // assert
+        assertTrue(decoded.getGetDataSystemIdentifiers().isEmpty());
+        assertNull(decoded.getReport());
+    }
+
+    @Test
+    public void testRequestMessageWithSerializedRequest() throws Exception {
+
+        // arrange
+        final RequestMessage message = new RequestMessage("correlation-1", "organisation-1", "RTU-1", "127.0.0.1",
+                new ArrayList<>(Arrays.asList("first", "second")));
+
+        // act
+        final RequestMessage decoded = (RequestMessage) this.roundTrip(message);
+
+        // assert
+        assertEquals("correlation-1", decoded.getCorrelationUid());
+        assertEquals("organisation-1", decoded.getOrganisationIdentification());
+        assertEquals("RTU-1", decoded.getDeviceIdentification());
+        assertEquals("127.0.0.1", decoded.getIpAddress());
+        assertEquals(Arrays.asList("first", "second"), decoded.getRequest());
+    }
+
+    @Test
+    public void testLogItemRequestMessage() throws Exception {
+
+        // arrange
+        final Iec61850LogItemRequestMessage logItem = new Iec61850LogItemRequestMessage("RTU-1", "organisation-1",
+                true, false, "0x01, 0x02", "decoded message", 42);
+
+        // act
+        final Iec61850LogItemRequestMessage decoded = (Iec61850LogItemRequestMessage) this.roundTrip(logItem);
+
+        // assert
+        assertEquals("RTU-1", decoded.getDeviceIdentification());
+        assertEquals("organisation-1", decoded.getOrganisationIdentification());
+        assertTrue(decoded.isIncoming());
+        assertEquals(Boolean.FALSE, decoded.isValid());
+        assertEquals("0x01, 0x02", decoded.getEncodedMessage());
+        assertEquals("decoded message", decoded.getDecodedMessage());
+        assertEquals(42, decoded.getPayloadMessageSerializedSize());
+    }
+
+    @Test
+    public void testSchemaPayloadIsSmallerThanJavaSerialization() throws Exception {
+
+        // arrange
+        final ProtocolResponseMessage message = createResponseMessage(createPqValuesResponse(2, 8, 12));
+
+        // act
+        final int schemaSize = this.codec.encode(message).length;
+        final int javaSize = serialize(message).length;
+
+        // assert
+        assertTrue("schema: " + schemaSize + ", java: " + javaSize, schemaSize * 2 < javaSize);
+    }
+
+    private Serializable roundTrip(final Serializable payload) throws IOException, ClassNotFoundException {
+        return this.codec.decode(this.codec.encode(payload));
+    }
+
+    static ProtocolResponseMessage createResponseMessage(final Serializable dataObject) {
+        return new ProtocolResponseMessage.Builder()
+                .deviceMessageMetadata(new DeviceMessageMetadata("DA-RTU-1", "no-organisation", "no-correlationUid",
+                        "GET_POWER_QUALITY_VALUES", 4))
+                .result(ResponseMessageResultType.OK).domain("DISTRIBUTION_AUTOMATION").domainVersion("1.0")
+                .retryCount(1).dataObject(dataObject).build();
+    }
+
+    /**
+     * A response with the given number of logical devices, with the given
+     * number of MMXU logical nodes each, with the given number of samples.
+     */
+    static GetPQValuesResponseDto createPqValuesResponse(final int logicalDevices, final int logicalNodes,
+            final int samples) {
+        final List<LogicalDeviceDto> logicalDeviceDtos = new ArrayList<>();
+        for (int i = 1; i <= logicalDevices; i++) {
+            final List<LogicalNodeDto> logicalNodeDtos = new ArrayList<>();
+            for (int j = 1; j <= logicalNodes; j++) {
+                final List<DataSampleDto> dataSamples = new ArrayList<>();
+                for (int k = 1; k <= samples; k++) {
+                    dataSamples.add(new DataSampleDto("PhV.phs" + k + ".cVal.mag.f",
+                            new Date(TIME.getMillis() + k * 1000), new BigDecimal("230." + k)));
+                }
+                logicalNodeDtos.add(new LogicalNodeDto("MMXU" + j, dataSamples));
+            }
+            logicalDeviceDtos.add(new LogicalDeviceDto("DA_RTU" + i + "PQ", logicalNodeDtos));
+        }
+        return new GetPQValuesResponseDto(logicalDeviceDtos);
+    }
+
+    static byte[] serialize(final Serializable payload) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(payload);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String describeMessage(final ProtocolResponseMessage message) {
+        return message.getDeviceIdentification() + "|" + message.getOrganisationIdentification() + "|"
+                + message.getCorrelationUid() + "|" + message.getMessageType() + "|" + message.getMessagePriority()
+                + "|" + message.getDomain() + "|" + message.getDomainVersion() + "|" + message.getResult() + "|"
+                + message.getOsgpException() + "|" + message.isScheduled() + "|" + message.getRetryCount();
+    }
+
+    private static List<String> describePqValues(final GetPQValuesResponseDto response) {
+        final List<String> descriptions = new ArrayList<>();
+        for (final LogicalDeviceDto logicalDevice : response.getLogicalDevices()) {
+            for (final LogicalNodeDto logicalNode : logicalDevice.getLogicalNodes()) {
+                for (final DataSampleDto dataSample : logicalNode.getDataSamples()) {
+                    descriptions.add(logicalDevice.getName() + "/" + logicalNode.getName() + "/"
+                            + dataSample.getType() + "=" + dataSample.getValue() + "@"
+                            + dataSample.getTimestamp().getTime());
+                }
+            }
+        }
+        return descriptions;
+    }
+
+    private static List<String> describeGetData(final GetDataResponseDto response) {
+        final List<String> descriptions = new ArrayList<>();
+        for (final GetDataSystemIdentifierDto system : response.getGetDataSystemIdentifiers()) {
+            for (final MeasurementDto measurement : system.getMeasurements()) {
+                descriptions.add(system.getId() + "/" + system.getSystemType() + "/" + measurement.getId() + "/"
+                        + measurement.getNode() + "=" + measurement.getValue() + "/" + measurement.getQualifier()
+                        + "@" + measurement.getTime());
+            }
+            if (system.getProfiles() != null) {
+                for (final ProfileDto profile : system.getProfiles()) {
+                    for (final ProfileEntryDto profileEntry : profile.getProfileEntries()) {
+                        descriptions.add(system.getId() + "/" + profile.getId() + "/" + profile.getNode() + "/"
+                                + profileEntry.getId() + "=" + profileEntry.getValue() + "@"
+                                + profileEntry.getTime());
+                    }
+                }
+            }
+        }
+        final ReportDto report = response.getReport();
+        descriptions.add(report.getSequenceNumber() + "/" + report.getTimeStamp() + "/" + report.getReportId());
+        return descriptions;
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.helper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void testBackoffIncreasesUpToMaxBackoff() {
+
+        // arrange
+        final RetryPolicy retryPolicy = RetryPolicy.newBuilder().maxRetries(10).initialBackoff(100)
+                .backoffMultiplier(2).maxBackoff(1000).build();
+
+        // act
+        final long[] backoffs = new long[6];
+        for (int retry = 1; retry <= backoffs.length; retry++) {
+            backoffs[retry - 1] = retryPolicy.getBackoff(retry);
+        }
+
+        // assert
+        assertEquals(100, backoffs[0]);
+        assertEquals(200, backoffs[1]);
+        assertEquals(400, backoffs[2]);
+        assertEquals(800, backoffs[3]);
+        assertEquals(1000, backoffs[4]);
+        assertEquals(1000, backoffs[5]);
+    }
+
+    @Test
+    public void testBackoffWithJitter() {
+
+        // arrange
+        final RetryPolicy retryPolicy = RetryPolicy.newBuilder().initialBackoff(1000).backoffMultiplier(2)
+                .maxBackoff(1000).jitterPercentage(10).build();
+
+        for (int i = 0; i < 100; i++) {
+            // act
+            final long backoff = retryPolicy.getBackoff(3);
+
+            // assert
+            assertTrue("backoff: " + backoff, backoff >= 900 && backoff <= 1100);
+        }
+    }
+
+    @Test
+    public void testRetryAllowedWithinMaxRetriesAndMaxElapsedTime() {
+
+        // arrange
+        final RetryPolicy retryPolicy = RetryPolicy.newBuilder().maxRetries(3).initialBackoff(100)
+                .maxBackoff(100).maxElapsedTime(5000).build();
+
+        // act
+        final boolean lastRetry = retryPolicy.isRetryAllowed(3, 1000, 100);
+        final boolean tooManyRetries = retryPolicy.isRetryAllowed(4, 1000, 100);
+        final boolean tooLate = retryPolicy.isRetryAllowed(2, 4950, 100);
+
+        // assert
+        assertTrue(lastRetry);
+        assertFalse(tooManyRetries);
+        assertFalse(tooLate);
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openmuc.openiec61850.Fc;
+import org.openmuc.openiec61850.FcModelNode;
+import org.osgpfoundation.osgp.dto.da.iec61850.LogicalDeviceDto;
+
+import com.alliander.osgp.adapter.protocol.iec61850.exceptions.ProtocolAdapterException;
+
+/**
+ * Compares the translation of PQ reports by the DA RTU event listener, which
+ * reuses a translation plan per data set layout, to the translation visiting
+ * every member of every report. Run the main method from the test class path,
+ * or run the JMH runner on the test classes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Iec61850ClientDaRTUEventListenerBenchmark {
+
+    /**
+     * The number of MMXU logical nodes in the report, each with a total
+     * measurement and three phase measurements.
+     */
+    @Param({ "4", "32" })
+    public int logicalNodes;
+
+    private String layout;
+    private List<FcModelNode> dataSetMembers;
+    private Iec61850ClientDaRTUEventListener listener;
+
+    @Setup
+    public void setUp() throws ProtocolAdapterException {
+        this.dataSetMembers = new ArrayList<>();
+        for (int i = 1; i <= this.logicalNodes; i++) {
+            final String logicalNode = "DA_RTU1PQ/MMXU" + i;
+            this.dataSetMembers.add(Iec61850ClientDaRTUEventListenerTest.totalMeasurement(logicalNode + ".TotW"));
+            this.dataSetMembers.add(Iec61850ClientDaRTUEventListenerTest.dataObject(logicalNode + ".PhV", Fc.MX,
+                    Iec61850ClientDaRTUEventListenerTest.singleMeasurement(logicalNode + ".PhV.phsA"),
+                    Iec61850ClientDaRTUEventListenerTest.singleMeasurement(logicalNode + ".PhV.phsB"),
+                    Iec61850ClientDaRTUEventListenerTest.singleMeasurement(logicalNode + ".PhV.phsC")));
+        }
+        Iec61850ClientDaRTUEventListenerTest.setValues(this.dataSetMembers, 230.0f, new Date());
+        this.layout = "DA_RTU1PQ/LLN0.PQDataSet" + this.logicalNodes;
+        this.listener = new Iec61850ClientDaRTUEventListener("DA-RTU-1", null, null, null);
+    }
+
+    @Benchmark
+    public List<LogicalDeviceDto> translateWithPlan() {
+        return this.listener.translate(this.layout, this.dataSetMembers);
+    }
+
+    @Benchmark
+    public List<LogicalDeviceDto> translateDirectly() {
+        return Iec61850ClientDaRTUEventListenerTest.translateDirectly(this.dataSetMembers);
+    }
+
+    public static void main(final String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(Iec61850ClientDaRTUEventListenerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,223 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+import org.openmuc.openiec61850.BdaFloat32;
+import org.openmuc.openiec61850.BdaTimestamp;
+import org.openmuc.openiec61850.ConstructedDataAttribute;
+import org.openmuc.openiec61850.Fc;
+import org.openmuc.openiec61850.FcDataObject;
+import org.openmuc.openiec61850.FcModelNode;
+import org.openmuc.openiec61850.ModelNode;
+import org.openmuc.openiec61850.ObjectReference;
+import org.osgpfoundation.osgp.dto.da.iec61850.DataSampleDto;
+import org.osgpfoundation.osgp.dto.da.iec61850.LogicalDeviceDto;
+import org.osgpfoundation.osgp.dto.da.iec61850.LogicalNodeDto;
+
+public class Iec61850ClientDaRTUEventListenerTest {
+
+    private static final String LAYOUT = "DA_RTU1PQ/LLN0.PQDataSet[true, true, true, true, true]";
+
+    @Test
+    public void testPlanBasedTranslationEqualsDirectTranslation() throws Exception {
+
+        // arrange
+        final List<FcModelNode> dataSetMembers = createPqReportMembers();
+        setValues(dataSetMembers, 1.0f, new Date(1514764800000L));
+        final Iec61850ClientDaRTUEventListener listener = new Iec61850ClientDaRTUEventListener("DA-RTU-1", null,
+                null, null);
+
+        // act
+        final List<LogicalDeviceDto> translated = listener.translate(LAYOUT, dataSetMembers);
+
+        // assert
+        assertEquals(describe(translateDirectly(dataSetMembers)), describe(translated));
+        assertEquals(Arrays.asList("DA_RTU1PQ/MMXU1/TotW.mag.f", "DA_RTU1PQ/MMXU1/PhV.phsA.cVal.mag.f",
+                "DA_RTU1PQ/MMXU1/PhV.phsB.cVal.mag.f", "DA_RTU1PQ/MMXU1/Hz.mag.f", "DA_RTU1MEAS/MMXU2/TotVA.mag.f"),
+                describeTypes(translated));
+    }
+
+    @Test
+    public void testPlanIsReusedForNextReportWithSameLayout() throws Exception {
+
+        // arrange
+        final List<FcModelNode> dataSetMembers = createPqReportMembers();
+        final Iec61850ClientDaRTUEventListener listener = new Iec61850ClientDaRTUEventListener("DA-RTU-1", null,
+                null, null);
+        setValues(dataSetMembers, 1.0f, new Date(1514764800000L));
+        listener.translate(LAYOUT, dataSetMembers);
+
+        // act
+        setValues(dataSetMembers, 231.456f, new Date(1514764860000L));
+        final List<LogicalDeviceDto> translated = listener.translate(LAYOUT, dataSetMembers);
+
+        // assert
+        assertEquals(describe(translateDirectly(dataSetMembers)), describe(translated));
+    }
+
+    /**
+     * The members of a sample PQ report, with measurements of two logical
+     * devices, a member that is not a measurement, and a measurement of the
+     * first logical node after one of the second logical device.
+     */
+    private static List<FcModelNode> createPqReportMembers() {
+        final List<FcModelNode> members = new ArrayList<>();
+        members.add(totalMeasurement("DA_RTU1PQ/MMXU1.TotW"));
+        members.add(dataObject("DA_RTU1PQ/MMXU1.PhV", Fc.MX, singleMeasurement("DA_RTU1PQ/MMXU1.PhV.phsA"),
+                singleMeasurement("DA_RTU1PQ/MMXU1.PhV.phsB")));
+        members.add(dataObject("DA_RTU1PQ/LLN0.Health", Fc.ST,
+                new BdaTimestamp(new ObjectReference("DA_RTU1PQ/LLN0.Health.t"), Fc.ST, "", false, false)));
+        members.add(totalMeasurement("DA_RTU1MEAS/MMXU2.TotVA"));
+        members.add(totalMeasurement("DA_RTU1PQ/MMXU1.Hz"));
+        return members;
+    }
+
+    static FcDataObject totalMeasurement(final String reference) {
+        return dataObject(reference, Fc.MX, constructed(reference + ".mag", float32(reference + ".mag.f")),
+                timestamp(reference + ".t"));
+    }
+
+    static FcDataObject singleMeasurement(final String reference) {
+        return dataObject(reference, Fc.MX,
+                constructed(reference + ".cVal",
+                        constructed(reference + ".cVal.mag", float32(reference + ".cVal.mag.f"))),
+                timestamp(reference + ".t"));
+    }
+
+    static FcDataObject dataObject(final String reference, final Fc fc, final FcModelNode... children) {
+        return new FcDataObject(new ObjectReference(reference), fc, Arrays.asList(children));
+    }
+
+    private static ConstructedDataAttribute constructed(final String reference, final FcModelNode... children) {
+        return new ConstructedDataAttribute(new ObjectReference(reference), Fc.MX, Arrays.asList(children));
+    }
+
+    private static BdaFloat32 float32(final String reference) {
+        return new BdaFloat32(new ObjectReference(reference), Fc.MX, "", false, false);
+    }
+
+    private static BdaTimestamp timestamp(final String reference) {
+        return new BdaTimestamp(new ObjectReference(reference), Fc.MX, "", false, false);
+    }
+
+    /**
+     * Gives every float of the members a different value, starting at the
+     * given value, and every timestamp the given date.
+     */
+    static void setValues(final List<? extends ModelNode> nodes, final float value, final Date date) {
+        float next = value;
+        for (final ModelNode node : nodes) {
+            for (final ModelNode leaf : node.getBasicDataAttributes()) {
+                if (leaf instanceof BdaFloat32) {
+                    ((BdaFloat32) leaf).setFloat(next);
+                    next += 1.5f;
+                } else if (leaf instanceof BdaTimestamp) {
+                    ((BdaTimestamp) leaf).setDate(date);
+                }
+            }
+        }
+    }
+
+    /**
+     * The translation of the listener before translation plans were
+     * introduced, visiting every member of every report.
+     */
+    static List<LogicalDeviceDto> translateDirectly(final List<FcModelNode> dataSetMembers) {
+        final List<String> logicalDeviceNames = new ArrayList<>();
+        final List<List<String>> logicalNodeNames = new ArrayList<>();
+        final List<List<List<DataSampleDto>>> dataSamples = new ArrayList<>();
+        for (final FcModelNode member : dataSetMembers) {
+            if (member.getFc() != Fc.MX) {
+                continue;
+            }
+            int logicalDevice = logicalDeviceNames.indexOf(member.getReference().get(0));
+            if (logicalDevice == -1) {
+                logicalDevice = logicalDeviceNames.size();
+                logicalDeviceNames.add(member.getReference().get(0));
+                logicalNodeNames.add(new ArrayList<String>());
+                dataSamples.add(new ArrayList<List<DataSampleDto>>());
+            }
+            int logicalNode = logicalNodeNames.get(logicalDevice).indexOf(member.getReference().get(1));
+            if (logicalNode == -1) {
+                logicalNode = logicalNodeNames.get(logicalDevice).size();
+                logicalNodeNames.get(logicalDevice).add(member.getReference().get(1));
+                dataSamples.get(logicalDevice).add(new ArrayList<DataSampleDto>());
+            }
+            final List<DataSampleDto> samples = dataSamples.get(logicalDevice).get(logicalNode);
+
+            if (member.getChild("mag") != null && member.getChild("mag").getChild("f") != null) {
+                final BdaFloat32 totalMeasurement = (BdaFloat32) member.getChild("mag").getChild("f");
+                String type = member.getName();
+                type += "." + totalMeasurement.getParent().getName() + "." + totalMeasurement.getName();
+                samples.add(new DataSampleDto(type, ((BdaTimestamp) member.getChild("t")).getDate(),
+                        new BigDecimal(totalMeasurement.getFloat(), new MathContext(3, RoundingMode.HALF_EVEN))));
+                continue;
+            }
+            for (final ModelNode childNode : member.getChildren()) {
+                if (childNode.getChild("cVal") == null || childNode.getChild("cVal").getChild("mag") == null
+                        || childNode.getChild("cVal").getChild("mag").getChild("f") == null) {
+                    continue;
+                }
+                final BdaFloat32 singleMeasurement = (BdaFloat32) childNode.getChild("cVal").getChild("mag")
+                        .getChild("f");
+                String type = member.getName() + "." + childNode.getName();
+                type += "." + singleMeasurement.getParent().getParent().getName() + "."
+                        + singleMeasurement.getParent().getName() + "." + singleMeasurement.getName();
+                samples.add(new DataSampleDto(type, ((BdaTimestamp) childNode.getChild("t")).getDate(),
+                        new BigDecimal(singleMeasurement.getFloat(), new MathContext(3, RoundingMode.HALF_EVEN))));
+            }
+        }
+
+        final List<LogicalDeviceDto> logicalDeviceDtos = new ArrayList<>();
+        for (int i = 0; i < logicalDeviceNames.size(); i++) {
+            final List<LogicalNodeDto> logicalNodeDtos = new ArrayList<>();
+            for (int j = 0; j < logicalNodeNames.get(i).size(); j++) {
+                logicalNodeDtos.add(new LogicalNodeDto(logicalNodeNames.get(i).get(j), dataSamples.get(i).get(j)));
+            }
+            logicalDeviceDtos.add(new LogicalDeviceDto(logicalDeviceNames.get(i), logicalNodeDtos));
+        }
+        return logicalDeviceDtos;
+    }
+
+    private static List<String> describe(final List<LogicalDeviceDto> logicalDevices) {
+        final List<String> descriptions = new ArrayList<>();
+        for (final LogicalDeviceDto logicalDevice : logicalDevices) {
+            for (final LogicalNodeDto logicalNode : logicalDevice.getLogicalNodes()) {
+                for (final DataSampleDto dataSample : logicalNode.getDataSamples()) {
+                    descriptions.add(logicalDevice.getName() + "/" + logicalNode.getName() + "/"
+                            + dataSample.getType() + "=" + dataSample.getValue() + "@"
+                            + dataSample.getTimestamp().getTime());
+                }
+            }
+        }
+        return descriptions;
+    }
+
+    private static List<String> describeTypes(final List<LogicalDeviceDto> logicalDevices) {
+        final List<String> types = new ArrayList<>();
+        for (final LogicalDeviceDto logicalDevice : logicalDevices) {
+            for (final LogicalNodeDto logicalNode : logicalDevice.getLogicalNodes()) {
+                for (final DataSampleDto dataSample : logicalNode.getDataSamples()) {
+                    types.add(logicalDevice.getName() + "/" + logicalNode.getName() + "/" + dataSample.getType());
+                }
+            }
+        }
+        return types;
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright 2018 Smart Society Services B.V.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except in compliance with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ */
+package com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting.Iec61850ReportSequenceTracker.ReportSequence;
+import com.alliander.osgp.adapter.protocol.iec61850.infra.networking.reporting.Iec61850ReportSequenceTracker.Sequence;
+
+public class ReportSequenceTest {
+
+    private final ReportSequence reportSequence = new ReportSequence();
+
+    @Test
+    public void testReportsInSequence() {
+
+        // act
+        final Sequence first = this.next(10);
+        final Sequence second = this.next(11);
+        final Sequence duplicate = this.next(11);
+
+        // assert
+        assertEquals(Sequence.FIRST, first);
+        assertEquals(Sequence.IN_SEQUENCE, second);
+        assertEquals(Sequence.DUPLICATE, duplicate);
+    }
+
+    @Test
+    public void testSegmentsOfReport() {
+
+        // arrange
+        this.next(10);
+
+        // act
+        final Sequence nextSegment = this.reportSequence.next(10, 1, false);
+        final Sequence duplicateSegment = this.reportSequence.next(10, 1, false);
+
+        // assert
+        assertEquals(Sequence.IN_SEQUENCE, nextSegment);
+        assertEquals(Sequence.DUPLICATE, duplicateSegment);
+    }
+
+    @Test
+    public void testReportsAfterGapUntilMissingReportsAreReceived() {
+
+        // arrange
+        this.next(10);
+
+        // act
+        final int missing = this.reportSequence.getMissing(13);
+        final Sequence gap = this.next(13);
+        final Sequence afterGap = this.next(14);
+
+        // assert
+        assertEquals(2, missing);
+        assertEquals(Sequence.GAP, gap);
+        assertEquals(Sequence.AFTER_GAP, afterGap);
+    }
+
+    @Test
+    public void testResentReportsAreNotDuplicates() {
+
+        // arrange
+        this.next(10);
+        this.next(13);
+        this.next(14);
+
+        // act, a report queued before the resync, followed by the resent
+        // reports after the last stored report 10
+        final Sequence queued = this.next(15);
+        final Sequence firstResent = this.next(11);
+        final Sequence secondResent = this.next(12);
+        final Sequence thirdResent = this.next(13);
+        final Sequence duplicate = this.next(12);
+
+        // assert
+        assertEquals(Sequence.AFTER_GAP, queued);
+        assertEquals(Sequence.IN_SEQUENCE, firstResent);
+        assertEquals(Sequence.IN_SEQUENCE, secondResent);
+        assertEquals(Sequence.IN_SEQUENCE, thirdResent);
+        assertEquals(Sequence.DUPLICATE, duplicate);
+    }
+
+    @Test
+    public void testAcceptLossAfterFailedResync() {
+
+        // arrange
+        this.next(10);
+        this.next(13);
+
+        // act
+        final int lost = this.reportSequence.acceptLoss();
+        final Sequence next = this.next(14);
+        final Sequence late = this.next(12);
+
+        // assert
+        assertEquals(2, lost);
+        assertEquals(Sequence.IN_SEQUENCE, next);
+        assertEquals(Sequence.DUPLICATE, late);
+    }
+
+    @Test
+    public void testMissingReportsTakenAsLostAfterMaxReportsAfterGap() {
+
+        // arrange
+        this.next(10);
+        this.next(13);
+        for (int sqNum = 14; sqNum < 112; sqNum++) {
+            this.next(sqNum);
+        }
+
+        // act
+        final Sequence restarted = this.next(112);
+        final int lost = this.reportSequence.takeLostReports();
+        final Sequence next = this.next(113);
+
+        // assert
+        assertEquals(Sequence.FIRST, restarted);
+        assertEquals(2, lost);
+        assertEquals(Sequence.IN_SEQUENCE, next);
+        assertEquals(0, this.reportSequence.takeLostReports());
+    }
+
+    @Test
+    public void testBufferOverflowRestartsSequence() {
+
+        // arrange
+        this.next(10);
+
+        // act
+        final Sequence overflow = this.reportSequence.next(20, null, true);
+        final Sequence next = this.next(21);
+
+        // assert
+        assertEquals(Sequence.FIRST, overflow);
+        assertEquals(Sequence.IN_SEQUENCE, next);
+    }
+
+    @Test
+    public void testWrapAroundOfSqNum() {
+
+        // arrange
+        this.next(65534);
+        this.next(65535);
+
+        // act
+        final Sequence wrapped = this.next(0);
+        final Sequence next = this.next(1);
+
+        // assert
+        assertEquals(Sequence.FIRST, wrapped);
+        assertEquals(Sequence.IN_SEQUENCE, next);
+    }
+
+    @Test
+    public void testWrapAroundAfterGap() {
+
+        // arrange
+        this.next(10);
+        this.next(65534);
+        this.next(65535);
+
+        // act
+        final Sequence wrapped = this.next(0);
+
+        // assert
+        assertEquals(Sequence.FIRST, wrapped);
+    }
+
+    private Sequence next(final int sqNum) {
+        return this.reportSequence.next(sqNum, null, false);
+    }
+}